@@ -25,6 +25,7 @@ include(":testng-bom")
 include(":testng-collections")
 include(":testng-core")
 include(":testng-core-api")
+include(":testng-index-processor")
 include(":testng-reflection-utils")
 include(":testng-runner-api")
 include(":testng-runner-junit4")
@@ -152,6 +152,8 @@ public class TestNGAntTask extends Task {
   protected String m_parallelMode;
   protected String m_threadCount;
   protected String m_dataproviderthreadCount;
+  protected String m_parallelExecutor;
+  protected String m_shard;
   protected String m_configFailurePolicy;
   protected Boolean m_randomizeSuites;
   public String m_useDefaultListeners;
@@ -188,6 +190,14 @@ public class TestNGAntTask extends Task {
     m_dataproviderthreadCount = dataproviderthreadCount;
   }
 
+  public void setParallelExecutor(String parallelExecutor) {
+    m_parallelExecutor = parallelExecutor;
+  }
+
+  public void setShard(String shard) {
+    m_shard = shard;
+  }
+
   public void setUseDefaultListeners(String f) {
     m_useDefaultListeners = f;
   }
@@ -431,6 +441,10 @@ public class TestNGAntTask extends Task {
 
   private Integer m_suiteThreadPoolSize;
 
+  private Integer m_sharedThreadPoolSize;
+
+  private Integer m_forkCount;
+
   private String m_xmlPathInJar;
 
   public void setVerbose(Integer verbose) {
@@ -453,6 +467,14 @@ public class TestNGAntTask extends Task {
     m_suiteThreadPoolSize = n;
   }
 
+  public void setSharedThreadPoolSize(Integer n) {
+    m_sharedThreadPoolSize = n;
+  }
+
+  public void setForkCount(Integer n) {
+    m_forkCount = n;
+  }
+
   public void setListeners(String listeners) {
     StringTokenizer st = new StringTokenizer(listeners, " ,");
     while (st.hasMoreTokens()) {
@@ -575,12 +597,16 @@ public class TestNGAntTask extends Task {
     addBooleanIfTrue(argv, CommandLineArgs.RANDOMIZE_SUITES, m_randomizeSuites);
     addStringIfNotNull(argv, CommandLineArgs.THREAD_COUNT, m_threadCount);
     addStringIfNotNull(argv, CommandLineArgs.DATA_PROVIDER_THREAD_COUNT, m_dataproviderthreadCount);
+    addStringIfNotNull(argv, CommandLineArgs.PARALLEL_EXECUTOR, m_parallelExecutor);
+    addStringIfNotNull(argv, CommandLineArgs.SHARD, m_shard);
     addStringIfNotBlank(argv, CommandLineArgs.SUITE_NAME, m_suiteName);
     addStringIfNotBlank(argv, CommandLineArgs.TEST_NAME, m_testName);
     addStringIfNotBlank(argv, CommandLineArgs.TEST_NAMES, m_testNames);
     addStringIfNotBlank(argv, CommandLineArgs.METHODS, m_methods);
     addReporterConfigs(argv);
     addIntegerIfNotNull(argv, CommandLineArgs.SUITE_THREAD_POOL_SIZE, m_suiteThreadPoolSize);
+    addIntegerIfNotNull(argv, CommandLineArgs.SHARED_THREAD_POOL_SIZE, m_sharedThreadPoolSize);
+    addIntegerIfNotNull(argv, CommandLineArgs.FORK_COUNT, m_forkCount);
     addStringIfNotNull(argv, CommandLineArgs.XML_PATH_IN_JAR, m_xmlPathInJar);
     addXmlFiles(argv);
     return argv;
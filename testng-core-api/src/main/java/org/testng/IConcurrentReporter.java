@@ -0,0 +1,18 @@
+package org.testng;
+
+/**
+ * A reporter that can generate its report at the same time as the other reporters. Its {@link
+ * #generateReport(java.util.List, java.util.List, String)} method is then invoked on a thread of a
+ * pool. Once all the concurrent reporters are done, the reporters that don't implement this
+ * interface generate their reports one after the other on the thread that ran TestNG.
+ *
+ * <p>Implementing it declares that the reporter only reads the results, and that it doesn't write
+ * to the files the other reporters write to.
+ *
+ * <p>Only the classes that declare this interface themselves are concurrent: the subclasses of a
+ * concurrent reporter generate their reports on the thread that ran TestNG, unless they declare
+ * it again.
+ *
+ * @see org.testng.internal.RuntimeBehavior#getReportThreadCount()
+ */
+public interface IConcurrentReporter extends IReporter {}
@@ -0,0 +1,24 @@
+package org.testng;
+
+/**
+ * Provides how long test methods are expected to run, typically based on how long they took during
+ * previous runs. Implementations of this TestNG listener can be wired in via the <code>@Listeners
+ * </code> annotation or via the <code>listeners</code> tag in the suite file or via a Service
+ * Provider Interface mechanism.
+ *
+ * <p>When such a provider is registered, the methods of a <code>&lt;test&gt;</code> running in
+ * parallel are dispatched longest remaining dependency chain first (the priorities of the methods
+ * still take precedence), so that the slowest chains don't start last.
+ */
+public interface IDurationProvider extends ITestNGListener {
+
+  /** The value returned for the methods whose duration isn't known. */
+  long UNKNOWN = -1;
+
+  /**
+   * @param method the test method
+   * @return the time all the invocations of the method are expected to take, in milliseconds, or
+   *     {@link #UNKNOWN}.
+   */
+  long getExpectedDuration(ITestNGMethod method);
+}
@@ -1,11 +1,11 @@
 package org.testng;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Vector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.testng.collections.Lists;
-import org.testng.collections.Maps;
+import org.testng.internal.OutputStore;
+import org.testng.internal.RuntimeBehavior;
 import org.testng.internal.Utils;
 import org.testng.util.Strings;
 
@@ -15,10 +15,14 @@ import org.testng.util.Strings;
  * <br>
  * <b>Implementation details</b> <br>
  * <br>
- * The reporter keeps a combined output of strings (in m_output) and also a record of which method
- * output which line. In order to do this, callers specify what the current method is with
- * setCurrentTestResult() and the Reporter maintains a mapping of each test result with a list of
- * integers. These integers are indices in the combined output (avoids duplicating the output).
+ * The output is kept in an {@link OutputStore}, by test result: callers specify what the current
+ * method is with setCurrentTestResult(), and each thread appends the lines it logs for a result to
+ * a buffer of its own, so that the threads logging at the same time never wait for each other. The
+ * lines logged by a thread before it has a current test result belong to no result: they are only
+ * part of {@link #getOutput()}, where they're added when the thread next logs for a result. Once
+ * the output kept in memory exceeds the number of bytes given by the <code>
+ * testng.reporter.output.threshold</code> system property, the rest of it is written to disk. The
+ * property is read when the output is created, at startup and when it's cleared.
  *
  * <p>Created on Nov 2, 2005
  *
@@ -31,28 +35,38 @@ public class Reporter {
   private static final ThreadLocal<ITestResult> m_currentTestResult =
       new InheritableThreadLocal<>();
 
-  /** All output logged in a sequential order. */
-  private static final List<String> m_output = new Vector<>();
+  private static volatile OutputStore m_store = newStore();
 
-  private static final Map<String, List<Integer>> m_methodOutputMap = Maps.newHashMap();
+  // The buffer the current thread appends the output of its current test result to. It isn't
+  // inherited, since only the thread that created a buffer may append to it.
+  private static final ThreadLocal<OutputStore.Writer> m_writer = new ThreadLocal<>();
 
   private static boolean m_escapeHtml = false;
   // This variable is responsible for persisting all output that is yet to be associated with any
-  // valid TestResult objects.
-  private static final ThreadLocal<List<String>> m_orphanedOutput = new InheritableThreadLocal<>();
+  // valid TestResult objects. It may be shared with the threads spawned by the test code.
+  private static final ThreadLocal<Queue<String>> m_orphanedOutput = new InheritableThreadLocal<>();
 
   public static void setCurrentTestResult(ITestResult m) {
     m_currentTestResult.set(m);
   }
 
+  /**
+   * @return a copy of all the output generated so far, in the order it was logged, which the
+   *     output logged afterwards doesn't change
+   */
   public static List<String> getOutput() {
-    return m_output;
+    return m_store.getOutput();
   }
 
   /** Erase the content of all the output generated so far. */
   public static void clear() {
-    m_methodOutputMap.clear();
-    m_output.clear();
+    OutputStore store = m_store;
+    m_store = newStore();
+    store.close();
+  }
+
+  private static OutputStore newStore() {
+    return new OutputStore(RuntimeBehavior.getReporterOutputThreshold());
   }
 
   /** @return If true, use HTML entities for special HTML characters (&lt;, &gt;, &amp;, ...). */
@@ -68,36 +82,40 @@ public class Reporter {
     m_escapeHtml = escapeHtml;
   }
 
-  private static synchronized void log(String s, ITestResult m) {
+  private static void log(String s, ITestResult m) {
     // Escape for the HTML reports.
     if (m_escapeHtml) {
       s = Strings.escapeHtml(s);
     }
 
     if (m == null) {
-      // Persist the output temporarily into a Threadlocal String list.
+      // Persist the output temporarily into a Threadlocal String queue.
       if (m_orphanedOutput.get() == null) {
-        m_orphanedOutput.set(new ArrayList<>());
+        m_orphanedOutput.set(new ConcurrentLinkedQueue<>());
       }
       m_orphanedOutput.get().add(s);
       return;
     }
 
-    // Synchronization needed to ensure the line number and m_output are updated atomically.
-    int n = getOutput().size();
-
-    List<Integer> lines = m_methodOutputMap.computeIfAbsent(m.id(), k -> Lists.newArrayList());
+    String id = m.id();
+    OutputStore store = m_store;
+    OutputStore.Writer writer = m_writer.get();
+    if (writer == null || !writer.isFor(store, id)) {
+      writer = store.newWriter(id);
+      m_writer.set(writer);
+    }
 
     // Check if there was already some orphaned output for the current thread.
-    if (m_orphanedOutput.get() != null) {
-      n = n + m_orphanedOutput.get().size();
-      getOutput().addAll(m_orphanedOutput.get());
-      // Since we have already added all of the orphaned output to the current
-      // TestResult, let's clear it off.
+    Queue<String> orphanedOutput = m_orphanedOutput.get();
+    if (orphanedOutput != null) {
+      // It's only part of the whole output, ahead of the line of the current TestResult.
+      OutputStore.Writer orphans = store.newUnattributedWriter();
+      for (String line = orphanedOutput.poll(); line != null; line = orphanedOutput.poll()) {
+        orphans.append(line);
+      }
       m_orphanedOutput.remove();
     }
-    lines.add(n);
-    getOutput().add(s);
+    writer.append(s);
   }
 
   /**
@@ -158,20 +176,12 @@ public class Reporter {
     return m_currentTestResult.get();
   }
 
-  public static synchronized List<String> getOutput(ITestResult tr) {
-    List<String> result = Lists.newArrayList();
+  public static List<String> getOutput(ITestResult tr) {
     if (tr == null) {
       // Guard against a possible NPE in scenarios wherein the test result object itself could be a
       // null value.
-      return result;
+      return Lists.newArrayList();
     }
-    List<Integer> lines = m_methodOutputMap.get(tr.id());
-    if (lines != null) {
-      for (Integer n : lines) {
-        result.add(getOutput().get(n));
-      }
-    }
-
-    return result;
+    return m_store.getOutput(tr.id());
   }
 }
@@ -0,0 +1,252 @@
+package org.testng.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.testng.collections.Lists;
+import org.testng.log4testng.Logger;
+
+/**
+ * What {@link PackageUtils} finds in the jars and the directories it scans: the classes of a jar,
+ * and the classes and sub-directories of a directory. A jar is scanned again when its size or its
+ * modification time changes, and a directory when its modification time does, which is when a file
+ * is added to it or removed from it.
+ *
+ * <p>The index can be kept in a file between runs (see {@link RuntimeBehavior#getScanIndexFile()}),
+ * in which case the jars and the directories that didn't change aren't even opened. The entries
+ * that were modified in the last seconds before they were scanned aren't stored, since a change
+ * within the same second wouldn't be noticed.
+ */
+public final class ClasspathIndex {
+
+  private static final Logger LOGGER = Logger.getLogger(ClasspathIndex.class);
+
+  private static final int MAGIC = 0x54494458; // "TIDX"
+  private static final int VERSION = 1;
+  /** The resolution of the modification times of some file systems. */
+  private static final long RACY_MILLIS = 2_000;
+
+  private static ClasspathIndex instance;
+
+  /** The file the index is kept in, or null if it's only kept in memory. */
+  private final File m_file;
+
+  private final Map<String, Entry> m_entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean m_changed = new AtomicBoolean();
+  private final AtomicInteger m_scanCount = new AtomicInteger();
+
+  private ClasspathIndex(File file) {
+    m_file = file;
+  }
+
+  /**
+   * @return the index used by {@link PackageUtils}, kept in the file named by the <code>
+   *     testng.scan.index</code> system property if it's set
+   */
+  public static synchronized ClasspathIndex getInstance() {
+    String fileName = RuntimeBehavior.getScanIndexFile();
+    File file = fileName == null ? null : new File(fileName);
+    if (instance == null || !Objects.equals(instance.m_file, file)) {
+      instance = open(file);
+    }
+    return instance;
+  }
+
+  /**
+   * @param file the file the index is kept in, which doesn't need to exist, or null to only keep
+   *     it in memory
+   * @return the index stored in the file, or an empty one if there is none or if it can't be read
+   */
+  public static ClasspathIndex open(File file) {
+    ClasspathIndex result = new ClasspathIndex(file);
+    if (file == null || !file.isFile()) {
+      return result;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return result;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String[] names = new String[in.readInt()];
+        for (int n = 0; n < names.length; n++) {
+          names[n] = in.readUTF();
+        }
+        result.m_entries.put(path, new Entry(size, lastModified, names));
+      }
+    } catch (IOException e) {
+      // The index is only a cache: it's rebuilt from scratch.
+      LOGGER.warn("Ignoring the classpath scan index " + file + ": " + e.getMessage());
+      result.m_entries.clear();
+    }
+    return result;
+  }
+
+  /** @return the number of jars and directories that were scanned since the index was opened. */
+  public int getScanCount() {
+    return m_scanCount.get();
+  }
+
+  /**
+   * Scans the jars that aren't in the index, or that changed, in parallel.
+   *
+   * @param jars the jars
+   */
+  public void index(Collection<File> jars) {
+    jars.parallelStream().distinct().forEach(this::getJarEntries);
+  }
+
+  /**
+   * @param jar a jar
+   * @return the names of the class files in the jar (e.g. <code>org/testng/TestNG.class</code>),
+   *     or an empty list if the jar can't be read
+   */
+  public List<String> getJarEntries(File jar) {
+    String key = "jar:" + jar.getAbsolutePath();
+    long size = jar.length();
+    long lastModified = jar.lastModified();
+    Entry entry = m_entries.get(key);
+    if (entry == null || entry.m_size != size || entry.m_lastModified != lastModified) {
+      List<String> names;
+      try (JarFile jarFile = new JarFile(jar)) {
+        names = classEntriesOf(jarFile);
+      } catch (IOException e) {
+        Utils.log("ClasspathIndex", 2, "Couldn't read " + jar + ": " + e.getMessage());
+        return Lists.newArrayList();
+      }
+      entry = new Entry(size, lastModified, names.toArray(new String[0]));
+      update(key, entry);
+    }
+    return Lists.newArrayList(entry.m_names);
+  }
+
+  /**
+   * @param directory a directory
+   * @return the names of the class and groovy files of the directory and of its sub-directories,
+   *     the latter ending with a <code>/</code>, in the order the file system lists them, or null
+   *     if the directory doesn't exist
+   */
+  public List<String> getDirectoryEntries(File directory) {
+    String key = "dir:" + directory.getAbsolutePath();
+    long lastModified = directory.lastModified();
+    Entry entry = m_entries.get(key);
+    if (entry == null || entry.m_lastModified != lastModified) {
+      File[] files = directory.listFiles();
+      if (files == null) {
+        return null;
+      }
+      List<String> names = Lists.newArrayList();
+      for (File file : files) {
+        String name = file.getName();
+        if (file.isDirectory()) {
+          names.add(name + "/");
+        } else if (name.endsWith(".class") || name.endsWith(".groovy")) {
+          names.add(name);
+        }
+      }
+      entry = new Entry(-1, lastModified, names.toArray(new String[0]));
+      update(key, entry);
+    }
+    return Lists.newArrayList(entry.m_names);
+  }
+
+  private void update(String key, Entry entry) {
+    m_scanCount.incrementAndGet();
+    m_entries.put(key, entry);
+    m_changed.set(true);
+  }
+
+  /** @return the names of the class files of a jar, without their leading <code>/</code>. */
+  static List<String> classEntriesOf(JarFile jar) {
+    List<String> result = Lists.newArrayList();
+    Enumeration<JarEntry> entries = jar.entries();
+    while (entries.hasMoreElements()) {
+      JarEntry entry = entries.nextElement();
+      String name = entry.getName();
+      if (name.charAt(0) == '/') {
+        name = name.substring(1);
+      }
+      if (name.endsWith(".class") && !entry.isDirectory()) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the index to its file if anything was scanned since it was opened. The entries of the
+   * jars and the directories that don't exist anymore are dropped.
+   */
+  public synchronized void save() {
+    if (m_file == null || !m_changed.getAndSet(false)) {
+      return;
+    }
+    long racy = System.currentTimeMillis() - RACY_MILLIS;
+    Map<String, Entry> entries = new ConcurrentHashMap<>();
+    m_entries.forEach(
+        (key, entry) -> {
+          if (entry.m_lastModified < racy && new File(key.substring(4)).exists()) {
+            entries.put(key, entry);
+          }
+        });
+    File parent = m_file.getAbsoluteFile().getParentFile();
+    try {
+      parent.mkdirs();
+      File temp = File.createTempFile(m_file.getName(), ".tmp", parent);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeLong(entry.getValue().m_size);
+          out.writeLong(entry.getValue().m_lastModified);
+          out.writeInt(entry.getValue().m_names.length);
+          for (String name : entry.getValue().m_names) {
+            out.writeUTF(name);
+          }
+        }
+      }
+      Files.move(temp.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.warn("Couldn't write the classpath scan index " + m_file + ": " + e.getMessage());
+    }
+  }
+
+  private static final class Entry {
+
+    /** The size of a jar, or -1 for a directory. */
+    private final long m_size;
+
+    private final long m_lastModified;
+    private final String[] m_names;
+
+    Entry(long size, long lastModified, String[] names) {
+      m_size = size;
+      m_lastModified = lastModified;
+      m_names = names;
+    }
+  }
+}
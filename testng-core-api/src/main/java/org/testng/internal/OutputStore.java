@@ -0,0 +1,294 @@
+package org.testng.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.collections.Lists;
+
+/**
+ * The output logged through {@link org.testng.Reporter}, kept by test result.
+ *
+ * <p>Each thread appends the lines of a result to a {@link Writer} of its own, which nobody else
+ * writes to: the lines are published to the readers by the update of a volatile snapshot of the
+ * writer, so logging never takes a lock. The lines are numbered from a counter shared by all the
+ * writers, which restores the order they were logged in when the writers of a result, or of all the
+ * results, are read together.
+ *
+ * <p>Once the lines kept in memory exceed the threshold given to the store, the following lines
+ * are written to segment files in a temporary directory, at positions reserved with an atomic
+ * counter, and read back from there. The files are deleted when the store is closed.
+ */
+public final class OutputStore {
+
+  /** The size of a segment file, which the last line written to it may exceed. */
+  private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+  private final long m_threshold;
+  private final AtomicLong m_sequence = new AtomicLong();
+  private final ConcurrentMap<String, Queue<Writer>> m_writers = new ConcurrentHashMap<>();
+  private final Queue<Writer> m_unattributed = new ConcurrentLinkedQueue<>();
+
+  /** An estimate of the bytes taken by the lines kept in memory. */
+  private final AtomicLong m_retained = new AtomicLong();
+
+  private final AtomicLong m_spillPosition = new AtomicLong();
+  private final ConcurrentMap<Long, FileChannel> m_segments = new ConcurrentHashMap<>();
+  private File m_spillDirectory;
+  private volatile boolean m_spillFailed;
+
+  /**
+   * @param threshold the bytes of output kept in memory before the following lines are written to
+   *     disk, or a negative value to keep all of them in memory
+   */
+  public OutputStore(long threshold) {
+    m_threshold = threshold;
+  }
+
+  /**
+   * @param resultId the id of a test result
+   * @return a new writer for the lines of the result, which only the current thread may use
+   */
+  public Writer newWriter(String resultId) {
+    Writer writer = new Writer(resultId);
+    m_writers.computeIfAbsent(resultId, k -> new ConcurrentLinkedQueue<>()).add(writer);
+    return writer;
+  }
+
+  /**
+   * @return a new writer for lines that belong to no test result, which are only part of {@link
+   *     #getOutput()}, and which only the current thread may use
+   */
+  public Writer newUnattributedWriter() {
+    Writer writer = new Writer(null);
+    m_unattributed.add(writer);
+    return writer;
+  }
+
+  /** @return the lines of a test result, in the order they were logged. */
+  public List<String> getOutput(String resultId) {
+    Queue<Writer> writers = m_writers.get(resultId);
+    if (writers == null) {
+      return Lists.newArrayList();
+    }
+    return read(writers);
+  }
+
+  /** @return all the lines, with or without a test result, in the order they were logged. */
+  public List<String> getOutput() {
+    List<Writer> writers = Lists.newArrayList(m_unattributed);
+    for (Queue<Writer> each : m_writers.values()) {
+      writers.addAll(each);
+    }
+    return read(writers);
+  }
+
+  private List<String> read(Collection<Writer> writers) {
+    List<Line> lines = Lists.newArrayList();
+    for (Writer writer : writers) {
+      writer.collect(lines);
+    }
+    if (writers.size() > 1) {
+      lines.sort(Comparator.comparingLong(line -> line.m_sequence));
+    }
+    List<String> result = Lists.newArrayList(lines.size());
+    for (Line line : lines) {
+      result.add(line.m_value instanceof String ? (String) line.m_value : unspill(line.m_value));
+    }
+    return result;
+  }
+
+  /** Forgets the output, and deletes the segment files. */
+  public void close() {
+    m_writers.clear();
+    m_unattributed.clear();
+    for (FileChannel channel : m_segments.values()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Deleted below all the same.
+      }
+    }
+    m_segments.clear();
+    File directory = spillDirectory(false);
+    if (directory != null) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+      directory.delete();
+    }
+  }
+
+  /** @return the line, or where it was written to if it exceeded the threshold. */
+  private Object store(String line) {
+    if (m_threshold < 0 || m_spillFailed) {
+      return line;
+    }
+    long size = 2L * line.length();
+    if (m_retained.addAndGet(size) <= m_threshold) {
+      return line;
+    }
+    m_retained.addAndGet(-size);
+    try {
+      return spill(line);
+    } catch (IOException | UncheckedIOException e) {
+      m_spillFailed = true;
+      Utils.log("Reporter", 2, "Couldn't write the output to disk, keeping it in memory: " + e);
+      m_retained.addAndGet(size);
+      return line;
+    }
+  }
+
+  private Spilled spill(String line) throws IOException {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    long position = m_spillPosition.getAndAdd(bytes.length);
+    FileChannel channel = segment(position / SEGMENT_SIZE);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    long offset = position % SEGMENT_SIZE;
+    while (buffer.hasRemaining()) {
+      offset += channel.write(buffer, offset);
+    }
+    return new Spilled(position, bytes.length);
+  }
+
+  private String unspill(Object value) {
+    Spilled spilled = (Spilled) value;
+    ByteBuffer buffer = ByteBuffer.allocate(spilled.m_length);
+    long offset = spilled.m_position % SEGMENT_SIZE;
+    try {
+      FileChannel channel = segment(spilled.m_position / SEGMENT_SIZE);
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, offset + buffer.position());
+        if (read < 0) {
+          throw new IOException("Truncated segment file");
+        }
+      }
+    } catch (IOException | UncheckedIOException e) {
+      return "[Output lost: " + e.getMessage() + "]";
+    }
+    return new String(buffer.array(), StandardCharsets.UTF_8);
+  }
+
+  private FileChannel segment(long index) {
+    return m_segments.computeIfAbsent(
+        index,
+        k -> {
+          try {
+            File file = new File(spillDirectory(true), "output-" + k + ".seg");
+            file.deleteOnExit();
+            return FileChannel.open(
+                file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  private synchronized File spillDirectory(boolean create) {
+    if (m_spillDirectory == null && create) {
+      try {
+        m_spillDirectory = Files.createTempDirectory("testng-output").toFile();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      m_spillDirectory.deleteOnExit();
+    }
+    return m_spillDirectory;
+  }
+
+  /** The lines one thread logged for one test result. */
+  public final class Writer {
+
+    private final String m_resultId;
+
+    /**
+     * The lines written. The arrays are replaced or filled before a new snapshot is published, so
+     * a reader sees the lines it counts, and only those.
+     */
+    private volatile Snapshot m_lines = new Snapshot(new long[8], new Object[8], 0);
+
+    private Writer(String resultId) {
+      m_resultId = resultId;
+    }
+
+    /** @return true if this writer appends the lines of the result to the store. */
+    public boolean isFor(OutputStore store, String resultId) {
+      return store == OutputStore.this && resultId.equals(m_resultId);
+    }
+
+    /** Appends a line, from the thread that created this writer. */
+    public void append(String line) {
+      Object value = store(line);
+      Snapshot lines = m_lines;
+      int size = lines.m_size;
+      long[] sequences = lines.m_sequences;
+      Object[] values = lines.m_values;
+      if (size == values.length) {
+        sequences = Arrays.copyOf(sequences, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      sequences[size] = m_sequence.getAndIncrement();
+      values[size] = value;
+      m_lines = new Snapshot(sequences, values, size + 1);
+    }
+
+    private void collect(List<Line> lines) {
+      Snapshot snapshot = m_lines;
+      for (int i = 0; i < snapshot.m_size; i++) {
+        lines.add(new Line(snapshot.m_sequences[i], snapshot.m_values[i]));
+      }
+    }
+  }
+
+  /** The arrays of a writer, and how many of their lines have been written. */
+  private static final class Snapshot {
+    private final long[] m_sequences;
+    private final Object[] m_values;
+    private final int m_size;
+
+    private Snapshot(long[] sequences, Object[] values, int size) {
+      m_sequences = sequences;
+      m_values = values;
+      m_size = size;
+    }
+  }
+
+  private static final class Line {
+    private final long m_sequence;
+    private final Object m_value;
+
+    private Line(long sequence, Object value) {
+      m_sequence = sequence;
+      m_value = value;
+    }
+  }
+
+  private static final class Spilled {
+    private final long m_position;
+    private final int m_length;
+
+    private Spilled(long position, int length) {
+      m_position = position;
+      m_length = length;
+    }
+  }
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Method;
 import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
@@ -12,8 +13,6 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 import org.testng.collections.Lists;
 
@@ -76,6 +75,19 @@ public class PackageUtils {
       }
     }
 
+    // Scan the jars that aren't indexed yet in parallel.
+    ClasspathIndex index = ClasspathIndex.getInstance();
+    List<File> jars = Lists.newArrayList();
+    for (URL url : dirs) {
+      if ("jar".equals(url.getProtocol()) && matchTestClasspath(url, packageDirName, recursive)) {
+        File jar = jarFileOf(url);
+        if (jar != null) {
+          jars.add(jar);
+        }
+      }
+    }
+    index.index(jars);
+
     for (URL url : dirs) {
       String protocol = url.getProtocol();
       if (!matchTestClasspath(url, packageDirName, recursive)) {
@@ -91,14 +103,15 @@ public class PackageUtils {
             recursive,
             vResult);
       } else if ("jar".equals(protocol)) {
-        JarFile jar = ((JarURLConnection) url.openConnection()).getJarFile();
-        Enumeration<JarEntry> entries = jar.entries();
-        while (entries.hasMoreElements()) {
-          JarEntry entry = entries.nextElement();
-          String name = entry.getName();
-          if (name.charAt(0) == '/') {
-            name = name.substring(1);
-          }
+        File jar = jarFileOf(url);
+        List<String> names;
+        if (jar != null) {
+          names = index.getJarEntries(jar);
+        } else {
+          JarURLConnection connection = (JarURLConnection) url.openConnection();
+          names = ClasspathIndex.classEntriesOf(connection.getJarFile());
+        }
+        for (String name : names) {
           if (name.startsWith(packageDirName)) {
             int idx = name.lastIndexOf('/');
             if (idx != -1) {
@@ -108,14 +121,12 @@ public class PackageUtils {
             if (recursive || packageName.equals(packageOnly)) {
               // it's not inside a deeper dir
               Utils.log(PACKAGE_UTILS, 4, "Package name is " + packageName);
-              if (name.endsWith(".class") && !entry.isDirectory()) {
-                String className = name.substring(packageName.length() + 1, name.length() - 6);
-                Utils.log(
-                    PACKAGE_UTILS,
-                    4,
-                    "Found class " + className + ", seeing it if it's included or excluded");
-                includeOrExcludeClass(packageName, className, included, excluded, vResult);
-              }
+              String className = name.substring(packageName.length() + 1, name.length() - 6);
+              Utils.log(
+                  PACKAGE_UTILS,
+                  4,
+                  "Found class " + className + ", seeing it if it's included or excluded");
+              includeOrExcludeClass(packageName, className, included, excluded, vResult);
             }
           }
         }
@@ -141,9 +152,23 @@ public class PackageUtils {
       }
     }
 
+    index.save();
     return vResult.toArray(new String[0]);
   }
 
+  /** @return the jar of a <code>jar:</code> URL if it's a local file, or null otherwise. */
+  private static File jarFileOf(URL url) throws IOException {
+    URL jarUrl = ((JarURLConnection) url.openConnection()).getJarFileURL();
+    if (!"file".equals(jarUrl.getProtocol())) {
+      return null;
+    }
+    try {
+      return new File(jarUrl.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return new File(URLDecoder.decode(jarUrl.getFile(), UTF_8));
+    }
+  }
+
   private static String[] getTestClasspath() {
     if (null != testClassPaths) {
       return testClassPaths;
@@ -218,28 +243,26 @@ public class PackageUtils {
       return;
     }
 
-    File[] dirfiles =
-        dir.listFiles(
-            file ->
-                (recursive && file.isDirectory())
-                    || (file.getName().endsWith(".class"))
-                    || (file.getName().endsWith(".groovy")));
+    List<String> names = ClasspathIndex.getInstance().getDirectoryEntries(dir);
 
     Utils.log(PACKAGE_UTILS, 4, "Looking for test classes in the directory: " + dir);
-    if (dirfiles == null) {
+    if (names == null) {
       return;
     }
-    for (File file : dirfiles) {
-      if (file.isDirectory()) {
-        findClassesInDirPackage(
-            makeFullClassName(packageName, file.getName()),
-            included,
-            excluded,
-            file.getAbsolutePath(),
-            recursive,
-            classes);
+    for (String name : names) {
+      if (name.endsWith("/")) {
+        if (recursive) {
+          String subdirectory = name.substring(0, name.length() - 1);
+          findClassesInDirPackage(
+              makeFullClassName(packageName, subdirectory),
+              included,
+              excluded,
+              new File(dir, subdirectory).getAbsolutePath(),
+              recursive,
+              classes);
+        }
       } else {
-        String className = file.getName().substring(0, file.getName().lastIndexOf('.'));
+        String className = name.substring(0, name.lastIndexOf('.'));
         Utils.log(
             PACKAGE_UTILS,
             4,
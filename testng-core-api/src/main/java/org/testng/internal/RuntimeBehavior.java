@@ -1,6 +1,7 @@
 package org.testng.internal;
 
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 /** This class houses handling all JVM arguments by TestNG */
 public final class RuntimeBehavior {
@@ -14,6 +15,18 @@ public final class RuntimeBehavior {
   private static final String MEMORY_FRIENDLY_MODE = "testng.memory.friendly";
   public static final String STRICTLY_HONOUR_PARALLEL_MODE = "testng.strict.parallel";
   public static final String TESTNG_DEFAULT_VERBOSE = "testng.default.verbose";
+  public static final String TESTNG_FORK_JVM_ARGS = "testng.fork.jvmArgs";
+  public static final String TESTNG_FORK_TIMEOUT = "testng.fork.timeout";
+  public static final String TESTNG_SCAN_INDEX = "testng.scan.index";
+  public static final String TESTNG_PARALLEL_DISCOVERY = "testng.parallel.discovery";
+  public static final String TESTNG_TEST_INDEX = "testng.test.index";
+  public static final String TESTNG_TIMELINE_FILE = "testng.timeline.file";
+  public static final String TESTNG_MEASURE_RESOURCES = "testng.measure.resources";
+  public static final String TESTNG_REPORTER_OUTPUT_THRESHOLD = "testng.reporter.output.threshold";
+  public static final String TESTNG_STREAMING_XML_REPORTER = "testng.report.xml.streaming";
+  public static final String TESTNG_REPORT_THREADS = "testng.report.threads";
+  public static final String TESTNG_JUNIT_REPORT_THREADS = "testng.report.junit.threads";
+  public static final String TESTNG_SHARDED_HTML_REPORT = "testng.report.html.sharded";
 
   private RuntimeBehavior() {}
 
@@ -85,6 +98,14 @@ public final class RuntimeBehavior {
     return System.getProperty("noEmailableReporter") == null;
   }
 
+  /**
+   * @return <code>true</code> if the XML report should be written test by test as the tests
+   *     finish, instead of all at once at the end of the run.
+   */
+  public static boolean useStreamingXmlReporter() {
+    return Boolean.getBoolean(TESTNG_STREAMING_XML_REPORTER);
+  }
+
   /**
    * @return - returns <code>true</code> if we would like to run in the Dry mode and <code>false
    *     </code> otherwise.
@@ -127,4 +148,95 @@ public final class RuntimeBehavior {
   public static int getDefaultVerboseLevel() {
     return Integer.getInteger(TESTNG_DEFAULT_VERBOSE, 1);
   }
+
+  /**
+   * @return the arguments (separated by spaces) to start the worker JVMs with when forking, or an
+   *     empty string if the property is missing
+   */
+  public static String getForkJvmArgs() {
+    return System.getProperty(TESTNG_FORK_JVM_ARGS, "");
+  }
+
+  /**
+   * @return how long (in milliseconds) a worker JVM can run a suite without sending anything back
+   *     before it's deemed hung and stopped, 0 for no limit, or 30 minutes if the property is
+   *     missing
+   */
+  public static long getForkTimeout() {
+    return Long.getLong(TESTNG_FORK_TIMEOUT, TimeUnit.MINUTES.toMillis(30));
+  }
+
+  /**
+   * @return the file the index of the jars and directories scanned for the &lt;package&gt; entries
+   *     is kept in between runs, or null if the property is missing
+   */
+  public static String getScanIndexFile() {
+    return System.getProperty(TESTNG_SCAN_INDEX);
+  }
+
+  /**
+   * @return <code>true</code> if the test classes should be loaded and inspected on all the cores.
+   *     The annotation transformers are then invoked from several threads, one at a time, and not
+   *     in the order of the classes.
+   */
+  public static boolean isParallelDiscovery() {
+    return Boolean.getBoolean(TESTNG_PARALLEL_DISCOVERY);
+  }
+
+  /**
+   * @return <code>true</code> if the index of the test classes written by the annotation processor
+   *     should be used.
+   */
+  public static boolean useTestIndex() {
+    return Boolean.parseBoolean(System.getProperty(TESTNG_TEST_INDEX, "false"));
+  }
+
+  /**
+   * @return the file the timeline of the startup and the teardown phases of a run is written to,
+   *     or null if the property is missing
+   */
+  public static String getTimelineFile() {
+    return System.getProperty(TESTNG_TIMELINE_FILE);
+  }
+
+  /**
+   * @return <code>true</code> if the CPU time and the memory allocated by each invocation of a test
+   *     or configuration method should be measured.
+   */
+  public static boolean measureResources() {
+    return Boolean.getBoolean(TESTNG_MEASURE_RESOURCES);
+  }
+
+  /**
+   * @return the bytes of output logged through the {@link org.testng.Reporter} kept in memory
+   *     before the rest is written to disk, or -1 if the property is missing
+   */
+  public static long getReporterOutputThreshold() {
+    return Long.getLong(TESTNG_REPORTER_OUTPUT_THRESHOLD, -1L);
+  }
+
+  /**
+   * @return the number of reports generated at the same time by the reporters that implement
+   *     {@link org.testng.IConcurrentReporter}, the number of cores if the property is missing. A
+   *     value lower than 2 generates all the reports one after the other.
+   */
+  public static int getReportThreadCount() {
+    return Integer.getInteger(TESTNG_REPORT_THREADS, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @return the number of files the JUnitReportReporter writes at the same time, 1 if the property
+   *     is missing
+   */
+  public static int getJUnitReportThreadCount() {
+    return Integer.getInteger(TESTNG_JUNIT_REPORT_THREADS, 1);
+  }
+
+  /**
+   * @return <code>true</code> if the HTML report should keep the results in small files that the
+   *     page loads when they are shown, instead of putting all of them in index.html.
+   */
+  public static boolean useShardedHtmlReport() {
+    return Boolean.getBoolean(TESTNG_SHARDED_HTML_REPORT);
+  }
 }
@@ -27,6 +27,14 @@ public class RuntimeBehavior {
     return System.getProperty("testng.report.xml.name", FILE_NAME);
   }
 
+  public static String getDefaultDurationHistoryFile() {
+    return System.getProperty("testng.duration.history.file");
+  }
+
+  public static String getDefaultClassCacheFile() {
+    return System.getProperty("testng.class.cache.file");
+  }
+
   public static String getDefaultLineSeparator() {
     return System.getProperty("line.separator");
   }
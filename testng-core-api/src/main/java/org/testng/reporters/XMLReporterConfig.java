@@ -25,6 +25,7 @@ public class XMLReporterConfig implements IReporterConfig {
   public static final String TAG_LINE = "line";
   public static final String TAG_ATTRIBUTES = "attributes";
   public static final String TAG_ATTRIBUTE = "attribute";
+  public static final String TAG_EXECUTOR_METRICS = "executor-metrics";
 
   public static final String ATTR_URL = "url";
   public static final String ATTR_NAME = "name";
@@ -41,10 +42,21 @@ public class XMLReporterConfig implements IReporterConfig {
   public static final String ATTR_STARTED_AT = "started-at";
   public static final String ATTR_FINISHED_AT = "finished-at";
   public static final String ATTR_DURATION_MS = "duration-ms";
+  public static final String ATTR_SHARD = "shard";
   public static final String ATTR_IS_CONFIG = "is-config";
   public static final String ATTR_DEPENDS_ON_METHODS = "depends-on-methods";
   public static final String ATTR_DEPENDS_ON_GROUPS = "depends-on-groups";
   public static final String ATTR_DATA_PROVIDER = "data-provider";
+  public static final String ATTR_THREAD_COUNT = "thread-count";
+  public static final String ATTR_NODE_COUNT = "node-count";
+  public static final String ATTR_ACHIEVED_PARALLELISM = "achieved-parallelism";
+  public static final String ATTR_PEAK_ACTIVE_THREADS = "peak-active-threads";
+  public static final String ATTR_IDLE_THREAD_MS = "idle-thread-ms";
+  public static final String ATTR_AVERAGE_READY_TO_START_MS = "average-ready-to-start-ms";
+  public static final String ATTR_MAX_READY_TO_START_MS = "max-ready-to-start-ms";
+  public static final String ATTR_LONGEST_DEPENDENCY_STALL_MS = "longest-dependency-stall-ms";
+  public static final String ATTR_CPU_TIME_MS = "cpu-time-ms";
+  public static final String ATTR_ALLOCATED_BYTES = "allocated-bytes";
 
   public static final String TEST_PASSED = "PASS";
   public static final String TEST_FAILED = "FAIL";
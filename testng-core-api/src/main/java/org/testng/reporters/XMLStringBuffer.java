@@ -335,7 +335,15 @@ public class XMLStringBuffer {
 
   /** @return The String representation of the XML for this XMLStringBuffer. */
   public String toXML() {
-    return INVALID_XML_CHARS.matcher(m_buffer.toString()).replaceAll("");
+    return removeInvalidXmlChars(m_buffer.toString());
+  }
+
+  /**
+   * @param text some text
+   * @return the text without the characters that XML doesn't allow, as {@link #toXML()} returns it
+   */
+  public static String removeInvalidXmlChars(CharSequence text) {
+    return INVALID_XML_CHARS.matcher(text).replaceAll("");
   }
 
   public String getCurrentIndent() {
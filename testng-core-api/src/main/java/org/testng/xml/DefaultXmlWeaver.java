@@ -65,6 +65,16 @@ class DefaultXmlWeaver implements IWeaveXml {
         "data-provider-thread-count",
         String.valueOf(xmlSuite.getDataProviderThreadCount()),
         DEFAULT_DATA_PROVIDER_THREAD_COUNT.toString());
+    if (null != xmlSuite.getParallelExecutor()) {
+      XmlUtils.setProperty(
+          p,
+          "parallel-executor",
+          xmlSuite.getParallelExecutor().toString(),
+          DEFAULT_PARALLEL_EXECUTOR.toString());
+    }
+    if (isStringNotEmpty(xmlSuite.getShard())) {
+      p.setProperty("shard", xmlSuite.getShard());
+    }
     if (isStringNotEmpty(xmlSuite.getTimeOut())) {
       p.setProperty("time-out", xmlSuite.getTimeOut());
     }
@@ -1,11 +1,13 @@
 package org.testng.xml;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import org.testng.ITestObjectFactory;
+import org.testng.TestNGException;
 import org.testng.collections.Lists;
 import org.testng.collections.Maps;
 import org.testng.internal.RuntimeBehavior;
@@ -103,6 +105,43 @@ public class XmlSuite implements Cloneable {
     }
   }
 
+  /** The kind of threads used to run tests, classes, methods and data providers in parallel. */
+  public enum ParallelExecutor {
+    PLATFORM("platform"),
+    VIRTUAL("virtual");
+
+    private final String name;
+
+    ParallelExecutor(String name) {
+      this.name = name;
+    }
+
+    /**
+     * @param executor the name of an executor, case insensitive
+     * @return the executor, or null if the name is null
+     * @throws TestNGException if there's no executor with this name
+     */
+    public static ParallelExecutor getValidExecutor(String executor) {
+      if (executor == null) {
+        return null;
+      }
+      try {
+        return XmlSuite.ParallelExecutor.valueOf(executor.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new TestNGException(
+            "Invalid parallel executor '"
+                + executor
+                + "', the valid values are "
+                + Arrays.toString(values()));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
   private String m_test;
 
   /** The default suite name TODO CQ is this OK as a default name. */
@@ -148,6 +187,17 @@ public class XmlSuite implements Cloneable {
 
   private int m_dataProviderThreadCount = DEFAULT_DATA_PROVIDER_THREAD_COUNT;
 
+  /**
+   * Whether parallel work runs on PLATFORM or VIRTUAL threads. With VIRTUAL threads, the thread
+   * count only caps how many of them run at the same time.
+   */
+  public static final ParallelExecutor DEFAULT_PARALLEL_EXECUTOR = ParallelExecutor.PLATFORM;
+
+  private ParallelExecutor m_parallelExecutor = DEFAULT_PARALLEL_EXECUTOR;
+
+  /** The shard of the test methods to run, as "index/total" (e.g. "2/4"), or null for all. */
+  private String m_shard;
+
   /** By default, a method failing will cause all instances of that class to skip. */
   public static final Boolean DEFAULT_GROUP_BY_INSTANCES = false;
 
@@ -288,6 +338,43 @@ public class XmlSuite implements Cloneable {
     return m_configFailurePolicy;
   }
 
+  /**
+   * Sets the kind of threads used to run things in parallel.
+   *
+   * @param parallelExecutor The parallel executor.
+   */
+  public void setParallelExecutor(ParallelExecutor parallelExecutor) {
+    m_parallelExecutor = parallelExecutor;
+  }
+
+  /**
+   * Returns the kind of threads used to run things in parallel.
+   *
+   * @return The parallel executor.
+   */
+  public ParallelExecutor getParallelExecutor() {
+    return m_parallelExecutor;
+  }
+
+  /**
+   * Only runs one of <code>total</code> balanced shards of the test methods of each &lt;test&gt;.
+   * The shards are numbered from 1 to <code>total</code>.
+   *
+   * @param shard The shard, as "index/total" (e.g. "2/4"), or null to run all the test methods.
+   */
+  public void setShard(String shard) {
+    m_shard = shard;
+  }
+
+  /**
+   * Returns the shard of the test methods to run.
+   *
+   * @return The shard, as "index/total", or null if all the test methods run.
+   */
+  public String getShard() {
+    return m_shard;
+  }
+
   /**
    * Returns the verbose.
    *
@@ -587,6 +674,8 @@ public class XmlSuite implements Cloneable {
     result.setConfigFailurePolicy(getConfigFailurePolicy());
     result.setThreadCount(getThreadCount());
     result.setDataProviderThreadCount(getDataProviderThreadCount());
+    result.setParallelExecutor(getParallelExecutor());
+    result.setShard(getShard());
     result.setParameters(getParameters());
     result.setVerbose(getVerbose());
     result.setXmlPackages(getXmlPackages());
@@ -713,6 +802,8 @@ public class XmlSuite implements Cloneable {
     result =
         prime * result + ((m_objectFactoryClass == null) ? 0 : m_objectFactoryClass.hashCode());
     result = prime * result + ((m_parallel == null) ? 0 : m_parallel.hashCode());
+    result = prime * result + ((m_parallelExecutor == null) ? 0 : m_parallelExecutor.hashCode());
+    result = prime * result + ((m_shard == null) ? 0 : m_shard.hashCode());
     //    result = prime * result
     //        + ((m_parameters == null) ? 0 : m_parameters.hashCode());
     //      result = prime * result
@@ -806,6 +897,16 @@ public class XmlSuite implements Cloneable {
     } else if (!m_parallel.equals(other.m_parallel)) {
       return f();
     }
+    if (m_parallelExecutor != other.m_parallelExecutor) {
+      return f();
+    }
+    if (m_shard == null) {
+      if (other.m_shard != null) {
+        return f();
+      }
+    } else if (!m_shard.equals(other.m_shard)) {
+      return f();
+    }
     //    if (m_parameters == null) {
     //      if (other.m_parameters != null) {
     //        return f();
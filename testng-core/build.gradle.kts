@@ -39,6 +39,7 @@ dependencies {
     implementation("org.webjars:jquery:_")
 
     testImplementation(projects.testngAsserts)
+    testImplementation(projects.testngIndexProcessor)
     testImplementation("org.codehaus.groovy:groovy-all:_")
     testImplementation("org.spockframework:spock-core:_")
     testImplementation("org.apache-extras.beanshell:bsh:_")
@@ -48,6 +49,19 @@ dependencies {
     testImplementation("org.xmlunit:xmlunit-assertj:_")
 }
 
+// Benchmarks, kept out of the test suite: ./gradlew :testng-core:benchmark -Pbenchmark=<class>
+val perf by sourceSets.creating {
+    compileClasspath += sourceSets.test.get().output + sourceSets.test.get().compileClasspath
+    runtimeClasspath += sourceSets.test.get().runtimeClasspath
+}
+
+tasks.register<JavaExec>("benchmark") {
+    description = "Runs the benchmark whose class is given by -Pbenchmark"
+    classpath = perf.runtimeClasspath
+    mainClass.set(providers.gradleProperty("benchmark").forUseAtConfigurationTime())
+    maxHeapSize = "1500m"
+}
+
 tasks.test {
     maxParallelForks = Runtime.getRuntime().availableProcessors().div(2)
     (testFramework.options as TestNGOptions).apply {
@@ -100,6 +100,31 @@ public class CommandLineArgs {
       description = "Number of threads to use when " + "running data providers")
   public Integer dataProviderThreadCount;
 
+  public static final String PARALLEL_EXECUTOR = "-parallelexecutor";
+
+  @Parameter(
+      names = PARALLEL_EXECUTOR,
+      description = "The kind of threads to run things in parallel with (platform or virtual)")
+  public String parallelExecutor;
+
+  public static final String SHARD = "-shard";
+
+  @Parameter(
+      names = SHARD,
+      description =
+          "Only run one of several balanced shards of the test methods, as index/total "
+              + "(e.g. 2/4 runs the second of four shards)")
+  public String shard;
+
+  public static final String SHARD_HISTORY = "-shardhistory";
+
+  @Parameter(
+      names = SHARD_HISTORY,
+      description =
+          "The duration history (see DurationHistoryListener) every shard is given, to balance "
+              + "the shards by duration rather than by number of methods")
+  public String shardHistory;
+
   public static final String SUITE_NAME = "-suitename";
 
   @Parameter(
@@ -213,6 +238,23 @@ public class CommandLineArgs {
       description = "The threadpool executor factory implementation that TestNG should use.")
   public String threadPoolFactoryClass;
 
+  public static final String SHARED_THREAD_POOL_SIZE = "-sharedthreadpoolsize";
+
+  @Parameter(
+      names = SHARED_THREAD_POOL_SIZE,
+      description =
+          "Run the suites, tests and methods that run in parallel in one shared work-stealing pool "
+              + "with this parallelism")
+  public Integer sharedThreadPoolSize;
+
+  public static final String FORK_COUNT = "-forkcount";
+
+  @Parameter(
+      names = FORK_COUNT,
+      description =
+          "Run the test classes in this many worker JVMs and report their results in this one")
+  public Integer forkCount;
+
   public static final String DEPENDENCY_INJECTOR_FACTORY = "-dependencyinjectorfactory";
 
   @Parameter(
@@ -18,10 +18,14 @@ import org.testng.internal.invokers.ConfigMethodArguments.Builder;
 import org.testng.internal.invokers.IInvocationStatus;
 import org.testng.internal.invokers.IInvoker;
 import org.testng.internal.invokers.InvokedMethod;
+import org.testng.internal.thread.SharedThreadPoolExecutorFactory;
 import org.testng.internal.thread.ThreadUtil;
+import org.testng.internal.thread.VirtualThreadPoolExecutorFactory;
 import org.testng.reporters.JUnitXMLReporter;
 import org.testng.reporters.TestHTMLReporter;
 import org.testng.reporters.TextReporter;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.IExecutorMetricsListener;
 import org.testng.xml.XmlSuite;
 import org.testng.xml.XmlTest;
 
@@ -69,6 +73,9 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
   private final IAttributes attributes = new Attributes();
   private final Set<IExecutionVisualiser> visualisers = Sets.newHashSet();
 
+  /** The pool shared by all the parallel data providers of this suite, created on demand. */
+  private PoolService<List<ITestResult>> dataProviderPool;
+
   public SuiteRunner(
       IConfiguration configuration,
       XmlSuite suite,
@@ -321,6 +328,12 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
     try {
       privateRun();
     } finally {
+      synchronized (this) {
+        if (dataProviderPool != null) {
+          dataProviderPool.shutdown();
+          dataProviderPool = null;
+        }
+      }
       invokeListeners(false /* stop */);
     }
   }
@@ -354,6 +367,9 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
     // a <file-suite> tag and no real tests)
     //
     if (invoker != null) {
+      if (configuration.getWorkerPool() != null) {
+        checkForkable();
+      }
       if (!beforeSuiteMethods.values().isEmpty()) {
         ConfigMethodArguments arguments =
             new Builder()
@@ -394,6 +410,25 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
     }
   }
 
+  /**
+   * Runs the tests of the suite in this JVM rather than in the worker JVMs when one of them can't
+   * be forked: the suite level methods, which only run in this JVM, then run before and after all
+   * of them.
+   */
+  private void checkForkable() {
+    for (TestRunner tr : testRunners) {
+      String reason = tr.whyNotForkable();
+      if (reason != null) {
+        Utils.log(
+            "SuiteRunner",
+            2,
+            "Running suite " + xmlSuite.getName() + " in this JVM instead of forking: " + reason);
+        testRunners.forEach(TestRunner::runInThisJvm);
+        return;
+      }
+    }
+  }
+
   private void addVisualiser(IExecutionVisualiser visualiser) {
     visualisers.add(visualiser);
   }
@@ -414,6 +449,20 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
     return this.holder.getListeners();
   }
 
+  /**
+   * @return the pool that runs the parallel data providers of this suite, sized by its
+   *     data-provider-thread-count.
+   */
+  public synchronized PoolService<List<ITestResult>> getDataProviderPool() {
+    if (dataProviderPool == null) {
+      dataProviderPool =
+          new PoolService<>(
+              xmlSuite.getDataProviderThreadCount(),
+              xmlSuite.getParallelExecutor() == XmlSuite.ParallelExecutor.VIRTUAL);
+    }
+    return dataProviderPool;
+  }
+
   private void runSequentially() {
     for (TestRunner tr : testRunners) {
       runTest(tr);
@@ -443,8 +492,16 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
       tasks.add(new SuiteWorker(tr));
     }
 
-    ThreadUtil.execute(
-        "tests", tasks, xmlSuite.getThreadCount(), xmlSuite.getTimeOut(XmlTest.DEFAULT_TIMEOUT_MS));
+    long timeOut = xmlSuite.getTimeOut(XmlTest.DEFAULT_TIMEOUT_MS);
+    IExecutorFactory executorFactory =
+        VirtualThreadPoolExecutorFactory.select(xmlSuite, configuration.getExecutorFactory());
+    if (executorFactory instanceof SharedThreadPoolExecutorFactory) {
+      ((SharedThreadPoolExecutorFactory) executorFactory)
+          .execute(tasks, xmlSuite.getThreadCount(), timeOut);
+      return;
+    }
+    boolean virtual = executorFactory instanceof VirtualThreadPoolExecutorFactory;
+    ThreadUtil.execute("tests", tasks, xmlSuite.getThreadCount(), timeOut, virtual);
   }
 
   private class SuiteWorker implements Runnable {
@@ -503,6 +560,12 @@ public class SuiteRunner implements ISuite, IInvokedMethodListener {
       IDataProviderInterceptor interceptor = (IDataProviderInterceptor) listener;
       this.holder.addInterceptor(interceptor);
     }
+    if (listener instanceof IDurationProvider) {
+      configuration.setDurationProvider((IDurationProvider) listener);
+    }
+    if (listener instanceof IExecutorMetricsListener) {
+      configuration.addExecutorMetricsListener((IExecutorMetricsListener) listener);
+    }
     if (listener instanceof ITestListener) {
       for (TestRunner testRunner : testRunners) {
         testRunner.addTestListener((ITestListener) listener);
@@ -17,6 +17,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import org.testng.annotations.ITestAnnotation;
@@ -31,18 +35,22 @@ import org.testng.internal.IConfiguration;
 import org.testng.internal.OverrideProcessor;
 import org.testng.internal.ReporterConfig;
 import org.testng.internal.RuntimeBehavior;
+import org.testng.internal.Shard;
 import org.testng.internal.Systematiser;
 import org.testng.internal.Utils;
 import org.testng.internal.Version;
 import org.testng.internal.annotations.DefaultAnnotationTransformer;
 import org.testng.internal.annotations.IAnnotationFinder;
 import org.testng.internal.annotations.JDK15AnnotationFinder;
+import org.testng.internal.fork.WorkerPool;
 import org.testng.internal.invokers.SuiteRunnerMap;
 import org.testng.internal.invokers.objects.GuiceContext;
 import org.testng.internal.objects.Dispenser;
 import org.testng.internal.objects.IObjectDispenser;
 import org.testng.internal.objects.pojo.BasicAttributes;
 import org.testng.internal.objects.pojo.CreationAttributes;
+import org.testng.internal.thread.SharedThreadPoolExecutorFactory;
+import org.testng.internal.thread.TestNGThreadFactory;
 import org.testng.internal.thread.graph.SuiteWorkerFactory;
 import org.testng.junit.JUnitTestFinder;
 import org.testng.log4testng.Logger;
@@ -50,14 +58,18 @@ import org.testng.reporters.EmailableReporter;
 import org.testng.reporters.EmailableReporter2;
 import org.testng.reporters.FailedReporter;
 import org.testng.reporters.JUnitReportReporter;
+import org.testng.reporters.StreamingXMLReporter;
 import org.testng.reporters.SuiteHTMLReporter;
 import org.testng.reporters.VerboseReporter;
 import org.testng.reporters.XMLReporter;
 import org.testng.reporters.jq.Main;
 import org.testng.thread.IExecutorFactory;
+import org.testng.thread.IExecutorMetricsListener;
 import org.testng.thread.ITestNGThreadPoolExecutor;
 import org.testng.thread.IThreadWorkerFactory;
 import org.testng.util.Strings;
+import org.testng.util.Timeline;
+import org.testng.util.Timeline.Phase;
 import org.testng.xml.IPostProcessor;
 import org.testng.xml.XmlClass;
 import org.testng.xml.XmlInclude;
@@ -177,6 +189,12 @@ public class TestNG {
 
   private Integer m_dataProviderThreadCount = null;
 
+  private XmlSuite.ParallelExecutor m_parallelExecutor;
+
+  private String m_shard;
+
+  private int m_forkCount;
+
   private String m_jarPath;
   /** The path of the testng.xml file inside the jar file */
   private String m_xmlPathInJar = CommandLineArgs.XML_PATH_IN_JAR_DEFAULT;
@@ -734,6 +752,12 @@ public class TestNG {
       IDataProviderInterceptor interceptor = (IDataProviderInterceptor) listener;
       maybeAddListener(m_dataProviderInterceptors, interceptor);
     }
+    if (listener instanceof IDurationProvider) {
+      m_configuration.setDurationProvider((IDurationProvider) listener);
+    }
+    if (listener instanceof IExecutorMetricsListener) {
+      m_configuration.addExecutorMetricsListener((IExecutorMetricsListener) listener);
+    }
   }
 
   public Set<IReporter> getReporters() {
@@ -805,6 +829,36 @@ public class TestNG {
     this.m_executorFactory = factory;
   }
 
+  /**
+   * Runs the suites, the tests and the methods that run in parallel in one shared work-stealing
+   * pool instead of in a pool per suite and per test. The thread counts of the suites and of the
+   * tests still limit how many of their tests or methods run at the same time.
+   *
+   * @param parallelism the maximum number of workers that run at the same time across all the
+   *     suites
+   * @see SharedThreadPoolExecutorFactory
+   */
+  public void setSharedThreadPoolSize(int parallelism) {
+    setExecutorFactory(new SharedThreadPoolExecutorFactory(parallelism));
+  }
+
+  /**
+   * Runs the test classes in worker JVMs started on this machine instead of in this JVM. The
+   * workers pull the classes to run one at a time, and send their results back so that the
+   * listeners and the reporters of this JVM see them as if the tests had run here. The suite and
+   * test level configuration methods run in the workers, once for every class (or group of
+   * dependent classes) they run.
+   *
+   * @param forkCount the number of worker JVMs, or 0 to run the tests in this JVM (the default)
+   * @see WorkerPool
+   */
+  public void setForkCount(int forkCount) {
+    if (forkCount < 0) {
+      throw new TestNGException("The fork count can't be negative, got " + forkCount);
+    }
+    m_forkCount = forkCount;
+  }
+
   public IExecutorFactory getExecutorFactory() {
     if (this.m_executorFactory == null) {
       this.m_executorFactory = createExecutorFactoryInstanceUsing(DEFAULT_THREADPOOL_FACTORY);
@@ -847,6 +901,12 @@ public class TestNG {
       if (m_configFailurePolicy != null) {
         s.setConfigFailurePolicy(m_configFailurePolicy);
       }
+      if (m_parallelExecutor != null) {
+        s.setParallelExecutor(m_parallelExecutor);
+      }
+      if (m_shard != null) {
+        s.setShard(m_shard);
+      }
     }
   }
 
@@ -897,7 +957,12 @@ public class TestNG {
       addReporter(SuiteHTMLReporter.class);
       addReporter(Main.class);
       addReporter(FailedReporter.class);
-      addReporter(XMLReporter.class);
+      if (RuntimeBehavior.useStreamingXmlReporter()) {
+        // Also a test listener, notified as each test finishes.
+        addListener(new StreamingXMLReporter());
+      } else {
+        addReporter(XMLReporter.class);
+      }
       if (RuntimeBehavior.useOldTestNGEmailableReporter()) {
         addReporter(EmailableReporter.class);
       } else if (RuntimeBehavior.useEmailableReporter()) {
@@ -1012,9 +1077,14 @@ public class TestNG {
       return;
     }
 
-    initializeSuitesAndJarFile();
-    initializeConfiguration();
-    initializeDefaultListeners();
+    Timeline timeline = m_configuration.getTimeline();
+    try (Timeline.Span ignored = timeline.start(Phase.SUITE_PARSING, "suites")) {
+      initializeSuitesAndJarFile();
+    }
+    try (Timeline.Span ignored = timeline.start(Phase.LISTENER_INITIALIZATION, "listeners")) {
+      initializeConfiguration();
+      initializeDefaultListeners();
+    }
     initializeCommandLineSuites();
     initializeCommandLineSuitesParams();
     initializeCommandLineSuitesGroups();
@@ -1032,7 +1102,20 @@ public class TestNG {
     runSuiteAlterationListeners();
 
     m_start = System.currentTimeMillis();
-    List<ISuite> suiteRunners = runSuites();
+    List<ISuite> suiteRunners;
+    WorkerPool workerPool = m_forkCount > 0 ? new WorkerPool(m_forkCount) : null;
+    m_configuration.setWorkerPool(workerPool);
+    try (Timeline.Span ignored = m_configuration.getTimeline().start(Phase.EXECUTION, "suites")) {
+      suiteRunners = runSuites();
+    } finally {
+      if (workerPool != null) {
+        workerPool.close();
+        m_configuration.setWorkerPool(null);
+      }
+      if (m_executorFactory instanceof SharedThreadPoolExecutorFactory) {
+        ((SharedThreadPoolExecutorFactory) m_executorFactory).shutdown();
+      }
+    }
 
     m_end = System.currentTimeMillis();
 
@@ -1042,6 +1125,7 @@ public class TestNG {
 
     runExecutionListeners(false /* finish */);
     exitCode = this.exitCodeListener.getStatus();
+    writeTimeline();
 
     if (exitCodeListener.noTestsFound()) {
       if (TestRunner.getVerbose() > 1) {
@@ -1074,15 +1158,39 @@ public class TestNG {
   }
 
   private void runExecutionListeners(boolean start) {
-    for (IExecutionListener l : m_configuration.getExecutionListeners()) {
-      if (start) {
-        l.onExecutionStart();
-      } else {
-        l.onExecutionFinish();
+    String name = start ? "onExecutionStart" : "onExecutionFinish";
+    try (Timeline.Span ignored =
+        m_configuration.getTimeline().start(Phase.EXECUTION_LISTENERS, name)) {
+      for (IExecutionListener l : m_configuration.getExecutionListeners()) {
+        if (start) {
+          l.onExecutionStart();
+        } else {
+          l.onExecutionFinish();
+        }
       }
     }
   }
 
+  /**
+   * @return the startup and the teardown phases of the run, recorded as they end, which is
+   *     complete once {@link #run()} returns
+   */
+  public Timeline getTimeline() {
+    return m_configuration.getTimeline();
+  }
+
+  private void writeTimeline() {
+    String fileName = RuntimeBehavior.getTimelineFile();
+    if (fileName == null) {
+      return;
+    }
+    try {
+      m_configuration.getTimeline().write(new File(fileName));
+    } catch (IOException e) {
+      Utils.log("TestNG", 2, "Couldn't write the timeline to " + fileName + ": " + e.getMessage());
+    }
+  }
+
   private static void usage() {
     if (m_jCommander == null) {
       m_jCommander = new JCommander(new CommandLineArgs());
@@ -1090,16 +1198,75 @@ public class TestNG {
     m_jCommander.usage();
   }
 
+  /**
+   * Generates the reports. The reporters whose class implements {@link IConcurrentReporter} itself
+   * generate theirs on a pool of threads. Once they are all done, the other ones generate theirs
+   * one after the other on this thread, so that they may read the reports of the first ones.
+   */
   private void generateReports(List<ISuite> suiteRunners) {
+    List<IReporter> sequential = Lists.newArrayList();
+    List<IReporter> concurrent = Lists.newArrayList();
     for (IReporter reporter : m_reporters.values()) {
-      try {
-        long start = System.currentTimeMillis();
-        reporter.generateReport(m_suites, suiteRunners, m_outputDir);
-        Utils.log(
-            "TestNG",
-            2,
-            "Time taken by " + reporter + ": " + (System.currentTimeMillis() - start) + " ms");
-      } catch (Exception ex) {
+      if (isConcurrent(reporter)) {
+        concurrent.add(reporter);
+      } else {
+        sequential.add(reporter);
+      }
+    }
+    int threadCount = Math.min(concurrent.size(), RuntimeBehavior.getReportThreadCount());
+    if (threadCount < 2) {
+      m_reporters.values().forEach(reporter -> generateReport(reporter, suiteRunners));
+      return;
+    }
+    ExecutorService executor =
+        Executors.newFixedThreadPool(threadCount, new TestNGThreadFactory("reporters"));
+    boolean interrupted = false;
+    try {
+      List<Future<?>> futures = Lists.newArrayList();
+      for (IReporter reporter : concurrent) {
+        futures.add(executor.submit(() -> generateReport(reporter, suiteRunners)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      // The concurrent reporters left finish in the background, and the sequential ones still run:
+      // the interrupt is only restored once they are done, so that their I/O isn't cut short.
+      interrupted = true;
+      Utils.log("TestNG", 2, "Interrupted while waiting for the concurrent reporters");
+    } catch (ExecutionException e) {
+      // generateReport() only lets the errors through.
+      throw (Error) e.getCause();
+    } finally {
+      executor.shutdown();
+    }
+    sequential.forEach(reporter -> generateReport(reporter, suiteRunners));
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return true if the class of the reporter declares {@link IConcurrentReporter}: a subclass of
+   *     a concurrent reporter doesn't inherit the concurrency, since what it adds may not be safe.
+   */
+  private static boolean isConcurrent(IReporter reporter) {
+    return Arrays.asList(reporter.getClass().getInterfaces()).contains(IConcurrentReporter.class);
+  }
+
+  private void generateReport(IReporter reporter, List<ISuite> suiteRunners) {
+    try (Timeline.Span ignored =
+        m_configuration
+            .getTimeline()
+            .start(Phase.REPORT_GENERATION, reporter.getClass().getName())) {
+      long start = System.currentTimeMillis();
+      reporter.generateReport(m_suites, suiteRunners, m_outputDir);
+      Utils.log(
+          "TestNG",
+          2,
+          "Time taken by " + reporter + ": " + (System.currentTimeMillis() - start) + " ms");
+    } catch (Exception ex) {
+      synchronized (System.err) {
         System.err.println("[TestNG] Reporter " + reporter + " failed");
         ex.printStackTrace(System.err);
       }
@@ -1270,6 +1437,14 @@ public class TestNG {
       xmlSuite.setConfigFailurePolicy(m_configFailurePolicy);
     }
 
+    if (null != m_parallelExecutor) {
+      xmlSuite.setParallelExecutor(m_parallelExecutor);
+    }
+
+    if (null != m_shard) {
+      xmlSuite.setShard(m_shard);
+    }
+
     Set<XmlMethodSelector> selectors = Sets.newHashSet();
     for (XmlTest t : xmlSuite.getTests()) {
       for (Map.Entry<String, Integer> ms : m_methodDescriptors.entrySet()) {
@@ -1403,6 +1578,12 @@ public class TestNG {
     if (cla.threadPoolFactoryClass != null) {
       setExecutorFactoryClass(cla.threadPoolFactoryClass);
     }
+    if (cla.sharedThreadPoolSize != null) {
+      setSharedThreadPoolSize(cla.sharedThreadPoolSize);
+    }
+    if (cla.forkCount != null) {
+      setForkCount(cla.forkCount);
+    }
     setOutputDirectory(cla.outputDirectory);
 
     String testClasses = cla.testClass;
@@ -1452,6 +1633,15 @@ public class TestNG {
     if (cla.dataProviderThreadCount != null) {
       setDataProviderThreadCount(cla.dataProviderThreadCount);
     }
+    if (cla.parallelExecutor != null) {
+      setParallelExecutor(XmlSuite.ParallelExecutor.getValidExecutor(cla.parallelExecutor));
+    }
+    if (cla.shard != null) {
+      setShard(cla.shard);
+    }
+    if (cla.shardHistory != null) {
+      setShardHistory(cla.shardHistory);
+    }
     if (cla.suiteName != null) {
       setDefaultSuiteName(cla.suiteName);
     }
@@ -1623,6 +1813,19 @@ public class TestNG {
     if (value != -1) {
       result.dataProviderThreadCount = value;
     }
+
+    String parallelExecutor = (String) cmdLineArgs.get(CommandLineArgs.PARALLEL_EXECUTOR);
+    if (parallelExecutor != null) {
+      result.parallelExecutor = parallelExecutor;
+    }
+    String shard = (String) cmdLineArgs.get(CommandLineArgs.SHARD);
+    if (shard != null) {
+      result.shard = shard;
+    }
+    String shardHistory = (String) cmdLineArgs.get(CommandLineArgs.SHARD_HISTORY);
+    if (shardHistory != null) {
+      result.shardHistory = shardHistory;
+    }
     String defaultSuiteName = (String) cmdLineArgs.get(CommandLineArgs.SUITE_NAME);
     if (defaultSuiteName != null) {
       result.suiteName = defaultSuiteName;
@@ -1670,6 +1873,16 @@ public class TestNG {
       result.suiteThreadPoolSize = value;
     }
 
+    value = parseInt(cmdLineArgs.get(CommandLineArgs.SHARED_THREAD_POOL_SIZE));
+    if (value != -1) {
+      result.sharedThreadPoolSize = value;
+    }
+
+    value = parseInt(cmdLineArgs.get(CommandLineArgs.FORK_COUNT));
+    if (value != -1) {
+      result.forkCount = value;
+    }
+
     String dependencyInjectorFactoryClass =
         (String) cmdLineArgs.get(CommandLineArgs.DEPENDENCY_INJECTOR_FACTORY);
     if (dependencyInjectorFactoryClass != null) {
@@ -1880,6 +2093,42 @@ public class TestNG {
     m_dataProviderThreadCount = count;
   }
 
+  /**
+   * Sets the kind of threads used to run tests, classes, methods and data providers in parallel.
+   * The default value is {@link org.testng.xml.XmlSuite.ParallelExecutor#PLATFORM}.
+   *
+   * @param parallelExecutor the parallel executor
+   */
+  public void setParallelExecutor(XmlSuite.ParallelExecutor parallelExecutor) {
+    m_parallelExecutor = parallelExecutor;
+  }
+
+  /**
+   * Only runs one of several balanced shards of the test methods of each &lt;test&gt;. Running
+   * every shard from 1 to <code>total</code> (typically on different machines) runs all the test
+   * methods exactly once.
+   *
+   * @param shard the shard, as "index/total" (e.g. "2/4"), or null to run all the test methods
+   */
+  public void setShard(String shard) {
+    if (shard != null) {
+      Shard.parse(shard);
+    }
+    m_shard = shard;
+  }
+
+  /**
+   * Balances the shards by the durations recorded in a {@link
+   * org.testng.reporters.DurationHistory}. Every shard has to be given the same history (typically
+   * one shared between the machines), or the shards won't agree on who runs what. Without one,
+   * the shards are balanced by the number of test methods.
+   *
+   * @param shardHistory the file of the history, or null to balance by the number of methods
+   */
+  public void setShardHistory(String shardHistory) {
+    m_configuration.setShardHistory(shardHistory);
+  }
+
   /**
    * Add a class loader to the searchable loaders.
    *
@@ -2,6 +2,8 @@ package org.testng;
 
 import static org.testng.internal.MethodHelper.fixMethodsWithClass;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,14 +19,17 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import org.testng.collections.Lists;
 import org.testng.collections.Maps;
 import org.testng.collections.Sets;
 import org.testng.internal.Attributes;
+import org.testng.internal.ClassHelper;
 import org.testng.internal.ClassInfoMap;
 import org.testng.internal.ConfigurationGroupMethods;
+import org.testng.internal.CriticalPathComparator;
 import org.testng.internal.DefaultListenerFactory;
 import org.testng.internal.DynamicGraphHelper;
 import org.testng.internal.GroupsHelper;
@@ -35,9 +40,11 @@ import org.testng.internal.ITestClassConfigInfo;
 import org.testng.internal.ITestResultNotifier;
 import org.testng.internal.MethodGroupsHelper;
 import org.testng.internal.MethodHelper;
+import org.testng.internal.ParallelDiscovery;
 import org.testng.internal.ResultMap;
 import org.testng.internal.RunInfo;
 import org.testng.internal.RuntimeBehavior;
+import org.testng.internal.Shard;
 import org.testng.internal.Systematiser;
 import org.testng.internal.TestListenerHelper;
 import org.testng.internal.TestMethodComparator;
@@ -47,19 +54,31 @@ import org.testng.internal.TestNGMethodFinder;
 import org.testng.internal.Utils;
 import org.testng.internal.XmlMethodSelector;
 import org.testng.internal.annotations.IAnnotationFinder;
+import org.testng.internal.fork.ForkedTestExecutor;
+import org.testng.internal.fork.ForkedWorker;
+import org.testng.internal.fork.WorkerPool;
 import org.testng.internal.invokers.AbstractParallelWorker;
 import org.testng.internal.invokers.ConfigMethodArguments;
 import org.testng.internal.invokers.ConfigMethodArguments.Builder;
 import org.testng.internal.invokers.IInvoker;
 import org.testng.internal.invokers.Invoker;
 import org.testng.internal.invokers.TestMethodWorker;
+import org.testng.internal.thread.TimeoutService;
+import org.testng.internal.thread.VirtualThreadPoolExecutorFactory;
 import org.testng.junit.IJUnitTestRunner;
 import org.testng.log4testng.Logger;
+import org.testng.reporters.DurationHistory;
+import org.testng.reporters.DurationStatistics;
+import org.testng.thread.ExecutorMetrics;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.IExecutorMetricsListener;
 import org.testng.thread.ITestNGThreadPoolExecutor;
 import org.testng.thread.IThreadWorkerFactory;
 import org.testng.thread.IWorker;
 import org.testng.util.Strings;
 import org.testng.util.TimeUtils;
+import org.testng.util.Timeline;
+import org.testng.util.Timeline.Phase;
 import org.testng.xml.XmlClass;
 import org.testng.xml.XmlInclude;
 import org.testng.xml.XmlPackage;
@@ -150,6 +169,8 @@ public class TestRunner
   private ClassMethodMap m_classMethodMap;
   private TestNGClassFinder m_testClassFinder;
   private IConfiguration m_configuration;
+  /** The worker JVMs the test methods run in, or null when they run in this JVM. */
+  private WorkerPool m_workerPool;
 
   public enum PriorityWeight {
     groupByInstance,
@@ -233,6 +254,7 @@ public class TestRunner
       Collection<IInvokedMethodListener> invokedMethodListeners,
       List<IClassListener> classListeners) {
     m_configuration = configuration;
+    m_workerPool = configuration.getWorkerPool();
     m_xmlTest = test;
     m_suite = suite;
     m_testName = test.getName();
@@ -254,8 +276,13 @@ public class TestRunner
     m_methodInterceptors.add(builtinInterceptor);
 
     List<XmlPackage> m_packageNamesFromXml = getAllPackages();
-    for (XmlPackage xp : m_packageNamesFromXml) {
-      m_testClassesFromXml.addAll(xp.getXmlClasses());
+    if (!m_packageNamesFromXml.isEmpty()) {
+      try (Timeline.Span ignored =
+          m_configuration.getTimeline().start(Phase.CLASSPATH_SCANNING, m_testName)) {
+        for (XmlPackage xp : m_packageNamesFromXml) {
+          m_testClassesFromXml.addAll(xp.getXmlClasses());
+        }
+      }
     }
 
     m_annotationFinder = annotationFinder;
@@ -376,6 +403,10 @@ public class TestRunner
       if (IClassListener.class.isAssignableFrom(c) && m_classListeners.containsKey(c)) {
         continue;
       }
+      // In a worker JVM, the parent invokes these on the results it gets back.
+      if (ForkedWorker.isWorker() && ForkedTestExecutor.isInvokedByParent(c)) {
+        continue;
+      }
       ITestNGListener listener = factory.createListener(c);
 
       addListener(listener);
@@ -437,32 +468,49 @@ public class TestRunner
     List<ITestNGMethod> beforeXmlTestMethods = Lists.newArrayList();
     List<ITestNGMethod> afterXmlTestMethods = Lists.newArrayList();
 
-    ClassInfoMap classMap = new ClassInfoMap(m_testClassesFromXml);
-    m_testClassFinder =
-        new TestNGClassFinder(classMap, Maps.newHashMap(), m_configuration, this, holder);
-    ITestMethodFinder testMethodFinder =
-        new TestNGMethodFinder(m_objectFactory, m_runInfo, m_annotationFinder, comparator);
-
-    m_runInfo.setTestMethods(testMethods);
+    Timeline timeline = m_configuration.getTimeline();
+    ClassInfoMap classMap;
+    TestNGMethodFinder testMethodFinder;
+    IClass[] classes;
+    try (Timeline.Span ignored = timeline.start(Phase.CLASS_FINDING, m_testName)) {
+      boolean parallelDiscovery = ParallelDiscovery.isEnabled();
+      if (parallelDiscovery) {
+        ParallelDiscovery.loadClasses(m_testClassesFromXml);
+      }
+      classMap = new ClassInfoMap(m_testClassesFromXml);
+      m_testClassFinder =
+          new TestNGClassFinder(classMap, Maps.newHashMap(), m_configuration, this, holder);
+      testMethodFinder =
+          new TestNGMethodFinder(m_objectFactory, m_runInfo, m_annotationFinder, comparator);
+
+      m_runInfo.setTestMethods(testMethods);
+
+      //
+      // Initialize TestClasses
+      //
+      classes = m_testClassFinder.findTestClasses();
+      if (parallelDiscovery) {
+        testMethodFinder.prefetchTestMethods(
+            Arrays.stream(classes).map(IClass::getRealClass).collect(Collectors.toList()),
+            m_xmlTest);
+      }
+    }
 
-    //
-    // Initialize TestClasses
-    //
-    IClass[] classes = m_testClassFinder.findTestClasses();
-
-    for (IClass ic : classes) {
-
-      // Create TestClass
-      ITestClass tc =
-          new TestClass(
-              m_objectFactory,
-              ic,
-              testMethodFinder,
-              m_annotationFinder,
-              m_xmlTest,
-              classMap.getXmlClass(ic.getRealClass()),
-              m_testClassFinder.getFactoryCreationFailedMessage());
-      m_classMap.put(ic.getRealClass(), tc);
+    try (Timeline.Span ignored = timeline.start(Phase.INSTANCE_CREATION, m_testName)) {
+      for (IClass ic : classes) {
+
+        // Create TestClass
+        ITestClass tc =
+            new TestClass(
+                m_objectFactory,
+                ic,
+                testMethodFinder,
+                m_annotationFinder,
+                m_xmlTest,
+                classMap.getXmlClass(ic.getRealClass()),
+                m_testClassFinder.getFactoryCreationFailedMessage());
+        m_classMap.put(ic.getRealClass(), tc);
+      }
     }
 
     //
@@ -569,6 +617,28 @@ public class TestRunner
     return m_classMap.values();
   }
 
+  /** @return why this test can't run in the worker JVMs, or null if it can. */
+  String whyNotForkable() {
+    List<Class<?>> listenerClasses = Lists.newArrayList();
+    for (String listener : m_xmlTest.getSuite().getListeners()) {
+      Class<?> listenerClass = ClassHelper.forName(listener);
+      if (listenerClass != null) {
+        listenerClasses.add(listenerClass);
+      }
+    }
+    for (ITestClass testClass : getTestClasses()) {
+      listenerClasses.addAll(
+          TestListenerHelper.findAllListeners(testClass.getRealClass(), m_annotationFinder)
+              .getListenerClasses());
+    }
+    return ForkedTestExecutor.whyNotForkable(getTestClasses(), listenerClasses);
+  }
+
+  /** Runs the test methods in this JVM even though there are worker JVMs. */
+  void runInThisJvm() {
+    m_workerPool = null;
+  }
+
   public void setTestName(String name) {
     m_testName = name;
   }
@@ -604,6 +674,8 @@ public class TestRunner
     } finally {
       afterRun();
       forgetHeavyReferencesIfNeeded();
+      // The next test may be run with other inheritable thread locals.
+      TimeoutService.getInstance().release();
     }
   }
 
@@ -628,9 +700,11 @@ public class TestRunner
     // Invoke listeners
     fireEvent(true /*start*/);
 
-    // invoke @BeforeTest
-    ITestNGMethod[] testConfigurationMethods = getBeforeTestConfigurationMethods();
-    invokeTestConfigurations(testConfigurationMethods);
+    // invoke @BeforeTest (the workers invoke it when forking)
+    if (m_workerPool == null) {
+      ITestNGMethod[] testConfigurationMethods = getBeforeTestConfigurationMethods();
+      invokeTestConfigurations(testConfigurationMethods);
+    }
   }
 
   private void invokeTestConfigurations(ITestNGMethod[] testConfigurationMethods) {
@@ -720,8 +794,13 @@ public class TestRunner
   }
 
   // If any of the test methods specify a priority other than the default, we'll need to be able to
-  // sort them.
-  private static BlockingQueue<Runnable> newQueue(boolean needPrioritySort) {
+  // sort them. The workers waiting for a thread are ordered by the critical path when it's known.
+  private static BlockingQueue<Runnable> newQueue(
+      boolean needPrioritySort, Comparator<ITestNGMethod> methodComparator) {
+    if (methodComparator instanceof CriticalPathComparator) {
+      return new PriorityBlockingQueue<>(
+          11, ((CriticalPathComparator) methodComparator).forWorkers());
+    }
     return needPrioritySort ? new PriorityBlockingQueue<>() : new LinkedBlockingQueue<>();
   }
 
@@ -737,8 +816,16 @@ public class TestRunner
     // removing methods would cause the graph never to terminate (because it would expect
     // termination from methods that never get invoked).
     ITestNGMethod[] interceptedOrder = intercept(getAllTestMethods());
+    if (m_workerPool != null) {
+      new ForkedTestExecutor(this, this, m_workerPool, m_configuration.getDurationProvider())
+          .run(interceptedOrder);
+      return;
+    }
     AtomicReference<IDynamicGraph<ITestNGMethod>> reference = new AtomicReference<>();
     TimeUtils.computeAndShowTime(
+        m_configuration.getTimeline(),
+        Phase.GRAPH_BUILDING,
+        m_testName,
         "DynamicGraphHelper.createDynamicGraph()",
         () -> {
           IDynamicGraph<ITestNGMethod> ref =
@@ -757,19 +844,27 @@ public class TestRunner
       if (graph.getNodeCount() <= 0) {
         return;
       }
+      IDurationProvider durationProvider = m_configuration.getDurationProvider();
+      if (durationProvider != null) {
+        methodComparator = new CriticalPathComparator(graph, durationProvider, needPrioritySort);
+      }
+      IExecutorFactory executorFactory =
+          VirtualThreadPoolExecutorFactory.select(
+              m_xmlTest.getSuite(), m_configuration.getExecutorFactory());
       ITestNGThreadPoolExecutor executor =
-          this.m_configuration
-              .getExecutorFactory()
-              .newTestMethodExecutor(
-                  "test=" + xmlTest.getName(),
-                  graph,
-                  this,
-                  threadCount,
-                  threadCount,
-                  0,
-                  TimeUnit.MILLISECONDS,
-                  newQueue(needPrioritySort),
-                  methodComparator);
+          executorFactory.newTestMethodExecutor(
+              "test=" + xmlTest.getName(),
+              graph,
+              this,
+              threadCount,
+              threadCount,
+              0,
+              TimeUnit.MILLISECONDS,
+              newQueue(needPrioritySort, methodComparator),
+              methodComparator);
+      ExecutorMetrics metrics = new ExecutorMetrics(m_configuration.getExecutorMetricsListeners());
+      executor.setMetricsListener(metrics);
+      metrics.onExecutorStart("test=" + xmlTest.getName(), threadCount, graph.getNodeCount());
       executor.run();
       try {
         long timeOut = m_xmlTest.getTimeOut(XmlTest.DEFAULT_TIMEOUT_MS);
@@ -786,6 +881,10 @@ public class TestRunner
       } catch (InterruptedException handled) {
         LOGGER.error(handled.getMessage(), handled);
         Thread.currentThread().interrupt();
+      } finally {
+        metrics.onExecutorFinish();
+        setAttribute(ExecutorMetrics.ATTRIBUTE, metrics);
+        Utils.log("TestRunner", 3, metrics.toString());
       }
       return;
     }
@@ -822,6 +921,22 @@ public class TestRunner
 
     List<ITestNGMethod> result = MethodHelper.methodInstancesToMethods(methodInstances);
 
+    String shard = m_xmlTest.getSuite().getShard();
+    if (shard != null) {
+      result = selectShard(Shard.parse(shard), result);
+      Utils.log(
+          "TestRunner",
+          2,
+          "Running shard "
+              + shard
+              + " of test "
+              + m_xmlTest.getName()
+              + ": "
+              + result.size()
+              + " methods out of "
+              + methodInstances.size());
+    }
+
     // Since an interceptor is involved, we would need to ensure that the ClassMethodMap object is
     // in sync with the
     // output of the interceptor, else @AfterClass doesn't get executed at all when interceptors are
@@ -854,6 +969,31 @@ public class TestRunner
     return resultArray;
   }
 
+  /**
+   * @return the methods of the shard. The shards are balanced by the durations of the history given
+   *     with <code>-shardhistory</code>, which every shard shares, and by the number of methods
+   *     otherwise: the durations each machine recorded on its own would give each shard a different
+   *     partition.
+   */
+  private List<ITestNGMethod> selectShard(Shard shard, List<ITestNGMethod> methods) {
+    String file = m_configuration.getShardHistory();
+    if (file == null) {
+      return shard.select(methods, null);
+    }
+    try (DurationHistory history = DurationHistory.openForReading(new File(file))) {
+      return shard.select(
+          methods,
+          method -> {
+            DurationStatistics statistics = history.get(method);
+            return statistics == null
+                ? IDurationProvider.UNKNOWN
+                : Math.round(statistics.getMean());
+          });
+    } catch (IOException e) {
+      throw new TestNGException("Couldn't read the shard history " + file, e);
+    }
+  }
+
   /**
    * Create a list of workers to run the methods passed in parameter. Each test method is run in its
    * own worker except in the following cases: - The method belongs to a class that
@@ -887,9 +1027,11 @@ public class TestRunner
   }
 
   private void afterRun() {
-    // invoke @AfterTest
-    ITestNGMethod[] testConfigurationMethods = getAfterTestConfigurationMethods();
-    invokeTestConfigurations(testConfigurationMethods);
+    // invoke @AfterTest (the workers invoke it when forking)
+    if (m_workerPool == null) {
+      ITestNGMethod[] testConfigurationMethods = getAfterTestConfigurationMethods();
+      invokeTestConfigurations(testConfigurationMethods);
+    }
 
     //
     // Log the end date
@@ -1206,6 +1348,9 @@ public class TestRunner
       IExecutionVisualiser l = (IExecutionVisualiser) listener;
       visualisers.add(l);
     }
+    if (listener instanceof IExecutorMetricsListener) {
+      m_configuration.addExecutorMetricsListener((IExecutorMetricsListener) listener);
+    }
     m_suite.addListener(listener);
   }
 
@@ -1247,9 +1392,9 @@ public class TestRunner
     }
 
     private void removeConfigurationResultAfterExecution(ITestResult itr) {
-      // The remove method of ResultMap removes based on hashCode
-      // So lets find the result based on the method and remove it off.
-      m_configsToBeInvoked.getAllResults().removeIf(tr -> tr.getMethod().equals(itr.getMethod()));
+      // The result passed to the listener isn't necessarily the one that was added,
+      // so lets remove the results of its method instead.
+      m_configsToBeInvoked.removeResult(itr.getMethod());
     }
   }
 
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 import org.testng.IConfigurable;
 import org.testng.IConfigurationListener;
+import org.testng.IDurationProvider;
 import org.testng.IExecutionListener;
 import org.testng.IHookable;
 import org.testng.IInjectorFactory;
@@ -13,9 +14,12 @@ import org.testng.collections.Maps;
 import org.testng.internal.annotations.DefaultAnnotationTransformer;
 import org.testng.internal.annotations.IAnnotationFinder;
 import org.testng.internal.annotations.JDK15AnnotationFinder;
+import org.testng.internal.fork.WorkerPool;
 import org.testng.internal.objects.GuiceBackedInjectorFactory;
 import org.testng.internal.thread.DefaultThreadPoolExecutorFactory;
 import org.testng.thread.IExecutorFactory;
+import org.testng.thread.IExecutorMetricsListener;
+import org.testng.util.Timeline;
 
 public class Configuration implements IConfiguration {
 
@@ -27,8 +31,14 @@ public class Configuration implements IConfiguration {
       Maps.newHashMap();
   private final Map<Class<? extends IConfigurationListener>, IConfigurationListener>
       m_configurationListeners = Maps.newHashMap();
+  private final Map<Class<? extends IExecutorMetricsListener>, IExecutorMetricsListener>
+      m_executorMetricsListeners = Maps.newConcurrentMap();
   private boolean alwaysRunListeners = true;
   private IExecutorFactory m_executorFactory = new DefaultThreadPoolExecutorFactory();
+  private IDurationProvider m_durationProvider;
+  private String m_shardHistory;
+  private WorkerPool m_workerPool;
+  private final Timeline m_timeline = new Timeline();
 
   private IInjectorFactory injectorFactory = new GuiceBackedInjectorFactory();
   private boolean overrideIncludedMethods = false;
@@ -120,6 +130,51 @@ public class Configuration implements IConfiguration {
     return this.m_executorFactory;
   }
 
+  @Override
+  public IDurationProvider getDurationProvider() {
+    return m_durationProvider;
+  }
+
+  @Override
+  public void setDurationProvider(IDurationProvider durationProvider) {
+    this.m_durationProvider = durationProvider;
+  }
+
+  @Override
+  public String getShardHistory() {
+    return m_shardHistory;
+  }
+
+  @Override
+  public void setShardHistory(String shardHistory) {
+    this.m_shardHistory = shardHistory;
+  }
+
+  @Override
+  public WorkerPool getWorkerPool() {
+    return m_workerPool;
+  }
+
+  @Override
+  public void setWorkerPool(WorkerPool workerPool) {
+    this.m_workerPool = workerPool;
+  }
+
+  @Override
+  public List<IExecutorMetricsListener> getExecutorMetricsListeners() {
+    return Lists.newArrayList(m_executorMetricsListeners.values());
+  }
+
+  @Override
+  public void addExecutorMetricsListener(IExecutorMetricsListener listener) {
+    m_executorMetricsListeners.putIfAbsent(listener.getClass(), listener);
+  }
+
+  @Override
+  public Timeline getTimeline() {
+    return m_timeline;
+  }
+
   @Override
   public boolean alwaysRunListeners() {
     return alwaysRunListeners;
@@ -0,0 +1,146 @@
+package org.testng.internal;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.testng.IDurationProvider;
+import org.testng.IDynamicGraph;
+import org.testng.ITestNGMethod;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.thread.IWorker;
+
+/**
+ * Orders the methods of a graph by the expected duration of the longest chain of methods that
+ * starts with them (i.e. the method itself followed by its dependents), longest first. Methods
+ * whose duration isn't known are expected to take as long as the average known method.
+ *
+ * <p>When priorities are honoured, they take precedence and the chains only break the ties.
+ *
+ * <p>The same order applies to the workers waiting for a thread, see {@link #forWorkers()}.
+ */
+public class CriticalPathComparator implements Comparator<ITestNGMethod> {
+
+  private final Map<ITestNGMethod, Long> m_remaining;
+  private final boolean m_honourPriorities;
+
+  public CriticalPathComparator(
+      IDynamicGraph<ITestNGMethod> graph,
+      IDurationProvider durationProvider,
+      boolean honourPriorities) {
+    m_remaining = computeRemainingDurations(graph, durationProvider);
+    m_honourPriorities = honourPriorities;
+  }
+
+  @Override
+  public int compare(ITestNGMethod o1, ITestNGMethod o2) {
+    if (m_honourPriorities) {
+      int prePriDiff = Integer.compare(o1.getInterceptedPriority(), o2.getInterceptedPriority());
+      if (prePriDiff != 0) {
+        return prePriDiff;
+      }
+      int priDiff = Integer.compare(o1.getPriority(), o2.getPriority());
+      if (priDiff != 0) {
+        return priDiff;
+      }
+    }
+    int pathDiff = Long.compare(getRemainingDuration(o2), getRemainingDuration(o1));
+    if (pathDiff != 0) {
+      return pathDiff;
+    }
+    return o1.getMethodName().compareTo(o2.getMethodName());
+  }
+
+  /**
+   * @return a comparator ordering the {@link IWorker}s of the methods (e.g. in the work queue of an
+   *     executor) like the methods they run first.
+   */
+  public Comparator<Runnable> forWorkers() {
+    return (r1, r2) -> {
+      List<ITestNGMethod> tasks1 = tasksOf(r1);
+      List<ITestNGMethod> tasks2 = tasksOf(r2);
+      if (tasks1.isEmpty() || tasks2.isEmpty()) {
+        return 0;
+      }
+      return compare(tasks1.get(0), tasks2.get(0));
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<ITestNGMethod> tasksOf(Runnable runnable) {
+    return ((IWorker<ITestNGMethod>) runnable).getTasks();
+  }
+
+  /**
+   * @return the expected duration of the longest chain of methods starting with this method, in
+   *     milliseconds.
+   */
+  public long getRemainingDuration(ITestNGMethod method) {
+    return m_remaining.getOrDefault(method, 0L);
+  }
+
+  private static Map<ITestNGMethod, Long> computeRemainingDurations(
+      IDynamicGraph<ITestNGMethod> graph, IDurationProvider durationProvider) {
+    Set<ITestNGMethod> nodes = graph.getNodesWithStatus(IDynamicGraph.Status.READY);
+    Map<ITestNGMethod, Long> durations = Maps.newHashMap();
+    long known = 0;
+    long total = 0;
+    for (ITestNGMethod node : nodes) {
+      long duration = durationProvider.getExpectedDuration(node);
+      if (duration != IDurationProvider.UNKNOWN) {
+        durations.put(node, duration);
+        known++;
+        total += duration;
+      }
+    }
+    long defaultDuration = known == 0 ? 1 : Math.max(total / known, 1);
+
+    // Walk the graph from the methods nothing depends upon back to the free ones, so that the
+    // chains of all the dependents of a method are known by the time the method is reached.
+    Map<ITestNGMethod, List<ITestNGMethod>> dependents = Maps.newHashMap();
+    Map<ITestNGMethod, List<ITestNGMethod>> upstream = Maps.newHashMap();
+    Map<ITestNGMethod, Integer> pending = Maps.newHashMap();
+    Deque<ITestNGMethod> ready = new ArrayDeque<>();
+    for (ITestNGMethod node : nodes) {
+      List<ITestNGMethod> nodeDependents = graph.getDependenciesFor(node);
+      nodeDependents.retainAll(nodes);
+      dependents.put(node, nodeDependents);
+      for (ITestNGMethod dependent : nodeDependents) {
+        upstream.computeIfAbsent(dependent, k -> Lists.newArrayList()).add(node);
+      }
+      pending.put(node, nodeDependents.size());
+      if (nodeDependents.isEmpty()) {
+        ready.add(node);
+      }
+    }
+
+    Map<ITestNGMethod, Long> remaining = Maps.newHashMap();
+    while (remaining.size() < nodes.size()) {
+      if (ready.isEmpty()) {
+        // What's left belongs to cycles: start from any of them and ignore the missing chains.
+        nodes.stream()
+            .filter(node -> !remaining.containsKey(node))
+            .findFirst()
+            .ifPresent(ready::add);
+      }
+      ITestNGMethod node = ready.poll();
+      if (remaining.containsKey(node)) {
+        continue;
+      }
+      long longestDependent = 0;
+      for (ITestNGMethod dependent : dependents.get(node)) {
+        longestDependent = Math.max(longestDependent, remaining.getOrDefault(dependent, 0L));
+      }
+      remaining.put(node, durations.getOrDefault(node, defaultDuration) + longestDependent);
+      for (ITestNGMethod parent : upstream.getOrDefault(node, Lists.newArrayList())) {
+        if (pending.merge(parent, -1, Integer::sum) == 0) {
+          ready.add(parent);
+        }
+      }
+    }
+    return remaining;
+  }
+}
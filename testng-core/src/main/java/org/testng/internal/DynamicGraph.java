@@ -4,8 +4,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.testng.IDynamicGraph;
 import org.testng.IExecutionVisualiser;
 import org.testng.collections.Lists;
@@ -21,9 +25,22 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
   private final Edges<T> m_edges = new Edges<>();
   private Set<IExecutionVisualiser> visualisers = Sets.newHashSet();
 
+  // The free nodes (nodes that are ready and have no outgoing edges) are maintained incrementally
+  // as nodes and edges come and go, so that getFreeNodes() doesn't need to scan the whole graph.
+  // They are keyed by the order in which they became ready, to preserve the ordering of
+  // m_nodesReady. Edges can be added concurrently (see DynamicGraphHelper), hence the concurrent
+  // maps.
+  private final Map<T, Long> m_readyOrder = new ConcurrentHashMap<>();
+  private final NavigableMap<Long, T> m_freeNodes = new ConcurrentSkipListMap<>();
+  private final AtomicLong m_readySequence = new AtomicLong();
+
   /** Add a node to the graph. */
   public boolean addNode(T node) {
-    return m_nodesReady.add(node);
+    boolean added = m_nodesReady.add(node);
+    if (added) {
+      markReady(node);
+    }
+    return added;
   }
 
   /**
@@ -33,7 +50,10 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
    * @param to - Represents the edge on which another edge depends upon.
    */
   public void addEdge(int weight, T from, T to) {
-    m_edges.addEdge(weight, from, to, false);
+    if (m_edges.addEdge(weight, from, to, false)) {
+      // "from" now depends on another node, so it can't be free anymore.
+      unmarkFree(from);
+    }
   }
 
   public void setVisualisers(Set<IExecutionVisualiser> listener) {
@@ -49,17 +69,21 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
 
   /** @return a set of all the nodes that don't depend on any other nodes. */
   public List<T> getFreeNodes() {
-    // Get a list of nodes that are ready and have no outgoing edges.
-    Set<T> free = Sets.newLinkedHashSet(m_nodesReady);
-    free.removeAll(m_edges.fromNodes());
+    List<T> free = Lists.newArrayList(m_freeNodes.values());
 
     // if all nodes have dependencies, then we can ignore the lowest one if nothing else is running
     if (free.isEmpty() && m_nodesRunning.isEmpty()) {
-      int lowestWeight = m_edges.getLowestEdgeWeight(m_nodesReady);
-      for (T node : m_nodesReady) {
-        if (m_edges.hasAllEdgesWithWeight(node, lowestWeight)) {
-          free.add(node);
-        }
+      return getFreeNodesIgnoringLowestWeight();
+    }
+    return free;
+  }
+
+  private List<T> getFreeNodesIgnoringLowestWeight() {
+    Set<T> free = Sets.newLinkedHashSet();
+    int lowestWeight = m_edges.getLowestEdgeWeight(m_nodesReady);
+    for (T node : m_nodesReady) {
+      if (m_edges.hasAllEdgesWithWeight(node, lowestWeight)) {
+        free.add(node);
       }
     }
 
@@ -96,10 +120,12 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
     switch (status) {
       case RUNNING:
         m_nodesReady.remove(node);
+        unmarkReady(node);
         m_nodesRunning.add(node);
         break;
       case FINISHED:
         m_nodesReady.remove(node);
+        unmarkReady(node);
         m_nodesRunning.remove(node);
         m_nodesFinished.add(node);
 
@@ -108,26 +134,41 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
         if (outgoingEdges != null && incomingEdges != null) {
           // Add virtual edge before removing intermediate node. E.g.:
           //   Given graph c -> b -> a, then add c -> a before removing b.
+          // No edge is added if we're patching up a lower weighted cycle (an incoming edge heavier
+          // than the outgoing one), so the incoming edges are indexed by weight and only the pairs
+          // that get an edge are visited. A pair and its reverse are reached from two different
+          // outgoing edges, so the order of the incoming ones doesn't change which edges are kept.
+          NavigableMap<Integer, List<T>> incomingByWeight = new TreeMap<>();
+          for (Map.Entry<T, Integer> in : incomingEdges.entrySet()) {
+            incomingByWeight
+                .computeIfAbsent(in.getValue(), k -> Lists.newArrayList())
+                .add(in.getKey());
+          }
           for (Map.Entry<T, Integer> out : outgoingEdges.entrySet()) {
-            for (Map.Entry<T, Integer> in : incomingEdges.entrySet()) {
-              if (in.getKey() == out.getKey()) {
-                // Don't create a one node cycle.
-                continue;
-              } else if (in.getValue() > out.getValue()) {
-                // Don't add edges if we're patching up a lower weighted cycle.
-                continue;
+            int weight = out.getValue();
+            for (List<T> ins : incomingByWeight.headMap(weight, true).values()) {
+              for (T in : ins) {
+                if (in != out.getKey()) {
+                  // Don't create a one node cycle.
+                  m_edges.addEdge(weight, in, out.getKey(), true);
+                }
               }
-
-              int weight = Math.max(in.getValue(), out.getValue());
-              m_edges.addEdge(weight, in.getKey(), out.getKey(), true);
             }
           }
         }
 
         m_edges.removeNode(node);
+        if (incomingEdges != null) {
+          // The nodes that depended on this one may have lost their last dependency.
+          for (T dependent : incomingEdges.keySet()) {
+            markFreeIfPossible(dependent);
+          }
+        }
         break;
       case READY:
-        m_nodesReady.add(node);
+        if (m_nodesReady.add(node)) {
+          markReady(node);
+        }
         m_nodesRunning.remove(node);
         break;
       default:
@@ -137,6 +178,32 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
     this.visualisers.forEach(visualiser -> visualiser.consumeDotDefinition(toDot()));
   }
 
+  private void markReady(T node) {
+    m_readyOrder.put(node, m_readySequence.getAndIncrement());
+    markFreeIfPossible(node);
+  }
+
+  private void unmarkReady(T node) {
+    Long order = m_readyOrder.remove(node);
+    if (order != null) {
+      m_freeNodes.remove(order);
+    }
+  }
+
+  private void markFreeIfPossible(T node) {
+    Long order = m_readyOrder.get(node);
+    if (order != null && !m_edges.hasOutgoingEdges(node)) {
+      m_freeNodes.put(order, node);
+    }
+  }
+
+  private void unmarkFree(T node) {
+    Long order = m_readyOrder.get(node);
+    if (order != null) {
+      m_freeNodes.remove(order);
+    }
+  }
+
   /** @return the number of nodes in this graph. */
   public int getNodeCount() {
     return m_nodesReady.size() + m_nodesRunning.size() + m_nodesFinished.size();
@@ -185,7 +252,7 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
     String RUNNING = "[style=filled color=green]";
     String FINISHED = "[style=filled color=grey]";
     StringBuilder result = new StringBuilder("digraph g {\n");
-    List<T> freeNodes = getFreeNodes();
+    Set<T> freeNodes = Sets.newHashSet(getFreeNodes());
     String color;
     for (T n : m_nodesReady) {
       color = freeNodes.contains(n) ? FREE : "";
@@ -220,9 +287,10 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
     private final Map<T, Map<T, Integer>> m_incomingEdges = new ConcurrentHashMap<>();
     private final Map<T, Map<T, Integer>> m_outgoingEdges = new ConcurrentHashMap<>();
 
-    public void addEdge(int weight, T from, T to, boolean ignoreCycles) {
+    /** @return true if the edge was added (or its weight updated). */
+    public boolean addEdge(int weight, T from, T to, boolean ignoreCycles) {
       if (from.equals(to)) {
-        return;
+        return false;
       }
 
       Integer reversedEdgeWeight = findReversedEdge(from, to);
@@ -230,17 +298,18 @@ public class DynamicGraph<T> implements IDynamicGraph<T> {
         if (!ignoreCycles) {
           throw new IllegalStateException("Circular dependency: " + from + " <-> " + to);
         } else {
-          return;
+          return false;
         }
       }
 
       addEdgeToMap(m_incomingEdges, to, from, weight);
       addEdgeToMap(m_outgoingEdges, from, to, weight);
+      return true;
     }
 
-    /** @return the set of nodes that have outgoing edges. */
-    Set<T> fromNodes() {
-      return m_outgoingEdges.keySet();
+    /** @return true if the node depends on at least one other node. */
+    boolean hasOutgoingEdges(T node) {
+      return m_outgoingEdges.containsKey(node);
     }
 
     Map<T, Integer> from(T node) {
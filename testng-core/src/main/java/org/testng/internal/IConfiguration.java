@@ -1,9 +1,13 @@
 package org.testng.internal;
 
+import java.util.Collections;
 import java.util.List;
 import org.testng.*;
 import org.testng.internal.annotations.IAnnotationFinder;
+import org.testng.internal.fork.WorkerPool;
 import org.testng.thread.IExecutorFactory;
+import org.testng.thread.IExecutorMetricsListener;
+import org.testng.util.Timeline;
 
 public interface IConfiguration {
   IAnnotationFinder getAnnotationFinder();
@@ -42,6 +46,36 @@ public interface IConfiguration {
 
   IExecutorFactory getExecutorFactory();
 
+  default IDurationProvider getDurationProvider() {
+    return null;
+  }
+
+  default void setDurationProvider(IDurationProvider durationProvider) {}
+
+  default String getShardHistory() {
+    return null;
+  }
+
+  default void setShardHistory(String shardHistory) {}
+
+  default WorkerPool getWorkerPool() {
+    return null;
+  }
+
+  default void setWorkerPool(WorkerPool workerPool) {}
+
+  /** @return the listeners the executors of the tests notify of what they do with their nodes. */
+  default List<IExecutorMetricsListener> getExecutorMetricsListeners() {
+    return Collections.emptyList();
+  }
+
+  default void addExecutorMetricsListener(IExecutorMetricsListener listener) {}
+
+  /** @return the timeline the startup and the teardown phases of the run are recorded in. */
+  default Timeline getTimeline() {
+    return Timeline.disabled();
+  }
+
   IInjectorFactory getInjectorFactory();
 
   void setInjectorFactory(IInjectorFactory factory);
@@ -0,0 +1,94 @@
+package org.testng.internal;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.testng.collections.Lists;
+import org.testng.internal.thread.TestNGThreadFactory;
+import org.testng.xml.XmlClass;
+
+/**
+ * Does the work of the discovery that only depends on one class (loading it, and finding its
+ * annotations and its methods) for all the classes at once, on all the cores. The results are then
+ * picked up one class at a time in the usual order, so the outcome of the discovery doesn't change.
+ * The classes this fails for are left out, so that they fail again, at the same point, when they
+ * are discovered in order.
+ *
+ * @see RuntimeBehavior#isParallelDiscovery()
+ */
+public final class ParallelDiscovery {
+
+  private ParallelDiscovery() {}
+
+  public static boolean isEnabled() {
+    return RuntimeBehavior.isParallelDiscovery();
+  }
+
+  /**
+   * Loads the classes without initializing them.
+   *
+   * @param xmlClasses the classes
+   */
+  public static void loadClasses(List<XmlClass> xmlClasses) {
+    computeAll(xmlClasses, XmlClass::getSupportClass);
+  }
+
+  /**
+   * @param items the items (the null ones are ignored)
+   * @param function the function to apply to each item
+   * @return the result of the function for each item it didn't fail for
+   */
+  public static <T, R> Map<T, R> computeAll(Collection<T> items, Function<T, R> function) {
+    Map<T, R> result = new ConcurrentHashMap<>();
+    List<T> distinctItems =
+        items.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    int threadCount = Math.min(distinctItems.size(), Runtime.getRuntime().availableProcessors());
+    if (threadCount == 0) {
+      return result;
+    }
+    // The threads are created by this thread, as the items are submitted, so they inherit its
+    // context class loader, which is where the classes (and the annotation transformers) are
+    // loaded from. The threads of the common pool can't be given another one when a security
+    // manager is installed.
+    ExecutorService executor =
+        Executors.newFixedThreadPool(threadCount, new TestNGThreadFactory("discovery"));
+    try {
+      List<Future<?>> futures = Lists.newArrayList();
+      for (T item : distinctItems) {
+        futures.add(executor.submit(() -> compute(item, function, result)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // compute() only lets the errors through.
+      throw (Error) e.getCause();
+    } finally {
+      executor.shutdown();
+    }
+    return result;
+  }
+
+  private static <T, R> void compute(T item, Function<T, R> function, Map<T, R> result) {
+    R value;
+    try {
+      value = function.apply(item);
+    } catch (RuntimeException | LinkageError e) {
+      Utils.log("ParallelDiscovery", 4, "Deferring " + item + ": " + e);
+      return;
+    }
+    if (value != null) {
+      result.put(item, value);
+    }
+  }
+}
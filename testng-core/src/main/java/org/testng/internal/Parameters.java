@@ -28,6 +28,7 @@ import org.testng.internal.collections.ArrayIterator;
 import org.testng.internal.invokers.MethodInvocationHelper;
 import org.testng.internal.invokers.ParameterHolder;
 import org.testng.internal.invokers.ParameterHolder.ParameterOrigin;
+import org.testng.internal.jfr.JfrEvents;
 import org.testng.internal.objects.Dispenser;
 import org.testng.internal.objects.IObjectDispenser;
 import org.testng.internal.objects.pojo.BasicAttributes;
@@ -762,6 +763,8 @@ public class Parameters {
       }
 
       Iterator<Object[]> initParams;
+      JfrEvents.Event event = JfrEvents.DATA_PROVIDER.begin();
+      int status = ITestResult.FAILURE;
       try {
         initParams =
             MethodInvocationHelper.invokeDataProvider(
@@ -772,11 +775,22 @@ public class Parameters {
                 methodParams.context,
                 fedInstance,
                 annotationFinder);
+        status = ITestResult.SUCCESS;
       } catch (RuntimeException e) {
         for (IDataProviderListener each : holder.getListeners()) {
           each.onDataProviderFailure(testMethod, methodParams.context, e);
         }
         throw e;
+      } finally {
+        if (event != null) {
+          Method method = dataProviderMethod.getMethod();
+          event
+              .set(JfrEvents.METHOD, method.getDeclaringClass().getName() + "." + method.getName())
+              .set(JfrEvents.TEST_METHOD_NAME, testMethod.getQualifiedName())
+              .set(JfrEvents.INSTANCE, JfrEvents.instanceOf(dataProviderMethod.getInstance()))
+              .set(JfrEvents.STATUS, JfrEvents.statusOf(status))
+              .commit();
+        }
       }
 
       final Iterator<Object[]> parameters = initParams;
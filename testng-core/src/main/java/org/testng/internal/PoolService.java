@@ -1,6 +1,8 @@
 package org.testng.internal;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
@@ -12,15 +14,28 @@ import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import org.testng.TestNGException;
 import org.testng.collections.Lists;
+import org.testng.collections.Maps;
 import org.testng.internal.thread.ThreadUtil;
+import org.testng.internal.thread.VirtualThreads;
 
-/** Simple wrapper for an ExecutorCompletionService. */
+/**
+ * Simple wrapper for an ExecutorCompletionService. The underlying pool can be shared by several
+ * callers (e.g. by all the parallel data providers of a suite) until {@link #shutdown()} is
+ * invoked.
+ */
 public class PoolService<FutureType> {
 
-  private final ExecutorCompletionService<FutureType> m_completionService;
   private final ExecutorService m_executor;
 
   public PoolService(int threadPoolSize) {
+    this(threadPoolSize, false);
+  }
+
+  /**
+   * @param threadPoolSize the number of tasks that run at the same time
+   * @param virtual whether the tasks run on virtual threads
+   */
+  public PoolService(int threadPoolSize, boolean virtual) {
 
     ThreadFactory threadFactory =
         new ThreadFactory() {
@@ -29,31 +44,70 @@ public class PoolService<FutureType> {
 
           @Override
           public Thread newThread(@Nonnull Runnable r) {
-            return new Thread(
-                r, ThreadUtil.THREAD_NAME + "-PoolService-" + threadNumber.getAndIncrement());
+            String name = ThreadUtil.THREAD_NAME + "-PoolService-" + threadNumber.getAndIncrement();
+            return virtual ? VirtualThreads.newThread(name, r) : new Thread(r, name);
           }
         };
     m_executor = Executors.newFixedThreadPool(threadPoolSize, threadFactory);
-    m_completionService = new ExecutorCompletionService<>(m_executor);
   }
 
+  /** Runs all the tasks, waits for them and shuts the pool down. */
   public List<FutureType> submitTasksAndWait(List<? extends Callable<FutureType>> tasks) {
-
-    List<Future<FutureType>> takes = Lists.newArrayList(tasks.size());
-    for (Callable<FutureType> callable : tasks) {
-      takes.add(m_completionService.submit(callable));
+    try {
+      return submitTasksAndWait(tasks.iterator(), Math.max(tasks.size(), 1));
+    } finally {
+      shutdown();
     }
+  }
+
+  /**
+   * Runs the tasks as they are pulled from the iterator: once <code>maxInFlight</code> of them are
+   * submitted, the next one is only pulled when one of them completes. Only the tasks in flight are
+   * referenced, the result of each task is collected as soon as it completes.
+   *
+   * @param tasks the tasks to run
+   * @param maxInFlight the maximum number of tasks submitted but not completed yet
+   * @return the results of the tasks, in the order of the iterator
+   */
+  public List<FutureType> submitTasksAndWait(
+      Iterator<? extends Callable<FutureType>> tasks, int maxInFlight) {
+    ExecutorCompletionService<FutureType> completionService =
+        new ExecutorCompletionService<>(m_executor);
 
-    List<FutureType> result = Lists.newArrayList(takes.size());
-    for (Future<FutureType> take : takes) {
-      try {
-        result.add(take.get());
-      } catch (InterruptedException | ExecutionException e) { // NOSONAR
-        throw new TestNGException(e);
+    // The index in the results of each task in flight
+    Map<Future<FutureType>, Integer> inFlight = Maps.newHashMap();
+    List<FutureType> result = Lists.newArrayList();
+    // Like when all the futures were kept, the failure of the first failed task is reported.
+    ExecutionException failure = null;
+    int failedAt = Integer.MAX_VALUE;
+    try {
+      while (!inFlight.isEmpty() || tasks.hasNext()) {
+        if (inFlight.size() < maxInFlight && tasks.hasNext()) {
+          inFlight.put(completionService.submit(tasks.next()), result.size());
+          result.add(null);
+          continue;
+        }
+        Future<FutureType> done = completionService.take();
+        int index = inFlight.remove(done);
+        try {
+          result.set(index, done.get());
+        } catch (ExecutionException e) {
+          if (index < failedAt) {
+            failedAt = index;
+            failure = e;
+          }
+        }
       }
+    } catch (InterruptedException e) { // NOSONAR
+      throw new TestNGException(e);
+    }
+    if (failure != null) {
+      throw new TestNGException(failure);
     }
+    return result;
+  }
 
+  public void shutdown() {
     m_executor.shutdown();
-    return result;
   }
 }
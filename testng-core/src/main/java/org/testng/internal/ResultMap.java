@@ -1,44 +1,100 @@
 package org.testng.internal;
 
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentMap;
 import org.testng.IResultMap;
 import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.collections.Objects;
+import org.testng.collections.Sets;
 
+/**
+ * An {@link IResultMap} which also indexes its results by test method, so that looking up (or
+ * removing) the results of a method only costs as much as the results of that method. Results are
+ * indexed under the method they hold when they are added.
+ *
+ * <p>Like before the index, {@link #getAllResults()} is a live view of the results: removing a
+ * result from it (e.g. through its iterator) removes it from the map.
+ */
 public class ResultMap implements IResultMap {
 
   private final Set<ITestResult> results = ConcurrentHashMap.newKeySet();
+  private final ConcurrentMap<ITestNGMethod, Set<ITestResult>> resultsByMethod =
+      new ConcurrentHashMap<>();
+  private final Set<ITestResult> allResults = new AllResults();
 
   @Override
   public void addResult(ITestResult result) {
-    results.add(result);
+    resultsByMethod.compute(
+        keyOf(result.getMethod()),
+        (method, methodResults) -> {
+          Set<ITestResult> set =
+              methodResults == null ? ConcurrentHashMap.newKeySet() : methodResults;
+          set.add(result);
+          results.add(result);
+          return set;
+        });
   }
 
   @Override
   public Set<ITestResult> getResults(ITestNGMethod method) {
-    return results.stream()
-        .filter(result -> result.getMethod().equals(method))
-        .collect(Collectors.toSet());
+    Set<ITestResult> methodResults = resultsByMethod.get(method);
+    return methodResults == null ? Sets.newHashSet() : Sets.newHashSet(methodResults);
   }
 
   @Override
   public void removeResult(ITestNGMethod m) {
-    Set<ITestResult> toRemove = getResults(m);
-    results.removeAll(toRemove);
+    resultsByMethod.computeIfPresent(
+        m,
+        (method, methodResults) -> {
+          results.removeAll(methodResults);
+          return null;
+        });
   }
 
   @Override
   public void removeResult(ITestResult r) {
-    results.remove(r);
+    remove(r);
+  }
+
+  /** @return true if the result was in the map. */
+  private boolean remove(ITestResult r) {
+    if (!results.remove(r)) {
+      return false;
+    }
+    ITestNGMethod key = keyOf(r.getMethod());
+    Set<ITestResult> methodResults = resultsByMethod.get(key);
+    if (methodResults != null && methodResults.contains(r)) {
+      removeFromIndex(key, r);
+      return true;
+    }
+    // The method of the result was changed after it was added.
+    resultsByMethod.forEach(
+        (method, set) -> {
+          if (set.contains(r)) {
+            removeFromIndex(method, r);
+          }
+        });
+    return true;
+  }
+
+  private void removeFromIndex(ITestNGMethod key, ITestResult r) {
+    resultsByMethod.computeIfPresent(
+        key,
+        (method, methodResults) -> {
+          methodResults.remove(r);
+          return methodResults.isEmpty() ? null : methodResults;
+        });
   }
 
   @Override
   public Set<ITestResult> getAllResults() {
-    return results;
+    return allResults;
   }
 
   @Override
@@ -48,11 +104,79 @@ public class ResultMap implements IResultMap {
 
   @Override
   public Collection<ITestNGMethod> getAllMethods() {
-    return results.stream().map(ITestResult::getMethod).collect(Collectors.toSet());
+    return Collections.unmodifiableSet(resultsByMethod.keySet());
   }
 
   @Override
   public String toString() {
     return Objects.toStringHelper(getClass()).add("map", results).toString();
   }
+
+  /** The results, whose changes go through the map so that the index stays up to date. */
+  private class AllResults extends AbstractSet<ITestResult> {
+
+    @Override
+    public Iterator<ITestResult> iterator() {
+      Iterator<ITestResult> iterator = results.iterator();
+      return new Iterator<ITestResult>() {
+        private ITestResult m_current;
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public ITestResult next() {
+          m_current = iterator.next();
+          return m_current;
+        }
+
+        @Override
+        public void remove() {
+          if (m_current == null) {
+            throw new IllegalStateException();
+          }
+          ResultMap.this.remove(m_current);
+          m_current = null;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return results.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return results.contains(o);
+    }
+
+    @Override
+    public boolean add(ITestResult result) {
+      if (results.contains(result)) {
+        return false;
+      }
+      addResult(result);
+      return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      return o instanceof ITestResult && ResultMap.this.remove((ITestResult) o);
+    }
+  }
+
+  /**
+   * A {@link WrappedTestNGMethod} equals the method it wraps but has a different hash code, so its
+   * results are indexed under the wrapped method.
+   */
+  private static ITestNGMethod keyOf(ITestNGMethod method) {
+    ITestNGMethod key = method;
+    while (key instanceof WrappedTestNGMethod) {
+      key = ((WrappedTestNGMethod) key).getTestNGMethod();
+    }
+    return key;
+  }
 }
@@ -0,0 +1,268 @@
+package org.testng.internal;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.testng.IDurationProvider;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.TestNGException;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+
+/**
+ * One of <code>total</code> shards of the test methods of a &lt;test&gt;, numbered from 1. Running
+ * every shard runs every test method exactly once.
+ *
+ * <p>The methods are split into units that can't be separated: a method and all the methods it
+ * depends upon (through <code>dependsOnMethods</code> or <code>dependsOnGroups</code>), and all the
+ * methods of a class that has <code>@BeforeClass</code> or <code>@AfterClass</code> methods. The
+ * units are then spread over the shards, longest first, each one going to the shard that has the
+ * least work so far. The work is the expected duration of the methods when an {@link
+ * IDurationProvider} is given (methods with no known duration counting as the average known one),
+ * and their number otherwise. The units of the same weight are ordered by the names of their
+ * methods, so the partition only depends on the methods and on the durations: the shards agree with
+ * each other as long as they are given the same durations. TestNG therefore only balances them by
+ * the durations of a history that every shard shares, given with <code>-shardhistory</code>.
+ */
+public final class Shard {
+
+  private final int m_index;
+  private final int m_total;
+
+  public Shard(int index, int total) {
+    if (total < 1 || index < 1 || index > total) {
+      throw new TestNGException(
+          "Invalid shard "
+              + index
+              + "/"
+              + total
+              + ": expected index/total with 1 <= index <= total");
+    }
+    m_index = index;
+    m_total = total;
+  }
+
+  /**
+   * @param shard the shard, as "index/total" (e.g. "2/4")
+   * @return the shard
+   */
+  public static Shard parse(String shard) {
+    String[] parts = shard.trim().split("/", -1);
+    if (parts.length == 2) {
+      try {
+        return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+      } catch (NumberFormatException e) {
+        // Reported below
+      }
+    }
+    throw new TestNGException("Invalid shard \"" + shard + "\": expected index/total (e.g. 2/4)");
+  }
+
+  public int getIndex() {
+    return m_index;
+  }
+
+  public int getTotal() {
+    return m_total;
+  }
+
+  /**
+   * @param methods the test methods, in the order they would run
+   * @param durationProvider the expected durations of the methods, or null
+   * @return the methods of this shard, in the same order
+   */
+  public List<ITestNGMethod> select(
+      List<ITestNGMethod> methods, IDurationProvider durationProvider) {
+    return partition(methods, m_total, durationProvider).get(m_index - 1);
+  }
+
+  /**
+   * @param methods the test methods, in the order they would run
+   * @param total the number of shards
+   * @param durationProvider the expected durations of the methods, or null
+   * @return the methods of each shard, in the same order as <code>methods</code>
+   */
+  public static List<List<ITestNGMethod>> partition(
+      List<ITestNGMethod> methods, int total, IDurationProvider durationProvider) {
+    List<List<ITestNGMethod>> units = units(methods);
+    Map<ITestNGMethod, Long> weights = weightsOf(methods, durationProvider);
+    long[] unitWeights = new long[units.size()];
+    String[] unitNames = new String[units.size()];
+    Integer[] order = new Integer[units.size()];
+    for (int u = 0; u < units.size(); u++) {
+      order[u] = u;
+      for (ITestNGMethod method : units.get(u)) {
+        unitWeights[u] += weights.get(method);
+        String name = method.getQualifiedName();
+        if (unitNames[u] == null || name.compareTo(unitNames[u]) < 0) {
+          unitNames[u] = name;
+        }
+      }
+    }
+    // Largest units first, the ties being broken by the names of their methods, which don't depend
+    // on the order the methods were found in, and then by the position of their first method.
+    Arrays.sort(
+        order,
+        Comparator.comparingLong((Integer u) -> unitWeights[u])
+            .reversed()
+            .thenComparing(u -> unitNames[u]));
+
+    long[] loads = new long[total];
+    PriorityQueue<Integer> lightest =
+        new PriorityQueue<>(
+            total,
+            Comparator.comparingLong((Integer s) -> loads[s]).thenComparingInt(s -> s));
+    for (int s = 0; s < total; s++) {
+      lightest.add(s);
+    }
+    Map<ITestNGMethod, Integer> shardOf = Maps.newHashMap();
+    for (int u : order) {
+      int s = lightest.poll();
+      loads[s] += unitWeights[u];
+      lightest.add(s);
+      for (ITestNGMethod method : units.get(u)) {
+        shardOf.put(method, s);
+      }
+    }
+
+    List<List<ITestNGMethod>> result = Lists.newArrayList(total);
+    for (int s = 0; s < total; s++) {
+      result.add(Lists.newArrayList());
+    }
+    for (ITestNGMethod method : methods) {
+      result.get(shardOf.get(method)).add(method);
+    }
+    return result;
+  }
+
+  /**
+   * @param methods the test methods, in the order they would run
+   * @return the methods that have to run in the same shard (a method and the methods it depends
+   *     upon, or the methods of a class that has class level configuration methods), in the order
+   *     of their first method
+   */
+  public static List<List<ITestNGMethod>> units(List<ITestNGMethod> methods) {
+    int[] parents = new int[methods.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+    Map<ITestNGMethod, Integer> positions = Maps.newHashMap();
+    for (int i = 0; i < methods.size(); i++) {
+      positions.putIfAbsent(methods.get(i), i);
+    }
+    ITestNGMethod[] all = methods.toArray(new ITestNGMethod[0]);
+    Map<ITestClass, Integer> classes = Maps.newHashMap();
+    for (int i = 0; i < all.length; i++) {
+      ITestNGMethod method = all[i];
+      ITestClass testClass = method.getTestClass();
+      if (testClass != null
+          && (testClass.getBeforeClassMethods().length > 0
+              || testClass.getAfterClassMethods().length > 0)) {
+        Integer first = classes.putIfAbsent(testClass, i);
+        if (first != null) {
+          union(parents, i, first);
+        }
+      }
+      if (method.getMethodsDependedUpon().length > 0) {
+        for (ITestNGMethod upon : MethodHelper.findDependedUponMethods(method, all)) {
+          union(parents, i, positions.getOrDefault(upon, i));
+        }
+      }
+      for (String group : method.getGroupsDependedUpon()) {
+        for (ITestNGMethod upon : MethodGroupsHelper.findMethodsThatBelongToGroup(all, group)) {
+          union(parents, i, positions.getOrDefault(upon, i));
+        }
+      }
+    }
+
+    Map<Integer, List<ITestNGMethod>> units = Maps.newLinkedHashMap();
+    for (int i = 0; i < all.length; i++) {
+      units.computeIfAbsent(find(parents, i), k -> Lists.newArrayList()).add(all[i]);
+    }
+    return Lists.newArrayList(units.values());
+  }
+
+  /**
+   * @param methods the test methods, in the order they would run
+   * @return the classes whose methods have to run together, because a method of one of them depends
+   *     upon a method of another, in the order of their first method
+   */
+  public static List<List<Class<?>>> classUnits(List<ITestNGMethod> methods) {
+    Map<Class<?>, Integer> positions = Maps.newLinkedHashMap();
+    for (ITestNGMethod method : methods) {
+      positions.putIfAbsent(method.getRealClass(), positions.size());
+    }
+    int[] parents = new int[positions.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+    for (List<ITestNGMethod> unit : units(methods)) {
+      int first = positions.get(unit.get(0).getRealClass());
+      for (ITestNGMethod method : unit) {
+        union(parents, first, positions.get(method.getRealClass()));
+      }
+    }
+
+    Map<Integer, List<Class<?>>> units = Maps.newLinkedHashMap();
+    positions.forEach(
+        (cls, i) -> units.computeIfAbsent(find(parents, i), k -> Lists.newArrayList()).add(cls));
+    return Lists.newArrayList(units.values());
+  }
+
+  /**
+   * @param methods the test methods
+   * @param durationProvider the expected durations of the methods, or null
+   * @return the weight of each method: its expected duration (or the average known one if it's
+   *     unknown) in milliseconds, or 1 for all the methods if there is no duration provider
+   */
+  public static Map<ITestNGMethod, Long> weightsOf(
+      List<ITestNGMethod> methods, IDurationProvider durationProvider) {
+    Map<ITestNGMethod, Long> result = Maps.newHashMap();
+    long known = 0;
+    long total = 0;
+    for (ITestNGMethod method : methods) {
+      long duration =
+          durationProvider == null
+              ? IDurationProvider.UNKNOWN
+              : durationProvider.getExpectedDuration(method);
+      if (duration != IDurationProvider.UNKNOWN) {
+        known++;
+        total += duration;
+      }
+      result.put(method, duration);
+    }
+    long defaultWeight = known == 0 ? 1 : Math.max(total / known, 1);
+    // Methods that take no time still count, otherwise they would all end up in the same shard.
+    result.replaceAll(
+        (method, duration) ->
+            duration == IDurationProvider.UNKNOWN ? defaultWeight : Math.max(duration, 1));
+    return result;
+  }
+
+  private static int find(int[] parents, int i) {
+    while (parents[i] != i) {
+      parents[i] = parents[parents[i]];
+      i = parents[i];
+    }
+    return i;
+  }
+
+  private static void union(int[] parents, int a, int b) {
+    int rootA = find(parents, a);
+    int rootB = find(parents, b);
+    // Keep the smallest position as the root, so that a unit is identified by its first method.
+    if (rootA < rootB) {
+      parents[rootB] = rootA;
+    } else if (rootB < rootA) {
+      parents[rootA] = rootB;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return m_index + "/" + m_total;
+  }
+}
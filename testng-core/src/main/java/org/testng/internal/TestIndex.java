@@ -0,0 +1,426 @@
+package org.testng.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.collections.Sets;
+
+/**
+ * The index of the test classes written at compile time by the <code>testng-index-processor
+ * </code> annotation processor, in the <code>META-INF/testng/index</code> resources. It tells
+ * which TestNG annotations a class, its methods and its public constructors have, so that the
+ * discovery doesn't have to look every annotation up on every method of every class of the
+ * hierarchy of a test class.
+ *
+ * <p>The index is only read with <code>-Dtestng.test.index=true</code>. A class is only looked up
+ * in it if its class file comes from the jar or the directory of the index, and still has the
+ * CRC-32 the index was stamped with: the one of the jar entry, or the one of the bytes of the file
+ * in a directory, so that the class isn't inspected by reflection to tell. The classes that aren't
+ * in the index, or whose class file changed, are inspected by reflection as usual.
+ */
+public final class TestIndex {
+
+  public static final String RESOURCE = "META-INF/testng/index";
+
+  /** The annotations that make a class a TestNG class. */
+  public static final Set<String> TESTNG_ANNOTATIONS =
+      Collections.unmodifiableSet(
+          Sets.newHashSet(
+              Arrays.asList(
+                  "Test",
+                  "BeforeClass",
+                  "AfterClass",
+                  "BeforeMethod",
+                  "AfterMethod",
+                  "DataProvider",
+                  "Factory",
+                  "Parameters",
+                  "BeforeSuite",
+                  "AfterSuite",
+                  "BeforeTest",
+                  "AfterTest",
+                  "BeforeGroups",
+                  "AfterGroups")));
+
+  public static final Set<String> CONFIGURATION_ANNOTATIONS =
+      Collections.unmodifiableSet(
+          Sets.newHashSet(
+              Arrays.asList(
+                  "BeforeClass",
+                  "AfterClass",
+                  "BeforeMethod",
+                  "AfterMethod",
+                  "BeforeSuite",
+                  "AfterSuite",
+                  "BeforeTest",
+                  "AfterTest",
+                  "BeforeGroups",
+                  "AfterGroups")));
+
+  public static final Set<String> TEST_ANNOTATIONS = Collections.singleton("Test");
+
+  private static final String HEADER = "# TestNG test index 2";
+  private static final String NO_STAMP = "-";
+
+  /** The entries of the indexes of each class loader, by class name. */
+  private static final Map<ClassLoader, Map<String, Entry>> INDEXES = new WeakHashMap<>();
+
+  /** The classes of the JDK, which have no TestNG annotations. */
+  private static final IndexedClass NOT_ANNOTATED = new IndexedClass(null);
+  /** The classes that aren't in the index, or that changed since they were indexed. */
+  private static final IndexedClass UNKNOWN = new IndexedClass(null);
+
+  /** The classes of the index, matched against the classes that were loaded. */
+  private static final ClassValue<IndexedClass> CLASSES =
+      new ClassValue<IndexedClass>() {
+        @Override
+        protected IndexedClass computeValue(Class<?> type) {
+          return indexedClassOf(type);
+        }
+      };
+
+  private TestIndex() {}
+
+  public static boolean isEnabled() {
+    return RuntimeBehavior.useTestIndex();
+  }
+
+  /**
+   * @param cls a class
+   * @return the entry of the class, or null if the class isn't in the index or if it changed since
+   *     the index was written
+   */
+  public static Entry getEntry(Class<?> cls) {
+    return isEnabled() ? CLASSES.get(cls).m_entry : null;
+  }
+
+  /**
+   * Tells whether a class, its superclasses or their interfaces have some annotations, the way
+   * {@link TestNGClassFinder} looks them up: on the classes, on their methods (the <code>main
+   * </code> ones aside), on their public constructors, and on the methods with a body of the
+   * interfaces.
+   *
+   * @param cls the class
+   * @param annotations the simple names of the annotations
+   * @return whether the class has the annotations, or null if the index can't tell
+   */
+  public static Boolean hasAnnotations(Class<?> cls, Set<String> annotations) {
+    if (!isEnabled()) {
+      return null;
+    }
+    boolean result = false;
+    for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+      IndexedClass indexed = CLASSES.get(c);
+      if (indexed == UNKNOWN || !Collections.disjoint(indexed.m_mainAnnotations, annotations)) {
+        return null;
+      }
+      result |= !Collections.disjoint(indexed.m_annotations, annotations);
+      for (Class<?> anInterface : c.getInterfaces()) {
+        Boolean found = interfaceHasAnnotations(anInterface, annotations, true);
+        if (found == null) {
+          return null;
+        }
+        result |= found;
+      }
+    }
+    return result;
+  }
+
+  private static Boolean interfaceHasAnnotations(
+      Class<?> anInterface, Set<String> annotations, boolean direct) {
+    IndexedClass indexed = CLASSES.get(anInterface);
+    boolean hasStatic =
+        indexed != UNKNOWN && !Collections.disjoint(indexed.m_staticAnnotations, annotations);
+    if (indexed == UNKNOWN || (hasStatic && !direct)) {
+      // The static methods aren't members of the interfaces that extend this one.
+      return null;
+    }
+    boolean result = hasStatic || !Collections.disjoint(indexed.m_defaultAnnotations, annotations);
+    for (Class<?> superInterface : anInterface.getInterfaces()) {
+      Boolean found = interfaceHasAnnotations(superInterface, annotations, false);
+      if (found == null) {
+        return null;
+      }
+      result |= found;
+    }
+    return result;
+  }
+
+  /**
+   * @param method a method
+   * @param annotations the simple names of the annotations
+   * @return false if the index tells that the method has none of the annotations
+   */
+  public static boolean mayHaveAnnotations(Method method, Set<String> annotations) {
+    if (!isEnabled() || method.isSynthetic()) {
+      // The bridge methods get the annotations of the methods they stand for.
+      return true;
+    }
+    IndexedClass indexed = CLASSES.get(method.getDeclaringClass());
+    if (indexed == UNKNOWN) {
+      return true;
+    }
+    Member member = indexed.m_methods.get(method);
+    return member != null && !Collections.disjoint(member.getAnnotations(), annotations);
+  }
+
+  /** @return whether the method may be a <code>main</code> method, which isn't looked at. */
+  private static boolean isMain(Method method) {
+    return "main".equals(method.getName()) && Modifier.isStatic(method.getModifiers());
+  }
+
+  private static IndexedClass indexedClassOf(Class<?> cls) {
+    ClassLoader loader = cls.getClassLoader();
+    if (loader == null) {
+      return NOT_ANNOTATED;
+    }
+    Entry entry = indexOf(loader).get(cls.getName());
+    if (entry == null) {
+      return UNKNOWN;
+    }
+    if (NO_STAMP.equals(entry.getStamp())
+        || !entry.getStamp().equals(stampOf(loader, cls.getName(), entry.getRoot()))) {
+      Utils.log("TestIndex", 3, cls.getName() + " changed since it was indexed");
+      return UNKNOWN;
+    }
+    IndexedClass result = new IndexedClass(entry);
+    result.m_annotations.addAll(entry.getAnnotations());
+    for (Method method : cls.getDeclaredMethods()) {
+      Member member = entry.getMember(signatureOf(method.getName(), method.getParameterTypes()));
+      if (member == null || method.isSynthetic()) {
+        continue;
+      }
+      result.m_methods.put(method, member);
+      int modifiers = method.getModifiers();
+      if (!cls.isInterface()) {
+        (isMain(method) ? result.m_mainAnnotations : result.m_annotations)
+            .addAll(member.getAnnotations());
+      } else if (Modifier.isPublic(modifiers) && !Modifier.isAbstract(modifiers)) {
+        (Modifier.isStatic(modifiers) ? result.m_staticAnnotations : result.m_defaultAnnotations)
+            .addAll(member.getAnnotations());
+      }
+    }
+    for (Constructor<?> constructor : cls.getConstructors()) {
+      Member member = entry.getMember(signatureOf("<init>", constructor.getParameterTypes()));
+      if (member != null && !constructor.isSynthetic()) {
+        result.m_annotations.addAll(member.getAnnotations());
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, Entry> indexOf(ClassLoader loader) {
+    synchronized (INDEXES) {
+      Map<String, Entry> result = INDEXES.get(loader);
+      if (result == null) {
+        result = Maps.newHashMap();
+        try {
+          Enumeration<URL> resources = loader.getResources(RESOURCE);
+          while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            for (Entry entry : read(resource, rootOf(resource))) {
+              result.putIfAbsent(entry.getName(), entry);
+            }
+          }
+        } catch (IOException e) {
+          Utils.log("TestIndex", 2, "Couldn't read the test index: " + e.getMessage());
+        }
+        INDEXES.put(loader, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * @param resource an index
+   * @param root the jar or the directory of the index, e.g. <code>jar:file:/tests.jar!/</code>
+   * @return the entries of the index
+   */
+  static List<Entry> read(URL resource, String root) throws IOException {
+    List<Entry> result = Lists.newArrayList();
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+      String line = reader.readLine();
+      if (!HEADER.equals(line)) {
+        Utils.log("TestIndex", 2, "Ignoring " + resource + ", which has another format");
+        return result;
+      }
+      Entry entry = null;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t", -1);
+        if ("class".equals(fields[0]) && fields.length == 4) {
+          entry = new Entry(fields[1], fields[2], root, fields[3]);
+          result.add(entry);
+        } else if (entry != null && fields.length == 3) {
+          Member member = new Member(fields[1], fields[2]);
+          entry.m_members.put(member.getSignature(), member);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static String rootOf(URL resource) {
+    String url = resource.toExternalForm();
+    return url.endsWith(RESOURCE) ? url.substring(0, url.length() - RESOURCE.length()) : null;
+  }
+
+  /**
+   * @param loader the class loader of a class
+   * @param name the name of the class
+   * @param root the jar or the directory of the index the class is in
+   * @return the CRC-32 of the class file, or <code>-</code> if it doesn't come from the same
+   *     jar or directory as the index, or can't be read
+   */
+  static String stampOf(ClassLoader loader, String name, String root) {
+    String path = name.replace('.', '/') + ".class";
+    URL classFile = loader.getResource(path);
+    if (root == null || classFile == null || !classFile.toExternalForm().equals(root + path)) {
+      return NO_STAMP;
+    }
+    try {
+      URLConnection connection = classFile.openConnection();
+      if (connection instanceof JarURLConnection) {
+        // The jar already knows the CRC-32 of its entries.
+        ZipEntry entry = ((JarURLConnection) connection).getJarEntry();
+        return entry.getCrc() == -1 ? NO_STAMP : Long.toHexString(entry.getCrc());
+      }
+      CRC32 crc = new CRC32();
+      try (InputStream input = connection.getInputStream()) {
+        byte[] buffer = new byte[8192];
+        for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+          crc.update(buffer, 0, read);
+        }
+      }
+      return Long.toHexString(crc.getValue());
+    } catch (IOException e) {
+      return NO_STAMP;
+    }
+  }
+
+  private static String signatureOf(String name, Class<?>[] parameterTypes) {
+    return Arrays.stream(parameterTypes)
+        .map(TestIndex::typeName)
+        .collect(Collectors.joining(",", name + "(", ")"));
+  }
+
+  private static String typeName(Class<?> type) {
+    return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+  }
+
+  /** The TestNG annotations of a class or of one of its members. */
+  public static class Annotated {
+
+    private final Set<String> m_annotations;
+
+    Annotated(String annotations) {
+      m_annotations =
+          annotations.isEmpty()
+              ? Collections.emptySet()
+              : Sets.newHashSet(Arrays.asList(annotations.split(",")));
+    }
+
+    /** @return the simple names of the TestNG annotations, e.g. <code>Test</code>. */
+    public Set<String> getAnnotations() {
+      return m_annotations;
+    }
+  }
+
+  /** A class of the index. */
+  public static final class Entry extends Annotated {
+
+    private final String m_name;
+    private final String m_stamp;
+    private final String m_root;
+    private final Map<String, Member> m_members = Maps.newHashMap();
+
+    Entry(String name, String stamp, String root, String annotations) {
+      super(annotations);
+      m_name = name;
+      m_stamp = stamp;
+      m_root = root;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    /** @return the CRC-32 of the class file that was indexed, or <code>-</code> if it's unknown */
+    public String getStamp() {
+      return m_stamp;
+    }
+
+    /** @return the jar or the directory of the index the class is in */
+    public String getRoot() {
+      return m_root;
+    }
+
+    /** @return the annotated methods and public constructors, by signature. */
+    public Map<String, Member> getMembers() {
+      return Collections.unmodifiableMap(m_members);
+    }
+
+    /**
+     * @param signature a signature, e.g. <code>test(int,java.lang.String[])</code> or <code>
+     *     &lt;init&gt;()</code>
+     * @return the member, or null if it has no TestNG annotations
+     */
+    public Member getMember(String signature) {
+      return m_members.get(signature);
+    }
+  }
+
+  /** An annotated method or public constructor of a class of the index. */
+  public static final class Member extends Annotated {
+
+    private final String m_signature;
+
+    Member(String signature, String annotations) {
+      super(annotations);
+      m_signature = signature;
+    }
+
+    public String getSignature() {
+      return m_signature;
+    }
+  }
+
+  /** A class of the index, matched against the class that was loaded. */
+  private static final class IndexedClass {
+
+    private final Entry m_entry;
+    private final Map<Method, Member> m_methods = Maps.newHashMap();
+    /** The annotations of a class, of its methods and of its public constructors. */
+    private final Set<String> m_annotations = Sets.newHashSet();
+    /** The annotations of the methods of a class that may be <code>main</code> methods. */
+    private final Set<String> m_mainAnnotations = Sets.newHashSet();
+    /** The annotations of the public default methods of an interface. */
+    private final Set<String> m_defaultAnnotations = Sets.newHashSet();
+    /** The annotations of the public static methods of an interface. */
+    private final Set<String> m_staticAnnotations = Sets.newHashSet();
+
+    IndexedClass(Entry entry) {
+      m_entry = entry;
+    }
+  }
+}
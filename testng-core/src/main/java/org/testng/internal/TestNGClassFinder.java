@@ -6,6 +6,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,6 +23,8 @@ import org.testng.collections.Lists;
 import org.testng.collections.Maps;
 import org.testng.internal.annotations.AnnotationHelper;
 import org.testng.internal.annotations.IAnnotationFinder;
+import org.testng.util.Timeline;
+import org.testng.util.Timeline.Phase;
 import org.testng.xml.XmlClass;
 
 /**
@@ -37,6 +40,10 @@ public class TestNGClassFinder extends BaseClassFinder {
   private final DataProviderHolder holder;
   private final ITestObjectFactory objectFactory;
   private final IAnnotationFinder annotationFinder;
+  /** Whether each class is a TestNG class, found ahead of time by the parallel discovery. */
+  private Map<Class<?>, Boolean> m_testNGClasses = Collections.emptyMap();
+  /** The factory methods of each class, found ahead of time by the parallel discovery. */
+  private Map<Class<?>, List<ConstructorOrMethod>> m_factoryMethods = Collections.emptyMap();
 
   private String m_factoryCreationFailedMessage = null;
 
@@ -61,6 +68,18 @@ public class TestNGClassFinder extends BaseClassFinder {
     // Find all the new classes and their corresponding instances
     Set<Class<?>> allClasses = cim.getClasses();
 
+    if (ParallelDiscovery.isEnabled()) {
+      m_testNGClasses =
+          ParallelDiscovery.computeAll(allClasses, cls -> isTestNGClass(cls, annotationFinder));
+      m_factoryMethods =
+          ParallelDiscovery.computeAll(
+              allClasses,
+              cls ->
+                  m_testNGClasses.getOrDefault(cls, false)
+                      ? ClassHelper.findDeclaredFactoryMethods(cls, annotationFinder)
+                      : null);
+    }
+
     objectFactory = createObjectFactory(allClasses, configuration.getObjectFactory());
 
     for (Class<?> cls : allClasses) {
@@ -91,7 +110,11 @@ public class TestNGClassFinder extends BaseClassFinder {
       return;
     }
 
-    if (isNotTestNGClass(cls, annotationFinder)) { // if not TestNG class
+    Boolean testNGClass = m_testNGClasses.get(cls);
+    if (testNGClass == null) {
+      testNGClass = isTestNGClass(cls, annotationFinder);
+    }
+    if (!testNGClass) { // if not TestNG class
       Utils.log(PREFIX, 3, "SKIPPING CLASS " + cls + " no TestNG annotations found");
       return;
     }
@@ -123,8 +146,10 @@ public class TestNGClassFinder extends BaseClassFinder {
     }
     putIClass(cls, ic);
 
-    List<ConstructorOrMethod> factoryMethods =
-        ClassHelper.findDeclaredFactoryMethods(cls, annotationFinder);
+    List<ConstructorOrMethod> factoryMethods = m_factoryMethods.get(cls);
+    if (factoryMethods == null) {
+      factoryMethods = ClassHelper.findDeclaredFactoryMethods(cls, annotationFinder);
+    }
     for (ConstructorOrMethod factoryMethod : factoryMethods) {
       processMethod(configuration, ic, factoryMethod);
     }
@@ -135,7 +160,11 @@ public class TestNGClassFinder extends BaseClassFinder {
     if (!factoryMethod.getEnabled()) {
       return;
     }
-    ClassInfoMap moreClasses = processFactory(ic, factoryMethod);
+    ClassInfoMap moreClasses;
+    try (Timeline.Span ignored =
+        configuration.getTimeline().start(Phase.INSTANCE_CREATION, nameOf(factoryMethod))) {
+      moreClasses = processFactory(ic, factoryMethod);
+    }
 
     if (moreClasses.isEmpty()) {
       return;
@@ -150,6 +179,12 @@ public class TestNGClassFinder extends BaseClassFinder {
     }
   }
 
+  /** @return the name of a factory, e.g. <code>test.Sample.create</code>. */
+  private static String nameOf(ConstructorOrMethod factoryMethod) {
+    String name = factoryMethod.getMethod() != null ? factoryMethod.getName() : "<init>";
+    return factoryMethod.getDeclaringClass().getName() + "." + name;
+  }
+
   private static boolean excludeFactory(FactoryMethod fm, ITestContext ctx) {
     return fm.getGroups().length != 0
         && ctx.getCurrentXmlTest().getExcludedGroups().containsAll(Arrays.asList(fm.getGroups()));
@@ -256,10 +291,6 @@ public class TestNGClassFinder extends BaseClassFinder {
     return fallback;
   }
 
-  private static boolean isNotTestNGClass(Class<?> c, IAnnotationFinder annotationFinder) {
-    return (!isTestNGClass(c, annotationFinder));
-  }
-
   /**
    * @return true if this class contains TestNG annotations (either on itself or on a superclass).
    */
@@ -268,6 +299,10 @@ public class TestNGClassFinder extends BaseClassFinder {
     boolean result = false;
 
     try {
+      Boolean indexed = TestIndex.hasAnnotations(c, TestIndex.TESTNG_ANNOTATIONS);
+      if (indexed != null) {
+        return indexed;
+      }
       for (Class<? extends IAnnotation> annotation : AnnotationHelper.getAllAnnotations()) {
         for (cls = c; cls != null; cls = cls.getSuperclass()) {
           // Try on the methods
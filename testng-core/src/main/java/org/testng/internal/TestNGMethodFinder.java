@@ -3,9 +3,13 @@ package org.testng.internal;
 import static org.testng.internal.TestNGMethodFinder.MethodType.*;
 
 import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import org.testng.ITestMethodFinder;
 import org.testng.ITestNGMethod;
 import org.testng.ITestObjectFactory;
@@ -37,6 +41,11 @@ public class TestNGMethodFinder implements ITestMethodFinder {
   private final RunInfo runInfo;
   private final IAnnotationFinder annotationFinder;
   private final Comparator<ITestNGMethod> comparator;
+  /** The test methods of the classes found ahead of time, by class. */
+  private final Map<Class<?>, ITestNGMethod[]> m_prefetchedTestMethods = new ConcurrentHashMap<>();
+  private XmlTest m_prefetchedXmlTest;
+  /** The methods each class may have configuration methods among, looked up once per class. */
+  private final Map<Class<?>, List<Method>> m_configurationCandidates = new ConcurrentHashMap<>();
 
   public TestNGMethodFinder(
       ITestObjectFactory objectFactory, RunInfo runInfo, IAnnotationFinder annotationFinder) {
@@ -54,8 +63,34 @@ public class TestNGMethodFinder implements ITestMethodFinder {
     this.comparator = comparator;
   }
 
+  /**
+   * Finds the test methods of several classes at once, on all the cores, so that {@link
+   * #getTestMethods(Class, XmlTest)} only has to pick them up.
+   *
+   * @param classes the test classes
+   * @param xmlTest the test node of xml
+   */
+  public void prefetchTestMethods(Collection<Class<?>> classes, XmlTest xmlTest) {
+    // Initialized here since it's lazily initialized in a way that isn't thread safe.
+    xmlTest.getInvocationNumbers("");
+    m_prefetchedXmlTest = xmlTest;
+    m_prefetchedTestMethods.putAll(
+        ParallelDiscovery.computeAll(classes, cls -> findTestMethods(cls, xmlTest)));
+  }
+
   @Override
   public ITestNGMethod[] getTestMethods(Class<?> clazz, XmlTest xmlTest) {
+    ITestNGMethod[] result = m_prefetchedTestMethods.remove(clazz);
+    if (result != null && xmlTest == m_prefetchedXmlTest) {
+      return result;
+    }
+    return findTestMethods(clazz, xmlTest);
+  }
+
+  private ITestNGMethod[] findTestMethods(Class<?> clazz, XmlTest xmlTest) {
+    if (Boolean.FALSE.equals(TestIndex.hasAnnotations(clazz, TestIndex.TEST_ANNOTATIONS))) {
+      return new ITestNGMethod[0];
+    }
     return AnnotationHelper.findMethodsWithAnnotation(
         objectFactory, clazz, ITestAnnotation.class, annotationFinder, xmlTest);
   }
@@ -114,9 +149,7 @@ public class TestNGMethodFinder implements ITestMethodFinder {
       final Class<?> clazz, final MethodType configurationType) {
     List<ITestNGMethod> vResult = Lists.newArrayList();
 
-    Set<Method> methods = ClassHelper.getAvailableMethodsExcludingDefaults(clazz);
-
-    for (Method m : methods) {
+    for (Method m : configurationCandidatesOf(clazz)) {
       IConfigurationAnnotation configuration =
           AnnotationHelper.findConfiguration(annotationFinder, m);
 
@@ -217,6 +250,24 @@ public class TestNGMethodFinder implements ITestMethodFinder {
         comparator);
   }
 
+  /**
+   * @return the methods of a class that may be configuration methods: all of them, but the ones
+   *     the index tells have no configuration annotations
+   */
+  private List<Method> configurationCandidatesOf(Class<?> clazz) {
+    return m_configurationCandidates.computeIfAbsent(
+        clazz,
+        cls -> {
+          if (Boolean.FALSE.equals(
+              TestIndex.hasAnnotations(cls, TestIndex.CONFIGURATION_ANNOTATIONS))) {
+            return Collections.emptyList();
+          }
+          return ClassHelper.getAvailableMethodsExcludingDefaults(cls).stream()
+              .filter(m -> TestIndex.mayHaveAnnotations(m, TestIndex.CONFIGURATION_ANNOTATIONS))
+              .collect(Collectors.toList());
+        });
+  }
+
   private static boolean shouldCreateBeforeAfterGroup(
       String[] groups, IAnnotationFinder finder, Class<?> clazz, boolean isInheritGroups) {
     if (!isInheritGroups) {
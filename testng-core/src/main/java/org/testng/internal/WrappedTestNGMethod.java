@@ -24,6 +24,10 @@ public class WrappedTestNGMethod implements ITestNGMethod {
     this.testNGMethod = testNGMethod;
   }
 
+  ITestNGMethod getTestNGMethod() {
+    return testNGMethod;
+  }
+
   @Override
   public Class<?> getRealClass() {
     return testNGMethod.getRealClass();
@@ -19,6 +19,7 @@ import org.testng.annotations.IParametersAnnotation;
 import org.testng.annotations.ITestAnnotation;
 import org.testng.collections.Maps;
 import org.testng.internal.ConstructorOrMethod;
+import org.testng.internal.TestIndex;
 import org.testng.internal.TestNGMethod;
 import org.testng.internal.Utils;
 import org.testng.internal.reflect.ReflectionHelper;
@@ -233,6 +234,11 @@ public class AnnotationHelper {
         boolean hasClassAnnotation = isAnnotationPresent(annotationFinder, cls, annotationClass);
         Method[] methods = ReflectionHelper.getLocalMethods(cls);
         for (Method m : methods) {
+          if (!hasClassAnnotation
+              && annotationClass == ITestAnnotation.class
+              && !TestIndex.mayHaveAnnotations(m, TestIndex.TEST_ANNOTATIONS)) {
+            continue;
+          }
           boolean hasMethodAnnotation = isAnnotationPresent(annotationFinder, m, annotationClass);
           boolean hasTestNGAnnotation =
               isAnnotationPresent(annotationFinder, m, IFactoryAnnotation.class)
@@ -51,9 +51,17 @@ public class JDK15AnnotationFinder implements IAnnotationFinder {
   private final Map<Pair<Annotation, ?>, IAnnotation> m_annotations = new ConcurrentHashMap<>();
 
   private final IAnnotationTransformer m_transformer;
+  /**
+   * The lock the transformers are invoked with, since the discovery may look for annotations on
+   * several threads (see {@link org.testng.internal.ParallelDiscovery}) and the transformers of the
+   * users don't expect it. Null for the default transformer, which keeps no state.
+   */
+  private final Object m_transformerLock;
 
   public JDK15AnnotationFinder(IAnnotationTransformer transformer) {
     m_transformer = transformer;
+    m_transformerLock =
+        transformer.getClass() == DefaultAnnotationTransformer.class ? null : new Object();
     m_annotationMap.put(IListenersAnnotation.class, Listeners.class);
     m_annotationMap.put(IDataProviderAnnotation.class, DataProvider.class);
     m_annotationMap.put(IFactoryAnnotation.class, Factory.class);
@@ -159,6 +167,21 @@ public class JDK15AnnotationFinder implements IAnnotationFinder {
       Constructor<?> testConstructor,
       Method testMethod,
       Class<?> whichClass) {
+    if (m_transformerLock == null) {
+      doTransform(a, testClass, testConstructor, testMethod, whichClass);
+      return;
+    }
+    synchronized (m_transformerLock) {
+      doTransform(a, testClass, testConstructor, testMethod, whichClass);
+    }
+  }
+
+  private void doTransform(
+      IAnnotation a,
+      Class<?> testClass,
+      Constructor<?> testConstructor,
+      Method testMethod,
+      Class<?> whichClass) {
     //
     // Transform @Test
     //
@@ -0,0 +1,158 @@
+package org.testng.internal.fork;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.collections.Lists;
+import org.testng.internal.IParameterInfo;
+import org.testng.internal.TestResult;
+
+/**
+ * What a worker JVM sends back for every test or configuration method it ran: enough to recreate
+ * the {@link ITestResult} in the JVM that forked it.
+ */
+public class ForkedResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String m_signature;
+  private final boolean m_configuration;
+  private final int m_status;
+  private final long m_startMillis;
+  private final long m_endMillis;
+  private final Throwable m_throwable;
+  private final Object[] m_parameters;
+  private final int m_parameterIndex;
+  private final String m_testName;
+  private final List<String> m_output;
+
+  private ForkedResult(ITestResult result, boolean configuration) {
+    m_signature = signatureOf(result.getMethod());
+    m_configuration = configuration;
+    m_status = result.getStatus();
+    m_startMillis = result.getStartMillis();
+    m_endMillis = result.getEndMillis();
+    m_throwable = serializable(result.getThrowable());
+    Object[] parameters = result.getParameters();
+    m_parameters = new Object[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      Object parameter = parameters[i];
+      m_parameters[i] = isSerializable(parameter) ? parameter : String.valueOf(parameter);
+    }
+    m_parameterIndex = result instanceof TestResult ? ((TestResult) result).getParameterIndex() : 0;
+    m_testName = result.getTestName();
+    m_output = Lists.newArrayList(Reporter.getOutput(result));
+  }
+
+  public static ForkedResult ofTest(ITestResult result) {
+    return new ForkedResult(result, false);
+  }
+
+  public static ForkedResult ofConfiguration(ITestResult result) {
+    return new ForkedResult(result, true);
+  }
+
+  /**
+   * @return the signature a method is known under in both JVMs: the name of its test class, its
+   *     name, the types of its parameters and the position of its instance among the instances of
+   *     the class (which tells apart the instances created by a factory).
+   */
+  public static String signatureOf(ITestNGMethod method) {
+    return method.getTestClass().getRealClass().getName()
+        + "."
+        + method.getMethodName()
+        + "("
+        + method.getConstructorOrMethod().stringifyParameterTypes()
+        + ")@"
+        + instanceIndexOf(method);
+  }
+
+  private static int instanceIndexOf(ITestNGMethod method) {
+    Object instance = method.getInstance();
+    Object[] instances = method.getTestClass().getInstances(false);
+    for (int i = 0; i < instances.length; i++) {
+      if (IParameterInfo.embeddedInstance(instances[i]) == instance) {
+        return i;
+      }
+    }
+    return 0;
+  }
+
+  public String getSignature() {
+    return m_signature;
+  }
+
+  public boolean isConfiguration() {
+    return m_configuration;
+  }
+
+  public int getStatus() {
+    return m_status;
+  }
+
+  public long getStartMillis() {
+    return m_startMillis;
+  }
+
+  public long getEndMillis() {
+    return m_endMillis;
+  }
+
+  public Throwable getThrowable() {
+    return m_throwable;
+  }
+
+  /**
+   * @return the parameters of the invocation: the ones that can be serialized as they are, the
+   *     others as their string value.
+   */
+  public Object[] getParameters() {
+    return m_parameters;
+  }
+
+  public int getParameterIndex() {
+    return m_parameterIndex;
+  }
+
+  public String getTestName() {
+    return m_testName;
+  }
+
+  /** @return what the invocation logged with {@link Reporter}. */
+  public List<String> getOutput() {
+    return m_output;
+  }
+
+  /**
+   * @return the throwable if it can be serialized, or a throwable with the same message and stack
+   *     trace otherwise.
+   */
+  private static Throwable serializable(Throwable throwable) {
+    if (throwable == null || isSerializable(throwable)) {
+      return throwable;
+    }
+    Throwable result = new Throwable(throwable.toString(), serializable(throwable.getCause()));
+    result.setStackTrace(throwable.getStackTrace());
+    return result;
+  }
+
+  private static boolean isSerializable(Object object) {
+    if (object == null) {
+      return true;
+    }
+    if (!(object instanceof Serializable)) {
+      return false;
+    }
+    try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream())) {
+      out.writeObject(object);
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+}
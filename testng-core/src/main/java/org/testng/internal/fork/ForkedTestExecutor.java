@@ -0,0 +1,427 @@
+package org.testng.internal.fork;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.testng.IAlterSuiteListener;
+import org.testng.IConfigurationListener;
+import org.testng.IDurationProvider;
+import org.testng.IExecutionListener;
+import org.testng.IReporter;
+import org.testng.ISuiteListener;
+import org.testng.ITestClass;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.TestNGException;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.collections.Sets;
+import org.testng.internal.ClassHelper;
+import org.testng.internal.ITestResultNotifier;
+import org.testng.internal.Shard;
+import org.testng.internal.TestListenerHelper;
+import org.testng.internal.TestResult;
+import org.testng.internal.Utils;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/**
+ * Runs the test methods of a &lt;test&gt; in the worker JVMs of a {@link WorkerPool} instead of in
+ * this JVM, and reports the results the workers send back as if the methods had run here: the
+ * results are added to the test context and the test and configuration listeners are invoked.
+ *
+ * <p>Each worker gets whole classes, along with the classes their methods depend upon, so that the
+ * class level configuration methods and the dependencies run in the same JVM. The largest groups of
+ * classes are handed over first.
+ *
+ * <p>The test, configuration, suite and execution listeners and the reporters are only invoked in
+ * this JVM, on the results the workers send back, one result at a time on the thread that runs the
+ * &lt;test&gt;. The workers only get the other listeners, which can change how the methods run.
+ *
+ * <p>A worker runs the suite and test level configuration methods of every group of classes it
+ * gets, so the tests that have some, or that have group level ones, can't be forked: {@link
+ * #whyNotForkable} tells them apart.
+ */
+public class ForkedTestExecutor {
+
+  /** The listeners this JVM invokes itself, and that the workers therefore mustn't invoke. */
+  private static final List<Class<?>> PARENT_LISTENERS =
+      Arrays.asList(
+          ITestListener.class,
+          IConfigurationListener.class,
+          ISuiteListener.class,
+          IExecutionListener.class,
+          IAlterSuiteListener.class,
+          IReporter.class);
+
+  private final ITestContext m_context;
+  private final ITestResultNotifier m_notifier;
+  private final WorkerPool m_pool;
+  private final IDurationProvider m_durationProvider;
+
+  /** The test methods and the configuration methods, by their signature. */
+  private final Map<String, ITestNGMethod> m_testMethods = Maps.newConcurrentMap();
+
+  private final Map<String, ITestNGMethod> m_configurationMethods = Maps.newConcurrentMap();
+
+  /** What the handler threads of the pool hand over to the thread that runs the &lt;test&gt;. */
+  private final BlockingQueue<Runnable> m_replay = new LinkedBlockingQueue<>();
+
+  public ForkedTestExecutor(
+      ITestContext context,
+      ITestResultNotifier notifier,
+      WorkerPool pool,
+      IDurationProvider durationProvider) {
+    m_context = context;
+    m_notifier = notifier;
+    m_pool = pool;
+    m_durationProvider = durationProvider;
+  }
+
+  /**
+   * Runs the methods in the workers and waits until they are done.
+   *
+   * @param methods the test methods to run
+   */
+  public void run(ITestNGMethod[] methods) {
+    List<ITestNGMethod> all = Arrays.asList(methods);
+    Map<String, List<ITestNGMethod>> byClass = Maps.newLinkedHashMap();
+    Map<String, XmlClass> xmlClasses = Maps.newHashMap();
+    for (ITestNGMethod method : all) {
+      m_testMethods.putIfAbsent(ForkedResult.signatureOf(method), method);
+      XmlClass xmlClass = xmlClassOf(method.getTestClass());
+      byClass.computeIfAbsent(xmlClass.getName(), k -> Lists.newArrayList()).add(method);
+      if (xmlClasses.putIfAbsent(xmlClass.getName(), xmlClass) == null) {
+        addConfigurationMethods(method.getTestClass());
+      }
+    }
+
+    // Classes whose methods depend on each other run in the same worker.
+    Map<String, String> parents = Maps.newHashMap();
+    for (List<ITestNGMethod> unit : Shard.units(all)) {
+      String first = xmlClassOf(unit.get(0).getTestClass()).getName();
+      for (ITestNGMethod method : unit) {
+        union(parents, first, xmlClassOf(method.getTestClass()).getName());
+      }
+    }
+    Map<String, List<String>> groups = Maps.newLinkedHashMap();
+    for (String className : byClass.keySet()) {
+      groups.computeIfAbsent(find(parents, className), k -> Lists.newArrayList()).add(className);
+    }
+
+    Map<ITestNGMethod, Long> weights = Shard.weightsOf(all, m_durationProvider);
+    List<Unit> units = Lists.newArrayList();
+    for (List<String> classNames : groups.values()) {
+      List<ITestNGMethod> unitMethods = Lists.newArrayList();
+      List<XmlClass> unitClasses = Lists.newArrayList();
+      long weight = 0;
+      for (String className : classNames) {
+        unitClasses.add(xmlClasses.get(className));
+        for (ITestNGMethod method : byClass.get(className)) {
+          unitMethods.add(method);
+          weight += weights.get(method);
+        }
+      }
+      units.add(new Unit(toSuiteXml(unitClasses), unitMethods, weight));
+    }
+    units.sort((u1, u2) -> Long.compare(u2.m_weight, u1.m_weight));
+
+    Utils.log(
+        "ForkedTestExecutor",
+        2,
+        "Running " + units.size() + " units of test " + m_context.getName() + " in the workers");
+    units.forEach(m_pool::submit);
+    // The results are replayed here, so that the listeners see them one at a time.
+    int running = units.size();
+    try {
+      while (running > 0) {
+        Runnable next = m_replay.take();
+        if (next instanceof Finished) {
+          running--;
+        } else {
+          next.run();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @param testClasses the test classes of a &lt;test&gt;
+   * @param listenerClasses the listeners declared by its suite and by its test classes
+   * @return why the &lt;test&gt; can't run in the workers as if it ran in this JVM, or null if it
+   *     can
+   */
+  public static String whyNotForkable(
+      Collection<ITestClass> testClasses, Collection<Class<?>> listenerClasses) {
+    for (ITestClass testClass : testClasses) {
+      ITestNGMethod[][] configurations = {
+        testClass.getBeforeSuiteMethods(),
+        testClass.getAfterSuiteMethods(),
+        testClass.getBeforeTestConfigurationMethods(),
+        testClass.getAfterTestConfigurationMethods(),
+        testClass.getBeforeGroupsMethods(),
+        testClass.getAfterGroupsMethods()
+      };
+      for (ITestNGMethod[] methods : configurations) {
+        if (methods.length > 0) {
+          return testClass.getRealClass().getName()
+              + " has suite, test or group level configuration methods, which every worker would"
+              + " run again";
+        }
+      }
+    }
+    for (Class<?> listenerClass : listenerClasses) {
+      if (isInvokedByParent(listenerClass) && hasWorkerRole(listenerClass)) {
+        return "The listener "
+            + listenerClass.getName()
+            + " would have to be invoked both in this JVM and in the workers";
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param listenerClass the class of a listener
+   * @return whether this JVM invokes the listener itself, in which case the workers mustn't
+   */
+  public static boolean isInvokedByParent(Class<?> listenerClass) {
+    return PARENT_LISTENERS.stream().anyMatch(type -> type.isAssignableFrom(listenerClass));
+  }
+
+  /** @return whether a listener has roles that only the workers can play. */
+  private static boolean hasWorkerRole(Class<?> type) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      for (Class<?> i : c.getInterfaces()) {
+        if (i == ITestNGListener.class || !ITestNGListener.class.isAssignableFrom(i)) {
+          continue;
+        }
+        if (!isInvokedByParent(i) || hasWorkerRole(i)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static XmlClass xmlClassOf(ITestClass testClass) {
+    XmlClass result = testClass.getXmlClass();
+    return result != null ? result : new XmlClass(testClass.getRealClass().getName(), false);
+  }
+
+  private void addConfigurationMethods(ITestClass testClass) {
+    ITestNGMethod[][] configurations = {
+      testClass.getBeforeSuiteMethods(),
+      testClass.getAfterSuiteMethods(),
+      testClass.getBeforeTestConfigurationMethods(),
+      testClass.getAfterTestConfigurationMethods(),
+      testClass.getBeforeClassMethods(),
+      testClass.getAfterClassMethods(),
+      testClass.getBeforeGroupsMethods(),
+      testClass.getAfterGroupsMethods(),
+      testClass.getBeforeTestMethods(),
+      testClass.getAfterTestMethods()
+    };
+    for (ITestNGMethod[] methods : configurations) {
+      for (ITestNGMethod method : methods) {
+        m_configurationMethods.putIfAbsent(ForkedResult.signatureOf(method), method);
+      }
+    }
+  }
+
+  /** @return a suite with the settings of the current one, made of the given classes only. */
+  private String toSuiteXml(List<XmlClass> classes) {
+    XmlTest source = m_context.getCurrentXmlTest();
+    XmlSuite suite = source.getSuite().shallowCopy();
+    // The listeners this JVM invokes on the results the workers send back would see them twice,
+    // while the other listeners can change how the methods run. The classes are listed explicitly.
+    suite.setListeners(workerListeners(source.getSuite().getListeners()));
+    suite.setXmlPackages(Lists.newArrayList());
+    suite.setShard(null);
+
+    XmlTest test = new XmlTest(suite);
+    test.setName(source.getName());
+    test.setIncludedGroups(source.getIncludedGroups());
+    test.setExcludedGroups(source.getExcludedGroups());
+    test.setParallel(source.getParallel());
+    test.setThreadCount(source.getThreadCount());
+    // The results are reported by this JVM.
+    suite.setVerbose(0);
+    test.setVerbose(0);
+    test.setParameters(Maps.newHashMap(source.getLocalParameters()));
+    test.setPreserveOrder(source.getPreserveOrder());
+    test.setGroupByInstances(source.getGroupByInstances());
+    test.setMethodSelectors(source.getMethodSelectors());
+    if (source.getTimeOut() != null) {
+      test.setTimeOut(Long.parseLong(source.getTimeOut()));
+    }
+    for (Map.Entry<String, List<String>> group : source.getMetaGroups().entrySet()) {
+      test.addMetaGroup(group.getKey(), group.getValue());
+    }
+    List<XmlClass> xmlClasses = Lists.newArrayList();
+    for (XmlClass xmlClass : classes) {
+      XmlClass copy = (XmlClass) xmlClass.clone();
+      copy.setParameters(Maps.newHashMap(xmlClass.getLocalParameters()));
+      xmlClasses.add(copy);
+    }
+    test.setXmlClasses(xmlClasses);
+    return suite.toXml();
+  }
+
+  /** @return the listeners of the suite that this JVM doesn't invoke itself. */
+  private static List<String> workerListeners(List<String> listeners) {
+    List<String> result = Lists.newArrayList();
+    for (String listener : listeners) {
+      Class<?> listenerClass = ClassHelper.forName(listener);
+      if (listenerClass == null || !isInvokedByParent(listenerClass)) {
+        result.add(listener);
+      }
+    }
+    return result;
+  }
+
+  private void onResult(ForkedResult forked) {
+    ITestNGMethod method =
+        (forked.isConfiguration() ? m_configurationMethods : m_testMethods)
+            .get(forked.getSignature());
+    if (method == null) {
+      Utils.log("ForkedTestExecutor", 3, "Ignoring the result of " + forked.getSignature());
+      return;
+    }
+    TestResult result =
+        TestResult.newEndTimeAwareTestResult(
+            method, m_context, forked.getThrowable(), forked.getStartMillis());
+    result.setEndMillis(forked.getEndMillis());
+    result.setParameters(forked.getParameters());
+    result.setParameterIndex(forked.getParameterIndex());
+    result.setTestName(forked.getTestName());
+    if (!forked.getOutput().isEmpty()) {
+      Reporter.setCurrentTestResult(result);
+      forked.getOutput().forEach(Reporter::log);
+      Reporter.setCurrentTestResult(null);
+    }
+
+    result.setStatus(ITestResult.STARTED);
+    if (forked.isConfiguration()) {
+      TestListenerHelper.runPreConfigurationListeners(
+          result, method, m_notifier.getConfigurationListeners());
+      result.setStatus(forked.getStatus());
+      TestListenerHelper.runPostConfigurationListeners(
+          result, method, m_notifier.getConfigurationListeners());
+      return;
+    }
+    TestListenerHelper.runTestListeners(result, m_notifier.getTestListeners());
+    result.setStatus(forked.getStatus());
+    collect(method, result);
+    TestListenerHelper.runTestListeners(result, m_notifier.getTestListeners());
+  }
+
+  private void collect(ITestNGMethod method, ITestResult result) {
+    switch (result.getStatus()) {
+      case ITestResult.SUCCESS:
+        m_notifier.addPassedTest(method, result);
+        break;
+      case ITestResult.FAILURE:
+        m_notifier.addFailedTest(method, result);
+        break;
+      case ITestResult.SUCCESS_PERCENTAGE_FAILURE:
+        m_notifier.addFailedButWithinSuccessPercentageTest(method, result);
+        break;
+      default:
+        m_notifier.addSkippedTest(method, result);
+    }
+  }
+
+  private static String find(Map<String, String> parents, String name) {
+    String parent = parents.getOrDefault(name, name);
+    if (parent.equals(name)) {
+      return name;
+    }
+    String root = find(parents, parent);
+    parents.put(name, root);
+    return root;
+  }
+
+  private static void union(Map<String, String> parents, String a, String b) {
+    String rootA = find(parents, a);
+    String rootB = find(parents, b);
+    if (!rootA.equals(rootB)) {
+      parents.put(rootB, rootA);
+    }
+  }
+
+  private class Unit extends WorkUnit {
+
+    private final List<ITestNGMethod> m_methods;
+    private final long m_weight;
+    /** The signatures of the test methods that got a result. */
+    private final Set<String> m_reported = Sets.newHashSet();
+
+    Unit(String suiteXml, List<ITestNGMethod> methods, long weight) {
+      super(suiteXml, signaturesOf(methods));
+      m_methods = methods;
+      m_weight = weight;
+    }
+
+    @Override
+    void onResult(ForkedResult result) {
+      m_replay.add(() -> replay(result));
+    }
+
+    @Override
+    void onFinish(Throwable failure) {
+      if (failure != null) {
+        m_replay.add(() -> fail(failure));
+      }
+      m_replay.add(new Finished());
+    }
+
+    private void replay(ForkedResult result) {
+      if (!result.isConfiguration()) {
+        m_reported.add(result.getSignature());
+      }
+      ForkedTestExecutor.this.onResult(result);
+    }
+
+    /** Fails the methods the worker didn't get to with the reason why. */
+    private void fail(Throwable failure) {
+      for (ITestNGMethod method : m_methods) {
+        if (m_reported.add(ForkedResult.signatureOf(method))) {
+          TestResult result =
+              TestResult.newTestResultWithCauseAs(
+                  method,
+                  m_context,
+                  new TestNGException("The worker JVM didn't run " + method, failure));
+          result.setStatus(ITestResult.FAILURE);
+          collect(method, result);
+          TestListenerHelper.runTestListeners(result, m_notifier.getTestListeners());
+        }
+      }
+    }
+  }
+
+  /** Tells the thread that runs the &lt;test&gt; that a unit is done. */
+  private static class Finished implements Runnable {
+
+    @Override
+    public void run() {}
+  }
+
+  private static Set<String> signaturesOf(List<ITestNGMethod> methods) {
+    Set<String> result = Sets.newHashSet();
+    for (ITestNGMethod method : methods) {
+      result.add(ForkedResult.signatureOf(method));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,158 @@
+package org.testng.internal.fork;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.testng.IConfigurationListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.TestNGException;
+import org.testng.collections.Lists;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.internal.Parser;
+
+/**
+ * The main class of the worker JVMs started by a {@link WorkerPool}. A worker asks for a suite,
+ * runs it with a regular {@link TestNG}, streams the results back as they come and asks for the
+ * next suite, until it's told to stop.
+ */
+public class ForkedWorker implements ITestListener, IConfigurationListener, IMethodInterceptor {
+
+  /** Sent by a worker when it's ready for its next suite. */
+  static final String READY = "ready";
+  /** Sent by a worker after the last result of a suite. */
+  static final String DONE = "done";
+
+  private static volatile boolean s_worker;
+
+  private final ObjectOutputStream m_out;
+  private Set<String> m_signatures;
+
+  private ForkedWorker(ObjectOutputStream out) {
+    m_out = out;
+  }
+
+  /** @return whether this JVM is a worker, whose results the parent reports to its listeners. */
+  public static boolean isWorker() {
+    return s_worker;
+  }
+
+  /** @param args the port the {@link WorkerPool} listens to and the id of the worker */
+  public static void main(String[] args) throws IOException, ClassNotFoundException {
+    s_worker = true;
+    int port = Integer.parseInt(args[0]);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      ObjectOutputStream out =
+          new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      out.writeObject(Integer.valueOf(args[1]));
+      out.flush();
+      ObjectInputStream in =
+          new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+      new ForkedWorker(out).run(in);
+    }
+    System.exit(0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void run(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    while (true) {
+      send(READY);
+      String suiteXml = (String) in.readObject();
+      if (suiteXml == null) {
+        return;
+      }
+      m_signatures = (Set<String>) in.readObject();
+      TestNG testng = new TestNG(false);
+      testng.setXmlSuites(parse(suiteXml));
+      testng.setVerbose(0);
+      testng.setListenersToSkipFromBeingWiredInViaServiceLoaders(parentListeners());
+      testng.addListener(this);
+      testng.run();
+      send(DONE);
+    }
+  }
+
+  /** @return the listeners found by the service loader that the parent invokes itself. */
+  private static String[] parentListeners() {
+    List<String> result = Lists.newArrayList();
+    for (ITestNGListener listener : ServiceLoader.load(ITestNGListener.class)) {
+      if (ForkedTestExecutor.isInvokedByParent(listener.getClass())) {
+        result.add(listener.getClass().getName());
+      }
+    }
+    return result.toArray(new String[0]);
+  }
+
+  private static List<XmlSuite> parse(String suiteXml) throws IOException {
+    Parser parser = new Parser(new ByteArrayInputStream(suiteXml.getBytes(StandardCharsets.UTF_8)));
+    return Lists.newArrayList(parser.parse());
+  }
+
+  private synchronized void send(Object message) {
+    try {
+      m_out.writeObject(message);
+      m_out.flush();
+      m_out.reset();
+    } catch (IOException e) {
+      throw new TestNGException(e);
+    }
+  }
+
+  /** Only keeps the methods the worker was asked to run. */
+  @Override
+  public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+    return methods.stream()
+        .filter(m -> m_signatures.contains(ForkedResult.signatureOf(m.getMethod())))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public void onTestSuccess(ITestResult result) {
+    send(ForkedResult.ofTest(result));
+  }
+
+  @Override
+  public void onTestFailure(ITestResult result) {
+    send(ForkedResult.ofTest(result));
+  }
+
+  @Override
+  public void onTestSkipped(ITestResult result) {
+    send(ForkedResult.ofTest(result));
+  }
+
+  @Override
+  public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+    send(ForkedResult.ofTest(result));
+  }
+
+  @Override
+  public void onConfigurationSuccess(ITestResult result) {
+    send(ForkedResult.ofConfiguration(result));
+  }
+
+  @Override
+  public void onConfigurationFailure(ITestResult result) {
+    send(ForkedResult.ofConfiguration(result));
+  }
+
+  @Override
+  public void onConfigurationSkip(ITestResult result) {
+    send(ForkedResult.ofConfiguration(result));
+  }
+}
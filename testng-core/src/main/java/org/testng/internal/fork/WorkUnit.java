@@ -0,0 +1,41 @@
+package org.testng.internal.fork;
+
+import java.util.Set;
+
+/**
+ * A suite for one of the worker JVMs of a {@link WorkerPool} to run, and what to do with the
+ * results it sends back.
+ */
+abstract class WorkUnit {
+
+  private final String m_suiteXml;
+  private final Set<String> m_signatures;
+
+  /**
+   * @param suiteXml the suite to run
+   * @param signatures the signatures (see {@link ForkedResult#signatureOf}) of the test methods to
+   *     run in that suite
+   */
+  WorkUnit(String suiteXml, Set<String> signatures) {
+    m_suiteXml = suiteXml;
+    m_signatures = signatures;
+  }
+
+  String getSuiteXml() {
+    return m_suiteXml;
+  }
+
+  Set<String> getSignatures() {
+    return m_signatures;
+  }
+
+  /** Called for every result, in the order the worker sends them. */
+  abstract void onResult(ForkedResult result);
+
+  /**
+   * Called once the worker is done with the unit.
+   *
+   * @param failure why the worker couldn't run the whole unit, or null if it did
+   */
+  abstract void onFinish(Throwable failure);
+}
@@ -0,0 +1,240 @@
+package org.testng.internal.fork;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.TestNGException;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.log4testng.Logger;
+
+/**
+ * Worker JVMs started on the local machine, which run the suites of the {@link WorkUnit}s submitted
+ * to the pool. The workers pull the units one at a time from a single queue, so the ones that are
+ * done early take more units. The workers are started along with the first unit and are stopped
+ * when the pool is closed.
+ *
+ * <p>The workers run {@link ForkedWorker} with the class path of this JVM, and connect back over a
+ * socket bound to the loopback address. The arguments of their JVMs can be set with the <code>
+ * testng.fork.jvmArgs</code> system property.
+ *
+ * <p>A worker that sends nothing back for longer than the time-out (see {@link
+ * RuntimeBehavior#getForkTimeout()}) is deemed hung: it's stopped, and the methods of its unit that
+ * didn't get a result fail.
+ */
+public class WorkerPool implements Closeable {
+
+  private static final Logger LOGGER = Logger.getLogger(WorkerPool.class);
+
+  private static final int CONNECT_TIMEOUT_MS = 60_000;
+
+  private final int m_size;
+  private final long m_timeout;
+  private final BlockingQueue<WorkUnit> m_queue = new LinkedBlockingQueue<>();
+  /** The worker JVMs, by the id they send when they connect. */
+  private final Map<Integer, Process> m_processes = Maps.newConcurrentMap();
+  private final List<Thread> m_handlers = Lists.newArrayList();
+  /** The number of workers that are connected, or that may still connect. */
+  private final AtomicInteger m_alive = new AtomicInteger();
+
+  private ServerSocket m_serverSocket;
+  private volatile boolean m_closed;
+
+  /** @param size the number of worker JVMs */
+  public WorkerPool(int size) {
+    this(size, RuntimeBehavior.getForkTimeout());
+  }
+
+  /**
+   * @param size the number of worker JVMs
+   * @param timeout how long (in milliseconds) a worker can go without sending anything back while
+   *     it runs a unit, 0 for no limit
+   */
+  public WorkerPool(int size, long timeout) {
+    if (size < 1) {
+      throw new TestNGException("The number of worker JVMs must be at least 1, got " + size);
+    }
+    m_size = size;
+    m_timeout = timeout;
+  }
+
+  public int getSize() {
+    return m_size;
+  }
+
+  void submit(WorkUnit unit) {
+    start();
+    m_queue.add(unit);
+    if (m_alive.get() == 0) {
+      failPendingUnits();
+    }
+  }
+
+  private synchronized void start() {
+    if (m_serverSocket != null) {
+      return;
+    }
+    if (m_closed) {
+      throw new TestNGException("The worker pool is closed");
+    }
+    try {
+      m_serverSocket = new ServerSocket(0, m_size, InetAddress.getLoopbackAddress());
+      m_serverSocket.setSoTimeout(CONNECT_TIMEOUT_MS);
+    } catch (IOException e) {
+      throw new TestNGException(e);
+    }
+    m_alive.set(m_size);
+    for (int i = 0; i < m_size; i++) {
+      try {
+        m_processes.put(i, startWorker(m_serverSocket.getLocalPort(), i));
+      } catch (IOException e) {
+        LOGGER.error("Couldn't start a worker JVM: " + e.getMessage(), e);
+        m_alive.decrementAndGet();
+        continue;
+      }
+      Thread handler = new Thread(this::handleWorker, "TestNG-fork-" + (i + 1));
+      handler.setDaemon(true);
+      m_handlers.add(handler);
+      handler.start();
+    }
+  }
+
+  private static Process startWorker(int port, int id) throws IOException {
+    List<String> command = Lists.newArrayList();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    for (String argument : RuntimeBehavior.getForkJvmArgs().trim().split("\\s+")) {
+      if (!argument.isEmpty()) {
+        command.add(argument);
+      }
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ForkedWorker.class.getName());
+    command.add(Integer.toString(port));
+    command.add(Integer.toString(id));
+    return new ProcessBuilder(command).inheritIO().start();
+  }
+
+  /** Hands the units over to one worker, one at a time, until the pool is closed. */
+  private void handleWorker() {
+    WorkUnit current = null;
+    Process process = null;
+    try (Socket socket = m_serverSocket.accept()) {
+      socket.setSoTimeout((int) Math.min(m_timeout, Integer.MAX_VALUE));
+      ObjectOutputStream out =
+          new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      out.flush();
+      ObjectInputStream in =
+          new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+      process = m_processes.get((Integer) in.readObject());
+      while (ForkedWorker.READY.equals(in.readObject())) {
+        current = take();
+        if (current == null) {
+          out.writeObject(null);
+          out.flush();
+          return;
+        }
+        out.writeObject(current.getSuiteXml());
+        out.writeObject(new HashSet<>(current.getSignatures()));
+        out.flush();
+        out.reset();
+        Object message;
+        while ((message = in.readObject()) instanceof ForkedResult) {
+          current.onResult((ForkedResult) message);
+        }
+        WorkUnit done = current;
+        current = null;
+        done.onFinish(null);
+      }
+    } catch (SocketTimeoutException e) {
+      LOGGER.error("A worker JVM sent nothing for " + m_timeout + " ms, stopping it");
+      if (process != null) {
+        process.destroyForcibly();
+      }
+      if (current != null) {
+        current.onFinish(e);
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      if (!m_closed || current != null) {
+        LOGGER.error("Lost a worker JVM: " + e.getMessage(), e);
+      }
+      if (current != null) {
+        current.onFinish(e);
+      }
+    } finally {
+      if (m_alive.decrementAndGet() == 0) {
+        failPendingUnits();
+      }
+    }
+  }
+
+  /** @return the next unit, or null once the pool is closed. */
+  private WorkUnit take() {
+    try {
+      WorkUnit unit = null;
+      while (unit == null && !m_closed) {
+        unit = m_queue.poll(100, TimeUnit.MILLISECONDS);
+      }
+      return unit;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /** Fails the units no worker is left to run. */
+  private void failPendingUnits() {
+    WorkUnit unit;
+    while ((unit = m_queue.poll()) != null) {
+      unit.onFinish(new TestNGException("None of the worker JVMs is running"));
+    }
+  }
+
+  /** Stops the workers once they are done with their current unit. */
+  @Override
+  public void close() {
+    List<Thread> handlers;
+    synchronized (this) {
+      m_closed = true;
+      handlers = Lists.newArrayList(m_handlers);
+      if (m_serverSocket != null) {
+        // The workers that are connected already keep their socket.
+        try {
+          m_serverSocket.close();
+        } catch (IOException e) {
+          LOGGER.error(e.getMessage(), e);
+        }
+      }
+    }
+    try {
+      for (Thread handler : handlers) {
+        handler.join();
+      }
+      for (Process process : m_processes.values()) {
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+          process.destroyForcibly();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      failPendingUnits();
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.testng.collections.Sets;
 import org.testng.internal.*;
 import org.testng.internal.annotations.AnnotationHelper;
 import org.testng.internal.invokers.ConfigMethodArguments.Builder;
+import org.testng.internal.jfr.JfrEvents;
 import org.testng.internal.thread.ThreadUtil;
 import org.testng.xml.XmlClass;
 import org.testng.xml.XmlSuite;
@@ -372,6 +373,7 @@ class ConfigInvoker extends BaseInvoker implements IConfigInvoker {
       Reporter.setCurrentTestResult(null);
       return;
     }
+    JfrEvents.Event event = JfrEvents.CONFIGURATION_METHOD.begin();
     try {
       Reporter.setCurrentTestResult(testResult);
       ConstructorOrMethod method = tm.getConstructorOrMethod();
@@ -399,6 +401,13 @@ class ConfigInvoker extends BaseInvoker implements IConfigInvoker {
       throw new TestNGException(ex);
     } finally {
       testResult.setEndMillis(System.currentTimeMillis());
+      if (event != null) {
+        event
+            .set(JfrEvents.METHOD, tm.getQualifiedName())
+            .set(JfrEvents.INSTANCE, JfrEvents.instanceOf(targetInstance))
+            .set(JfrEvents.STATUS, JfrEvents.statusOf(testResult.getStatus()))
+            .commit();
+      }
       Reporter.setCurrentTestResult(testResult);
       runInvokedMethodListeners(AFTER_INVOCATION, invokedMethod, testResult);
       Reporter.setCurrentTestResult(null);
@@ -41,7 +41,8 @@ public class InvokeMethodRunnable implements Callable<Void> {
       try {
         ConstructorOrMethod m = m_method.getConstructorOrMethod();
         if (m_hookable == null) {
-          MethodInvocationHelper.invokeMethod(m.getMethod(), m_instance, m_parameters);
+          MethodInvocationHelper.invokeMethod(
+              m.getMethod(), m_instance, m_parameters, m_testResult);
         } else {
           MethodInvocationHelper.invokeHookable(
               m_instance, m_parameters, m_hookable, m.getMethod(), m_testResult);
@@ -10,11 +10,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeoutException;
 import org.testng.IConfigurable;
 import org.testng.IConfigureCallBack;
 import org.testng.IHookCallBack;
@@ -22,9 +22,11 @@ import org.testng.IHookable;
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
+import org.testng.Reporter;
 import org.testng.TestNGException;
 import org.testng.internal.ConstructorOrMethod;
 import org.testng.internal.MethodHelper;
+import org.testng.internal.RuntimeBehavior;
 import org.testng.internal.Utils;
 import org.testng.internal.annotations.IAnnotationFinder;
 import org.testng.internal.collections.ArrayIterator;
@@ -35,6 +37,7 @@ import org.testng.internal.invokers.InvokeMethodRunnable.TestNGRuntimeException;
 import org.testng.internal.thread.ThreadExecutionException;
 import org.testng.internal.thread.ThreadTimeoutException;
 import org.testng.internal.thread.ThreadUtil;
+import org.testng.internal.thread.TimeoutService;
 import org.testng.xml.XmlSuite;
 
 /** Collections of helper methods to help deal with invocation of TestNG methods */
@@ -59,7 +62,7 @@ public class MethodInvocationHelper {
       ITestResult testResult)
       throws Throwable {
     if (MethodHelper.calculateTimeOut(tm) <= 0) {
-      MethodInvocationHelper.invokeMethod(method.getMethod(), targetInstance, params);
+      MethodInvocationHelper.invokeMethod(method.getMethod(), targetInstance, params, testResult);
     } else {
       MethodInvocationHelper.invokeWithTimeout(tm, targetInstance, params, testResult);
       if (!testResult.isSuccess()) {
@@ -77,6 +80,24 @@ public class MethodInvocationHelper {
     return invokeMethod(thisMethod, instance, parameters.toArray(new Object[0]));
   }
 
+  /**
+   * Invokes a test or configuration method, and measures what it consumed on behalf of its result
+   * if the measure of the resources is enabled.
+   */
+  protected static Object invokeMethod(
+      Method thisMethod, Object instance, Object[] parameters, ITestResult testResult)
+      throws InvocationTargetException, IllegalAccessException {
+    if (!RuntimeBehavior.measureResources()) {
+      return invokeMethod(thisMethod, instance, parameters);
+    }
+    ResourceMeter meter = ResourceMeter.start();
+    try {
+      return invokeMethod(thisMethod, instance, parameters);
+    } finally {
+      meter.stop(testResult);
+    }
+  }
+
   protected static Object invokeMethod(Method thisMethod, Object instance, Object[] parameters)
       throws InvocationTargetException, IllegalAccessException {
     Utils.checkInstanceOrStatic(instance, thisMethod);
@@ -247,7 +268,7 @@ public class MethodInvocationHelper {
           @Override
           public void runTestMethod(ITestResult tr) {
             try {
-              invokeMethod(thisMethod, testInstance, parameters);
+              invokeMethod(thisMethod, testInstance, parameters, tr);
               error[0] = null;
               tr.setThrowable(null);
             } catch (Throwable t) {
@@ -295,6 +316,11 @@ public class MethodInvocationHelper {
     }
   }
 
+  private static boolean runsOnVirtualThreads(ITestResult testResult) {
+    return testResult.getTestContext().getCurrentXmlTest().getSuite().getParallelExecutor()
+        == XmlSuite.ParallelExecutor.VIRTUAL;
+  }
+
   private static void cleanInterruptStatus() {
     if (Thread.currentThread().isInterrupted()) {
       Thread.interrupted();
@@ -313,25 +339,9 @@ public class MethodInvocationHelper {
     long startTime = System.currentTimeMillis();
     long realTimeOut = MethodHelper.calculateTimeOut(tm);
     boolean notTimedout = true;
-    AtomicBoolean finished = new AtomicBoolean(false);
-    AtomicBoolean interruptByMonitor = new AtomicBoolean(false);
-    Thread monitorThread = null;
+    TimeoutService.Deadline deadline =
+        TimeoutService.getInstance().watch(Thread.currentThread(), realTimeOut);
     try {
-      Thread currentThread = Thread.currentThread();
-      monitorThread =
-          new Thread(
-              () -> {
-                try {
-                  TimeUnit.MILLISECONDS.sleep(realTimeOut);
-                } catch (InterruptedException e) {
-                  Thread.currentThread().interrupt();
-                }
-                if (!finished.get()) {
-                  interruptByMonitor.set(true);
-                  currentThread.interrupt();
-                }
-              });
-      monitorThread.start();
       imr.run();
       notTimedout = System.currentTimeMillis() <= startTime + realTimeOut;
       if (notTimedout) {
@@ -348,7 +358,7 @@ public class MethodInvocationHelper {
         testResult.setStatus(ITestResult.FAILURE);
       }
     } catch (Exception ex) {
-      if (notTimedout && !interruptByMonitor.get()) {
+      if (notTimedout && !deadline.hasExpired()) {
         Throwable e = ex.getCause();
         if (e instanceof TestNGRuntimeException) {
           e = e.getCause();
@@ -366,10 +376,7 @@ public class MethodInvocationHelper {
       }
       testResult.setStatus(ITestResult.FAILURE);
     } finally {
-      finished.set(true);
-      if (monitorThread != null && monitorThread.isAlive()) {
-        monitorThread.interrupt();
-      }
+      deadline.cancel();
     }
   }
 
@@ -380,17 +387,28 @@ public class MethodInvocationHelper {
       ITestResult testResult,
       IHookable hookable)
       throws InterruptedException, ThreadExecutionException {
-    ExecutorService exec = ThreadUtil.createExecutor(1, tm.getMethodName());
-
     InvokeMethodRunnable imr =
         new InvokeMethodRunnable(tm, instance, parameterValues, hookable, testResult);
-    Future<Void> future = exec.submit(imr);
-    exec.shutdown();
+    // The runner thread is reused, so the current test result it inherited may be another one.
+    Callable<Void> task =
+        () -> {
+          Reporter.setCurrentTestResult(testResult);
+          try {
+            return imr.call();
+          } finally {
+            Reporter.setCurrentTestResult(null);
+          }
+        };
+    Future<Void> future =
+        TimeoutService.getInstance()
+            .submit("method=" + tm.getMethodName(), task, runsOnVirtualThreads(testResult));
     long realTimeOut = MethodHelper.calculateTimeOut(tm);
-    boolean finished = exec.awaitTermination(realTimeOut, TimeUnit.MILLISECONDS);
-
-    if (!finished) {
-      exec.shutdownNow();
+    try {
+      // We don't need the result from the future but invoking get() on it
+      // will trigger the exception that was thrown, if any
+      future.get(realTimeOut, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
       ThreadTimeoutException exception =
           new ThreadTimeoutException(
               "Method "
@@ -399,22 +417,16 @@ public class MethodInvocationHelper {
                   + realTimeOut);
       testResult.setThrowable(exception);
       testResult.setStatus(ITestResult.FAILURE);
-    } else {
-      Utils.log(
-          "Invoker " + Thread.currentThread().hashCode(),
-          3,
-          "Method " + tm.getMethodName() + " completed within the time-out " + tm.getTimeOut());
-
-      // We don't need the result from the future but invoking get() on it
-      // will trigger the exception that was thrown, if any
-      try {
-        future.get();
-      } catch (ExecutionException e) {
-        throw new ThreadExecutionException(e.getCause());
-      }
-
-      testResult.setStatus(ITestResult.SUCCESS); // if no exception till here then SUCCESS.
+      return;
+    } catch (ExecutionException e) {
+      throw new ThreadExecutionException(e.getCause());
     }
+    Utils.log(
+        "Invoker " + Thread.currentThread().hashCode(),
+        3,
+        "Method " + tm.getMethodName() + " completed within the time-out " + tm.getTimeOut());
+
+    testResult.setStatus(ITestResult.SUCCESS); // if no exception till here then SUCCESS.
   }
 
   protected static void invokeConfigurable(
@@ -431,7 +443,7 @@ public class MethodInvocationHelper {
           @Override
           public void runConfigurationMethod(ITestResult tr) {
             try {
-              invokeMethod(thisMethod, instance, parameters);
+              invokeMethod(thisMethod, instance, parameters, tr);
               error[0] = null;
               tr.setThrowable(null);
             } catch (Throwable t) {
@@ -2,9 +2,12 @@ package org.testng.internal.invokers;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.ISuite;
 import org.testng.ITestContext;
 import org.testng.ITestResult;
+import org.testng.SuiteRunner;
 import org.testng.collections.CollectionUtils;
 import org.testng.collections.Lists;
 import org.testng.internal.Parameters;
@@ -94,42 +97,77 @@ public class MethodRunner implements IMethodRunner {
       boolean skipFailedInvocationCounts) {
     XmlSuite suite = context.getSuite().getXmlSuite();
     List<ITestResult> result = Lists.newArrayList();
-    List<TestMethodWithDataProviderMethodWorker> workers = Lists.newArrayList();
-    int parametersIndex = 0;
-    Iterable<Object[]> allParameterValues = CollectionUtils.asIterable(allParamValues);
-    for (Object[] next : allParameterValues) {
-      if (next == null) {
-        // skipped value
-        parametersIndex += 1;
-        continue;
-      }
-      Object[] parameterValues =
-          Parameters.injectParameters(
-              next, arguments.getTestMethod().getConstructorOrMethod().getMethod(), context);
+    // Every worker is created with the state as of before any of them ran.
+    int currentInvocationCount = invocationCount.get();
+    int failureCount = failure.count;
+    Iterator<TestMethodWithDataProviderMethodWorker> workers =
+        new Iterator<TestMethodWithDataProviderMethodWorker>() {
+          private int parametersIndex = 0;
+          private Object[] next;
+
+          @Override
+          public boolean hasNext() {
+            while (next == null && allParamValues.hasNext()) {
+              next = allParamValues.next();
+              if (next == null) {
+                // skipped value
+                parametersIndex += 1;
+              }
+            }
+            return next != null;
+          }
 
-      TestMethodWithDataProviderMethodWorker w =
-          new TestMethodWithDataProviderMethodWorker(
-              testInvoker,
-              arguments.getTestMethod(),
-              parametersIndex,
-              parameterValues,
-              arguments.getInstance(),
-              arguments.getParameters(),
-              arguments.getTestClass(),
-              arguments.getBeforeMethods(),
-              arguments.getAfterMethods(),
-              arguments.getGroupMethods(),
-              context,
-              skipFailedInvocationCounts,
-              invocationCount.get(),
-              failure.count,
-              testInvoker.getNotifier());
-      workers.add(w);
-      // testng387: increment the param index in the bag.
-      parametersIndex += 1;
+          @Override
+          public TestMethodWithDataProviderMethodWorker next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Object[] parameterValues =
+                Parameters.injectParameters(
+                    next, arguments.getTestMethod().getConstructorOrMethod().getMethod(), context);
+            next = null;
+
+            TestMethodWithDataProviderMethodWorker w =
+                new TestMethodWithDataProviderMethodWorker(
+                    testInvoker,
+                    arguments.getTestMethod(),
+                    parametersIndex,
+                    parameterValues,
+                    arguments.getInstance(),
+                    arguments.getParameters(),
+                    arguments.getTestClass(),
+                    arguments.getBeforeMethods(),
+                    arguments.getAfterMethods(),
+                    arguments.getGroupMethods(),
+                    context,
+                    skipFailedInvocationCounts,
+                    currentInvocationCount,
+                    failureCount,
+                    testInvoker.getNotifier());
+            // testng387: increment the param index in the bag.
+            parametersIndex += 1;
+            return w;
+          }
+        };
+
+    // Rows are pulled from the data provider as the pool frees up, so that only a bounded number
+    // of them is held in memory at any time.
+    int maxInFlight = 2 * suite.getDataProviderThreadCount();
+    ISuite iSuite = context.getSuite();
+    List<List<ITestResult>> r;
+    if (iSuite instanceof SuiteRunner) {
+      r = ((SuiteRunner) iSuite).getDataProviderPool().submitTasksAndWait(workers, maxInFlight);
+    } else {
+      PoolService<List<ITestResult>> ps =
+          new PoolService<>(
+              suite.getDataProviderThreadCount(),
+              suite.getParallelExecutor() == XmlSuite.ParallelExecutor.VIRTUAL);
+      try {
+        r = ps.submitTasksAndWait(workers, maxInFlight);
+      } finally {
+        ps.shutdown();
+      }
     }
-    PoolService<List<ITestResult>> ps = new PoolService<>(suite.getDataProviderThreadCount());
-    List<List<ITestResult>> r = ps.submitTasksAndWait(workers);
     for (List<ITestResult> l2 : r) {
       result.addAll(l2);
     }
@@ -0,0 +1,85 @@
+package org.testng.internal.invokers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import org.testng.ITestResult;
+import org.testng.util.ResourceUsage;
+
+/**
+ * Measures the CPU time the current thread consumes and the memory it allocates, through the
+ * {@link ThreadMXBean}. The allocations are only known to the HotSpot extension of the bean, which
+ * is looked up reflectively: on the JVMs that don't have it, or for the virtual threads, what can't
+ * be measured is reported as -1.
+ */
+final class ResourceMeter {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final Method GET_THREAD_ALLOCATED_BYTES = initGetThreadAllocatedBytes();
+
+  private final long m_cpuTime;
+  private final long m_allocatedBytes;
+
+  private ResourceMeter() {
+    m_cpuTime = cpuTime();
+    m_allocatedBytes = allocatedBytes();
+  }
+
+  private static Method initGetThreadAllocatedBytes() {
+    try {
+      Method method =
+          Class.forName("com.sun.management.ThreadMXBean")
+              .getMethod("getThreadAllocatedBytes", long.class);
+      method.invoke(THREAD_MX_BEAN, Thread.currentThread().getId());
+      return method;
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  /** @return a meter started on the current thread. */
+  static ResourceMeter start() {
+    return new ResourceMeter();
+  }
+
+  /**
+   * Stops the meter, on the thread it was started on, and adds what it measured to the usage of a
+   * result.
+   */
+  void stop(ITestResult testResult) {
+    ResourceUsage usage =
+        new ResourceUsage(
+            difference(cpuTime(), m_cpuTime), difference(allocatedBytes(), m_allocatedBytes));
+    ResourceUsage previous = ResourceUsage.of(testResult);
+    testResult.setAttribute(
+        ResourceUsage.ATTRIBUTE, previous == null ? usage : previous.plus(usage));
+  }
+
+  private static long difference(long end, long start) {
+    return end < 0 || start < 0 ? -1 : end - start;
+  }
+
+  private static long cpuTime() {
+    if (!THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+        || !THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+      return -1;
+    }
+    try {
+      return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    } catch (UnsupportedOperationException e) {
+      return -1;
+    }
+  }
+
+  private static long allocatedBytes() {
+    if (GET_THREAD_ALLOCATED_BYTES == null) {
+      return -1;
+    }
+    try {
+      long id = Thread.currentThread().getId();
+      return (long) GET_THREAD_ALLOCATED_BYTES.invoke(THREAD_MX_BEAN, id);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return -1;
+    }
+  }
+}
@@ -40,8 +40,10 @@ import org.testng.collections.Lists;
 import org.testng.collections.Maps;
 import org.testng.collections.Sets;
 import org.testng.internal.*;
+import org.testng.internal.annotations.DisabledRetryAnalyzer;
 import org.testng.internal.invokers.GroupConfigMethodArguments.Builder;
 import org.testng.internal.invokers.InvokeMethodRunnable.TestNGRuntimeException;
+import org.testng.internal.jfr.JfrEvents;
 import org.testng.internal.thread.ThreadExecutionException;
 import org.testng.internal.thread.ThreadUtil;
 import org.testng.thread.IWorker;
@@ -339,7 +341,13 @@ class TestInvoker extends BaseInvoker implements ITestInvoker {
     long maxTimeOut =
         workers.parallelStream().map(IWorker::getTimeOut).max(Long::compare).orElse(-1L);
 
-    ThreadUtil.execute("methods", workers, threadPoolSize, maxTimeOut);
+    ThreadUtil.execute(
+        "methods",
+        workers,
+        threadPoolSize,
+        maxTimeOut,
+        testMethod.getXmlTest().getSuite().getParallelExecutor()
+            == XmlSuite.ParallelExecutor.VIRTUAL);
 
     //
     // Collect all the TestResults
@@ -417,6 +425,33 @@ class TestInvoker extends BaseInvoker implements ITestInvoker {
     //
     List<IWorker<ITestNGMethod>> workers = Lists.newArrayList();
 
+    if (canBatchInvocations(testMethod)) {
+      // Create one worker per pool thread, which keeps running invocations until there are none
+      // left
+      int workerCount = Math.min(testMethod.getThreadPoolSize(), testMethod.getInvocationCount());
+      AtomicInteger remainingInvocations =
+          new AtomicInteger(testMethod.getInvocationCount() - workerCount);
+      for (int i = 0; i < workerCount; i++) {
+        // we use clones for reporting purposes
+        ITestNGMethod clonedMethod = testMethod.clone();
+        clonedMethod.setInvocationCount(1);
+        clonedMethod.setThreadPoolSize(1);
+
+        MethodInstance mi = new MethodInstance(clonedMethod);
+        workers.add(
+            new InvocationBatchWorker(
+                this,
+                invoker,
+                mi,
+                parameters,
+                testContext,
+                m_classListeners,
+                remainingInvocations));
+      }
+      return runWorkers(
+          testMethod, workers, testMethod.getThreadPoolSize(), groupMethods, parameters);
+    }
+
     // Create one worker per invocationCount
     for (int i = 0; i < testMethod.getInvocationCount(); i++) {
       // we use clones for reporting purposes
@@ -433,6 +468,17 @@ class TestInvoker extends BaseInvoker implements ITestInvoker {
         testMethod, workers, testMethod.getThreadPoolSize(), groupMethods, parameters);
   }
 
+  /**
+   * The invocations of a method can share the same clone unless each of them needs its own state:
+   * a retry analyzer keeps track of the attempts of an invocation, and the failed invocation
+   * numbers of methods with parameters are recorded per clone.
+   */
+  private static boolean canBatchInvocations(ITestNGMethod testMethod) {
+    return DisabledRetryAnalyzer.class.equals(testMethod.getRetryAnalyzerClass())
+        && testMethod.getParameterTypes().length == 0
+        && testMethod.getFactoryMethodParamsInfo() == null;
+  }
+
   private void collectResults(ITestNGMethod testMethod, ITestResult result) {
     // Collect the results
     int status = result.getStatus();
@@ -562,6 +608,7 @@ class TestInvoker extends BaseInvoker implements ITestInvoker {
       return result;
     }
 
+    JfrEvents.Event event = JfrEvents.TEST_METHOD.begin();
     //
     // Create the ExtraOutput for this method
     //
@@ -618,7 +665,7 @@ class TestInvoker extends BaseInvoker implements ITestInvoker {
         } else {
           // Not a IHookable, invoke directly
           MethodInvocationHelper.invokeMethod(
-              thisMethod, arguments.getInstance(), arguments.getParameterValues());
+              thisMethod, arguments.getInstance(), arguments.getParameterValues(), testResult);
         }
         setTestStatus(testResult, ITestResult.SUCCESS);
       } else {
@@ -664,6 +711,14 @@ class TestInvoker extends BaseInvoker implements ITestInvoker {
       boolean wasResultUnaltered = statusBeforeListenerInvocation == testResult.getStatus();
       handleInvocationResults(
           arguments.getTestMethod(), testResult, failureContext, holder, wasResultUnaltered);
+      if (event != null) {
+        event
+            .set(JfrEvents.METHOD, arguments.getTestMethod().getQualifiedName())
+            .set(JfrEvents.INSTANCE, JfrEvents.instanceOf(arguments.getInstance()))
+            .set(JfrEvents.PARAMETER_INDEX, arguments.getParametersIndex())
+            .set(JfrEvents.STATUS, JfrEvents.statusOf(testResult.getStatus()))
+            .commit();
+      }
 
       // If this method has a data provider and just failed, memorize the number
       // at which it failed.
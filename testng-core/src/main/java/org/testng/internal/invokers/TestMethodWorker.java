@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import org.testng.ClassMethodMap;
 import org.testng.IClassListener;
@@ -302,3 +303,32 @@ class SingleTestMethodWorker extends TestMethodWorker {
         listeners);
   }
 }
+
+/**
+ * Extends {@code SingleTestMethodWorker} to keep invoking its method as long as invocations are
+ * left, so that a few workers can share all the invocations of a method. Every worker runs at least
+ * one invocation, so that all the threads of the pool get used just like when each invocation had
+ * its own worker.
+ */
+class InvocationBatchWorker extends SingleTestMethodWorker {
+  private final AtomicInteger m_remainingInvocations;
+
+  public InvocationBatchWorker(
+      TestInvoker testInvoker,
+      ConfigInvoker configInvoker,
+      IMethodInstance testMethod,
+      Map<String, String> parameters,
+      ITestContext testContext,
+      List<IClassListener> listeners,
+      AtomicInteger remainingInvocations) {
+    super(testInvoker, configInvoker, testMethod, parameters, testContext, listeners);
+    m_remainingInvocations = remainingInvocations;
+  }
+
+  @Override
+  protected void invokeTestMethods(ITestNGMethod tm, Object instance) {
+    do {
+      super.invokeTestMethods(tm, instance);
+    } while (m_remainingInvocations.getAndDecrement() > 0);
+  }
+}
@@ -0,0 +1,285 @@
+package org.testng.internal.jfr;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.ITestResult;
+import org.testng.collections.Lists;
+import org.testng.internal.Utils;
+
+/**
+ * The Java Flight Recorder events TestNG emits, so that the invocations of the test methods can be
+ * lined up with the garbage collections, the locks and the I/O in JDK Mission Control. TestNG is
+ * compiled for Java 8, so the events are defined at runtime with {@code jdk.jfr.EventFactory},
+ * which is looked up reflectively; on the JVMs without JFR no event is ever emitted.
+ *
+ * <p>An event is only created while a recording that enables it is running:
+ *
+ * <pre>
+ * JfrEvents.Event event = JfrEvents.TEST_METHOD.begin();
+ * ...
+ * if (event != null) {
+ *   event.set(JfrEvents.STATUS, JfrEvents.statusOf(status)).commit();
+ * }
+ * </pre>
+ */
+public final class JfrEvents {
+
+  public static final String METHOD = "method";
+  public static final String TEST_METHOD_NAME = "testMethod";
+  public static final String INSTANCE = "instance";
+  public static final String PARAMETER_INDEX = "parameterIndex";
+  public static final String STATUS = "status";
+  public static final String TASKS = "tasks";
+
+  private static final String CATEGORY = "TestNG";
+
+  private static final Constructor<?> ANNOTATION_ELEMENT;
+  private static final Constructor<?> VALUE_DESCRIPTOR;
+  private static final Method CREATE;
+  private static final Method GET_EVENT_TYPE;
+  private static final Method NEW_EVENT;
+  private static final Method IS_ENABLED;
+  private static final Method BEGIN;
+  private static final Method SET;
+  private static final Method COMMIT;
+  private static final Class<?>[] ANNOTATIONS = new Class<?>[4];
+
+  static {
+    Constructor<?> annotationElement = null;
+    Constructor<?> valueDescriptor = null;
+    Method create = null;
+    Method getEventType = null;
+    Method newEvent = null;
+    Method isEnabled = null;
+    Method begin = null;
+    Method set = null;
+    Method commit = null;
+    try {
+      Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+      Class<?> event = Class.forName("jdk.jfr.Event");
+      annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+      valueDescriptor =
+          Class.forName("jdk.jfr.ValueDescriptor")
+              .getConstructor(Class.class, String.class, List.class);
+      create = eventFactory.getMethod("create", List.class, List.class);
+      getEventType = eventFactory.getMethod("getEventType");
+      newEvent = eventFactory.getMethod("newEvent");
+      isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+      begin = event.getMethod("begin");
+      set = event.getMethod("set", int.class, Object.class);
+      commit = event.getMethod("commit");
+      ANNOTATIONS[0] = Class.forName("jdk.jfr.Name");
+      ANNOTATIONS[1] = Class.forName("jdk.jfr.Label");
+      ANNOTATIONS[2] = Class.forName("jdk.jfr.Description");
+      ANNOTATIONS[3] = Class.forName("jdk.jfr.Category");
+    } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+      create = null;
+    }
+    ANNOTATION_ELEMENT = annotationElement;
+    VALUE_DESCRIPTOR = valueDescriptor;
+    CREATE = create;
+    GET_EVENT_TYPE = getEventType;
+    NEW_EVENT = newEvent;
+    IS_ENABLED = isEnabled;
+    BEGIN = begin;
+    SET = set;
+    COMMIT = commit;
+  }
+
+  /** The invocation of a test method, which lasts as long as the method itself. */
+  public static final Type TEST_METHOD =
+      new Type(
+          "org.testng.TestMethod",
+          "Test Method",
+          "The invocation of a test method",
+          field(String.class, METHOD, "Method"),
+          field(String.class, INSTANCE, "Instance"),
+          field(int.class, PARAMETER_INDEX, "Parameter Index"),
+          field(String.class, STATUS, "Status"));
+
+  /** The invocation of a configuration method. */
+  public static final Type CONFIGURATION_METHOD =
+      new Type(
+          "org.testng.ConfigurationMethod",
+          "Configuration Method",
+          "The invocation of a configuration method",
+          field(String.class, METHOD, "Method"),
+          field(String.class, INSTANCE, "Instance"),
+          field(String.class, STATUS, "Status"));
+
+  /** The invocation of a data provider, which doesn't include the iteration over its values. */
+  public static final Type DATA_PROVIDER =
+      new Type(
+          "org.testng.DataProvider",
+          "Data Provider",
+          "The invocation of a data provider",
+          field(String.class, METHOD, "Data Provider"),
+          field(String.class, TEST_METHOD_NAME, "Test Method"),
+          field(String.class, INSTANCE, "Instance"),
+          field(String.class, STATUS, "Status"));
+
+  /** The time a node freed in the graph of the methods waited for a thread of the pool. */
+  public static final Type QUEUE_WAIT =
+      new Type(
+          "org.testng.QueueWait",
+          "Queue Wait",
+          "The time methods ready to run waited for a thread",
+          field(String.class, TASKS, "Tasks"));
+
+  private JfrEvents() {}
+
+  /** @return true if the running JVM is able to emit the events. */
+  public static boolean isSupported() {
+    return CREATE != null;
+  }
+
+  /**
+   * @return the class and the identity hash code of an instance, e.g. <code>test.Sample@1b6d3586
+   *     </code>, which unlike its <code>toString()</code> can't fail, or null for a static method
+   */
+  public static String instanceOf(Object instance) {
+    if (instance == null) {
+      return null;
+    }
+    String hashCode = Integer.toHexString(System.identityHashCode(instance));
+    return instance.getClass().getName() + "@" + hashCode;
+  }
+
+  /** @return the name of a status of {@link ITestResult}, e.g. <code>SUCCESS</code>. */
+  public static String statusOf(int status) {
+    switch (status) {
+      case ITestResult.SUCCESS:
+        return "SUCCESS";
+      case ITestResult.FAILURE:
+        return "FAILURE";
+      case ITestResult.SKIP:
+        return "SKIP";
+      case ITestResult.SUCCESS_PERCENTAGE_FAILURE:
+        return "SUCCESS_PERCENTAGE_FAILURE";
+      case ITestResult.STARTED:
+        return "STARTED";
+      default:
+        return String.valueOf(status);
+    }
+  }
+
+  private static Object[] field(Class<?> type, String name, String label) {
+    return new Object[] {type, name, label};
+  }
+
+  private static Object annotation(int index, Object value) throws ReflectiveOperationException {
+    return ANNOTATION_ELEMENT.newInstance(ANNOTATIONS[index], value);
+  }
+
+  /** A type of event. */
+  public static final class Type {
+
+    /** The {@code jdk.jfr.EventFactory}, which has to be kept for the type to remain registered. */
+    private final Object m_factory;
+
+    private final Object m_eventType;
+    private final List<String> m_fields = Lists.newArrayList();
+
+    Type(String name, String label, String description, Object[]... fields) {
+      Object factory = null;
+      Object eventType = null;
+      if (isSupported()) {
+        try {
+          List<Object> annotations =
+              Arrays.asList(
+                  annotation(0, name),
+                  annotation(1, label),
+                  annotation(2, description),
+                  annotation(3, new String[] {CATEGORY}));
+          List<Object> descriptors = Lists.newArrayList();
+          for (Object[] field : fields) {
+            descriptors.add(
+                VALUE_DESCRIPTOR.newInstance(
+                    field[0], field[1], Arrays.asList(annotation(1, field[2]))));
+            m_fields.add((String) field[1]);
+          }
+          factory = CREATE.invoke(null, annotations, descriptors);
+          eventType = GET_EVENT_TYPE.invoke(factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+          Utils.log("JfrEvents", 2, "Couldn't define the event " + name + ": " + e);
+          factory = null;
+          eventType = null;
+        }
+      }
+      m_factory = factory;
+      m_eventType = eventType;
+    }
+
+    /** @return true if a recording enabling this type of event is running. */
+    public boolean isEnabled() {
+      if (m_eventType == null) {
+        return false;
+      }
+      try {
+        return (Boolean) IS_ENABLED.invoke(m_eventType);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        return false;
+      }
+    }
+
+    /**
+     * @return a started event, which has to be committed once what it describes ended, or null if
+     *     no recording enables this type of event.
+     */
+    public Event begin() {
+      if (!isEnabled()) {
+        return null;
+      }
+      try {
+        Object event = NEW_EVENT.invoke(m_factory);
+        BEGIN.invoke(event);
+        return new Event(this, event);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        return null;
+      }
+    }
+  }
+
+  /** An event being recorded, which isn't thread safe. */
+  public static final class Event {
+
+    private final Type m_type;
+    private final Object m_event;
+
+    private Event(Type type, Object event) {
+      m_type = type;
+      m_event = event;
+    }
+
+    /**
+     * @param field the name of a field of the type of the event, e.g. {@link #STATUS}
+     * @param value its value, which has to be of the type of the field
+     * @return this event
+     */
+    public Event set(String field, Object value) {
+      int index = m_type.m_fields.indexOf(field);
+      if (index < 0) {
+        throw new IllegalArgumentException("Unknown field " + field);
+      }
+      try {
+        SET.invoke(m_event, index, value);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        // The event is only lacking a value.
+      }
+      return this;
+    }
+
+    /** Ends the event and writes it to the running recordings. */
+    public void commit() {
+      try {
+        COMMIT.invoke(m_event);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        // The event is lost, which doesn't affect the run.
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.testng.internal.thread;
+
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.testng.IDynamicGraph;
+import org.testng.ISuite;
+import org.testng.ITestNGMethod;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.internal.thread.graph.GraphThreadPoolExecutor;
+import org.testng.internal.thread.graph.LockFreeGraphThreadPoolExecutor;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+
+/**
+ * An {@link IExecutorFactory} whose executors schedule the graph using per node dependency counters
+ * instead of recomputing the free nodes of the graph under a lock after every completion. It can be
+ * plugged in via {@code -threadpoolfactoryclass
+ * org.testng.internal.thread.LockFreeThreadPoolExecutorFactory} or {@link
+ * org.testng.TestNG#setExecutorFactory(IExecutorFactory)}.
+ *
+ * <p>Thread affinity (see {@link RuntimeBehavior#enforceThreadAffinity()}) relies on the free nodes
+ * being recomputed after every completion, so when it is enabled this factory falls back to {@link
+ * GraphThreadPoolExecutor}.
+ */
+public class LockFreeThreadPoolExecutorFactory implements IExecutorFactory {
+
+  @Override
+  public ITestNGThreadPoolExecutor newSuiteExecutor(
+      String name,
+      IDynamicGraph<ISuite> graph,
+      IThreadWorkerFactory<ISuite> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<ISuite> comparator) {
+    return newExecutor(
+        name,
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator);
+  }
+
+  @Override
+  public ITestNGThreadPoolExecutor newTestMethodExecutor(
+      String name,
+      IDynamicGraph<ITestNGMethod> graph,
+      IThreadWorkerFactory<ITestNGMethod> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<ITestNGMethod> comparator) {
+    return newExecutor(
+        name,
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator);
+  }
+
+  private static <T> ITestNGThreadPoolExecutor newExecutor(
+      String name,
+      IDynamicGraph<T> graph,
+      IThreadWorkerFactory<T> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<T> comparator) {
+    if (RuntimeBehavior.enforceThreadAffinity()) {
+      return new GraphThreadPoolExecutor<>(
+          name,
+          graph,
+          factory,
+          corePoolSize,
+          maximumPoolSize,
+          keepAliveTime,
+          unit,
+          workQueue,
+          comparator);
+    }
+    return new LockFreeGraphThreadPoolExecutor<>(
+        name,
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator);
+  }
+}
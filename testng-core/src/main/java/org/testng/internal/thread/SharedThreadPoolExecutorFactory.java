@@ -0,0 +1,244 @@
+package org.testng.internal.thread;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.IDynamicGraph;
+import org.testng.ISuite;
+import org.testng.ITestNGMethod;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.internal.Utils;
+import org.testng.internal.thread.graph.GraphThreadPoolExecutor;
+import org.testng.internal.thread.graph.SharedGraphExecutor;
+import org.testng.log4testng.Logger;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+
+/**
+ * An {@link IExecutorFactory} whose executors all run their workers in one work-stealing pool, so
+ * that the suites, the {@code <test>} tags of a suite and the methods of a {@code <test>} share the
+ * same threads instead of each level creating its own pool. The parallelism of the pool caps the
+ * number of workers running at the same time across all of them, while the pool sizes given to the
+ * factory (e.g. the {@code thread-count} of a {@code <test>}) still cap the number of workers each
+ * executor runs at the same time.
+ *
+ * <p>It can be plugged in via {@code -sharedthreadpoolsize}, {@code -threadpoolfactoryclass
+ * org.testng.internal.thread.SharedThreadPoolExecutorFactory} (which uses one thread per core) or
+ * {@link org.testng.TestNG#setExecutorFactory(IExecutorFactory)}. Thread affinity (see {@link
+ * RuntimeBehavior#enforceThreadAffinity()}) needs dedicated threads, so when it is enabled the
+ * executors fall back to {@link GraphThreadPoolExecutor}.
+ *
+ * <p>The pool is created when the first worker is handed over to it and {@link #shutdown()} (which
+ * {@link org.testng.TestNG} calls when a run ends) stops its threads, the next run getting a new
+ * pool.
+ */
+public class SharedThreadPoolExecutorFactory implements IExecutorFactory {
+
+  private static final Logger LOGGER = Logger.getLogger(SharedThreadPoolExecutorFactory.class);
+
+  private final int m_parallelism;
+  private final AtomicInteger m_threadNumber = new AtomicInteger(1);
+  private ForkJoinPool m_pool;
+
+  public SharedThreadPoolExecutorFactory() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /** @param parallelism the maximum number of workers that run at the same time. */
+  public SharedThreadPoolExecutorFactory(int parallelism) {
+    m_parallelism = Math.max(parallelism, 1);
+  }
+
+  public int getParallelism() {
+    return m_parallelism;
+  }
+
+  private synchronized ForkJoinPool pool() {
+    if (m_pool == null) {
+      m_pool =
+          new ForkJoinPool(
+              m_parallelism,
+              pool -> {
+                ForkJoinWorkerThread thread =
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(
+                    ThreadUtil.THREAD_NAME + "-shared-" + m_threadNumber.getAndIncrement());
+                return thread;
+              },
+              null,
+              true);
+    }
+    return m_pool;
+  }
+
+  /** Stops the threads of the pool, interrupting the workers that are still running. */
+  public synchronized void shutdown() {
+    if (m_pool != null) {
+      m_pool.shutdownNow();
+      m_pool = null;
+    }
+  }
+
+  @Override
+  public ITestNGThreadPoolExecutor newSuiteExecutor(
+      String name,
+      IDynamicGraph<ISuite> graph,
+      IThreadWorkerFactory<ISuite> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<ISuite> comparator) {
+    return newExecutor(
+        name,
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator);
+  }
+
+  @Override
+  public ITestNGThreadPoolExecutor newTestMethodExecutor(
+      String name,
+      IDynamicGraph<ITestNGMethod> graph,
+      IThreadWorkerFactory<ITestNGMethod> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<ITestNGMethod> comparator) {
+    return newExecutor(
+        name,
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator);
+  }
+
+  private <T> ITestNGThreadPoolExecutor newExecutor(
+      String name,
+      IDynamicGraph<T> graph,
+      IThreadWorkerFactory<T> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<T> comparator) {
+    if (RuntimeBehavior.enforceThreadAffinity()) {
+      return new GraphThreadPoolExecutor<>(
+          name,
+          graph,
+          factory,
+          corePoolSize,
+          maximumPoolSize,
+          keepAliveTime,
+          unit,
+          workQueue,
+          comparator);
+    }
+    return new SharedGraphExecutor<>(
+        graph, factory, new BoundedExecutor(maximumPoolSize, workQueue), comparator);
+  }
+
+  /**
+   * The shared pool counterpart of {@link ThreadUtil#execute(String, List, int, long)}: runs the
+   * tasks, at most <code>maxConcurrency</code> at a time, and waits for them.
+   *
+   * @param tasks the tasks to run
+   * @param maxConcurrency the maximum number of tasks that run at the same time
+   * @param timeout the maximum time to wait for the tasks, in milliseconds (0 to wait forever)
+   */
+  public void execute(List<? extends Runnable> tasks, int maxConcurrency, long timeout) {
+    Utils.log(
+        "SharedThreadPoolExecutorFactory",
+        2,
+        "Starting tasks timeOut:" + timeout + "ms workers:" + tasks.size());
+    CountDownLatch done = new CountDownLatch(tasks.size());
+    Executor executor = new BoundedExecutor(maxConcurrency, new ConcurrentLinkedQueue<>());
+    for (Runnable task : tasks) {
+      executor.execute(
+          () -> {
+            try {
+              task.run();
+            } finally {
+              done.countDown();
+            }
+          });
+    }
+    try {
+      ThreadUtil.await(done, timeout == 0 ? Long.MAX_VALUE : timeout, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException handled) {
+      LOGGER.error(handled.getMessage(), handled);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Hands the tasks over to the shared pool, but never more than a given number at a time. */
+  private class BoundedExecutor implements Executor {
+
+    private final int m_maxConcurrency;
+    private final Queue<Runnable> m_queue;
+    private final AtomicInteger m_active = new AtomicInteger();
+
+    BoundedExecutor(int maxConcurrency, Queue<Runnable> queue) {
+      m_maxConcurrency = Math.max(maxConcurrency, 1);
+      m_queue = queue;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      m_queue.add(task);
+      drain();
+    }
+
+    private void drain() {
+      while (!m_queue.isEmpty()) {
+        int active = m_active.get();
+        if (active >= m_maxConcurrency) {
+          // One of the running tasks will drain the queue once it's done.
+          return;
+        }
+        if (!m_active.compareAndSet(active, active + 1)) {
+          continue;
+        }
+        Runnable task = m_queue.poll();
+        if (task == null) {
+          m_active.decrementAndGet();
+          continue;
+        }
+        pool()
+            .execute(
+                () -> {
+                  try {
+                    task.run();
+                  } catch (RuntimeException | Error e) {
+                    LOGGER.error(e.getMessage(), e);
+                  } finally {
+                    m_active.decrementAndGet();
+                    drain();
+                  }
+                });
+      }
+    }
+  }
+}
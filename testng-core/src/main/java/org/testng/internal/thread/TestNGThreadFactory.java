@@ -7,13 +7,27 @@ public class TestNGThreadFactory implements ThreadFactory {
 
   private final AtomicInteger threadNumber = new AtomicInteger(1);
   private final String name;
+  private final boolean virtual;
 
   public TestNGThreadFactory(String name) {
+    this(name, false);
+  }
+
+  /**
+   * @param name the name the threads are prefixed with
+   * @param virtual whether to create virtual threads (see {@link VirtualThreads})
+   */
+  public TestNGThreadFactory(String name, boolean virtual) {
     this.name = ThreadUtil.THREAD_NAME + "-" + name + "-";
+    this.virtual = virtual;
   }
 
   @Override
   public Thread newThread(Runnable r) {
-    return new Thread(r, name + threadNumber.getAndIncrement());
+    String threadName = name + threadNumber.getAndIncrement();
+    if (virtual) {
+      return VirtualThreads.newThread(threadName, r);
+    }
+    return new Thread(r, threadName);
   }
 }
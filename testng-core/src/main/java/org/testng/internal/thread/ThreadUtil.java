@@ -2,7 +2,9 @@ package org.testng.internal.thread;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -31,6 +33,24 @@ public class ThreadUtil {
    */
   public static void execute(
       String name, List<? extends Runnable> tasks, int threadPoolSize, long timeout) {
+    execute(name, tasks, threadPoolSize, timeout, false);
+  }
+
+  /**
+   * Parallel execution of the <code>tasks</code>, optionally on virtual threads in which case
+   * <code>threadPoolSize</code> is the number of tasks that run at the same time.
+   *
+   * @param tasks the list of tasks to be run
+   * @param threadPoolSize the size of the parallel threads to be used to execute the tasks
+   * @param timeout a maximum timeout to wait for tasks finalization
+   * @param virtual whether the tasks run on virtual threads
+   */
+  public static void execute(
+      String name,
+      List<? extends Runnable> tasks,
+      int threadPoolSize,
+      long timeout,
+      boolean virtual) {
 
     Utils.log(
         "ThreadUtil",
@@ -49,7 +69,7 @@ public class ThreadUtil {
             timeout,
             TimeUnit.MILLISECONDS,
             new LinkedBlockingQueue<>(),
-            new TestNGThreadFactory(name));
+            new TestNGThreadFactory(name, virtual));
 
     List<Callable<Object>> callables = Lists.newArrayList();
     for (final Runnable task : tasks) {
@@ -73,6 +93,38 @@ public class ThreadUtil {
     }
   }
 
+  /**
+   * Waits for the latch like {@link CountDownLatch#await(long, TimeUnit)} does, but lets the {@link
+   * ForkJoinPool} the current thread belongs to (if any) run other tasks in the meantime.
+   *
+   * @return true if the count of the latch reached zero before the time-out elapsed
+   */
+  public static boolean await(CountDownLatch latch, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long timeoutNanos = unit.toNanos(timeout);
+    // Beyond a century, there's no point in computing (and overflowing) a deadline.
+    boolean timed = timeoutNanos < TimeUnit.DAYS.toNanos(36500);
+    long deadline = System.nanoTime() + (timed ? timeoutNanos : 0);
+    ForkJoinPool.managedBlock(
+        new ForkJoinPool.ManagedBlocker() {
+          @Override
+          public boolean block() throws InterruptedException {
+            if (!timed) {
+              latch.await();
+            } else {
+              latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            return true;
+          }
+
+          @Override
+          public boolean isReleasable() {
+            return latch.getCount() == 0 || (timed && deadline - System.nanoTime() <= 0);
+          }
+        });
+    return latch.getCount() == 0;
+  }
+
   /** Returns a readable name of the current executing thread. */
   public static String currentThreadInfo() {
     Thread thread = Thread.currentThread();
@@ -0,0 +1,241 @@
+package org.testng.internal.thread;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces the time-outs of test methods. Instead of starting a monitor thread (or an executor) per
+ * invocation, every invocation registers a {@link Deadline} with a single scheduler thread shared
+ * by all the suites, and cancels it once it's done. A deadline that expires interrupts the thread
+ * that registered it.
+ *
+ * <p>Invocations that have to run away from the calling thread (so that the caller can give up on
+ * a method that ignores interrupts) are handed to a runner thread of the calling thread, which it
+ * starts the first time and reuses afterwards, the way the invocations without a time-out all run
+ * on the calling thread: the runner inherits the inheritable thread locals of the calling thread
+ * when it starts, and the thread locals a test sets are seen by the next tests it runs. A runner
+ * that is still busy with an invocation the caller gave up on is replaced. The runners stop once
+ * idle for a minute, or when their calling thread {@link #release releases} them.
+ */
+public final class TimeoutService {
+
+  private static final long KEEP_ALIVE_SECONDS = 1;
+  private static final long RUNNER_KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final TimeoutService INSTANCE = new TimeoutService();
+
+  private final ScheduledThreadPoolExecutor m_scheduler;
+  private final AtomicLong m_startedThreads = new AtomicLong();
+  /** The runner each thread hands its invocations to. */
+  private final ThreadLocal<Runner> m_runners = new ThreadLocal<>();
+
+  private TimeoutService() {
+    m_scheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("timeout"));
+    m_scheduler.setRemoveOnCancelPolicy(true);
+    m_scheduler.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    m_scheduler.allowCoreThreadTimeOut(true);
+  }
+
+  public static TimeoutService getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @param thread the thread to interrupt if the deadline expires
+   * @param timeOut the time-out, in milliseconds
+   * @return the deadline, which has to be cancelled once the invocation is done.
+   */
+  public Deadline watch(Thread thread, long timeOut) {
+    Deadline deadline = new Deadline(thread);
+    deadline.m_future = m_scheduler.schedule(deadline::expire, timeOut, TimeUnit.MILLISECONDS);
+    return deadline;
+  }
+
+  /**
+   * Runs a task away from the calling thread, on its runner thread (or on a new virtual thread).
+   *
+   * @param name the name of the thread while it runs the task
+   * @param task the task to run
+   * @param virtual whether to run the task on a virtual thread (see {@link VirtualThreads})
+   * @return the future of the task
+   */
+  public <T> Future<T> submit(String name, Callable<T> task, boolean virtual) {
+    String threadName = ThreadUtil.THREAD_NAME + "-" + name;
+    FutureTask<T> future = new FutureTask<>(task);
+    if (virtual) {
+      m_startedThreads.incrementAndGet();
+      VirtualThreads.newThread(threadName, future).start();
+      return future;
+    }
+    Runner runner = m_runners.get();
+    if (runner == null || !runner.offer(future, threadName)) {
+      if (runner != null) {
+        // Still running an invocation that overran its time-out, or idle for too long.
+        runner.stop();
+      }
+      runner = new Runner();
+      m_runners.set(runner);
+      runner.offer(future, threadName);
+      m_startedThreads.incrementAndGet();
+      runner.m_thread.start();
+    }
+    return future;
+  }
+
+  /** Stops the runner of the calling thread, if it has one. */
+  public void release() {
+    Runner runner = m_runners.get();
+    if (runner != null) {
+      m_runners.remove();
+      runner.stop();
+    }
+  }
+
+  /** @return the number of threads {@link #submit} started so far. */
+  public long getStartedThreadCount() {
+    return m_startedThreads.get();
+  }
+
+  /** A thread running the invocations of a calling thread, one at a time. */
+  private static final class Runner implements Runnable {
+
+    private final Thread m_thread;
+    private FutureTask<?> m_next;
+    private String m_name;
+    private FutureTask<?> m_running;
+    private boolean m_stopped;
+
+    private Runner() {
+      // Created by the calling thread, so that it inherits its inheritable thread locals.
+      m_thread = new Thread(this);
+      m_thread.setDaemon(true);
+    }
+
+    /**
+     * @return false if the runner is stopped, or still running an invocation that wasn't done
+     *     when its caller gave up on it, and won't run the task.
+     */
+    synchronized boolean offer(FutureTask<?> task, String name) {
+      if (m_stopped
+          || m_next != null
+          || (m_running != null && (!m_running.isDone() || m_running.isCancelled()))) {
+        return false;
+      }
+      m_next = task;
+      m_name = name;
+      notifyAll();
+      return true;
+    }
+
+    synchronized void stop() {
+      m_stopped = true;
+      notifyAll();
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        FutureTask<?> task;
+        synchronized (this) {
+          long idleUntil = System.currentTimeMillis() + RUNNER_KEEP_ALIVE_MILLIS;
+          for (long idle = RUNNER_KEEP_ALIVE_MILLIS;
+              m_next == null && !m_stopped && idle > 0;
+              idle = idleUntil - System.currentTimeMillis()) {
+            try {
+              wait(idle);
+            } catch (InterruptedException e) {
+              // Left over from an invocation that completed as it was cancelled.
+            }
+          }
+          if (m_next == null) {
+            m_stopped = true;
+            return;
+          }
+          task = m_next;
+          m_next = null;
+          m_running = task;
+          m_thread.setName(m_name);
+        }
+        try {
+          task.run();
+        } finally {
+          // The interrupt of a time-out must not reach the next invocation.
+          Thread.interrupted();
+          synchronized (this) {
+            m_running = null;
+          }
+        }
+      }
+    }
+  }
+
+  /** A time-out registered for an invocation. */
+  public static final class Deadline {
+
+    private final Thread m_thread;
+    private volatile ScheduledFuture<?> m_future;
+    private boolean m_done;
+    private boolean m_expired;
+
+    private Deadline(Thread thread) {
+      m_thread = thread;
+    }
+
+    private synchronized void expire() {
+      if (!m_done) {
+        m_done = true;
+        m_expired = true;
+        m_thread.interrupt();
+      }
+    }
+
+    /**
+     * Unregisters the deadline. Once this method returns, the thread won't be interrupted by this
+     * deadline anymore.
+     *
+     * @return false if the deadline had already expired.
+     */
+    public boolean cancel() {
+      synchronized (this) {
+        if (m_done) {
+          return !m_expired;
+        }
+        m_done = true;
+      }
+      ScheduledFuture<?> future = m_future;
+      if (future != null) {
+        future.cancel(false);
+      }
+      return true;
+    }
+
+    /** @return true if the deadline expired (and interrupted its thread). */
+    public synchronized boolean hasExpired() {
+      return m_expired;
+    }
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+    private final String name;
+
+    DaemonThreadFactory(String name) {
+      this.name = ThreadUtil.THREAD_NAME + "-" + name + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, name + threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
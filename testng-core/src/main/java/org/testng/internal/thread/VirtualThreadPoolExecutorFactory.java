@@ -0,0 +1,93 @@
+package org.testng.internal.thread;
+
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.testng.IDynamicGraph;
+import org.testng.ISuite;
+import org.testng.ITestNGMethod;
+import org.testng.internal.Utils;
+import org.testng.internal.thread.graph.GraphThreadPoolExecutor;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+import org.testng.xml.XmlSuite;
+
+/**
+ * An {@link IExecutorFactory} whose executors run every worker on a virtual thread. The pool sizes
+ * no longer stand for the number of threads that get created but for how many workers may run at
+ * the same time. This factory is used when a suite is declared with {@code
+ * parallel-executor="virtual"}; on JVMs without virtual threads it behaves like {@link
+ * DefaultThreadPoolExecutorFactory}.
+ */
+public class VirtualThreadPoolExecutorFactory implements IExecutorFactory {
+
+  /**
+   * @param suite the suite whose workers are about to run
+   * @param configured the factory of the configuration
+   * @return a virtual thread factory if the suite is declared with {@code
+   *     parallel-executor="virtual"} and no factory other than the default one was configured, the
+   *     configured factory otherwise
+   */
+  public static IExecutorFactory select(XmlSuite suite, IExecutorFactory configured) {
+    if (suite.getParallelExecutor() != XmlSuite.ParallelExecutor.VIRTUAL) {
+      return configured;
+    }
+    if (configured == null || configured.getClass() == DefaultThreadPoolExecutorFactory.class) {
+      return new VirtualThreadPoolExecutorFactory();
+    }
+    Utils.warn(
+        "The suite "
+            + suite.getName()
+            + " is declared with parallel-executor=\"virtual\" but runs with the configured "
+            + configured.getClass().getName()
+            + ", which takes precedence");
+    return configured;
+  }
+
+  @Override
+  public ITestNGThreadPoolExecutor newSuiteExecutor(
+      String name,
+      IDynamicGraph<ISuite> graph,
+      IThreadWorkerFactory<ISuite> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<ISuite> comparator) {
+    return new GraphThreadPoolExecutor<>(
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator,
+        new TestNGThreadFactory(name, true));
+  }
+
+  @Override
+  public ITestNGThreadPoolExecutor newTestMethodExecutor(
+      String name,
+      IDynamicGraph<ITestNGMethod> graph,
+      IThreadWorkerFactory<ITestNGMethod> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<ITestNGMethod> comparator) {
+    return new GraphThreadPoolExecutor<>(
+        graph,
+        factory,
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        comparator,
+        new TestNGThreadFactory(name, true));
+  }
+}
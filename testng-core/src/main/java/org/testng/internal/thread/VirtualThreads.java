@@ -0,0 +1,79 @@
+package org.testng.internal.thread;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import org.testng.TestNGException;
+
+/**
+ * Creates virtual threads on the JVMs that provide them. TestNG is compiled for Java 8, so the
+ * {@code Thread.ofVirtual()} builder is looked up reflectively; on older JVMs platform threads are
+ * created instead.
+ */
+public final class VirtualThreads {
+
+  private static final Method OF_VIRTUAL;
+  private static final Method NAME;
+  private static final Method UNSTARTED;
+  private static final Method IS_VIRTUAL;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method unstarted = null;
+    Method isVirtual = null;
+    try {
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builder.getMethod("name", String.class);
+      unstarted = builder.getMethod("unstarted", Runnable.class);
+      isVirtual = Thread.class.getMethod("isVirtual");
+      // Preview builds of Java 19 and 20 throw UnsupportedOperationException here.
+      ofVirtual.invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    UNSTARTED = unstarted;
+    IS_VIRTUAL = isVirtual;
+  }
+
+  private VirtualThreads() {}
+
+  /** @return true if the running JVM is able to create virtual threads. */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @param name the name of the thread
+   * @param task the task the thread runs once started
+   * @return an unstarted virtual thread, or an unstarted platform thread if virtual threads aren't
+   *     supported.
+   */
+  public static Thread newThread(String name, Runnable task) {
+    if (!isSupported()) {
+      return new Thread(task, name);
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+      return (Thread) UNSTARTED.invoke(builder, task);
+    } catch (IllegalAccessException e) {
+      throw new TestNGException(e);
+    } catch (InvocationTargetException e) {
+      throw new TestNGException(e.getCause());
+    }
+  }
+
+  /** @return true if the given thread is a virtual thread. */
+  public static boolean isVirtual(Thread thread) {
+    if (!isSupported()) {
+      return false;
+    }
+    try {
+      return (Boolean) IS_VIRTUAL.invoke(thread);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      return false;
+    }
+  }
+}
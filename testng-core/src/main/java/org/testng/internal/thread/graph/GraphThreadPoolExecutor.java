@@ -4,6 +4,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
@@ -12,8 +13,10 @@ import org.testng.IDynamicGraph.Status;
 import org.testng.TestNGException;
 import org.testng.collections.Maps;
 import org.testng.internal.RuntimeBehavior;
+import org.testng.internal.jfr.JfrEvents;
 import org.testng.internal.thread.TestNGThreadFactory;
 import org.testng.log4testng.Logger;
+import org.testng.thread.IExecutorMetricsListener;
 import org.testng.thread.ITestNGThreadPoolExecutor;
 import org.testng.thread.IThreadWorkerFactory;
 import org.testng.thread.IWorker;
@@ -31,6 +34,9 @@ public class GraphThreadPoolExecutor<T> extends ThreadPoolExecutor
   private final Map<T, IWorker<T>> mapping = Maps.newConcurrentMap();
   private final Map<T, T> upstream = Maps.newConcurrentMap();
   private final Comparator<T> m_comparator;
+  /** The JFR events of the workers waiting for a thread, while a recording is running. */
+  private final Map<Runnable, JfrEvents.Event> m_queueWaits = Maps.newConcurrentMap();
+  private IExecutorMetricsListener m_metrics = new IExecutorMetricsListener() {};
 
   public GraphThreadPoolExecutor(
       String name,
@@ -42,13 +48,29 @@ public class GraphThreadPoolExecutor<T> extends ThreadPoolExecutor
       TimeUnit unit,
       BlockingQueue<Runnable> workQueue,
       Comparator<T> comparator) {
-    super(
+    this(
+        graph,
+        factory,
         corePoolSize,
         maximumPoolSize,
         keepAliveTime,
         unit,
         workQueue,
+        comparator,
         new TestNGThreadFactory(name));
+  }
+
+  public GraphThreadPoolExecutor(
+      IDynamicGraph<T> graph,
+      IThreadWorkerFactory<T> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<T> comparator,
+      ThreadFactory threadFactory) {
+    super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
     m_graph = graph;
     m_factory = factory;
     m_comparator = comparator;
@@ -58,6 +80,11 @@ public class GraphThreadPoolExecutor<T> extends ThreadPoolExecutor
     }
   }
 
+  @Override
+  public void setMetricsListener(IExecutorMetricsListener listener) {
+    m_metrics = listener;
+  }
+
   public void run() {
     synchronized (m_graph) {
       List<T> freeNodes = m_graph.getFreeNodes();
@@ -72,22 +99,41 @@ public class GraphThreadPoolExecutor<T> extends ThreadPoolExecutor
   private void runNodes(List<T> freeNodes) {
     List<IWorker<T>> workers = m_factory.createWorkers(freeNodes);
     mapNodeToWorker(workers, freeNodes);
+    if (!freeNodes.isEmpty()) {
+      m_metrics.onNodesReady(freeNodes);
+    }
 
     for (int ix = 0; ix < workers.size(); ix++) {
       IWorker<T> worker = workers.get(ix);
       mapNodeToParent(freeNodes);
       setStatus(worker, Status.RUNNING);
+      JfrEvents.Event event = JfrEvents.QUEUE_WAIT.begin();
+      if (event != null) {
+        m_queueWaits.put(worker, event.set(JfrEvents.TASKS, String.valueOf(worker.getTasks())));
+      }
       try {
         execute(worker);
       } catch (Exception ex) {
+        m_queueWaits.remove(worker);
         Logger.getLogger(GraphThreadPoolExecutor.class).error(ex.getMessage(), ex);
       }
     }
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void beforeExecute(Thread t, Runnable r) {
+    m_metrics.onWorkerStart(((IWorker<T>) r).getTasks());
+    JfrEvents.Event event = m_queueWaits.remove(r);
+    if (event != null) {
+      event.commit();
+    }
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public void afterExecute(Runnable r, Throwable t) {
+    m_metrics.onWorkerFinish(((IWorker<T>) r).getTasks());
     synchronized (m_graph) {
       setStatus((IWorker<T>) r, computeStatus(r));
       if (m_graph.getNodeCount() == m_graph.getNodeCountWithStatus(Status.FINISHED)) {
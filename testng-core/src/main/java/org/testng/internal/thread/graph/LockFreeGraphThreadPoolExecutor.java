@@ -0,0 +1,225 @@
+package org.testng.internal.thread.graph;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.IDynamicGraph;
+import org.testng.IDynamicGraph.Status;
+import org.testng.TestNGException;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.internal.thread.TestNGThreadFactory;
+import org.testng.log4testng.Logger;
+import org.testng.thread.IExecutorMetricsListener;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+import org.testng.thread.IWorker;
+
+/**
+ * An Executor that schedules the nodes of a {@code DynamicGraph} by keeping a pending-dependency
+ * counter per node. When a worker completes, the counters of the dependents of its tasks are
+ * decremented and every node whose counter drops to zero is handed over to the pool right away, so
+ * completions never have to wait on each other.
+ *
+ * <p>The {@code DynamicGraph} itself is still kept up to date (so that {@link
+ * org.testng.IExecutionVisualiser}s get notified), but status changes are queued and applied by
+ * whichever thread happens to be draining the queue, instead of every worker blocking on the graph.
+ * The graph is only consulted for scheduling decisions when the counters cannot make progress
+ * (i.e., when the graph resolves a cycle by ignoring its lowest weighted edges).
+ */
+public class LockFreeGraphThreadPoolExecutor<T> extends ThreadPoolExecutor
+    implements ITestNGThreadPoolExecutor {
+
+  private static final Logger LOGGER = Logger.getLogger(LockFreeGraphThreadPoolExecutor.class);
+
+  private final IDynamicGraph<T> m_graph;
+  private final IThreadWorkerFactory<T> m_factory;
+  private final Comparator<T> m_comparator;
+  /** The number of dependencies of a node that haven't finished yet. */
+  private final Map<T, AtomicInteger> m_pendingDependencies = Maps.newHashMap();
+  /** The nodes that depend upon a given node. */
+  private final Map<T, List<T>> m_dependents = Maps.newHashMap();
+  /** The nodes that were already handed over to a worker. */
+  private final Set<T> m_dispatched = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger m_remaining;
+  private final AtomicInteger m_running = new AtomicInteger();
+
+  private final Queue<Map.Entry<T, Status>> m_statusUpdates = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger m_statusUpdatesInProgress = new AtomicInteger();
+  private IExecutorMetricsListener m_metrics = new IExecutorMetricsListener() {};
+
+  public LockFreeGraphThreadPoolExecutor(
+      String name,
+      IDynamicGraph<T> graph,
+      IThreadWorkerFactory<T> factory,
+      int corePoolSize,
+      int maximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      Comparator<T> comparator) {
+    super(
+        corePoolSize,
+        maximumPoolSize,
+        keepAliveTime,
+        unit,
+        workQueue,
+        new TestNGThreadFactory(name));
+    m_graph = graph;
+    m_factory = factory;
+    m_comparator = comparator;
+
+    if (m_graph.getFreeNodes().isEmpty()) {
+      throw new TestNGException("The graph of methods contains a cycle:" + graph);
+    }
+
+    Set<T> nodes = m_graph.getNodesWithStatus(Status.READY);
+    for (T node : nodes) {
+      m_pendingDependencies.put(node, new AtomicInteger());
+    }
+    for (T node : nodes) {
+      List<T> dependents = m_graph.getDependenciesFor(node);
+      m_dependents.put(node, dependents);
+      for (T dependent : dependents) {
+        AtomicInteger pending = m_pendingDependencies.get(dependent);
+        if (pending != null) {
+          pending.incrementAndGet();
+        }
+      }
+    }
+    m_remaining = new AtomicInteger(nodes.size());
+  }
+
+  @Override
+  public void setMetricsListener(IExecutorMetricsListener listener) {
+    m_metrics = listener;
+  }
+
+  @Override
+  public void run() {
+    List<T> freeNodes;
+    synchronized (m_graph) {
+      freeNodes = m_graph.getFreeNodes();
+    }
+    dispatch(freeNodes);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void beforeExecute(Thread t, Runnable r) {
+    m_metrics.onWorkerStart(((IWorker<T>) r).getTasks());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void afterExecute(Runnable r, Throwable t) {
+    IWorker<T> worker = (IWorker<T>) r;
+    List<T> tasks = worker.getTasks();
+    m_metrics.onWorkerFinish(tasks);
+    publishStatus(tasks, Status.FINISHED);
+
+    List<T> readyNodes = Lists.newArrayList();
+    for (T task : tasks) {
+      for (T dependent : m_dependents.getOrDefault(task, Collections.emptyList())) {
+        AtomicInteger pending = m_pendingDependencies.get(dependent);
+        if (pending != null && pending.decrementAndGet() == 0) {
+          readyNodes.add(dependent);
+        }
+      }
+    }
+
+    if (m_remaining.addAndGet(-tasks.size()) <= 0) {
+      shutdown();
+      return;
+    }
+    dispatch(readyNodes);
+    if (m_running.decrementAndGet() == 0) {
+      // Nothing is running and the counters did not free any node: let the graph decide which
+      // dependencies can be ignored (this is the case when the graph contains weighted cycles).
+      resolveStall();
+    }
+  }
+
+  private void dispatch(List<T> nodes) {
+    List<T> freeNodes = Lists.newArrayList();
+    for (T node : nodes) {
+      if (m_dispatched.add(node)) {
+        freeNodes.add(node);
+      }
+    }
+    if (freeNodes.isEmpty()) {
+      return;
+    }
+    if (m_comparator != null) {
+      freeNodes.sort(m_comparator);
+    }
+    m_metrics.onNodesReady(freeNodes);
+    List<IWorker<T>> workers = m_factory.createWorkers(freeNodes);
+    // Account for the whole batch upfront, so that a worker completing before its siblings were
+    // submitted doesn't mistake the executor for being idle.
+    m_running.addAndGet(workers.size());
+    for (IWorker<T> worker : workers) {
+      publishStatus(worker.getTasks(), Status.RUNNING);
+      try {
+        execute(worker);
+      } catch (Exception ex) {
+        m_running.decrementAndGet();
+        LOGGER.error(ex.getMessage(), ex);
+      }
+    }
+  }
+
+  private void resolveStall() {
+    List<T> freeNodes;
+    synchronized (m_graph) {
+      applyStatusUpdates();
+      freeNodes = m_graph.getFreeNodes();
+    }
+    freeNodes.removeIf(m_dispatched::contains);
+    if (freeNodes.isEmpty()) {
+      LOGGER.error("No free nodes found in:" + m_graph);
+      shutdown();
+      return;
+    }
+    dispatch(freeNodes);
+  }
+
+  /**
+   * Queue a status change for the graph. Only one thread at a time applies the queued changes, the
+   * other ones simply leave their changes behind and carry on.
+   */
+  private void publishStatus(Collection<T> nodes, Status status) {
+    for (T node : nodes) {
+      m_statusUpdates.add(new AbstractMap.SimpleImmutableEntry<>(node, status));
+    }
+    if (m_statusUpdatesInProgress.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      synchronized (m_graph) {
+        applyStatusUpdates();
+      }
+      missed = m_statusUpdatesInProgress.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void applyStatusUpdates() {
+    Map.Entry<T, Status> update;
+    while ((update = m_statusUpdates.poll()) != null) {
+      m_graph.setStatus(update.getKey(), update.getValue());
+    }
+  }
+}
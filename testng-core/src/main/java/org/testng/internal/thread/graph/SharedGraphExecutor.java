@@ -0,0 +1,234 @@
+package org.testng.internal.thread.graph;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.testng.IDynamicGraph;
+import org.testng.IDynamicGraph.Status;
+import org.testng.TestNGException;
+import org.testng.collections.Sets;
+import org.testng.internal.thread.ThreadUtil;
+import org.testng.log4testng.Logger;
+import org.testng.thread.IExecutorMetricsListener;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+import org.testng.thread.IWorker;
+
+/**
+ * Schedules the nodes of a {@code DynamicGraph} like {@link GraphThreadPoolExecutor}, but runs the
+ * workers on an {@link Executor} it doesn't own (typically a pool shared with other executors)
+ * instead of on threads of its own. Shutting it down stops the scheduling of new nodes, the workers
+ * that are already running are left alone, while {@link #shutdownNow()} also interrupts the threads
+ * running them and drops the workers that haven't started yet.
+ */
+public class SharedGraphExecutor<T> extends AbstractExecutorService
+    implements ITestNGThreadPoolExecutor {
+
+  private static final Logger LOGGER = Logger.getLogger(SharedGraphExecutor.class);
+
+  private final IDynamicGraph<T> m_graph;
+  private final IThreadWorkerFactory<T> m_factory;
+  private final Executor m_executor;
+  private final Comparator<T> m_comparator;
+  private final CountDownLatch m_terminated = new CountDownLatch(1);
+  /** The number of workers handed over to the executor which haven't completed yet. */
+  private int m_running;
+
+  /** The threads running the workers of this executor, guarded by itself. */
+  private final Set<Thread> m_threads = Sets.newHashSet();
+
+  private volatile boolean m_shutdown;
+  private volatile boolean m_stopped;
+  private IExecutorMetricsListener m_metrics = new IExecutorMetricsListener() {};
+
+  public SharedGraphExecutor(
+      IDynamicGraph<T> graph,
+      IThreadWorkerFactory<T> factory,
+      Executor executor,
+      Comparator<T> comparator) {
+    m_graph = graph;
+    m_factory = factory;
+    m_executor = executor;
+    m_comparator = comparator;
+
+    if (m_graph.getFreeNodes().isEmpty()) {
+      throw new TestNGException("The graph of methods contains a cycle:" + graph);
+    }
+  }
+
+  @Override
+  public void setMetricsListener(IExecutorMetricsListener listener) {
+    m_metrics = listener;
+  }
+
+  @Override
+  public void run() {
+    synchronized (m_graph) {
+      runNodes(m_graph.getFreeNodes());
+    }
+  }
+
+  /** Create one worker per node and execute them. Must be called while holding the graph. */
+  private void runNodes(List<T> freeNodes) {
+    if (m_comparator != null) {
+      freeNodes.sort(m_comparator);
+    }
+    if (!freeNodes.isEmpty()) {
+      m_metrics.onNodesReady(freeNodes);
+    }
+    for (IWorker<T> worker : m_factory.createWorkers(freeNodes)) {
+      m_graph.setStatus(worker.getTasks(), Status.RUNNING);
+      m_running++;
+      try {
+        m_executor.execute(new QueuedWorker(worker));
+      } catch (Exception ex) {
+        m_running--;
+        LOGGER.error(ex.getMessage(), ex);
+      }
+    }
+  }
+
+  private void runWorker(IWorker<T> worker) {
+    Thread thread = Thread.currentThread();
+    boolean stopped;
+    synchronized (m_threads) {
+      stopped = m_stopped;
+      if (!stopped) {
+        m_threads.add(thread);
+      }
+    }
+    if (stopped) {
+      afterExecute(worker);
+      return;
+    }
+    m_metrics.onWorkerStart(worker.getTasks());
+    try {
+      worker.run();
+    } finally {
+      synchronized (m_threads) {
+        m_threads.remove(thread);
+        // The thread goes back to the pool, without an interruption meant for this worker.
+        Thread.interrupted();
+      }
+      m_metrics.onWorkerFinish(worker.getTasks());
+      afterExecute(worker);
+    }
+  }
+
+  private void afterExecute(IWorker<T> worker) {
+    synchronized (m_graph) {
+      m_graph.setStatus(worker.getTasks(), Status.FINISHED);
+      m_running--;
+      if (m_graph.getNodeCount() == m_graph.getNodeCountWithStatus(Status.FINISHED)) {
+        terminate();
+        return;
+      }
+      if (!m_shutdown) {
+        runNodes(m_graph.getFreeNodes());
+      }
+      if (m_running == 0) {
+        if (!m_shutdown) {
+          LOGGER.error("No free nodes found in:" + m_graph);
+        }
+        terminate();
+      }
+    }
+  }
+
+  private void terminate() {
+    m_shutdown = true;
+    m_terminated.countDown();
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (m_shutdown) {
+      throw new RejectedExecutionException("The executor was shut down");
+    }
+    m_executor.execute(command);
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (m_graph) {
+      m_shutdown = true;
+      if (m_running == 0) {
+        terminate();
+      }
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown();
+    synchronized (m_threads) {
+      m_stopped = true;
+      m_threads.forEach(Thread::interrupt);
+    }
+    return Collections.emptyList();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return m_shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return m_terminated.getCount() == 0;
+  }
+
+  /**
+   * What is handed over to the executor for a worker: a worker itself, so that a queue ordering the
+   * workers (e.g. by priority) can hold it while it waits for a thread.
+   */
+  private class QueuedWorker implements IWorker<T> {
+
+    private final IWorker<T> m_worker;
+
+    QueuedWorker(IWorker<T> worker) {
+      m_worker = worker;
+    }
+
+    @Override
+    public List<T> getTasks() {
+      return m_worker.getTasks();
+    }
+
+    @Override
+    public long getTimeOut() {
+      return m_worker.getTimeOut();
+    }
+
+    @Override
+    public int getPriority() {
+      return m_worker.getPriority();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compareTo(@Nonnull IWorker<T> other) {
+      if (other instanceof SharedGraphExecutor.QueuedWorker) {
+        return m_worker.compareTo(((QueuedWorker) other).m_worker);
+      }
+      return m_worker.compareTo(other);
+    }
+
+    @Override
+    public void run() {
+      runWorker(m_worker);
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return ThreadUtil.await(m_terminated, timeout, unit);
+  }
+}
@@ -0,0 +1,117 @@
+package org.testng.reporters;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import org.testng.TestNGException;
+import org.testng.collections.Maps;
+
+/**
+ * The fingerprint of every test class (see {@link ClassFingerprints}) along with whether it passed
+ * the last time it ran, stored in a text file with one class per line.
+ */
+public final class ClassCache {
+
+  private static final String HEADER = "# TestNG class cache: class, fingerprint, outcome";
+  private static final String PASSED = "PASSED";
+  private static final String FAILED = "FAILED";
+
+  private final File m_file;
+  private final Map<String, Entry> m_entries = Maps.newConcurrentMap();
+
+  private ClassCache(File file) {
+    m_file = file;
+  }
+
+  /**
+   * @param file the file the cache is stored in, which doesn't need to exist
+   * @return the cache stored in the file, or an empty one if there is none
+   */
+  public static ClassCache open(File file) {
+    ClassCache result = new ClassCache(file);
+    if (!file.exists()) {
+      return result;
+    }
+    try (BufferedReader reader =
+        java.nio.file.Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t");
+        if (line.startsWith("#") || fields.length != 3) {
+          continue;
+        }
+        result.m_entries.put(fields[0], new Entry(fields[1], PASSED.equals(fields[2])));
+      }
+    } catch (IOException e) {
+      throw new TestNGException("Couldn't read the class cache " + file, e);
+    }
+    return result;
+  }
+
+  public File getFile() {
+    return m_file;
+  }
+
+  /** @return the entry of a class, or null if the class isn't in the cache. */
+  public Entry get(String className) {
+    return m_entries.get(className);
+  }
+
+  public void put(String className, String fingerprint, boolean passed) {
+    m_entries.put(className, new Entry(fingerprint, passed));
+  }
+
+  public int size() {
+    return m_entries.size();
+  }
+
+  /** Writes the cache to its file, replacing the previous one in one go. */
+  public void save() {
+    File parent = m_file.getAbsoluteFile().getParentFile();
+    parent.mkdirs();
+    try {
+      File temp = File.createTempFile(m_file.getName(), ".tmp", parent);
+      try (BufferedWriter writer =
+          java.nio.file.Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        for (Map.Entry<String, Entry> entry : new TreeMap<>(m_entries).entrySet()) {
+          writer.write(entry.getKey());
+          writer.write('\t');
+          writer.write(entry.getValue().getFingerprint());
+          writer.write('\t');
+          writer.write(entry.getValue().hasPassed() ? PASSED : FAILED);
+          writer.newLine();
+        }
+      }
+      java.nio.file.Files.move(temp.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new TestNGException("Couldn't write the class cache " + m_file, e);
+    }
+  }
+
+  /** The fingerprint of a class the last time it ran, and whether it passed then. */
+  public static final class Entry {
+
+    private final String m_fingerprint;
+    private final boolean m_passed;
+
+    Entry(String fingerprint, boolean passed) {
+      m_fingerprint = fingerprint;
+      m_passed = passed;
+    }
+
+    public String getFingerprint() {
+      return m_fingerprint;
+    }
+
+    public boolean hasPassed() {
+      return m_passed;
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package org.testng.reporters;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.testng.IClass;
+import org.testng.IConfigurationListener;
+import org.testng.IExecutionListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.collections.Maps;
+import org.testng.collections.Sets;
+import org.testng.internal.Shard;
+import org.testng.internal.Utils;
+import org.testng.xml.XmlSuite;
+
+/**
+ * Only runs the test classes that may have a different outcome than the last time: the classes
+ * that are new, that failed the last time they ran, or whose fingerprint changed (their bytecode,
+ * or the bytecode of a class they use, see {@link ClassFingerprints}). The classes whose methods
+ * depend on each other (through <code>dependsOnMethods</code> or <code>dependsOnGroups</code>) are
+ * one entry: if one of them has to run, they all do, so that no dependency is left out. The test
+ * methods of the other classes are left out of the run, and a report lists every class with the
+ * reason why it ran or not.
+ *
+ * <p>The fingerprints and the outcomes are stored in the file given to the constructor, or the one
+ * named by the <code>testng.class.cache.file</code> system property, or in <code>
+ * testng-class-cache.txt</code> in the output directory. A class only passes if all its test
+ * methods and configuration methods did.
+ */
+public class ClassCacheListener
+    implements IMethodInterceptor,
+        ITestListener,
+        IConfigurationListener,
+        IReporter,
+        IExecutionListener {
+
+  public static final String FILE_NAME = "testng-class-cache.txt";
+  public static final String REPORT_FILE_NAME = "class-cache-report.txt";
+
+  /** Why a test class ran or not. */
+  public enum Reason {
+    UNCHANGED(false, "unchanged since it last passed"),
+    NEW(true, "not in the cache"),
+    CHANGED(true, "changed since it last ran"),
+    FAILED(true, "failed the last time it ran"),
+    NO_BYTECODE(true, "its bytecode can't be found"),
+    DEPENDENCY(true, "it shares dependencies with a class that runs");
+
+    private final boolean m_run;
+    private final String m_description;
+
+    Reason(boolean run, String description) {
+      m_run = run;
+      m_description = description;
+    }
+
+    public boolean isRun() {
+      return m_run;
+    }
+
+    public String getDescription() {
+      return m_description;
+    }
+  }
+
+  private final File m_file;
+  private final ClassFingerprints m_fingerprints = new ClassFingerprints();
+  private ClassCache m_cache;
+
+  /** Why each class ran or not, in the order they were met. */
+  private final Map<String, Reason> m_reasons = Maps.newLinkedHashMap();
+  /** The fingerprints of the classes that ran. */
+  private final Map<String, String> m_ran = Maps.newConcurrentMap();
+
+  private final Set<String> m_passed = ConcurrentHashMap.newKeySet();
+  private final Set<String> m_failed = ConcurrentHashMap.newKeySet();
+
+  public ClassCacheListener() {
+    this(null);
+  }
+
+  /** @param file the file the cache is stored in */
+  public ClassCacheListener(File file) {
+    m_file = file;
+  }
+
+  private synchronized ClassCache getCache(ITestContext context) {
+    if (m_cache != null) {
+      return m_cache;
+    }
+    File file = m_file;
+    if (file == null && RuntimeBehavior.getDefaultClassCacheFile() != null) {
+      file = new File(RuntimeBehavior.getDefaultClassCacheFile());
+    }
+    if (file == null) {
+      String outputDirectory = context.getOutputDirectory();
+      File parent = outputDirectory == null ? null : new File(outputDirectory).getParentFile();
+      file = new File(parent, FILE_NAME);
+    }
+    m_cache = ClassCache.open(file);
+    return m_cache;
+  }
+
+  /** @return why each class ran or not, by class name. */
+  public synchronized Map<String, Reason> getReasons() {
+    return new LinkedHashMap<>(m_reasons);
+  }
+
+  @Override
+  public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+    ClassCache cache = getCache(context);
+    List<ITestNGMethod> all =
+        methods.stream().map(IMethodInstance::getMethod).collect(Collectors.toList());
+    Set<Class<?>> run = Sets.newHashSet();
+    for (List<Class<?>> unit : Shard.classUnits(all)) {
+      boolean runUnit = false;
+      for (Class<?> cls : unit) {
+        runUnit |= reasonFor(cache, cls).isRun();
+      }
+      if (runUnit) {
+        unit.forEach(this::runAlong);
+        run.addAll(unit);
+      }
+    }
+    return methods.stream()
+        .filter(m -> run.contains(m.getMethod().getRealClass()))
+        .collect(Collectors.toList());
+  }
+
+  /** Runs a class that is unchanged because a class it shares dependencies with runs. */
+  private synchronized void runAlong(Class<?> cls) {
+    String className = cls.getName();
+    if (m_reasons.get(className) != Reason.UNCHANGED) {
+      return;
+    }
+    m_reasons.put(className, Reason.DEPENDENCY);
+    m_ran.put(className, m_fingerprints.fingerprintOf(cls));
+    Utils.log("ClassCacheListener", 3, className + " runs: " + Reason.DEPENDENCY.getDescription());
+  }
+
+  private synchronized Reason reasonFor(ClassCache cache, Class<?> cls) {
+    String className = cls.getName();
+    Reason result = m_reasons.get(className);
+    if (result != null) {
+      return result;
+    }
+    String fingerprint = m_fingerprints.fingerprintOf(cls);
+    ClassCache.Entry entry = cache.get(className);
+    if (fingerprint == null) {
+      result = Reason.NO_BYTECODE;
+    } else if (entry == null) {
+      result = Reason.NEW;
+    } else if (!entry.getFingerprint().equals(fingerprint)) {
+      result = Reason.CHANGED;
+    } else if (!entry.hasPassed()) {
+      result = Reason.FAILED;
+    } else {
+      result = Reason.UNCHANGED;
+    }
+    m_reasons.put(className, result);
+    if (fingerprint != null && result.isRun()) {
+      m_ran.put(className, fingerprint);
+    }
+    Utils.log(
+        "ClassCacheListener",
+        3,
+        className + (result.isRun() ? " runs: " : " is left out: ") + result.getDescription());
+    return result;
+  }
+
+  @Override
+  public void onTestSuccess(ITestResult result) {
+    outcome(result, true);
+  }
+
+  @Override
+  public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+    outcome(result, true);
+  }
+
+  @Override
+  public void onTestFailure(ITestResult result) {
+    outcome(result, false);
+  }
+
+  @Override
+  public void onTestSkipped(ITestResult result) {
+    outcome(result, false);
+  }
+
+  @Override
+  public void onConfigurationFailure(ITestResult result) {
+    outcome(result, false);
+  }
+
+  @Override
+  public void onConfigurationSkip(ITestResult result) {
+    outcome(result, false);
+  }
+
+  private void outcome(ITestResult result, boolean passed) {
+    IClass testClass = result.getTestClass();
+    if (testClass == null) {
+      return;
+    }
+    (passed ? m_passed : m_failed).add(testClass.getRealClass().getName());
+  }
+
+  @Override
+  public void generateReport(
+      List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+    StringBuilder report = new StringBuilder();
+    for (Map.Entry<String, Reason> entry : getReasons().entrySet()) {
+      report
+          .append(entry.getValue().isRun() ? "RAN" : "SKIPPED")
+          .append('\t')
+          .append(entry.getKey())
+          .append('\t')
+          .append(entry.getValue().getDescription())
+          .append('\n');
+    }
+    Utils.writeUtf8File(outputDirectory, REPORT_FILE_NAME, report.toString());
+  }
+
+  @Override
+  public synchronized void onExecutionStart() {
+    m_reasons.clear();
+  }
+
+  /** Stores the fingerprints and the outcomes of the classes that ran. */
+  @Override
+  public synchronized void onExecutionFinish() {
+    if (m_cache == null) {
+      return;
+    }
+    m_ran.forEach(
+        (className, fingerprint) -> {
+          boolean failed = m_failed.contains(className);
+          if (failed || m_passed.contains(className)) {
+            m_cache.put(className, fingerprint, !failed);
+          }
+        });
+    m_cache.save();
+    m_cache = null;
+    m_ran.clear();
+    m_passed.clear();
+    m_failed.clear();
+  }
+}
@@ -0,0 +1,223 @@
+package org.testng.reporters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.testng.TestNGException;
+import org.testng.collections.Maps;
+import org.testng.collections.Sets;
+
+/**
+ * Computes the fingerprint of a class: a hash of its bytecode and of the bytecode of every class it
+ * uses, directly or not. The classes a class uses are the ones named in the constant pools (the
+ * classes it refers to, and the types in the descriptors of the fields and methods it calls), which
+ * covers the classes it can load when it runs, short of reflection. The classes of the JDK are left
+ * out.
+ *
+ * <p>The hashes of the classes are kept, so that the classes shared by several test classes are
+ * only read once.
+ */
+public final class ClassFingerprints {
+
+  private static final String[] JDK_PACKAGES = {"java/", "javax/", "jdk/", "sun/", "com/sun/"};
+
+  /** The hash of each class whose bytecode was found, by its internal name. */
+  private final Map<String, byte[]> m_hashes = Maps.newConcurrentMap();
+  /** The classes each class that was read refers to, by their internal names. */
+  private final Map<String, Set<String>> m_references = Maps.newConcurrentMap();
+
+  /**
+   * @param cls the class
+   * @return the fingerprint of the class, as an hexadecimal string, or null if the bytecode of the
+   *     class can't be found
+   */
+  public String fingerprintOf(Class<?> cls) {
+    ClassLoader loader = cls.getClassLoader();
+    if (loader == null) {
+      return null;
+    }
+    String name = cls.getName().replace('.', '/');
+    if (read(loader, name) == null) {
+      return null;
+    }
+    // Every class reachable from this one, sorted so that the fingerprint doesn't depend on the
+    // order they are found in.
+    Set<String> closure = new TreeSet<>();
+    Deque<String> pending = new ArrayDeque<>();
+    pending.add(name);
+    closure.add(name);
+    while (!pending.isEmpty()) {
+      for (String reference : m_references.getOrDefault(pending.poll(), Sets.newHashSet())) {
+        if (closure.add(reference) && read(loader, reference) != null) {
+          pending.add(reference);
+        }
+      }
+    }
+    MessageDigest digest = newDigest();
+    for (String reference : closure) {
+      byte[] hash = m_hashes.get(reference);
+      if (hash != null) {
+        digest.update(reference.getBytes(StandardCharsets.UTF_8));
+        digest.update(hash);
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /** @return the hash of the class, reading it on the first call, or null if it isn't found. */
+  private byte[] read(ClassLoader loader, String name) {
+    if (isJdkClass(name)) {
+      return null;
+    }
+    if (m_references.containsKey(name)) {
+      return m_hashes.get(name);
+    }
+    byte[] hash = null;
+    Set<String> references = Sets.newHashSet();
+    try (InputStream in = loader.getResourceAsStream(name + ".class")) {
+      if (in != null) {
+        byte[] bytecode = readFully(in);
+        hash = newDigest().digest(bytecode);
+        references = referencesOf(bytecode);
+      }
+    } catch (IOException e) {
+      throw new TestNGException("Couldn't read the bytecode of " + name, e);
+    }
+    if (hash != null) {
+      m_hashes.put(name, hash);
+    }
+    m_references.put(name, references);
+    return hash;
+  }
+
+  private static boolean isJdkClass(String name) {
+    for (String prefix : JDK_PACKAGES) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** @return the internal names of the classes named in the constant pool of a class. */
+  static Set<String> referencesOf(byte[] bytecode) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytecode));
+    if (in.readInt() != 0xCAFEBABE) {
+      throw new IOException("Not a class file");
+    }
+    in.readUnsignedShort(); // minor version
+    in.readUnsignedShort(); // major version
+    int count = in.readUnsignedShort();
+    String[] utf8 = new String[count];
+    int[] classes = new int[count];
+    int[] descriptors = new int[count];
+    int classCount = 0;
+    int descriptorCount = 0;
+    for (int i = 1; i < count; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8[i] = in.readUTF();
+          break;
+        case 7: // Class
+          classes[classCount++] = in.readUnsignedShort();
+          break;
+        case 16: // MethodType
+          descriptors[descriptorCount++] = in.readUnsignedShort();
+          break;
+        case 12: // NameAndType
+          in.readUnsignedShort();
+          descriptors[descriptorCount++] = in.readUnsignedShort();
+          break;
+        case 8: // String
+        case 19: // Module
+        case 20: // Package
+          in.readUnsignedShort();
+          break;
+        case 15: // MethodHandle
+          in.readUnsignedByte();
+          in.readUnsignedShort();
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          in.readInt();
+          break;
+        case 5: // Long
+        case 6: // Double
+          in.readLong();
+          i++;
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag);
+      }
+    }
+    Set<String> result = Sets.newHashSet();
+    for (int i = 0; i < classCount; i++) {
+      String name = utf8[classes[i]];
+      if (name.startsWith("[")) {
+        addDescriptorTypes(name, result);
+      } else {
+        result.add(name);
+      }
+    }
+    for (int i = 0; i < descriptorCount; i++) {
+      addDescriptorTypes(utf8[descriptors[i]], result);
+    }
+    return result;
+  }
+
+  /** Adds the classes named in a field or method descriptor, e.g. <code>(Lfoo/Bar;I)V</code>. */
+  private static void addDescriptorTypes(String descriptor, Set<String> result) {
+    int start = descriptor.indexOf('L');
+    while (start >= 0) {
+      int end = descriptor.indexOf(';', start);
+      if (end < 0) {
+        return;
+      }
+      result.add(descriptor.substring(start + 1, end));
+      start = descriptor.indexOf('L', end);
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      result.write(buffer, 0, read);
+    }
+    return result.toByteArray();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new TestNGException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder result = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      result.append(Character.forDigit((b >> 4) & 0xF, 16));
+      result.append(Character.forDigit(b & 0xF, 16));
+    }
+    return result.toString();
+  }
+}
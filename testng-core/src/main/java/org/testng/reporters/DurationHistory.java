@@ -0,0 +1,495 @@
+package org.testng.reporters;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.TestNGException;
+import org.testng.internal.TestResult;
+
+/**
+ * The durations of test methods recorded across runs, stored in a memory-mapped file. Every method
+ * (and every invocation of a method with parameters, identified by its parameter index) has a fixed
+ * size record in an open-addressing hash table, so querying or updating it never requires loading
+ * the rest of the history. A record keeps the last {@link #LAST_DURATIONS} durations along with
+ * their mean and 95th percentile, and points to the signature it belongs to, which is stored after
+ * the table and compared on lookup, so that two signatures with the same hash never share a record.
+ *
+ * <p>The history works on a copy of the file, that replaces the file (atomically when the file
+ * system allows it) when changes are flushed or the history is closed. A run that is interrupted,
+ * or that writes the file at the same time as another one, therefore never leaves a partial
+ * history. A history opened with {@link #openForReading(File)} only reads the file instead, so that
+ * it can be on a read-only or shared location.
+ *
+ * <p>The history is typically written by a {@link DurationHistoryListener}, and can be queried by
+ * anything that needs to plan from how long tests took before.
+ */
+public final class DurationHistory implements Closeable {
+
+  /** The number of durations a record keeps. */
+  public static final int LAST_DURATIONS = 16;
+
+  /** The parameter index under which the total duration of all the invocations is recorded. */
+  public static final int ALL_INVOCATIONS = -1;
+
+  private static final int MAGIC = 0x544e4748; // TNGH
+  private static final int VERSION = 2;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int INITIAL_SIGNATURES_CAPACITY = INITIAL_CAPACITY * 64;
+
+  private static final int HEADER_SIZE = 24;
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int SIZE_OFFSET = 12;
+  private static final int SIGNATURES_CAPACITY_OFFSET = 16;
+  private static final int SIGNATURES_SIZE_OFFSET = 20;
+
+  // Record layout: key, count, p95, mean, the ring of the last durations, then the parameter index
+  // and where the signature (in UTF-8) is in the signatures that follow the table.
+  private static final int KEY_OFFSET = 0;
+  private static final int COUNT_OFFSET = 8;
+  private static final int P95_OFFSET = 12;
+  private static final int MEAN_OFFSET = 16;
+  private static final int LAST_OFFSET = 24;
+  private static final int PARAMETER_INDEX_OFFSET = LAST_OFFSET + LAST_DURATIONS * 4;
+  private static final int SIGNATURE_OFFSET = PARAMETER_INDEX_OFFSET + 4;
+  private static final int SIGNATURE_LENGTH_OFFSET = SIGNATURE_OFFSET + 4;
+  private static final int RECORD_SIZE = SIGNATURE_LENGTH_OFFSET + 4;
+
+  private final File m_target;
+  /** The copy, the file and the channel the history is mapped from, null if it's read-only. */
+  private final File m_copy;
+
+  private final RandomAccessFile m_file;
+  private final FileChannel m_channel;
+  private ByteBuffer m_buffer;
+  private int m_capacity;
+  private int m_size;
+  private int m_signaturesCapacity;
+  private int m_signaturesSize;
+  private boolean m_modified;
+  private boolean m_closed;
+
+  private DurationHistory(File target, File copy) throws IOException {
+    m_target = target;
+    m_copy = copy;
+    m_file = new RandomAccessFile(copy, "rw");
+    m_channel = m_file.getChannel();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    m_channel.read(header, 0);
+    if (!header.hasRemaining() && readHeader(header, m_channel.size())) {
+      map();
+      return;
+    }
+    // A new file, or one that wasn't written by this version: start over.
+    startOver();
+    m_file.setLength(fileSize(m_capacity, m_signaturesCapacity));
+    map();
+    clear();
+  }
+
+  /** A read-only history, of the contents of the file or empty if there are none. */
+  private DurationHistory(File target, ByteBuffer contents) {
+    m_target = target;
+    m_copy = null;
+    m_file = null;
+    m_channel = null;
+    if (contents != null
+        && contents.capacity() >= HEADER_SIZE
+        && readHeader(contents, contents.capacity())) {
+      m_buffer = contents;
+      return;
+    }
+    startOver();
+    m_buffer = ByteBuffer.allocate((int) fileSize(m_capacity, m_signaturesCapacity));
+    clear();
+  }
+
+  /** @return true if the header is valid for a file of this size, whose capacities it then sets. */
+  private boolean readHeader(ByteBuffer header, long size) {
+    if (header.getInt(0) != MAGIC
+        || header.getInt(4) != VERSION
+        || Integer.bitCount(header.getInt(CAPACITY_OFFSET)) != 1
+        || header.getInt(SIGNATURES_SIZE_OFFSET) < 0
+        || header.getInt(SIGNATURES_SIZE_OFFSET) > header.getInt(SIGNATURES_CAPACITY_OFFSET)
+        || size
+            != fileSize(
+                header.getInt(CAPACITY_OFFSET), header.getInt(SIGNATURES_CAPACITY_OFFSET))) {
+      return false;
+    }
+    m_capacity = header.getInt(CAPACITY_OFFSET);
+    m_size = header.getInt(SIZE_OFFSET);
+    m_signaturesCapacity = header.getInt(SIGNATURES_CAPACITY_OFFSET);
+    m_signaturesSize = header.getInt(SIGNATURES_SIZE_OFFSET);
+    return true;
+  }
+
+  private void startOver() {
+    m_capacity = INITIAL_CAPACITY;
+    m_size = 0;
+    m_signaturesCapacity = INITIAL_SIGNATURES_CAPACITY;
+    m_signaturesSize = 0;
+  }
+
+  /**
+   * @param file the file the history is stored in. It's created if it doesn't exist.
+   * @return the history stored in the file
+   */
+  public static DurationHistory open(File file) {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.exists()) {
+      throw new TestNGException("Couldn't create the directory " + parent);
+    }
+    File copy = null;
+    try {
+      copy = newCopy(file);
+      if (file.exists()) {
+        Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      return new DurationHistory(file, copy);
+    } catch (IOException e) {
+      if (copy != null) {
+        copy.delete();
+      }
+      throw new TestNGException(e);
+    }
+  }
+
+  /**
+   * @param file the file the history is stored in
+   * @return the history stored in the file, or an empty one if there's none, which can't be
+   *     changed. The file is read once, and neither copied nor kept open.
+   */
+  public static DurationHistory openForReading(File file) {
+    if (!file.isFile()) {
+      return new DurationHistory(file, (ByteBuffer) null);
+    }
+    try {
+      return new DurationHistory(file, ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    } catch (IOException e) {
+      throw new TestNGException(e);
+    }
+  }
+
+  /** @return the signature the durations of the method are recorded under. */
+  public static String signatureOf(ITestNGMethod method) {
+    return method.getQualifiedName()
+        + "("
+        + method.getConstructorOrMethod().stringifyParameterTypes()
+        + ")";
+  }
+
+  /** @return the number of records in the history. */
+  public synchronized int size() {
+    return m_size;
+  }
+
+  /**
+   * @param signature the signature of the method (see {@link #signatureOf(ITestNGMethod)})
+   * @param parameterIndex the parameter index of the invocation, or {@link #ALL_INVOCATIONS}
+   * @return the recorded durations, or null if nothing was recorded.
+   */
+  public synchronized DurationStatistics get(String signature, int parameterIndex) {
+    int slot = find(signature.getBytes(StandardCharsets.UTF_8), parameterIndex);
+    if (slot < 0) {
+      return null;
+    }
+    int offset = offsetOf(slot);
+    int count = m_buffer.getInt(offset + COUNT_OFFSET);
+    int n = Math.min(count, LAST_DURATIONS);
+    long[] last = new long[n];
+    for (int i = 0; i < n; i++) {
+      int ring = Math.floorMod(count - 1 - i, LAST_DURATIONS);
+      last[i] = Integer.toUnsignedLong(m_buffer.getInt(offset + LAST_OFFSET + ring * 4));
+    }
+    return new DurationStatistics(
+        count,
+        m_buffer.getDouble(offset + MEAN_OFFSET),
+        Integer.toUnsignedLong(m_buffer.getInt(offset + P95_OFFSET)),
+        last);
+  }
+
+  /** @return the durations recorded for all the invocations of the method, or null. */
+  public DurationStatistics get(ITestNGMethod method) {
+    return get(signatureOf(method), ALL_INVOCATIONS);
+  }
+
+  /** @return the durations recorded for the invocation that produced the result, or null. */
+  public DurationStatistics get(ITestResult result) {
+    return get(signatureOf(result.getMethod()), parameterIndexOf(result));
+  }
+
+  /** @return the parameter index the duration of the invocation is recorded under. */
+  public static int parameterIndexOf(ITestResult result) {
+    return result instanceof TestResult ? ((TestResult) result).getParameterIndex() : 0;
+  }
+
+  /**
+   * @param signature the signature of the method (see {@link #signatureOf(ITestNGMethod)})
+   * @param parameterIndex the parameter index of the invocation, or {@link #ALL_INVOCATIONS}
+   * @param millis the duration to record, in milliseconds
+   */
+  public synchronized void record(String signature, int parameterIndex, long millis) {
+    if (m_copy == null) {
+      throw new IllegalStateException("The duration history " + m_target + " is read-only");
+    }
+    byte[] bytes = signature.getBytes(StandardCharsets.UTF_8);
+    int slot = find(bytes, parameterIndex);
+    if (slot < 0) {
+      if ((m_size + 1) * 4L > m_capacity * 3L) {
+        grow();
+        slot = find(bytes, parameterIndex);
+      }
+      int signatureOffset = addSignature(bytes);
+      slot = -slot - 1;
+      int offset = offsetOf(slot);
+      m_buffer.putLong(offset + KEY_OFFSET, keyOf(bytes, parameterIndex));
+      m_buffer.putInt(offset + PARAMETER_INDEX_OFFSET, parameterIndex);
+      m_buffer.putInt(offset + SIGNATURE_OFFSET, signatureOffset);
+      m_buffer.putInt(offset + SIGNATURE_LENGTH_OFFSET, bytes.length);
+      m_buffer.putInt(SIZE_OFFSET, ++m_size);
+    }
+    m_modified = true;
+    int offset = offsetOf(slot);
+    int count = m_buffer.getInt(offset + COUNT_OFFSET) + 1;
+    int duration = (int) Math.min(Math.max(millis, 0), 0xffffffffL);
+    m_buffer.putInt(offset + LAST_OFFSET + ((count - 1) % LAST_DURATIONS) * 4, duration);
+    m_buffer.putInt(offset + COUNT_OFFSET, count);
+
+    long[] last = new long[Math.min(count, LAST_DURATIONS)];
+    long total = 0;
+    for (int i = 0; i < last.length; i++) {
+      last[i] = Integer.toUnsignedLong(m_buffer.getInt(offset + LAST_OFFSET + i * 4));
+      total += last[i];
+    }
+    Arrays.sort(last);
+    int rank = (int) Math.ceil(last.length * 0.95) - 1;
+    m_buffer.putDouble(offset + MEAN_OFFSET, (double) total / last.length);
+    m_buffer.putInt(offset + P95_OFFSET, (int) last[rank]);
+  }
+
+  /** Writes the pending changes to the file. */
+  public synchronized void flush() throws IOException {
+    if (!m_modified) {
+      return;
+    }
+    ((MappedByteBuffer) m_buffer).force();
+    File copy = newCopy(m_target);
+    try {
+      Files.copy(m_copy.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      replaceTarget(copy);
+    } finally {
+      copy.delete();
+    }
+    m_modified = false;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (m_closed) {
+      return;
+    }
+    m_closed = true;
+    if (m_copy == null) {
+      return;
+    }
+    try {
+      ((MappedByteBuffer) m_buffer).force();
+      m_channel.close();
+      m_file.close();
+      if (m_modified) {
+        replaceTarget(m_copy);
+      }
+    } finally {
+      m_copy.delete();
+    }
+  }
+
+  private static File newCopy(File file) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    return Files.createTempFile(parent.toPath(), file.getName() + ".", ".tmp").toFile();
+  }
+
+  private void replaceTarget(File copy) throws IOException {
+    try {
+      Files.move(
+          copy.toPath(),
+          m_target.toPath(),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(copy.toPath(), m_target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * @return the slot of the signature and parameter index, or -(the slot they can be added to) - 1
+   *     if they're absent.
+   */
+  private int find(byte[] signature, int parameterIndex) {
+    long key = keyOf(signature, parameterIndex);
+    int mask = m_capacity - 1;
+    int slot = (int) (key ^ (key >>> 32)) & mask;
+    while (true) {
+      int offset = offsetOf(slot);
+      long current = m_buffer.getLong(offset + KEY_OFFSET);
+      if (current == 0) {
+        return -slot - 1;
+      }
+      if (current == key && matches(offset, signature, parameterIndex)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /** @return the empty slot a key that's known to be absent goes to. */
+  private int findEmpty(long key) {
+    int mask = m_capacity - 1;
+    int slot = (int) (key ^ (key >>> 32)) & mask;
+    while (m_buffer.getLong(offsetOf(slot) + KEY_OFFSET) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean matches(int offset, byte[] signature, int parameterIndex) {
+    if (m_buffer.getInt(offset + PARAMETER_INDEX_OFFSET) != parameterIndex
+        || m_buffer.getInt(offset + SIGNATURE_LENGTH_OFFSET) != signature.length) {
+      return false;
+    }
+    int from = signaturesStart() + m_buffer.getInt(offset + SIGNATURE_OFFSET);
+    for (int i = 0; i < signature.length; i++) {
+      if (m_buffer.get(from + i) != signature[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** @return the offset of the signature in the signatures, where it was appended. */
+  private int addSignature(byte[] signature) {
+    long needed = (long) m_signaturesSize + signature.length;
+    if (needed > m_signaturesCapacity) {
+      long capacity = m_signaturesCapacity;
+      while (capacity < needed) {
+        capacity *= 2;
+      }
+      if (fileSize(m_capacity, capacity) > Integer.MAX_VALUE) {
+        throw new TestNGException("The duration history is full");
+      }
+      m_signaturesCapacity = (int) capacity;
+      map();
+      m_buffer.putInt(SIGNATURES_CAPACITY_OFFSET, m_signaturesCapacity);
+    }
+    int offset = m_signaturesSize;
+    m_buffer.position(signaturesStart() + offset);
+    m_buffer.put(signature);
+    m_buffer.position(0);
+    m_signaturesSize += signature.length;
+    m_buffer.putInt(SIGNATURES_SIZE_OFFSET, m_signaturesSize);
+    return offset;
+  }
+
+  /**
+   * Doubles the capacity of the table (and the size of the file), moves the signatures after it and
+   * rehashes the records.
+   */
+  private void grow() {
+    int capacity = m_capacity;
+    byte[] records = new byte[capacity * RECORD_SIZE];
+    m_buffer.position(HEADER_SIZE);
+    m_buffer.get(records);
+    byte[] signatures = new byte[m_signaturesSize];
+    m_buffer.position(signaturesStart());
+    m_buffer.get(signatures);
+    m_buffer.position(0);
+
+    if (fileSize(capacity * 2, m_signaturesCapacity) > Integer.MAX_VALUE) {
+      throw new TestNGException("The duration history is full");
+    }
+    m_capacity = capacity * 2;
+    map();
+    clear();
+    m_buffer.putInt(SIZE_OFFSET, m_size);
+    m_buffer.position(signaturesStart());
+    m_buffer.put(signatures);
+    m_buffer.position(0);
+    for (int i = 0; i < capacity; i++) {
+      int from = i * RECORD_SIZE;
+      long key = getLong(records, from + KEY_OFFSET);
+      if (key != 0) {
+        m_buffer.position(offsetOf(findEmpty(key)));
+        m_buffer.put(records, from, RECORD_SIZE);
+        m_buffer.position(0);
+      }
+    }
+  }
+
+  /** Maps the whole file, which is extended to the current capacities if needed. */
+  private void map() {
+    try {
+      m_buffer =
+          m_channel.map(
+              FileChannel.MapMode.READ_WRITE, 0, fileSize(m_capacity, m_signaturesCapacity));
+    } catch (IOException e) {
+      throw new TestNGException(e);
+    }
+  }
+
+  /** Writes the header and empties the table, the signatures being left as they are. */
+  private void clear() {
+    byte[] empty = new byte[RECORD_SIZE];
+    m_buffer.position(HEADER_SIZE);
+    for (int i = 0; i < m_capacity; i++) {
+      m_buffer.put(empty);
+    }
+    m_buffer.position(0);
+    m_buffer.putInt(0, MAGIC);
+    m_buffer.putInt(4, VERSION);
+    m_buffer.putInt(CAPACITY_OFFSET, m_capacity);
+    m_buffer.putInt(SIZE_OFFSET, 0);
+    m_buffer.putInt(SIGNATURES_CAPACITY_OFFSET, m_signaturesCapacity);
+    m_buffer.putInt(SIGNATURES_SIZE_OFFSET, m_signaturesSize);
+  }
+
+  private static long getLong(byte[] bytes, int from) {
+    long result = 0;
+    for (int i = 0; i < 8; i++) {
+      result = (result << 8) | (bytes[from + i] & 0xff);
+    }
+    return result;
+  }
+
+  private static int offsetOf(int slot) {
+    return HEADER_SIZE + slot * RECORD_SIZE;
+  }
+
+  private int signaturesStart() {
+    return offsetOf(m_capacity);
+  }
+
+  private static long fileSize(int capacity, long signaturesCapacity) {
+    return HEADER_SIZE + (long) capacity * RECORD_SIZE + signaturesCapacity;
+  }
+
+  /** A 64-bit FNV-1a hash of the signature and the parameter index, never 0 (the empty slot). */
+  private static long keyOf(byte[] signature, int parameterIndex) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : signature) {
+      hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+    }
+    hash = (hash ^ '#') * 0x100000001b3L;
+    hash = (hash ^ parameterIndex) * 0x100000001b3L;
+    return hash == 0 ? 1 : hash;
+  }
+}
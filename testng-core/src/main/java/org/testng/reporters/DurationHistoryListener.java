@@ -0,0 +1,124 @@
+package org.testng.reporters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.IDurationProvider;
+import org.testng.IExecutionListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.log4testng.Logger;
+
+/**
+ * Records how long the test methods take into a {@link DurationHistory}: every invocation under its
+ * parameter index, and the total of all the invocations of a method once the run is over. Since it
+ * is also an {@link IDurationProvider}, registering it lets TestNG plan from the durations recorded
+ * by the previous runs.
+ *
+ * <p>The history is stored in the file given to the constructor, or the one named by the <code>
+ * testng.duration.history.file</code> system property, or in <code>testng-durations.bin</code> in
+ * the output directory.
+ */
+public class DurationHistoryListener
+    implements ITestListener, IExecutionListener, IDurationProvider {
+
+  public static final String FILE_NAME = "testng-durations.bin";
+
+  private static final Logger LOGGER = Logger.getLogger(DurationHistoryListener.class);
+
+  private final File m_file;
+  private DurationHistory m_history;
+  /** The total duration of the invocations of each method during this run. */
+  private final Map<String, AtomicLong> m_totals = new ConcurrentHashMap<>();
+
+  public DurationHistoryListener() {
+    this(null);
+  }
+
+  /** @param file the file the history is stored in */
+  public DurationHistoryListener(File file) {
+    m_file = file;
+  }
+
+  /** @return the history, or null if it wasn't opened yet. */
+  public synchronized DurationHistory getHistory() {
+    if (m_history == null && m_file != null) {
+      m_history = DurationHistory.open(m_file);
+    }
+    return m_history;
+  }
+
+  @Override
+  public synchronized void onStart(ITestContext context) {
+    if (m_history != null) {
+      return;
+    }
+    File file = m_file;
+    if (file == null && RuntimeBehavior.getDefaultDurationHistoryFile() != null) {
+      file = new File(RuntimeBehavior.getDefaultDurationHistoryFile());
+    }
+    if (file == null) {
+      String outputDirectory = context.getOutputDirectory();
+      File parent = outputDirectory == null ? null : new File(outputDirectory).getParentFile();
+      file = new File(parent, FILE_NAME);
+    }
+    m_history = DurationHistory.open(file);
+  }
+
+  @Override
+  public void onTestSuccess(ITestResult result) {
+    record(result);
+  }
+
+  @Override
+  public void onTestFailure(ITestResult result) {
+    record(result);
+  }
+
+  @Override
+  public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+    record(result);
+  }
+
+  @Override
+  public long getExpectedDuration(ITestNGMethod method) {
+    DurationHistory history = getHistory();
+    DurationStatistics statistics = history == null ? null : history.get(method);
+    return statistics == null ? UNKNOWN : Math.round(statistics.getMean());
+  }
+
+  @Override
+  public void onExecutionFinish() {
+    DurationHistory history = getHistory();
+    if (history == null) {
+      return;
+    }
+    m_totals.forEach(
+        (signature, total) ->
+            history.record(signature, DurationHistory.ALL_INVOCATIONS, total.get()));
+    m_totals.clear();
+    synchronized (this) {
+      try {
+        history.close();
+      } catch (IOException e) {
+        LOGGER.error(e.getMessage(), e);
+      }
+      m_history = null;
+    }
+  }
+
+  private void record(ITestResult result) {
+    DurationHistory history = getHistory();
+    if (history == null) {
+      return;
+    }
+    long duration = result.getEndMillis() - result.getStartMillis();
+    String signature = DurationHistory.signatureOf(result.getMethod());
+    history.record(signature, DurationHistory.parameterIndexOf(result), duration);
+    m_totals.computeIfAbsent(signature, k -> new AtomicLong()).addAndGet(duration);
+  }
+}
@@ -0,0 +1,53 @@
+package org.testng.reporters;
+
+import java.util.Arrays;
+import org.testng.collections.Objects;
+
+/** The durations recorded by a {@link DurationHistory} for a method or one of its invocations. */
+public final class DurationStatistics {
+
+  private final int m_count;
+  private final double m_mean;
+  private final long m_p95;
+  private final long[] m_lastDurations;
+
+  DurationStatistics(int count, double mean, long p95, long[] lastDurations) {
+    m_count = count;
+    m_mean = mean;
+    m_p95 = p95;
+    m_lastDurations = lastDurations;
+  }
+
+  /** @return how many durations were ever recorded. */
+  public int getCount() {
+    return m_count;
+  }
+
+  /** @return the mean of the last durations, in milliseconds. */
+  public double getMean() {
+    return m_mean;
+  }
+
+  /** @return the 95th percentile of the last durations, in milliseconds. */
+  public long getP95() {
+    return m_p95;
+  }
+
+  /**
+   * @return the last durations (at most {@link DurationHistory#LAST_DURATIONS} of them), in
+   *     milliseconds, most recent first.
+   */
+  public long[] getLastDurations() {
+    return Arrays.copyOf(m_lastDurations, m_lastDurations.length);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(getClass())
+        .add("count", m_count)
+        .add("mean", m_mean)
+        .add("p95", m_p95)
+        .add("last", Arrays.toString(m_lastDurations))
+        .toString();
+  }
+}
@@ -13,7 +13,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.testng.IReporter;
+import org.testng.IConcurrentReporter;
 import org.testng.ISuite;
 import org.testng.ISuiteResult;
 import org.testng.ITestContext;
@@ -26,7 +26,7 @@ import org.testng.xml.XmlSuite;
 import org.testng.xml.XmlSuite.ParallelMode;
 
 /** Reporter that generates a single-page HTML report of the test results. */
-public class EmailableReporter2 implements IReporter {
+public class EmailableReporter2 implements IConcurrentReporter {
   private static final Logger LOG = Logger.getLogger(EmailableReporter2.class);
 
   protected PrintWriter writer;
@@ -1,8 +1,10 @@
 package org.testng.reporters;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.text.DecimalFormat;
@@ -15,7 +17,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import org.testng.IReporter;
+import java.util.concurrent.Callable;
+import org.testng.IConcurrentReporter;
 import org.testng.ISuite;
 import org.testng.ISuiteResult;
 import org.testng.ITestContext;
@@ -25,119 +28,196 @@ import org.testng.Reporter;
 import org.testng.collections.ListMultiMap;
 import org.testng.collections.Lists;
 import org.testng.collections.Maps;
-import org.testng.collections.SetMultiMap;
 import org.testng.collections.Sets;
+import org.testng.internal.PoolService;
+import org.testng.internal.RuntimeBehavior;
 import org.testng.internal.Utils;
+import org.testng.util.ResourceUsage;
 import org.testng.xml.XmlSuite;
 
-public class JUnitReportReporter implements IReporter {
+/**
+ * Writes a <code>TEST-&lt;class&gt;.xml</code> file in the JUnit format for each test class, in the
+ * <code>junitreports</code> directory.
+ *
+ * <p>The results are sorted by class in a single pass, after which the files are written straight
+ * to disk. They are written one after the other by default, and on {@link #getThreadCount()}
+ * threads at once when it's more than 1, e.g. with the <code>testng.report.junit.threads</code>
+ * system property.
+ */
+public class JUnitReportReporter implements IConcurrentReporter {
+
+  private int threadCount = RuntimeBehavior.getJUnitReportThreadCount();
+
+  /** @return the number of files written at the same time. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  public void setThreadCount(int threadCount) {
+    this.threadCount = threadCount;
+  }
 
   @Override
   public void generateReport(
       List<XmlSuite> xmlSuites, List<ISuite> suites, String defaultOutputDirectory) {
+    List<ClassResults> classes = Lists.newArrayList();
+    for (ClassResults classResults : sortByClass(suites).values()) {
+      if (!classResults.results.isEmpty()) {
+        classes.add(classResults);
+      }
+    }
+    if (classes.isEmpty()) {
+      return;
+    }
+    String outputDirectory = defaultOutputDirectory + File.separator + "junitreports";
+    new File(outputDirectory).mkdirs();
+    String hostName = getHostName();
+    if (threadCount < 2 || classes.size() < 2) {
+      for (ClassResults classResults : classes) {
+        writeReport(outputDirectory, classResults, hostName);
+      }
+      return;
+    }
+    List<Callable<Void>> tasks = Lists.newArrayList(classes.size());
+    for (ClassResults classResults : classes) {
+      tasks.add(
+          () -> {
+            writeReport(outputDirectory, classResults, hostName);
+            return null;
+          });
+    }
+    new PoolService<Void>(Math.min(threadCount, classes.size())).submitTasksAndWait(tasks);
+  }
 
-    Map<Class<?>, Set<ITestResult>> results = Maps.newHashMap();
-    ListMultiMap<Object, ITestResult> befores = Maps.newListMultiMap();
-    ListMultiMap<Object, ITestResult> afters = Maps.newListMultiMap();
-    SetMultiMap<Class<?>, ITestNGMethod> mapping = new SetMultiMap<>(false);
+  /** Sorts the results, the configurations and the disabled methods by class, in one pass. */
+  private static Map<Class<?>, ClassResults> sortByClass(List<ISuite> suites) {
+    Map<Class<?>, ClassResults> result = Maps.newHashMap();
     for (ISuite suite : suites) {
-      Map<String, ISuiteResult> suiteResults = suite.getResults();
-      addMapping(mapping, suite.getExcludedMethods());
-      for (ISuiteResult sr : suiteResults.values()) {
+      for (ITestNGMethod method : suite.getExcludedMethods()) {
+        if (!method.getEnabled()) {
+          classResults(result, method.getRealClass()).disabled.add(method);
+        }
+      }
+      for (ISuiteResult sr : suite.getResults().values()) {
         ITestContext tc = sr.getTestContext();
-        addResults(tc.getPassedTests().getAllResults(), results);
-        addResults(tc.getFailedTests().getAllResults(), results);
-        addResults(tc.getSkippedTests().getAllResults(), results);
-        addResults(tc.getFailedConfigurations().getAllResults(), results);
+        addResults(tc.getPassedTests().getAllResults(), result);
+        addResults(tc.getFailedTests().getAllResults(), result);
+        addResults(tc.getSkippedTests().getAllResults(), result);
+        addResults(tc.getFailedConfigurations().getAllResults(), result);
         for (ITestResult tr : tc.getPassedConfigurations().getAllResults()) {
           if (tr.getMethod().isBeforeMethodConfiguration()) {
-            befores.put(tr.getInstance(), tr);
+            classResults(result, testClassOf(tr)).befores.put(tr.getInstance(), tr);
           }
           if (tr.getMethod().isAfterMethodConfiguration()) {
-            afters.put(tr.getInstance(), tr);
+            classResults(result, testClassOf(tr)).afters.put(tr.getInstance(), tr);
           }
         }
       }
     }
+    return result;
+  }
 
-    for (Map.Entry<Class<?>, Set<ITestResult>> entry : results.entrySet()) {
-      Class<?> cls = entry.getKey();
-      Properties p1 = new Properties();
-      p1.setProperty(XMLConstants.ATTR_NAME, cls.getName());
-      p1.setProperty(XMLConstants.ATTR_TIMESTAMP, JUnitXMLReporter.formattedTime());
+  private static ClassResults classResults(Map<Class<?>, ClassResults> classes, Class<?> cls) {
+    return classes.computeIfAbsent(cls, ClassResults::new);
+  }
 
-      List<TestTag> testCases = Lists.newArrayList();
-      int failures = 0;
-      int errors = 0;
-      int skipped = 0;
-      int testCount = 0;
-      float totalTime = 0;
+  private static Class<?> testClassOf(ITestResult tr) {
+    return tr.getMethod().getTestClass().getRealClass();
+  }
 
-      Collection<ITestResult> iTestResults = sort(entry.getValue());
+  private static String getHostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
 
-      for (ITestResult tr : iTestResults) {
+  private void writeReport(String outputDirectory, ClassResults classResults, String hostName) {
+    Class<?> cls = classResults.cls;
+    Properties p1 = new Properties();
+    p1.setProperty(XMLConstants.ATTR_NAME, cls.getName());
+    p1.setProperty(XMLConstants.ATTR_TIMESTAMP, JUnitXMLReporter.formattedTime());
 
-        long time = tr.getEndMillis() - tr.getStartMillis();
+    List<TestTag> testCases = Lists.newArrayList();
+    int failures = 0;
+    int errors = 0;
+    int skipped = 0;
+    int testCount = 0;
+    float totalTime = 0;
 
-        time += getNextConfiguration(befores, tr);
-        time += getNextConfiguration(afters, tr);
+    Collection<ITestResult> iTestResults = sort(classResults.results);
 
-        Throwable t = tr.getThrowable();
-        switch (tr.getStatus()) {
-          case ITestResult.SKIP:
-          case ITestResult.SUCCESS_PERCENTAGE_FAILURE:
-            skipped++;
-            break;
+    for (ITestResult tr : iTestResults) {
 
-          case ITestResult.FAILURE:
-            if (t instanceof AssertionError) {
-              failures++;
-            } else {
-              errors++;
-            }
-            break;
-        }
+      long time = tr.getEndMillis() - tr.getStartMillis();
 
-        totalTime += time;
-        testCount++;
-        TestTag testTag = createTestTagFor(tr, cls);
-        testTag.properties.setProperty(XMLConstants.ATTR_TIME, "" + formatTime(time));
-        testCases.add(testTag);
-      }
-      int ignored = getDisabledTestCount(mapping.get(entry.getKey()));
+      time += getNextConfiguration(classResults.befores, tr);
+      time += getNextConfiguration(classResults.afters, tr);
 
-      for (ITestNGMethod eachMethod : mapping.get(entry.getKey())) {
-        testCases.add(createIgnoredTestTagFor(eachMethod));
-      }
+      Throwable t = tr.getThrowable();
+      switch (tr.getStatus()) {
+        case ITestResult.SKIP:
+        case ITestResult.SUCCESS_PERCENTAGE_FAILURE:
+          skipped++;
+          break;
 
-      p1.setProperty(XMLConstants.ATTR_FAILURES, Integer.toString(failures));
-      p1.setProperty(XMLConstants.ATTR_ERRORS, Integer.toString(errors));
-      p1.setProperty(XMLConstants.SKIPPED, Integer.toString(skipped + ignored));
-      p1.setProperty(XMLConstants.ATTR_NAME, cls.getName());
-      p1.setProperty(XMLConstants.ATTR_TESTS, Integer.toString(testCount + ignored));
-      p1.setProperty(XMLConstants.ATTR_TIME, "" + formatTime(totalTime));
-      try {
-        p1.setProperty(XMLConstants.ATTR_HOSTNAME, InetAddress.getLocalHost().getHostName());
-      } catch (UnknownHostException e) {
-        // ignore
+        case ITestResult.FAILURE:
+          if (t instanceof AssertionError) {
+            failures++;
+          } else {
+            errors++;
+          }
+          break;
       }
 
-      //
-      // Now that we have all the information we need, generate the file
-      //
-      XMLStringBuffer xsb = new XMLStringBuffer();
+      totalTime += time;
+      testCount++;
+      TestTag testTag = createTestTagFor(tr, cls);
+      testTag.properties.setProperty(XMLConstants.ATTR_TIME, "" + formatTime(time));
+      testCases.add(testTag);
+    }
+    int ignored = getDisabledTestCount(classResults.disabled);
+
+    for (ITestNGMethod eachMethod : classResults.disabled) {
+      testCases.add(createIgnoredTestTagFor(eachMethod));
+    }
+
+    p1.setProperty(XMLConstants.ATTR_FAILURES, Integer.toString(failures));
+    p1.setProperty(XMLConstants.ATTR_ERRORS, Integer.toString(errors));
+    p1.setProperty(XMLConstants.SKIPPED, Integer.toString(skipped + ignored));
+    p1.setProperty(XMLConstants.ATTR_NAME, cls.getName());
+    p1.setProperty(XMLConstants.ATTR_TESTS, Integer.toString(testCount + ignored));
+    p1.setProperty(XMLConstants.ATTR_TIME, "" + formatTime(totalTime));
+    if (hostName != null) {
+      p1.setProperty(XMLConstants.ATTR_HOSTNAME, hostName);
+    }
+
+    //
+    // Now that we have all the information we need, generate the file
+    //
+    File file = new File(outputDirectory, Utils.replaceSpecialCharacters(getFileName(cls)));
+    try (WriterBuffer buffer = new WriterBuffer(file)) {
+      buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").append(XMLStringBuffer.EOL);
+      XMLStringBuffer xsb = new XMLStringBuffer(buffer, "");
       xsb.addComment("Generated by " + getClass().getName());
 
       xsb.push(XMLConstants.TESTSUITE, p1);
       for (TestTag testTag : testCases) {
-        if (putElement(xsb, XMLConstants.TESTCASE, testTag.properties, testTag.childTag != null)) {
-          Properties p = new Properties();
-          safeSetProperty(p, XMLConstants.ATTR_MESSAGE, testTag.message);
-          safeSetProperty(p, XMLConstants.ATTR_TYPE, testTag.type);
-
-          if (putElement(xsb, testTag.childTag, p, testTag.stackTrace != null)) {
-            xsb.addCDATA(testTag.stackTrace);
-            xsb.pop(testTag.childTag);
+        boolean hasChildElements = testTag.childTag != null || testTag.usage != null;
+        if (putElement(xsb, XMLConstants.TESTCASE, testTag.properties, hasChildElements)) {
+          if (testTag.usage != null) {
+            addResourceUsage(xsb, testTag.usage);
+          }
+          if (testTag.childTag != null) {
+            Properties p = new Properties();
+            safeSetProperty(p, XMLConstants.ATTR_MESSAGE, testTag.message);
+            safeSetProperty(p, XMLConstants.ATTR_TYPE, testTag.type);
+
+            if (putElement(xsb, testTag.childTag, p, testTag.stackTrace != null)) {
+              xsb.addCDATA(testTag.stackTrace);
+              xsb.pop(testTag.childTag);
+            }
           }
           xsb.pop(XMLConstants.TESTCASE);
         }
@@ -147,9 +227,8 @@ public class JUnitReportReporter implements IReporter {
         }
       }
       xsb.pop(XMLConstants.TESTSUITE);
-
-      String outputDirectory = defaultOutputDirectory + File.separator + "junitreports";
-      Utils.writeUtf8File(outputDirectory, getFileName(cls), xsb.toXML());
+    } catch (IOException | UncheckedIOException e) {
+      Utils.log("JUnitReportReporter", 1, "Error while writing to " + file + ": " + e);
     }
   }
 
@@ -195,10 +274,33 @@ public class JUnitReportReporter implements IReporter {
     if (!output.isEmpty()) {
       testTag.sysOut = String.join("\n", output);
     }
+    testTag.usage = ResourceUsage.of(tr);
     testTag.properties = p2;
     return testTag;
   }
 
+  /**
+   * Writes the resources the test method consumed as the properties of its test case, with the CPU
+   * time in seconds like the time of the test case.
+   */
+  private void addResourceUsage(XMLStringBuffer xsb, ResourceUsage usage) {
+    xsb.push(XMLConstants.PROPERTIES);
+    if (usage.getCpuTimeNanos() >= 0) {
+      addProperty(xsb, "cpu-time", formatTime(usage.getCpuTimeNanos() / 1_000_000f));
+    }
+    if (usage.getAllocatedBytes() >= 0) {
+      addProperty(xsb, "allocated-bytes", Long.toString(usage.getAllocatedBytes()));
+    }
+    xsb.pop(XMLConstants.PROPERTIES);
+  }
+
+  private static void addProperty(XMLStringBuffer xsb, String name, String value) {
+    Properties p = new Properties();
+    p.setProperty(XMLConstants.ATTR_NAME, name);
+    p.setProperty(XMLConstants.ATTR_VALUE, value);
+    xsb.addEmptyElement(XMLConstants.PROPERTY, p);
+  }
+
   private static void handleFailure(TestTag testTag, Throwable t) {
     testTag.childTag = t instanceof AssertionError ? XMLConstants.FAILURE : XMLConstants.ERROR;
     if (t != null) {
@@ -277,22 +379,25 @@ public class JUnitReportReporter implements IReporter {
     String stackTrace;
     String childTag;
     String sysOut;
+    ResourceUsage usage;
   }
 
-  private void addResults(Set<ITestResult> allResults, Map<Class<?>, Set<ITestResult>> out) {
+  private static void addResults(Set<ITestResult> allResults, Map<Class<?>, ClassResults> out) {
     for (ITestResult tr : allResults) {
-      Class<?> cls = tr.getMethod().getTestClass().getRealClass();
-      Set<ITestResult> l = out.computeIfAbsent(cls, k -> Sets.newHashSet());
-      l.add(tr);
+      classResults(out, testClassOf(tr)).results.add(tr);
     }
   }
 
-  private void addMapping(
-      SetMultiMap<Class<?>, ITestNGMethod> mapping, Collection<ITestNGMethod> methods) {
-    for (ITestNGMethod method : methods) {
-      if (!method.getEnabled()) {
-        mapping.put(method.getRealClass(), method);
-      }
+  /** The results of a test class, and what's needed to report them. */
+  private static class ClassResults {
+    final Class<?> cls;
+    final Set<ITestResult> results = Sets.newHashSet();
+    final ListMultiMap<Object, ITestResult> befores = Maps.newListMultiMap();
+    final ListMultiMap<Object, ITestResult> afters = Maps.newListMultiMap();
+    final Set<ITestNGMethod> disabled = Sets.newHashSet();
+
+    ClassResults(Class<?> cls) {
+      this.cls = cls;
     }
   }
 }
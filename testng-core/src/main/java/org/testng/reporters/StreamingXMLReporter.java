@@ -0,0 +1,174 @@
+package org.testng.reporters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.testng.IConcurrentReporter;
+import org.testng.IResultMap;
+import org.testng.ISuite;
+import org.testng.ISuiteResult;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.collections.Maps;
+import org.testng.internal.Utils;
+import org.testng.log4testng.Logger;
+import org.testng.xml.XmlSuite;
+
+/**
+ * An {@link XMLReporter} that doesn't keep the whole report in memory: the <code>&lt;test&gt;
+ * </code> tag of each test is written to a temporary file as soon as the test finishes, and the
+ * report is written straight to disk at the end of the run, the files of the tests being copied
+ * into it. The report is the same as the one of the XMLReporter.
+ *
+ * <p>A test whose results changed after it finished, because of an <code>@AfterSuite</code>
+ * method for instance, is written again at the end. Only the reports that aren't split in several
+ * files are streamed: the other file fragmentation levels are written by the XMLReporter.
+ *
+ * <p>It replaces the XMLReporter among the default reporters when the <code>
+ * testng.report.xml.streaming</code> system property is <code>true</code>.
+ */
+public class StreamingXMLReporter extends XMLReporter
+    implements IConcurrentReporter, ITestListener {
+
+  private static final Logger LOG = Logger.getLogger(StreamingXMLReporter.class);
+
+  /** The indentation of the <code>&lt;test&gt;</code> tags, under the suite and the root tags. */
+  private static final String TEST_INDENT = "    ";
+
+  private final Map<ITestContext, Fragment> m_fragments = Maps.newConcurrentMap();
+  private File m_fragmentDirectory;
+
+  @Override
+  public void onFinish(ITestContext context) {
+    if (!isStreamed()) {
+      return;
+    }
+    try {
+      File file = File.createTempFile("test-", ".xml", fragmentDirectory());
+      WriterBuffer buffer = new WriterBuffer(file);
+      try {
+        XMLStringBuffer xmlBuffer = new XMLStringBuffer(buffer, TEST_INDENT);
+        new XMLSuiteResultWriter(getConfig(), this).writeTestContext(xmlBuffer, context);
+      } finally {
+        buffer.close();
+      }
+      Fragment previous = m_fragments.put(context, new Fragment(file, buffer, statuses(context)));
+      if (previous != null) {
+        previous.m_file.delete();
+      }
+    } catch (IOException | UncheckedIOException e) {
+      Utils.log(
+          "StreamingXMLReporter",
+          2,
+          "Couldn't write the test " + context.getName() + ", it will be written at the end: " + e);
+    }
+  }
+
+  @Override
+  public void generateReport(
+      List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+    if (!isStreamed()) {
+      super.generateReport(xmlSuites, suites, outputDirectory);
+      return;
+    }
+    XMLReporterConfig config = getConfig();
+    if (Utils.isStringEmpty(config.getOutputDirectory())) {
+      config.setOutputDirectory(outputDirectory);
+    }
+    File directory = new File(config.getOutputDirectory());
+    directory.mkdirs();
+    try (WriterBuffer buffer = new WriterBuffer(new File(directory, fileName()))) {
+      buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").append(XMLStringBuffer.EOL);
+      XMLStringBuffer rootBuffer = new XMLStringBuffer(buffer, "");
+      rootBuffer.push(XMLReporterConfig.TAG_TESTNG_RESULTS, getResultsAttributes(suites));
+      writeReporterOutput(rootBuffer);
+      XMLSuiteResultWriter suiteResultWriter = new XMLSuiteResultWriter(config, this);
+      for (ISuite suite : suites) {
+        rootBuffer.push(XMLReporterConfig.TAG_SUITE, getSuiteAttributes(suite));
+        writeSuiteGroups(rootBuffer, suite);
+        for (ISuiteResult suiteResult : suite.getResults().values()) {
+          ITestContext context = suiteResult.getTestContext();
+          Fragment fragment = m_fragments.remove(context);
+          if (fragment != null && fragment.m_statuses.equals(statuses(context))) {
+            buffer.append(fragment.m_buffer);
+          } else {
+            suiteResultWriter.writeTestContext(rootBuffer, context);
+          }
+        }
+        rootBuffer.pop();
+      }
+      rootBuffer.pop();
+    } catch (IOException | UncheckedIOException e) {
+      LOG.error(e.getMessage(), e);
+    } finally {
+      deleteFragments();
+    }
+  }
+
+  private boolean isStreamed() {
+    return getConfig().getFileFragmentationLevel() == XMLReporterConfig.FF_LEVEL_NONE;
+  }
+
+  private synchronized File fragmentDirectory() throws IOException {
+    if (m_fragmentDirectory == null) {
+      m_fragmentDirectory = Files.createTempDirectory("testng-results").toFile();
+    }
+    return m_fragmentDirectory;
+  }
+
+  private synchronized void deleteFragments() {
+    m_fragments.clear();
+    if (m_fragmentDirectory != null) {
+      File[] files = m_fragmentDirectory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+      m_fragmentDirectory.delete();
+      m_fragmentDirectory = null;
+    }
+  }
+
+  /**
+   * @return the status of each result of a test, which tells if it changed since it was written:
+   *     a retried result is skipped for instance.
+   */
+  private static Map<ITestResult, Integer> statuses(ITestContext context) {
+    Map<ITestResult, Integer> statuses = Maps.newHashMap();
+    for (IResultMap resultMap :
+        Arrays.asList(
+            context.getPassedTests(),
+            context.getFailedTests(),
+            context.getSkippedTests(),
+            context.getPassedConfigurations(),
+            context.getSkippedConfigurations(),
+            context.getFailedConfigurations(),
+            context.getFailedButWithinSuccessPercentageTests())) {
+      if (resultMap != null) {
+        for (ITestResult result : resultMap.getAllResults()) {
+          statuses.put(result, result.getStatus());
+        }
+      }
+    }
+    return statuses;
+  }
+
+  /** The <code>&lt;test&gt;</code> tag of a test, written when it finished. */
+  private static final class Fragment {
+    private final File m_file;
+    private final WriterBuffer m_buffer;
+    private final Map<ITestResult, Integer> m_statuses;
+
+    private Fragment(File file, WriterBuffer buffer, Map<ITestResult, Integer> statuses) {
+      m_file = file;
+      m_buffer = buffer;
+      m_statuses = statuses;
+    }
+  }
+}
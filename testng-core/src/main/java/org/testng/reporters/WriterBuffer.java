@@ -0,0 +1,91 @@
+package org.testng.reporters;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.testng.internal.Utils;
+
+/**
+ * A buffer that doesn't keep anything in memory: what's appended to it goes straight to a UTF-8
+ * file, which {@link #toWriter(Writer)} copies. The text is cleaned up on its way, the way {@link
+ * XMLStringBuffer#toXML()} and {@link Utils#writeUtf8File(String, String, String)} clean up a
+ * whole document.
+ */
+class WriterBuffer implements IBuffer, Closeable {
+
+  private final File m_file;
+  private final Writer m_writer;
+  private boolean m_closed;
+
+  WriterBuffer(File file) throws IOException {
+    m_file = file;
+    m_writer =
+        new BufferedWriter(
+            new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public IBuffer append(CharSequence string) {
+    try {
+      m_writer.append(clean(string));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return this;
+  }
+
+  /** Appends the content of another buffer, which was cleaned up when it was appended to it. */
+  void append(WriterBuffer buffer) {
+    buffer.toWriter(m_writer);
+  }
+
+  private static CharSequence clean(CharSequence string) {
+    for (int i = 0; i < string.length(); i++) {
+      if (!isPlain(string.charAt(i))) {
+        // Only the few strings that need it go through the regular expression.
+        return Utils.escapeUnicode(XMLStringBuffer.removeInvalidXmlChars(string));
+      }
+    }
+    return string;
+  }
+
+  /** @return true if the character is left as is, the surrogates being checked by pairs. */
+  private static boolean isPlain(char c) {
+    if (c < 0x20) {
+      return c == '\t' || c == '\n' || c == '\r';
+    }
+    return (c < 0xD800 || c >= 0xE000 && c <= 0xFFFD) && Character.isDefined(c);
+  }
+
+  @Override
+  public void toWriter(Writer fw) {
+    try {
+      if (!m_closed) {
+        m_writer.flush();
+      }
+      try (Reader reader =
+          new InputStreamReader(Files.newInputStream(m_file.toPath()), StandardCharsets.UTF_8)) {
+        char[] buffer = new char[8192];
+        for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+          fw.write(buffer, 0, n);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    m_closed = true;
+    m_writer.close();
+  }
+}
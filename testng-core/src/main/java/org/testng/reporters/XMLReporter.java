@@ -8,7 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import org.testng.IReporter;
+import org.testng.IConcurrentReporter;
 import org.testng.ISuite;
 import org.testng.ISuiteResult;
 import org.testng.ITestContext;
@@ -20,7 +20,7 @@ import org.testng.util.TimeUtils;
 import org.testng.xml.XmlSuite;
 
 /** The main entry for the XML generation operation */
-public class XMLReporter implements IReporter, ICustomizeXmlReport {
+public class XMLReporter implements IConcurrentReporter, ICustomizeXmlReport {
 
   private final XMLReporterConfig config = new XMLReporterConfig();
   private XMLStringBuffer rootBuffer;
@@ -32,6 +32,20 @@ public class XMLReporter implements IReporter, ICustomizeXmlReport {
       config.setOutputDirectory(outputDirectory);
     }
 
+    rootBuffer = new XMLStringBuffer();
+    rootBuffer.push(XMLReporterConfig.TAG_TESTNG_RESULTS, getResultsAttributes(suites));
+    writeReporterOutput(rootBuffer);
+    for (ISuite suite : suites) {
+      writeSuite(suite);
+    }
+    rootBuffer.pop();
+    Utils.writeUtf8File(config.getOutputDirectory(), fileName(), rootBuffer, null /* no prefix */);
+  }
+
+  /**
+   * @return the passed, failed, skipped... counts of the <code>&lt;testng-results&gt;</code> tag
+   */
+  static Properties getResultsAttributes(List<ISuite> suites) {
     // Calculate passed/failed/skipped
     int passed = 0;
     int failed = 0;
@@ -59,7 +73,6 @@ public class XMLReporter implements IReporter, ICustomizeXmlReport {
       }
     }
 
-    rootBuffer = new XMLStringBuffer();
     Properties p = new Properties();
     p.put("passed", passed);
     p.put("failed", failed);
@@ -69,13 +82,7 @@ public class XMLReporter implements IReporter, ICustomizeXmlReport {
     }
     p.put("ignored", ignored);
     p.put("total", passed + failed + skipped + ignored + retried);
-    rootBuffer.push(XMLReporterConfig.TAG_TESTNG_RESULTS, p);
-    writeReporterOutput(rootBuffer);
-    for (ISuite suite : suites) {
-      writeSuite(suite);
-    }
-    rootBuffer.pop();
-    Utils.writeUtf8File(config.getOutputDirectory(), fileName(), rootBuffer, null /* no prefix */);
+    return p;
   }
 
   @Override
@@ -85,7 +92,7 @@ public class XMLReporter implements IReporter, ICustomizeXmlReport {
     return RuntimeBehavior.getDefaultFileNameForXmlReports();
   }
 
-  private void writeReporterOutput(XMLStringBuffer xmlBuffer) {
+  void writeReporterOutput(XMLStringBuffer xmlBuffer) {
     // TODO: Cosmin - maybe a <line> element isn't indicated for each line
     xmlBuffer.push(XMLReporterConfig.TAG_REPORTER_OUTPUT);
     List<String> output = Reporter.getOutput();
@@ -146,7 +153,7 @@ public class XMLReporter implements IReporter, ICustomizeXmlReport {
     xmlBuffer.pop();
   }
 
-  private void writeSuiteGroups(XMLStringBuffer xmlBuffer, ISuite suite) {
+  void writeSuiteGroups(XMLStringBuffer xmlBuffer, ISuite suite) {
     xmlBuffer.push(XMLReporterConfig.TAG_GROUPS);
     Map<String, Collection<ITestNGMethod>> methodsByGroups = suite.getMethodsByGroups();
     for (Map.Entry<String, Collection<ITestNGMethod>> entry : methodsByGroups.entrySet()) {
@@ -166,9 +173,13 @@ public class XMLReporter implements IReporter, ICustomizeXmlReport {
     xmlBuffer.pop();
   }
 
-  private Properties getSuiteAttributes(ISuite suite) {
+  Properties getSuiteAttributes(ISuite suite) {
     Properties props = new Properties();
     props.setProperty(XMLReporterConfig.ATTR_NAME, suite.getName());
+    String shard = suite.getXmlSuite().getShard();
+    if (shard != null) {
+      props.setProperty(XMLReporterConfig.ATTR_SHARD, shard);
+    }
 
     // Calculate the duration
     Map<String, ISuiteResult> results = suite.getResults();
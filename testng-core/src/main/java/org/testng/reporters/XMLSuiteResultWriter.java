@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -18,6 +19,8 @@ import org.testng.collections.Lists;
 import org.testng.collections.Maps;
 import org.testng.collections.Sets;
 import org.testng.internal.Utils;
+import org.testng.thread.ExecutorMetrics;
+import org.testng.util.ResourceUsage;
 import org.testng.util.Strings;
 import org.testng.util.TimeUtils;
 
@@ -49,7 +52,7 @@ public class XMLSuiteResultWriter {
    */
   public void writeSuiteResult(XMLStringBuffer xmlBuffer, ISuiteResult suiteResult) {
     if (XMLReporterConfig.FF_LEVEL_SUITE_RESULT != config.getFileFragmentationLevel()) {
-      writeAllToBuffer(xmlBuffer, suiteResult);
+      writeAllToBuffer(xmlBuffer, suiteResult.getTestContext());
     } else {
       String parentDir =
           config.getOutputDirectory()
@@ -57,16 +60,32 @@ public class XMLSuiteResultWriter {
               + suiteResult.getTestContext().getSuite().getName();
       File file = referenceSuiteResult(xmlBuffer, parentDir, suiteResult);
       XMLStringBuffer suiteXmlBuffer = new XMLStringBuffer();
-      writeAllToBuffer(suiteXmlBuffer, suiteResult);
+      writeAllToBuffer(suiteXmlBuffer, suiteResult.getTestContext());
       Utils.writeUtf8File(
           file.getAbsoluteFile().getParent(), file.getName(), suiteXmlBuffer.toXML());
     }
   }
 
-  private void writeAllToBuffer(XMLStringBuffer xmlBuffer, ISuiteResult suiteResult) {
-    xmlBuffer.push(XMLReporterConfig.TAG_TEST, getSuiteResultAttributes(suiteResult));
+  /**
+   * Writes the <code>&lt;test&gt;</code> tag of a test in the given XMLStringBuffer, regardless of
+   * the file fragmentation level of the <code>config</code> property.
+   *
+   * @param xmlBuffer The XML buffer where to write the test
+   * @param testContext The context of the test
+   */
+  public void writeTestContext(XMLStringBuffer xmlBuffer, ITestContext testContext) {
+    writeAllToBuffer(xmlBuffer, testContext);
+  }
+
+  private void writeAllToBuffer(XMLStringBuffer xmlBuffer, ITestContext testContext) {
+    xmlBuffer.push(XMLReporterConfig.TAG_TEST, getSuiteResultAttributes(testContext));
     Set<ITestResult> testResults = Sets.newHashSet();
-    ITestContext testContext = suiteResult.getTestContext();
+    Object metrics = testContext.getAttribute(ExecutorMetrics.ATTRIBUTE);
+    if (metrics instanceof ExecutorMetrics) {
+      xmlBuffer.addEmptyElement(
+          XMLReporterConfig.TAG_EXECUTOR_METRICS,
+          getExecutorMetricsAttributes((ExecutorMetrics) metrics));
+    }
     addAllTestResults(testResults, testContext.getPassedTests());
     addAllTestResults(testResults, testContext.getFailedTests());
     addAllTestResults(testResults, testContext.getSkippedTests());
@@ -78,6 +97,36 @@ public class XMLSuiteResultWriter {
     xmlBuffer.pop();
   }
 
+  private static Properties getExecutorMetricsAttributes(ExecutorMetrics metrics) {
+    Properties attributes = new Properties();
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_THREAD_COUNT, Integer.toString(metrics.getThreadCount()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_NODE_COUNT, Integer.toString(metrics.getNodeCount()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_DURATION_MS, Long.toString(metrics.getDurationMillis()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_ACHIEVED_PARALLELISM, format(metrics.getAchievedParallelism()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_PEAK_ACTIVE_THREADS,
+        Integer.toString(metrics.getPeakActiveThreads()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_IDLE_THREAD_MS, Long.toString(metrics.getIdleThreadMillis()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_AVERAGE_READY_TO_START_MS,
+        format(metrics.getAverageReadyToStartMillis()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_MAX_READY_TO_START_MS, format(metrics.getMaxReadyToStartMillis()));
+    attributes.setProperty(
+        XMLReporterConfig.ATTR_LONGEST_DEPENDENCY_STALL_MS,
+        format(metrics.getLongestDependencyStallMillis()));
+    return attributes;
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.3f", value);
+  }
+
   @SuppressWarnings("unchecked")
   private void addAllTestResults(Set<ITestResult> testResults, IResultMap resultMap) {
     if (resultMap != null) {
@@ -102,9 +151,8 @@ public class XMLSuiteResultWriter {
     return new File(parentDir + File.separatorChar + suiteResultName);
   }
 
-  private Properties getSuiteResultAttributes(ISuiteResult suiteResult) {
+  private Properties getSuiteResultAttributes(ITestContext tc) {
     Properties attributes = new Properties();
-    ITestContext tc = suiteResult.getTestContext();
     attributes.setProperty(XMLReporterConfig.ATTR_NAME, tc.getName());
     XMLReporter.addDurationAttributes(config, attributes, tc.getStartDate(), tc.getEndDate());
     return attributes;
@@ -206,6 +254,17 @@ public class XMLSuiteResultWriter {
     long duration = testResult.getEndMillis() - testResult.getStartMillis();
     String strDuration = Long.toString(duration);
     attributes.setProperty(XMLReporterConfig.ATTR_DURATION_MS, strDuration);
+    ResourceUsage usage = ResourceUsage.of(testResult);
+    if (usage != null) {
+      if (usage.getCpuTimeNanos() >= 0) {
+        attributes.setProperty(
+            XMLReporterConfig.ATTR_CPU_TIME_MS, format(usage.getCpuTimeNanos() / 1_000_000d));
+      }
+      if (usage.getAllocatedBytes() >= 0) {
+        attributes.setProperty(
+            XMLReporterConfig.ATTR_ALLOCATED_BYTES, Long.toString(usage.getAllocatedBytes()));
+      }
+    }
 
     if (config.isGenerateGroupsAttribute()) {
       String groupNamesStr = Utils.arrayToString(testResult.getMethod().getGroups());
@@ -328,9 +387,15 @@ public class XMLSuiteResultWriter {
   }
 
   private void addTestResultAttributes(XMLStringBuffer xmlBuffer, ITestResult testResult) {
-    if (testResult.getAttributeNames() != null && testResult.getAttributeNames().size() > 0) {
+    Set<String> attrNames = testResult.getAttributeNames();
+    if (attrNames != null && attrNames.contains(ResourceUsage.ATTRIBUTE)) {
+      // Already written as attributes of the test method.
+      attrNames = Sets.newHashSet(attrNames);
+      attrNames.remove(ResourceUsage.ATTRIBUTE);
+    }
+    if (attrNames != null && attrNames.size() > 0) {
       xmlBuffer.push(XMLReporterConfig.TAG_ATTRIBUTES);
-      for (String attrName : testResult.getAttributeNames()) {
+      for (String attrName : attrNames) {
         if (attrName == null) {
           continue;
         }
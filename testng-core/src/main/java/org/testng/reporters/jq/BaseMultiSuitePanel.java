@@ -21,8 +21,14 @@ public abstract class BaseMultiSuitePanel extends BasePanel implements INavigato
       xsb.addOptional(S, getHeader(s), C, "header-content");
       xsb.pop(D);
 
-      xsb.push(D, C, "main-panel-content rounded-window-bottom");
-      xsb.addString(getContent(s, xsb));
+      Shards shards = getShards();
+      if (shards == null) {
+        xsb.push(D, C, "main-panel-content rounded-window-bottom");
+        xsb.addString(getContent(s, xsb));
+      } else {
+        String shard = shards.writeHtml(getContent(s, xsb));
+        xsb.push(D, C, "main-panel-content rounded-window-bottom", Shards.ATTRIBUTE, shard);
+      }
       xsb.pop(D);
 
       xsb.pop(D);
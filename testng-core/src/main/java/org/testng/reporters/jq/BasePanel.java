@@ -11,6 +11,7 @@ public abstract class BasePanel implements IPanel {
   public static final String I = "id";
 
   private Model m_model;
+  private Shards m_shards;
 
   public BasePanel(Model model) {
     m_model = model;
@@ -20,6 +21,16 @@ public abstract class BasePanel implements IPanel {
     return m_model;
   }
 
+  /** Makes the panel write the results to shards, that the page loads when they are shown. */
+  void setShards(Shards shards) {
+    m_shards = shards;
+  }
+
+  /** @return the shards the results are written to, null if they all go into index.html. */
+  Shards getShards() {
+    return m_shards;
+  }
+
   protected List<ISuite> getSuites() {
     return getModel().getSuites();
   }
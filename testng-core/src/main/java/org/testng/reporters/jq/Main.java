@@ -8,15 +8,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
-import org.testng.IReporter;
+import org.testng.IConcurrentReporter;
 import org.testng.ISuite;
+import org.testng.internal.RuntimeBehavior;
 import org.testng.internal.Utils;
 import org.testng.log4testng.Logger;
 import org.testng.reporters.Files;
 import org.testng.reporters.XMLStringBuffer;
 import org.testng.xml.XmlSuite;
 
-public class Main implements IReporter {
+public class Main implements IConcurrentReporter {
   private static final String TESTNG_RESOURCE_PREFIX = "/org/testng/";
   private static final String[] RESOURCES =
       new String[] {
@@ -34,6 +35,17 @@ public class Main implements IReporter {
       };
   public static final String REPORT_HEADER_FILE = "header";
 
+  /** Whether the report is sharded, the testng.report.html.sharded property deciding if null. */
+  private final Boolean m_sharded;
+
+  public Main() {
+    this(null);
+  }
+
+  Main(Boolean sharded) {
+    m_sharded = sharded;
+  }
+
   @Override
   public void generateReport(
       List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
@@ -45,7 +57,7 @@ public class Main implements IReporter {
     new BannerPanel(m_model).generate(xsb);
 
     // All the panels selectable from the navigator
-    List<INavigatorPanel> panels =
+    List<BaseMultiSuitePanel> panels =
         Arrays.asList(
             new TestNgXmlPanel(m_model),
             new TestPanel(m_model),
@@ -55,8 +67,20 @@ public class Main implements IReporter {
             new IgnoredMethodsPanel(m_model),
             new ChronologicalPanel(m_model));
 
+    NavigatorPanel navigator = new NavigatorPanel(m_model, panels);
+    SuitePanel suitePanel = new SuitePanel(m_model);
+    boolean sharded = m_sharded != null ? m_sharded : RuntimeBehavior.useShardedHtmlReport();
+    if (sharded) {
+      Shards shards = new Shards(outputDirectory);
+      navigator.setShards(shards);
+      suitePanel.setShards(shards);
+      for (BasePanel panel : panels) {
+        panel.setShards(shards);
+      }
+    }
+
     // Generate the navigator on the left hand side
-    new NavigatorPanel(m_model, panels).generate(xsb);
+    navigator.generate(xsb);
 
     xsb.push(D, C, "wrapper");
     xsb.push(D, "class", "main-panel-root");
@@ -64,7 +88,7 @@ public class Main implements IReporter {
     //
     // Generate the main suite panel
     //
-    new SuitePanel(m_model).generate(xsb);
+    suitePanel.generate(xsb);
 
     // Generate all the navigator panels
     for (INavigatorPanel panel : panels) {
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import org.testng.IResultMap;
 import org.testng.ISuite;
 import org.testng.ISuiteResult;
@@ -19,7 +20,6 @@ public class Model {
   private ListMultiMap<ISuite, ITestResult> m_model = Maps.newListMultiMap();
   private List<ISuite> m_suites = null;
   private Map<String, String> m_testTags = Maps.newHashMap();
-  private Map<ITestResult, String> m_testResultMap = Maps.newHashMap();
   private Map<ISuite, ResultsByClass> m_failedResultsByClass = Maps.newHashMap();
   private Map<ISuite, ResultsByClass> m_skippedResultsByClass = Maps.newHashMap();
   private Map<ISuite, ResultsByClass> m_passedResultsByClass = Maps.newHashMap();
@@ -41,67 +41,48 @@ public class Model {
   private void init() {
     int testCounter = 0;
     for (ISuite suite : m_suites) {
-      List<ITestResult> passed = Lists.newArrayList();
-      List<ITestResult> failed = Lists.newArrayList();
-      List<ITestResult> skipped = Lists.newArrayList();
-      Map<String, ISuiteResult> suiteResults = suite.getResults();
-      for (ISuiteResult sr : suiteResults.values()) {
+      List<ITestContext> contexts = Lists.newArrayList();
+      for (ISuiteResult sr : suite.getResults().values()) {
         ITestContext context = sr.getTestContext();
         m_testTags.put(context.getName(), "test-" + testCounter++);
-        failed.addAll(context.getFailedTests().getAllResults());
-        skipped.addAll(context.getSkippedTests().getAllResults());
-        passed.addAll(context.getPassedTests().getAllResults());
-        IResultMap[] map =
-            new IResultMap[] {
-              context.getFailedTests(), context.getSkippedTests(), context.getPassedTests()
-            };
-        for (IResultMap m : map) {
-          for (ITestResult tr : m.getAllResults()) {
-            m_testResultMap.put(tr, getTestResultName(tr));
-          }
-        }
-      }
-
-      // Process them in the order passed, skipped and failed, so that the failed
-      // icon overrides all the others and the skipped icon overrides passed.
-
-      // Passed
-      {
-        ResultsByClass rbc = new ResultsByClass();
-        for (ITestResult tr : passed) {
-          rbc.addResult(tr.getTestClass().getRealClass(), tr);
-          updateGroups(suite, tr);
-        }
-        m_passedResultsByClass.put(suite, rbc);
+        contexts.add(context);
       }
 
-      // Skipped
-      {
-        ResultsByClass rbc = new ResultsByClass();
-        for (ITestResult tr : skipped) {
-          m_statusBySuiteName.put(suite.getName(), "skipped");
-          rbc.addResult(tr.getTestClass().getRealClass(), tr);
-          updateGroups(suite, tr);
-        }
-        m_skippedResultsByClass.put(suite, rbc);
+      // Each result is visited once, and only kept in the structures the panels read.
+      ResultsByClass failed =
+          addResults(suite, contexts, ITestContext::getFailedTests, m_allFailedResults);
+      ResultsByClass skipped = addResults(suite, contexts, ITestContext::getSkippedTests, null);
+      ResultsByClass passed = addResults(suite, contexts, ITestContext::getPassedTests, null);
+      m_failedResultsByClass.put(suite, failed);
+      m_skippedResultsByClass.put(suite, skipped);
+      m_passedResultsByClass.put(suite, passed);
+
+      // The failed icon overrides all the others and the skipped icon overrides passed.
+      if (!failed.getClasses().isEmpty()) {
+        m_statusBySuiteName.put(suite.getName(), "failed");
+      } else if (!skipped.getClasses().isEmpty()) {
+        m_statusBySuiteName.put(suite.getName(), "skipped");
       }
+    }
+  }
 
-      // Failed
-      {
-        ResultsByClass rbc = new ResultsByClass();
-        for (ITestResult tr : failed) {
-          m_statusBySuiteName.put(suite.getName(), "failed");
-          rbc.addResult(tr.getTestClass().getRealClass(), tr);
-          m_allFailedResults.add(tr);
-          updateGroups(suite, tr);
+  private ResultsByClass addResults(
+      ISuite suite,
+      List<ITestContext> contexts,
+      Function<ITestContext, IResultMap> resultMap,
+      List<ITestResult> all) {
+    ResultsByClass result = new ResultsByClass();
+    for (ITestContext context : contexts) {
+      for (ITestResult tr : resultMap.apply(context).getAllResults()) {
+        result.addResult(tr.getTestClass().getRealClass(), tr);
+        m_model.put(suite, tr);
+        updateGroups(suite, tr);
+        if (all != null) {
+          all.add(tr);
         }
-        m_failedResultsByClass.put(suite, rbc);
       }
-
-      m_model.putAll(suite, failed);
-      m_model.putAll(suite, skipped);
-      m_model.putAll(suite, passed);
     }
+    return result;
   }
 
   private void updateGroups(ISuite suite, ITestResult tr) {
@@ -125,7 +106,7 @@ public class Model {
   }
 
   public String getTag(ITestResult tr) {
-    return m_testResultMap.get(tr);
+    return getTestResultName(tr);
   }
 
   public List<ITestResult> getTestResults(ISuite suite) {
@@ -12,9 +12,9 @@ import org.testng.reporters.XMLStringBuffer;
 
 public class NavigatorPanel extends BasePanel {
 
-  private List<INavigatorPanel> m_panels;
+  private List<? extends INavigatorPanel> m_panels;
 
-  public NavigatorPanel(Model model, List<INavigatorPanel> panels) {
+  public NavigatorPanel(Model model, List<? extends INavigatorPanel> panels) {
     super(model);
     m_panels = panels;
   }
@@ -252,17 +252,17 @@ public class NavigatorPanel extends BasePanel {
         suiteName);
     xsb.pop(S);
 
-    // List of methods
-    xsb.push(D, C, "method-list-content " + type + " " + suiteName);
+    // List of methods, indented as the content of the div they go into
+    XMLStringBuffer methods = new XMLStringBuffer(xsb.getCurrentIndent() + "  ");
     int count = 0;
     List<ITestResult> testResults = provider.getResults();
     if (testResults != null) {
       testResults.sort(ResultsByClass.METHOD_NAME_COMPARATOR);
       for (ITestResult tr : testResults) {
         String testName = Model.getTestResultName(tr);
-        xsb.push(S);
-        xsb.addEmptyElement("img", "src", image, "width", "3%");
-        xsb.addRequired(
+        methods.push(S);
+        methods.addEmptyElement("img", "src", image, "width", "3%");
+        methods.addRequired(
             "a",
             testName,
             "href",
@@ -275,11 +275,19 @@ public class NavigatorPanel extends BasePanel {
             tr.getTestClass().getName(),
             C,
             "method navigator-link");
-        xsb.pop(S);
-        xsb.addEmptyElement("br");
+        methods.pop(S);
+        methods.addEmptyElement("br");
         count++;
       }
     }
+    String contentClass = "method-list-content " + type + " " + suiteName;
+    Shards shards = getShards();
+    if (shards == null || count == 0) {
+      xsb.push(D, C, contentClass);
+      xsb.addString(methods.toXML());
+    } else {
+      xsb.push(D, C, contentClass, Shards.ATTRIBUTE, shards.writeHtml(methods.toXML()));
+    }
     xsb.pop(D);
     xsb.pop("li");
 
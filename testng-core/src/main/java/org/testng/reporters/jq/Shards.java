@@ -0,0 +1,114 @@
+package org.testng.reporters.jq;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the parts of the report that hold the results to small files next to index.html, that
+ * the page only loads when they are shown. Each shard is a script calling <code>
+ * testngShard(id, content)</code> with its content as JSON, so that the report still works when it
+ * is opened from the disk, where the browsers don't let a page read the other files.
+ *
+ * <p>The element the content goes into is marked with the {@link #ATTRIBUTE} attribute, whose value
+ * is the id of the shard.
+ */
+class Shards {
+  static final String ATTRIBUTE = "data-shard";
+  static final String DIRECTORY = "shards";
+
+  private final File m_directory;
+  private int m_count = 0;
+
+  Shards(String outputDirectory) {
+    m_directory = new File(outputDirectory, DIRECTORY);
+    // The shards of a previous run, which can have more of them
+    File[] old = m_directory.listFiles((dir, name) -> name.endsWith(".js"));
+    if (old != null) {
+      for (File file : old) {
+        file.delete();
+      }
+    }
+    if (!m_directory.exists() && !m_directory.mkdirs()) {
+      throw new UncheckedIOException(new IOException("Couldn't create " + m_directory));
+    }
+  }
+
+  /** @return the id of the shard holding this HTML. */
+  String writeHtml(String html) {
+    StringBuilder json = new StringBuilder(html.length() + 64);
+    appendString(json, html);
+    return write(json);
+  }
+
+  /** @return the id of the shard holding an array of these objects, whose values are strings. */
+  String writeObjects(List<Map<String, String>> objects) {
+    StringBuilder json = new StringBuilder("[");
+    for (Map<String, String> object : objects) {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append('{');
+      boolean first = true;
+      for (Map.Entry<String, String> entry : object.entrySet()) {
+        if (!first) {
+          json.append(',');
+        }
+        first = false;
+        appendString(json, entry.getKey());
+        json.append(':');
+        appendString(json, entry.getValue());
+      }
+      json.append('}');
+    }
+    return write(json.append(']'));
+  }
+
+  private String write(CharSequence json) {
+    String id = Integer.toString(m_count++);
+    String script = "testngShard(\"" + id + "\", " + json + ");\n";
+    try {
+      Files.write(
+          new File(m_directory, id + ".js").toPath(), script.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return id;
+  }
+
+  static void appendString(StringBuilder json, String s) {
+    json.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          // The line separators end the strings of the older JavaScript engines.
+          if (c < ' ' || c == '\u2028' || c == '\u2029') {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    json.append('"');
+  }
+}
@@ -1,8 +1,11 @@
 package org.testng.reporters.jq;
 
 import java.util.List;
+import java.util.Map;
 import org.testng.ISuite;
 import org.testng.ITestResult;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
 import org.testng.internal.Utils;
 import org.testng.reporters.XMLStringBuffer;
 import org.testng.util.Strings;
@@ -54,15 +57,53 @@ public class SuitePanel extends BasePanel {
     xsb.addOptional(S, c.getName(), C, "class-name");
     xsb.pop(D);
 
-    xsb.push(D, C, "main-panel-content rounded-window-bottom");
-
-    for (ITestResult tr : results) {
-      generateMethod(tr, xsb);
+    Shards shards = getShards();
+    if (shards == null) {
+      xsb.push(D, C, "main-panel-content rounded-window-bottom");
+      for (ITestResult tr : results) {
+        generateMethod(tr, xsb);
+      }
+    } else {
+      List<Map<String, String>> methods = Lists.newArrayList(results.size());
+      for (ITestResult tr : results) {
+        methods.add(toMethod(tr));
+      }
+      String shard = shards.writeObjects(methods);
+      xsb.push(D, C, "main-panel-content rounded-window-bottom", Shards.ATTRIBUTE, shard);
     }
     xsb.pop(D);
     xsb.pop(D);
   }
 
+  /** @return what {@link #generateMethod} shows of the result, rendered by testng-reports.js. */
+  private static Map<String, String> toMethod(ITestResult tr) {
+    Map<String, String> result = Maps.newLinkedHashMap();
+    result.put("anchor", Model.getTestResultName(tr));
+    result.put("method", tr.getMethod().getMethodName());
+    if (tr.getParameters().length > 0) {
+      result.put("parameters", getParameters(tr));
+    }
+    if (tr.getStatus() != ITestResult.SUCCESS && tr.getThrowable() != null) {
+      result.put("stackTrace", Utils.shortStackTrace(tr.getThrowable(), false) + "\n");
+    }
+    String description = tr.getMethod().getDescription();
+    if (!Strings.isNullOrEmpty(description)) {
+      result.put("description", description);
+    }
+    return result;
+  }
+
+  private static String getParameters(ITestResult tr) {
+    StringBuilder sb = new StringBuilder();
+    boolean first = true;
+    for (Object p : tr.getParameters()) {
+      if (!first) sb.append(", ");
+      first = false;
+      sb.append(Utils.toString(p));
+    }
+    return sb.toString();
+  }
+
   private void generateMethod(ITestResult tr, XMLStringBuffer xsb) {
     xsb.push(D, C, "method");
     xsb.push(D, C, "method-content");
@@ -72,14 +113,7 @@ public class SuitePanel extends BasePanel {
 
     // Parameters?
     if (tr.getParameters().length > 0) {
-      StringBuilder sb = new StringBuilder();
-      boolean first = true;
-      for (Object p : tr.getParameters()) {
-        if (!first) sb.append(", ");
-        first = false;
-        sb.append(Utils.toString(p));
-      }
-      xsb.addOptional(S, "(" + sb.toString() + ")", C, "parameters");
+      xsb.addOptional(S, "(" + getParameters(tr) + ")", C, "parameters");
     }
 
     // Exception?
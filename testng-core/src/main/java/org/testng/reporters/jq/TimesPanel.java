@@ -11,6 +11,7 @@ import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.collections.Maps;
 import org.testng.reporters.XMLStringBuffer;
+import org.testng.util.ResourceUsage;
 import org.testng.xml.XmlSuite;
 
 public class TimesPanel extends BaseMultiSuitePanel {
@@ -47,6 +48,12 @@ public class TimesPanel extends BaseMultiSuitePanel {
                 + "data.addColumn('number', 'Time (ms)');\n");
 
     List<ITestResult> allTestResults = getModel().getAllTestResults(suite);
+    boolean measured = allTestResults.stream().anyMatch(tr -> ResourceUsage.of(tr) != null);
+    if (measured) {
+      result
+          .append("data.addColumn('number', 'CPU time (ms)');\n")
+          .append("data.addColumn('number', 'Allocated (KB)');\n");
+    }
     result.append("data.addRows(").append(allTestResults.size()).append(");\n");
 
     allTestResults.sort((o1, o2) -> (int) (time(o2) - time(o1)));
@@ -76,6 +83,15 @@ public class TimesPanel extends BaseMultiSuitePanel {
           .append(", 3, ")
           .append(time)
           .append(");\n");
+      ResourceUsage usage = ResourceUsage.of(tr);
+      if (usage != null) {
+        if (usage.getCpuTimeNanos() >= 0) {
+          appendCell(result, index, 4, usage.getCpuTimeMillis());
+        }
+        if (usage.getAllocatedBytes() >= 0) {
+          appendCell(result, index, 5, usage.getAllocatedBytes() / 1024);
+        }
+      }
       Long total = m_totalTime.get(suite.getName());
       if (total == null) {
         total = 0L;
@@ -97,6 +113,17 @@ public class TimesPanel extends BaseMultiSuitePanel {
     return result.toString();
   }
 
+  private static void appendCell(StringBuilder result, int row, int column, long value) {
+    result
+        .append("data.setCell(")
+        .append(row)
+        .append(", ")
+        .append(column)
+        .append(", ")
+        .append(value)
+        .append(");\n");
+  }
+
   @Override
   public String getContent(ISuite suite, XMLStringBuffer main) {
     XMLStringBuffer xsb = new XMLStringBuffer(main.getCurrentIndent());
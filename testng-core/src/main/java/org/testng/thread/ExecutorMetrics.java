@@ -0,0 +1,247 @@
+package org.testng.thread;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+
+/**
+ * The summary of what the executor of a <code>&lt;test&gt;</code> did, built from its notifications
+ * and forwarded to the {@link IExecutorMetricsListener}s registered with TestNG. It's available
+ * from the {@link org.testng.ITestContext} of the test, as the attribute {@link #ATTRIBUTE}, once
+ * the test ran its methods in parallel.
+ *
+ * <ul>
+ *   <li>The ready to start latency of a node is the time it waited for a thread once its
+ *       dependencies finished.
+ *   <li>The achieved parallelism is the average number of busy threads, to be compared with the
+ *       thread count.
+ *   <li>A dependency stall is a period during which threads were idle while no node was waiting
+ *       for one, the remaining nodes all waiting for their dependencies to finish.
+ * </ul>
+ */
+public class ExecutorMetrics implements IExecutorMetricsListener {
+
+  /** The name of the attribute of the test context the metrics are stored in. */
+  public static final String ATTRIBUTE = ExecutorMetrics.class.getName();
+
+  private final List<IExecutorMetricsListener> m_listeners;
+
+  private String m_name;
+  private int m_threadCount;
+  private int m_nodeCount;
+  private long m_start = -1;
+  private long m_end = -1;
+  private long m_last;
+
+  /** The number of workers running. */
+  private int m_active;
+
+  private int m_peakActive;
+  private int m_finishedNodes;
+  /** The integral of the number of workers running over time. */
+  private long m_busyNanos;
+
+  /** When the nodes waiting for a thread were handed over to the executor. */
+  private final Map<Object, Long> m_readyAt = Maps.newHashMap();
+
+  private int m_startedNodes;
+  private long m_latencySum;
+  private long m_latencyMax;
+  private Object m_slowestToStart;
+
+  private long m_stallStart = -1;
+  private long m_longestStall;
+
+  public ExecutorMetrics() {
+    this(Lists.newArrayList());
+  }
+
+  /** @param listeners the listeners the notifications are forwarded to */
+  public ExecutorMetrics(List<IExecutorMetricsListener> listeners) {
+    m_listeners = listeners;
+  }
+
+  @Override
+  public void onExecutorStart(String name, int threadCount, int nodeCount) {
+    synchronized (this) {
+      m_name = name;
+      m_threadCount = threadCount;
+      m_nodeCount = nodeCount;
+      m_start = System.nanoTime();
+      m_last = m_start;
+      updateStall(m_start);
+    }
+    for (IExecutorMetricsListener listener : m_listeners) {
+      listener.onExecutorStart(name, threadCount, nodeCount);
+    }
+  }
+
+  @Override
+  public void onNodesReady(List<?> nodes) {
+    synchronized (this) {
+      long now = System.nanoTime();
+      for (Object node : nodes) {
+        m_readyAt.put(node, now);
+      }
+      updateStall(now);
+    }
+    for (IExecutorMetricsListener listener : m_listeners) {
+      listener.onNodesReady(nodes);
+    }
+  }
+
+  @Override
+  public void onWorkerStart(List<?> nodes) {
+    synchronized (this) {
+      long now = advance();
+      m_active++;
+      m_peakActive = Math.max(m_peakActive, m_active);
+      for (Object node : nodes) {
+        Long readyAt = m_readyAt.remove(node);
+        if (readyAt == null) {
+          continue;
+        }
+        long latency = now - readyAt;
+        m_startedNodes++;
+        m_latencySum += latency;
+        if (latency >= m_latencyMax) {
+          m_latencyMax = latency;
+          m_slowestToStart = node;
+        }
+      }
+      updateStall(now);
+    }
+    for (IExecutorMetricsListener listener : m_listeners) {
+      listener.onWorkerStart(nodes);
+    }
+  }
+
+  @Override
+  public void onWorkerFinish(List<?> nodes) {
+    synchronized (this) {
+      long now = advance();
+      m_active--;
+      m_finishedNodes += nodes.size();
+      updateStall(now);
+    }
+    for (IExecutorMetricsListener listener : m_listeners) {
+      listener.onWorkerFinish(nodes);
+    }
+  }
+
+  @Override
+  public void onExecutorFinish() {
+    synchronized (this) {
+      m_end = advance();
+      updateStall(m_end);
+    }
+    for (IExecutorMetricsListener listener : m_listeners) {
+      listener.onExecutorFinish();
+    }
+  }
+
+  /** @return the current time, once the busy time was accounted for up to it. */
+  private long advance() {
+    long now = System.nanoTime();
+    m_busyNanos += m_active * (now - m_last);
+    m_last = now;
+    return now;
+  }
+
+  private void updateStall(long now) {
+    boolean stalled =
+        m_start >= 0
+            && m_end < 0
+            && m_active < m_threadCount
+            && m_readyAt.isEmpty()
+            && m_finishedNodes < m_nodeCount;
+    if (stalled && m_stallStart < 0) {
+      m_stallStart = now;
+    } else if (!stalled && m_stallStart >= 0) {
+      m_longestStall = Math.max(m_longestStall, now - m_stallStart);
+      m_stallStart = -1;
+    }
+  }
+
+  public synchronized String getName() {
+    return m_name;
+  }
+
+  public synchronized int getThreadCount() {
+    return m_threadCount;
+  }
+
+  public synchronized int getNodeCount() {
+    return m_nodeCount;
+  }
+
+  /** @return how long the executor ran, in milliseconds. */
+  public synchronized long getDurationMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(durationNanos());
+  }
+
+  /** @return the average number of busy threads. */
+  public synchronized double getAchievedParallelism() {
+    long duration = durationNanos();
+    return duration == 0 ? 0 : (double) m_busyNanos / duration;
+  }
+
+  /** @return the largest number of threads that were busy at the same time. */
+  public synchronized int getPeakActiveThreads() {
+    return m_peakActive;
+  }
+
+  /** @return the time the threads spent idle, summed over the threads, in milliseconds. */
+  public synchronized long getIdleThreadMillis() {
+    long idle = Math.max(0, m_threadCount * durationNanos() - m_busyNanos);
+    return TimeUnit.NANOSECONDS.toMillis(idle);
+  }
+
+  /** @return the average time the nodes waited for a thread, in milliseconds. */
+  public synchronized double getAverageReadyToStartMillis() {
+    return m_startedNodes == 0 ? 0 : toMillis(m_latencySum / m_startedNodes);
+  }
+
+  /** @return the longest time a node waited for a thread, in milliseconds. */
+  public synchronized double getMaxReadyToStartMillis() {
+    return toMillis(m_latencyMax);
+  }
+
+  /** @return the node that waited the longest for a thread, or null if none did. */
+  public synchronized String getSlowestToStart() {
+    return m_slowestToStart == null ? null : m_slowestToStart.toString();
+  }
+
+  /** @return the longest dependency stall, in milliseconds. */
+  public synchronized double getLongestDependencyStallMillis() {
+    return toMillis(m_longestStall);
+  }
+
+  private long durationNanos() {
+    if (m_start < 0) {
+      return 0;
+    }
+    return (m_end < 0 ? m_last : m_end) - m_start;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000d;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        Locale.ROOT,
+        "%s: %.2f of %d threads busy on average, %d ms idle, longest dependency stall %.1f ms,"
+            + " %.1f ms to start on average",
+        m_name,
+        getAchievedParallelism(),
+        m_threadCount,
+        getIdleThreadMillis(),
+        getLongestDependencyStallMillis(),
+        getAverageReadyToStartMillis());
+  }
+}
@@ -0,0 +1,49 @@
+package org.testng.thread;
+
+import java.util.List;
+import org.testng.ITestNGListener;
+
+/**
+ * Notified of what an {@link ITestNGThreadPoolExecutor} running the methods of a <code>&lt;test&gt;
+ * </code> in parallel does with the nodes of its graph, so that a slow test can be told apart as
+ * starved by its dependencies or by too few threads. The notifications are sent from the threads of
+ * the executor as things happen, so an implementation reads the time itself and has to be thread
+ * safe.
+ *
+ * <p>TestNG notifies the start and the finish of the executor, the executor notifies the rest
+ * through the listener given to {@link ITestNGThreadPoolExecutor#setMetricsListener}. TestNG
+ * summarizes the notifications of each test in an {@link ExecutorMetrics}.
+ */
+public interface IExecutorMetricsListener extends ITestNGListener {
+
+  /**
+   * @param name the name of the executor, e.g. <code>test=Regression</code>
+   * @param threadCount the number of threads the executor may use
+   * @param nodeCount the number of nodes of its graph
+   */
+  default void onExecutorStart(String name, int threadCount, int nodeCount) {}
+
+  /**
+   * Nodes whose dependencies all finished were handed over to the executor, and wait for a thread.
+   *
+   * @param nodes the nodes
+   */
+  default void onNodesReady(List<?> nodes) {}
+
+  /**
+   * A thread of the executor started a worker.
+   *
+   * @param nodes the nodes of the worker
+   */
+  default void onWorkerStart(List<?> nodes) {}
+
+  /**
+   * A worker finished, which frees its thread.
+   *
+   * @param nodes the nodes of the worker
+   */
+  default void onWorkerFinish(List<?> nodes) {}
+
+  /** The executor finished, or the test timed out. */
+  default void onExecutorFinish() {}
+}
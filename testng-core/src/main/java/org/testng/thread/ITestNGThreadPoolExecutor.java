@@ -7,4 +7,12 @@ public interface ITestNGThreadPoolExecutor extends ExecutorService {
 
   /** Helps kick start the execution and is the point of entry for execution. */
   void run();
+
+  /**
+   * Executors that support it notify the given listener of what they do with the nodes of their
+   * graph. The other ones simply ignore it.
+   *
+   * @param listener the listener, to be set before {@link #run()}
+   */
+  default void setMetricsListener(IExecutorMetricsListener listener) {}
 }
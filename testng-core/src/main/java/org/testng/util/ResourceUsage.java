@@ -0,0 +1,77 @@
+package org.testng.util;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.testng.ITestResult;
+
+/**
+ * The CPU time a test or configuration method consumed and the memory it allocated, which tell a
+ * method slow because it computes apart from a method slow because it waits. They are measured on
+ * the thread that invokes the method, so what the threads it starts do isn't accounted for.
+ *
+ * <p>The measure is opt-in: when the <code>testng.measure.resources</code> system property is
+ * <code>true</code>, the usage of each invocation is stored in its result, as the attribute {@link
+ * #ATTRIBUTE}, and written to the XML, JUnit and HTML reports.
+ */
+public final class ResourceUsage {
+
+  /** The name of the attribute of the test result the usage is stored in. */
+  public static final String ATTRIBUTE = ResourceUsage.class.getName();
+
+  private final long m_cpuTimeNanos;
+  private final long m_allocatedBytes;
+
+  /**
+   * @param cpuTimeNanos the CPU time, in nanoseconds, or -1 if it couldn't be measured
+   * @param allocatedBytes the memory allocated, in bytes, or -1 if it couldn't be measured
+   */
+  public ResourceUsage(long cpuTimeNanos, long allocatedBytes) {
+    m_cpuTimeNanos = cpuTimeNanos;
+    m_allocatedBytes = allocatedBytes;
+  }
+
+  /** @return the usage stored in a result, or null if it wasn't measured. */
+  public static ResourceUsage of(ITestResult result) {
+    Object usage = result.getAttribute(ATTRIBUTE);
+    return usage instanceof ResourceUsage ? (ResourceUsage) usage : null;
+  }
+
+  /** @return the CPU time, in nanoseconds, or -1 if it couldn't be measured. */
+  public long getCpuTimeNanos() {
+    return m_cpuTimeNanos;
+  }
+
+  /** @return the CPU time, in milliseconds, or -1 if it couldn't be measured. */
+  public long getCpuTimeMillis() {
+    return m_cpuTimeNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(m_cpuTimeNanos);
+  }
+
+  /** @return the memory allocated, in bytes, or -1 if it couldn't be measured. */
+  public long getAllocatedBytes() {
+    return m_allocatedBytes;
+  }
+
+  /**
+   * @param other the usage of another invocation, e.g. when an {@link org.testng.IHookable} runs
+   *     the test method more than once
+   * @return the sum of both usages
+   */
+  public ResourceUsage plus(ResourceUsage other) {
+    return new ResourceUsage(
+        sum(m_cpuTimeNanos, other.m_cpuTimeNanos), sum(m_allocatedBytes, other.m_allocatedBytes));
+  }
+
+  private static long sum(long a, long b) {
+    return a < 0 || b < 0 ? -1 : a + b;
+  }
+
+  @Override
+  public String toString() {
+    String cpuTime =
+        m_cpuTimeNanos < 0
+            ? "unknown"
+            : String.format(Locale.ROOT, "%.3f ms", m_cpuTimeNanos / 1_000_000d);
+    String allocated = m_allocatedBytes < 0 ? "unknown" : m_allocatedBytes + " bytes";
+    return "cpu=" + cpuTime + ", allocated=" + allocated;
+  }
+}
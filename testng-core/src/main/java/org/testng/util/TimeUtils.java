@@ -53,4 +53,21 @@ public final class TimeUtils {
       }
     }
   }
+
+  /**
+   * Same as {@link #computeAndShowTime(String, Task)}, the task being also recorded as a phase of
+   * a timeline.
+   *
+   * @param timeline - The {@link Timeline} the task is recorded in.
+   * @param phase - The phase of the run the task belongs to.
+   * @param name - What the task is about, e.g. the name of a test.
+   * @param msg - A user friendly message to be shown in the logs.
+   * @param task - A {@link Task} that represents the task to be executed.
+   */
+  public static void computeAndShowTime(
+      Timeline timeline, Timeline.Phase phase, String name, String msg, Task task) {
+    try (Timeline.Span ignored = timeline.start(phase, name)) {
+      computeAndShowTime(msg, task);
+    }
+  }
 }
@@ -0,0 +1,235 @@
+package org.testng.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.testng.collections.Lists;
+
+/**
+ * The phases a run of TestNG went through, with when each of them started and how long it took,
+ * from the parsing of the suites to the generation of the reports. The phases are recorded as they
+ * end, from any thread. A phase that starts while another one is running on the same thread (the
+ * factories are invoked while the classes are found, for instance) suspends it: the outer phase is
+ * recorded as one event before and one after the inner one, so that no time is counted twice.
+ *
+ * <p>The timeline of a run is available from {@link org.testng.TestNG#getTimeline()}, and is
+ * written to the file named by the <code>testng.timeline.file</code> system property if it's set.
+ */
+public final class Timeline {
+
+  private static final Timeline DISABLED = new Timeline(false);
+
+  /** What TestNG was doing. */
+  public enum Phase {
+    /** The parsing of the suite files. */
+    SUITE_PARSING,
+    /** The creation of the listeners, the reporters and the object factory. */
+    LISTENER_INITIALIZATION,
+    /** The listeners notified at the start and at the end of the execution. */
+    EXECUTION_LISTENERS,
+    /** The scanning of the classpath for the classes of the <code>&lt;package&gt;</code> tags. */
+    CLASSPATH_SCANNING,
+    /** The loading of the classes of a test, and the lookup of their TestNG annotations. */
+    CLASS_FINDING,
+    /** The invocation of the factories, and the creation of the test classes and instances. */
+    INSTANCE_CREATION,
+    /** The building of the graph of the test methods of a test. */
+    GRAPH_BUILDING,
+    /** The execution of the suites. */
+    EXECUTION,
+    /** The generation of a report. */
+    REPORT_GENERATION
+  }
+
+  private final boolean m_enabled;
+  private final long m_origin = System.nanoTime();
+  private final Queue<Event> m_events = new ConcurrentLinkedQueue<>();
+  /** The innermost phase running on each thread. */
+  private final ThreadLocal<Span> m_running = new ThreadLocal<>();
+
+  public Timeline() {
+    this(true);
+  }
+
+  private Timeline(boolean enabled) {
+    m_enabled = enabled;
+  }
+
+  /** @return a timeline that doesn't record anything. */
+  public static Timeline disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Starts a phase, which ends when the span returned is closed: <code>
+   * try (Timeline.Span ignored = timeline.start(Phase.GRAPH_BUILDING, name)) {...}</code>.
+   *
+   * @param phase the phase
+   * @param name what the phase is about, e.g. the name of a test or of a reporter
+   * @return the span of the phase
+   */
+  public Span start(Phase phase, String name) {
+    return new Span(phase, name);
+  }
+
+  /** @return the phases that ended, ordered by start time. */
+  public List<Event> getEvents() {
+    List<Event> result = Lists.newArrayList(m_events);
+    result.sort(Comparator.comparingLong(Event::getStartNanos));
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Writes the phases as tab separated lines, with their phase, their name, the thread they ran on,
+   * their start time relative to the creation of the timeline and their duration, in milliseconds.
+   *
+   * @param file the file to write to
+   * @throws IOException if the file can't be written
+   */
+  public void write(File file) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    try (PrintWriter out =
+        new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+      out.println("# TestNG timeline 1");
+      out.println("# phase\tname\tthread\tstart_ms\tduration_ms");
+      for (Event event : getEvents()) {
+        out.printf(
+            Locale.ROOT,
+            "%s\t%s\t%s\t%.3f\t%.3f%n",
+            event.getPhase(),
+            clean(event.getName()),
+            clean(event.getThreadName()),
+            event.getStartNanos() / 1_000_000d,
+            event.getDurationNanos() / 1_000_000d);
+      }
+    }
+  }
+
+  private static String clean(String text) {
+    return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+  }
+
+  /** A phase being recorded. */
+  public final class Span implements AutoCloseable {
+
+    private final Phase m_phase;
+    private final String m_name;
+    /** The phase this one suspended, if any. */
+    private final Span m_outer;
+
+    private long m_start = System.nanoTime();
+    private boolean m_closed;
+
+    private Span(Phase phase, String name) {
+      m_phase = phase;
+      m_name = name;
+      if (!m_enabled) {
+        m_outer = null;
+        return;
+      }
+      Span outer = m_running.get();
+      while (outer != null && outer.m_closed) {
+        outer = outer.m_outer;
+      }
+      m_outer = outer;
+      if (outer != null) {
+        outer.record(m_start);
+      }
+      m_running.set(this);
+    }
+
+    /** Ends the phase. Only the first call has any effect. */
+    @Override
+    public void close() {
+      if (m_closed) {
+        return;
+      }
+      m_closed = true;
+      if (!m_enabled) {
+        return;
+      }
+      long end = System.nanoTime();
+      record(end);
+      if (m_running.get() == this) {
+        if (m_outer == null) {
+          m_running.remove();
+        } else {
+          m_running.set(m_outer);
+          m_outer.m_start = end;
+        }
+      }
+    }
+
+    /** Records the part of the phase since it started or was resumed. */
+    private void record(long end) {
+      m_events.add(
+          new Event(
+              m_phase,
+              m_name,
+              Thread.currentThread().getName(),
+              m_start - m_origin,
+              end - m_start));
+    }
+  }
+
+  /** A phase that ended. */
+  public static final class Event {
+
+    private final Phase m_phase;
+    private final String m_name;
+    private final String m_threadName;
+    private final long m_startNanos;
+    private final long m_durationNanos;
+
+    Event(Phase phase, String name, String threadName, long startNanos, long durationNanos) {
+      m_phase = phase;
+      m_name = name;
+      m_threadName = threadName;
+      m_startNanos = startNanos;
+      m_durationNanos = durationNanos;
+    }
+
+    public Phase getPhase() {
+      return m_phase;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    public String getThreadName() {
+      return m_threadName;
+    }
+
+    /** @return when the phase started, in nanoseconds since the creation of the timeline. */
+    public long getStartNanos() {
+      return m_startNanos;
+    }
+
+    public long getDurationNanos() {
+      return m_durationNanos;
+    }
+
+    /** @return the duration of the phase, in milliseconds. */
+    public long getDurationMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(m_durationNanos);
+    }
+
+    @Override
+    public String toString() {
+      return m_phase + " " + m_name + " " + getDurationMillis() + " ms";
+    }
+  }
+}
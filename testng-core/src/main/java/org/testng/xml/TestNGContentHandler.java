@@ -258,6 +258,15 @@ public class TestNGContentHandler extends DefaultHandler {
       if (null != dataProviderThreadCount) {
         m_currentSuite.setDataProviderThreadCount(Integer.parseInt(dataProviderThreadCount));
       }
+      XmlSuite.ParallelExecutor parallelExecutor =
+          XmlSuite.ParallelExecutor.getValidExecutor(attributes.getValue("parallel-executor"));
+      if (null != parallelExecutor) {
+        m_currentSuite.setParallelExecutor(parallelExecutor);
+      }
+      String shard = attributes.getValue("shard");
+      if (null != shard) {
+        m_currentSuite.setShard(shard);
+      }
       String timeOut = attributes.getValue("time-out");
       if (null != timeOut) {
         m_currentSuite.setTimeOut(timeOut);
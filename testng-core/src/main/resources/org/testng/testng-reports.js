@@ -1,5 +1,6 @@
 $(document).ready(function() {
-    $('a.navigator-link').on("click", function() {
+    // Delegated, since the links to the methods can come from shards loaded later
+    $(document).on("click", 'a.navigator-link', function() {
         // Extract the panel for this link
         var panel = getPanelName($(this));
 
@@ -10,11 +11,13 @@ $(document).ready(function() {
         showPanel(panel);
     });
 
+    // The failed and skipped methods are shown, so a sharded report loads their lists
+    // for all the suites when it opens
     installMethodHandlers('failed');
     installMethodHandlers('skipped');
     installMethodHandlers('passed', true); // hide passed methods by default
 
-    $('a.method').on("click", function() {
+    $(document).on("click", 'a.method', function() {
         showMethod($(this));
         return false;
     });
@@ -71,6 +74,7 @@ function installMethodHandlers(name, hide) {
         getShowLink($(this), name).hide();
     showPanel(getPanelName($(this)));
     getMethodPanelClassSel($(this), name).show();
+        loadShards(w.add(getMethodPanelClassSel($(this), name)));
     });
 
     if (hide) {
@@ -88,21 +92,94 @@ function getPanelName(element) {
     return element.attr('panel-name');
 }
 
-function showPanel(panelName) {
+function showPanel(panelName, callback) {
     $('.panel').hide();
     var panel = $('.panel[panel-name="' + panelName + '"]');
     panel.show();
+    loadShards(panel, callback);
 }
 
 function showMethod(element) {
     var hashTag = getHashForMethod(element);
     var panelName = getPanelName(element);
-    showPanel(panelName);
-    var current = document.location.href;
-    var base = current.substring(0, current.indexOf('#'))
-    document.location.href = base + '#' + hashTag;
-    var newPosition = $(document).scrollTop() - 65;
-    $(document).scrollTop(newPosition);
+    showPanel(panelName, function() {
+        var current = document.location.href;
+        var base = current.substring(0, current.indexOf('#'))
+        document.location.href = base + '#' + hashTag;
+        var newPosition = $(document).scrollTop() - 65;
+        $(document).scrollTop(newPosition);
+    });
+}
+
+// The reports generated with -Dtestng.report.html.sharded=true keep the results in
+// shards/<id>.js, loaded when the element with the data-shard="<id>" attribute is shown.
+// Maps the id of each shard to the callbacks waiting for it, or to true once it's loaded.
+var shards = {};
+
+// Loads the shards of the visible elements, then invokes the callback. The visibility
+// is checked once the current handlers are done, since they show and hide several parts
+// of the page in a row.
+function loadShards(elements, callback) {
+    setTimeout(function() {
+        var pending = 1;
+        function done() {
+            if (--pending == 0 && callback) {
+                callback();
+            }
+        }
+        elements.find('[data-shard]').addBack('[data-shard]').filter(':visible').each(function() {
+            var id = $(this).attr('data-shard');
+            if (shards[id] === true) {
+                return;
+            }
+            pending++;
+            if (!shards[id]) {
+                shards[id] = [];
+                var script = document.createElement('script');
+                script.src = 'shards/' + id + '.js';
+                document.body.appendChild(script);
+            }
+            shards[id].push(done);
+        });
+        done();
+    }, 0);
+}
+
+// Invoked by each shard: the content is either HTML or the array of the methods of a class.
+function testngShard(id, content) {
+    var element = $('[data-shard="' + id + '"]');
+    if (typeof content === 'string') {
+        element.html(content);
+    } else {
+        for (var i = 0; i < content.length; i++) {
+            element.append(methodElement(content[i]));
+        }
+    }
+    if (element.find('.times-div').length > 0 && window.google && google.visualization
+            && google.visualization.Table) {
+        drawTable();
+    }
+    var callbacks = shards[id] || [];
+    shards[id] = true;
+    for (var k = 0; k < callbacks.length; k++) {
+        callbacks[k]();
+    }
+}
+
+function methodElement(method) {
+    var content = $('<div class="method-content"></div>');
+    content.append($('<a></a>').attr('name', method.anchor));
+    content.append($('<span class="method-name"></span>').text(method.method));
+    if (method.parameters) {
+        content.append($('<span class="parameters"></span>').text('(' + method.parameters + ')'));
+    }
+    if (method.stackTrace) {
+        content.append($('<div class="stack-trace"></div>').text(method.stackTrace));
+    }
+    if (method.description) {
+        content.append($('<em></em>').text('(' + method.description + ')'));
+    }
+    return $('<div class="method"></div>').append(content);
 }
 
 function drawTable() {
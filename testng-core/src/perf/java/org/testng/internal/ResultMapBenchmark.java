@@ -0,0 +1,79 @@
+package org.testng.internal;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.testng.IResultMap;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.collections.Lists;
+import org.testng.internal.paramhandler.FakeTestNGMethod;
+
+/**
+ * Measures how long it takes to look up and to remove the results of each method of a {@link
+ * ResultMap} holding a million results. Run it with <code>./gradlew :testng-core:benchmark
+ * -Pbenchmark=org.testng.internal.ResultMapBenchmark</code>.
+ */
+public class ResultMapBenchmark {
+
+  private static final int METHODS = 10_000;
+  private static final int RESULTS_PER_METHOD = 100;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) {
+    for (int round = 0; round < ROUNDS; round++) {
+      List<ITestNGMethod> methods = Lists.newArrayList(METHODS);
+      IntStream.range(0, METHODS)
+          .forEach(i -> methods.add(new FakeTestNGMethod(ResultMapBenchmark.class, "main")));
+      IResultMap map = new ResultMap();
+      long start = System.nanoTime();
+      methods
+          .parallelStream()
+          .forEach(
+              method -> {
+                for (int i = 0; i < RESULTS_PER_METHOD; i++) {
+                  map.addResult(newResult(method));
+                }
+              });
+      long addMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      start = System.nanoTime();
+      int found = 0;
+      for (ITestNGMethod method : methods) {
+        found += map.getResults(method).size();
+      }
+      long lookupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      start = System.nanoTime();
+      methods.subList(0, METHODS / 2).forEach(map::removeResult);
+      long removalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      System.out.printf(
+          "%d results added in %d ms, found with %d lookups in %d ms, %d removals in %d ms%n",
+          found, addMillis, METHODS, lookupMillis, METHODS / 2, removalMillis);
+    }
+  }
+
+  /** A result that only knows its method, so that a million of them fit in the heap. */
+  private static ITestResult newResult(ITestNGMethod method) {
+    return (ITestResult)
+        Proxy.newProxyInstance(
+            ResultMapBenchmark.class.getClassLoader(),
+            new Class<?>[] {ITestResult.class},
+            (proxy, m, args) -> {
+              switch (m.getName()) {
+                case "getMethod":
+                  return method;
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return "Result of " + method;
+                default:
+                  throw new UnsupportedOperationException(m.getName());
+              }
+            });
+  }
+}
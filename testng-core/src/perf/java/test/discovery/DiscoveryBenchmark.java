@@ -0,0 +1,172 @@
+package test.discovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.testng.IMethodInterceptor;
+import org.testng.TestNG;
+import org.testng.collections.Lists;
+import org.testng.index.TestIndexProcessor;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/**
+ * Measures how long TestNG takes to discover a large number of test classes: sequentially, with the
+ * parallel discovery, and with the index written by the annotation processor. The classes are
+ * generated and compiled first, and each run loads them with a new class loader, so that no run
+ * benefits from the reflection data cached by the previous ones. The tests are intercepted away, so
+ * only the discovery is measured.
+ *
+ * <p>Run it with <code>./gradlew :testng-core:benchmark
+ * -Pbenchmark=test.discovery.DiscoveryBenchmark --args="[classes] [runs]"</code> (5000 classes and
+ * 5 runs by default). It needs a JDK, to compile the classes.
+ */
+public class DiscoveryBenchmark {
+
+  private static final String PACKAGE = "bench";
+
+  private enum Mode {
+    SEQUENTIAL("Sequential", false, false),
+    PARALLEL("Parallel", true, false),
+    INDEX("Indexed", false, true);
+
+    private final String m_description;
+    private final boolean m_parallel;
+    private final boolean m_index;
+
+    Mode(String description, boolean parallel, boolean index) {
+      m_description = description;
+      m_parallel = parallel;
+      m_index = index;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+    int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    Path classes = generate(classCount);
+
+    // The first runs warm TestNG itself up.
+    for (Mode mode : Mode.values()) {
+      discover(classes, classCount, mode);
+    }
+    for (Mode mode : Mode.values()) {
+      long total = 0;
+      long best = Long.MAX_VALUE;
+      for (int i = 0; i < runs; i++) {
+        long millis = discover(classes, classCount, mode);
+        total += millis;
+        best = Math.min(best, millis);
+      }
+      System.out.printf(
+          "%s discovery of %d classes: %d ms on average, %d ms at best (%d cores)%n",
+          mode.m_description,
+          classCount,
+          total / runs,
+          best,
+          Runtime.getRuntime().availableProcessors());
+    }
+  }
+
+  /** @return the directory the classes were compiled to. */
+  private static Path generate(int classCount) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("The benchmark has to run on a JDK");
+    }
+    Path root = Files.createTempDirectory("discovery");
+    Path sources = Files.createDirectories(root.resolve("src").resolve(PACKAGE));
+    List<String> arguments = Lists.newArrayList();
+    arguments.add("-nowarn");
+    arguments.add("-processor");
+    arguments.add(TestIndexProcessor.class.getName());
+    arguments.add("-cp");
+    arguments.add(System.getProperty("java.class.path"));
+    arguments.add("-d");
+    arguments.add(root.resolve("classes").toString());
+    arguments.add(write(sources, "Base", "", "  @BeforeClass public void setUp() {}\n"));
+    for (int i = 0; i < classCount; i++) {
+      StringBuilder body = new StringBuilder();
+      for (int m = 0; m < 10; m++) {
+        body.append("  @Test(groups = \"g")
+            .append(m % 3)
+            .append("\") public void test")
+            .append(m)
+            .append("() {}\n");
+      }
+      body.append("  @AfterMethod public void tearDown() {}\n");
+      body.append("  public void helper() {}\n");
+      arguments.add(write(sources, "Test" + i, " extends Base", body.toString()));
+    }
+    Files.createDirectories(root.resolve("classes"));
+    if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+      throw new IllegalStateException("The generated classes don't compile");
+    }
+    return root.resolve("classes");
+  }
+
+  private static String write(Path directory, String name, String extendsClause, String body)
+      throws IOException {
+    String source =
+        "package "
+            + PACKAGE
+            + ";\n"
+            + "import org.testng.annotations.*;\n"
+            + "public class "
+            + name
+            + extendsClause
+            + " {\n"
+            + body
+            + "}\n";
+    Path file = directory.resolve(name + ".java");
+    Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    return file.toString();
+  }
+
+  /** @return how long the discovery took, in milliseconds. */
+  private static long discover(Path classes, int classCount, Mode mode) throws IOException {
+    System.setProperty(
+        RuntimeBehavior.TESTNG_PARALLEL_DISCOVERY, Boolean.toString(mode.m_parallel));
+    System.setProperty(RuntimeBehavior.TESTNG_TEST_INDEX, Boolean.toString(mode.m_index));
+    Thread thread = Thread.currentThread();
+    ClassLoader previous = thread.getContextClassLoader();
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {classes.toUri().toURL()}, previous)) {
+      thread.setContextClassLoader(loader);
+      XmlSuite suite = new XmlSuite();
+      suite.setName("Discovery");
+      suite.setVerbose(0);
+      XmlTest test = new XmlTest(suite);
+      test.setName("Discovery");
+      List<XmlClass> xmlClasses = Lists.newArrayList();
+      for (int i = 0; i < classCount; i++) {
+        xmlClasses.add(new XmlClass(PACKAGE + ".Test" + i, i, false));
+      }
+      test.setXmlClasses(xmlClasses);
+
+      TestNG tng = new TestNG(false);
+      tng.setUseDefaultListeners(false);
+      tng.setOutputDirectory(new File(classes.toFile(), "output").getAbsolutePath());
+      tng.setXmlSuites(Collections.singletonList(suite));
+      tng.setVerbose(0);
+      tng.addListener((IMethodInterceptor) (methods, context) -> Lists.newArrayList());
+      long start = System.nanoTime();
+      tng.run();
+      return (System.nanoTime() - start) / 1_000_000;
+    } finally {
+      thread.setContextClassLoader(previous);
+      System.clearProperty(RuntimeBehavior.TESTNG_PARALLEL_DISCOVERY);
+      System.clearProperty(RuntimeBehavior.TESTNG_TEST_INDEX);
+    }
+  }
+}
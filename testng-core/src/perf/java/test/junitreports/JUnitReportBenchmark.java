@@ -0,0 +1,169 @@
+package test.junitreports;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.TestNG;
+import org.testng.collections.Lists;
+import org.testng.reporters.JUnitReportReporter;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/**
+ * Measures how long the {@link JUnitReportReporter} takes to write the reports of a large number of
+ * test classes, one file after the other and on all the cores. The classes are generated, compiled
+ * and run once, and the reports of their results are then written several times in each mode.
+ *
+ * <p>Run it with <code>./gradlew :testng-core:benchmark
+ * -Pbenchmark=test.junitreports.JUnitReportBenchmark --args="[classes] [runs]"</code> (10000
+ * classes and 5 runs by default). It needs a JDK, to compile the classes.
+ */
+public class JUnitReportBenchmark {
+
+  private static final String PACKAGE = "bench";
+
+  public static void main(String[] args) throws Exception {
+    int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    Path root = generate(classCount);
+    Results results = run(root.resolve("classes"), classCount);
+    String outputDirectory = root.resolve("output").toString();
+    int cores = Runtime.getRuntime().availableProcessors();
+
+    // The first runs warm the reporter up.
+    report(results, outputDirectory, 1);
+    report(results, outputDirectory, cores);
+    for (int threadCount : cores > 1 ? new int[] {1, cores} : new int[] {1}) {
+      long total = 0;
+      long best = Long.MAX_VALUE;
+      for (int i = 0; i < runs; i++) {
+        long millis = report(results, outputDirectory, threadCount);
+        total += millis;
+        best = Math.min(best, millis);
+      }
+      System.out.printf(
+          "Reports of %d classes on %d threads: %d ms on average, %d ms at best (%d cores)%n",
+          classCount, threadCount, total / runs, best, cores);
+    }
+  }
+
+  /** @return the directory the classes were generated in. */
+  private static Path generate(int classCount) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("The benchmark has to run on a JDK");
+    }
+    Path root = Files.createTempDirectory("junitreports");
+    Path sources = Files.createDirectories(root.resolve("src").resolve(PACKAGE));
+    List<String> arguments = Lists.newArrayList();
+    arguments.add("-nowarn");
+    arguments.add("-proc:none");
+    arguments.add("-cp");
+    arguments.add(System.getProperty("java.class.path"));
+    arguments.add("-d");
+    arguments.add(root.resolve("classes").toString());
+    for (int i = 0; i < classCount; i++) {
+      StringBuilder body = new StringBuilder();
+      body.append("  @BeforeMethod public void setUp() {}\n");
+      for (int m = 0; m < 4; m++) {
+        body.append("  @Test public void test")
+            .append(m)
+            .append("() { Reporter.log(\"Running test")
+            .append(m)
+            .append("\"); }\n");
+      }
+      body.append("  @Test public void fails() { Assert.fail(\"Failing on purpose\"); }\n");
+      body.append(
+          "  @Test public void skipped() { throw new SkipException(\"Skipping on purpose\"); }\n");
+      body.append("  @Test(enabled = false) public void disabled() {}\n");
+      arguments.add(write(sources, "Test" + i, body.toString()));
+    }
+    Files.createDirectories(root.resolve("classes"));
+    if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+      throw new IllegalStateException("The generated classes don't compile");
+    }
+    return root;
+  }
+
+  private static String write(Path directory, String name, String body) throws IOException {
+    String source =
+        "package "
+            + PACKAGE
+            + ";\n"
+            + "import org.testng.*;\n"
+            + "import org.testng.annotations.*;\n"
+            + "public class "
+            + name
+            + " {\n"
+            + body
+            + "}\n";
+    Path file = directory.resolve(name + ".java");
+    Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    return file.toString();
+  }
+
+  /** @return the results of the classes, which are run once. */
+  private static Results run(Path classes, int classCount) throws IOException {
+    Thread thread = Thread.currentThread();
+    ClassLoader previous = thread.getContextClassLoader();
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {classes.toUri().toURL()}, previous)) {
+      thread.setContextClassLoader(loader);
+      XmlSuite suite = new XmlSuite();
+      suite.setName("JUnit reports");
+      suite.setVerbose(0);
+      XmlTest test = new XmlTest(suite);
+      test.setName("JUnit reports");
+      List<XmlClass> xmlClasses = Lists.newArrayList();
+      for (int i = 0; i < classCount; i++) {
+        xmlClasses.add(new XmlClass(PACKAGE + ".Test" + i, i, false));
+      }
+      test.setXmlClasses(xmlClasses);
+
+      Results results = new Results();
+      TestNG tng = new TestNG(false);
+      tng.setUseDefaultListeners(false);
+      tng.setOutputDirectory(new File(classes.toFile(), "output").getAbsolutePath());
+      tng.setXmlSuites(Collections.singletonList(suite));
+      tng.setVerbose(0);
+      tng.addListener(results);
+      tng.run();
+      return results;
+    } finally {
+      thread.setContextClassLoader(previous);
+    }
+  }
+
+  /** @return how long writing the reports took, in milliseconds. */
+  private static long report(Results results, String outputDirectory, int threadCount) {
+    JUnitReportReporter reporter = new JUnitReportReporter();
+    reporter.setThreadCount(threadCount);
+    long start = System.nanoTime();
+    reporter.generateReport(results.m_xmlSuites, results.m_suites, outputDirectory);
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  /** Keeps the results of the run, to report them again and again. */
+  private static class Results implements IReporter {
+    private List<XmlSuite> m_xmlSuites;
+    private List<ISuite> m_suites;
+
+    @Override
+    public void generateReport(
+        List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+      m_xmlSuites = xmlSuites;
+      m_suites = suites;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package test.timeout;
+
+import java.util.concurrent.TimeUnit;
+import org.testng.TestNG;
+import org.testng.internal.thread.TimeoutService;
+import org.testng.xml.XmlSuite;
+
+/**
+ * Measures what a time-out costs an invocation: registering and cancelling a deadline, and running
+ * a data provider of {@link TimedDataProviderSample#ROWS} rows with a time-out, sequentially and in
+ * parallel. Run it with <code>./gradlew :testng-core:benchmark
+ * -Pbenchmark=test.timeout.TimeoutServiceBenchmark</code>.
+ */
+public class TimeoutServiceBenchmark {
+
+  private static final int DEADLINES = 1_000_000;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) {
+    TimeoutService service = TimeoutService.getInstance();
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < DEADLINES; i++) {
+        service.watch(Thread.currentThread(), 60_000).cancel();
+      }
+      System.out.printf(
+          "Deadline registered and cancelled in %d ns%n", (System.nanoTime() - start) / DEADLINES);
+    }
+
+    for (XmlSuite.ParallelMode parallel :
+        new XmlSuite.ParallelMode[] {XmlSuite.ParallelMode.NONE, XmlSuite.ParallelMode.METHODS}) {
+      for (int round = 0; round < ROUNDS; round++) {
+        TestNG tng = new TestNG(false);
+        tng.setTestClasses(new Class<?>[] {TimedDataProviderSample.class});
+        tng.setParallel(parallel);
+        tng.setThreadCount(4);
+        tng.setVerbose(0);
+        long threads = service.getStartedThreadCount();
+        long start = System.nanoTime();
+        tng.run();
+        System.out.printf(
+            "parallel=%s: %d timed invocations in %d ms, %d threads started%n",
+            parallel,
+            TimedDataProviderSample.ROWS,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            service.getStartedThreadCount() - threads);
+      }
+    }
+  }
+}
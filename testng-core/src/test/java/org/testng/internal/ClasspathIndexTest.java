@@ -0,0 +1,116 @@
+package org.testng.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.testng.annotations.Test;
+
+public class ClasspathIndexTest {
+
+  /** Old enough for the entries to be stored. */
+  private static final long LONG_AGO = System.currentTimeMillis() - 60_000;
+
+  @Test
+  public void jarsAreOnlyScannedAgainWhenTheyChange() throws IOException {
+    File directory = Files.createTempDirectory("index").toFile();
+    File file = new File(directory, "index.bin");
+    File jar = new File(directory, "classes.jar");
+    writeJar(jar, LONG_AGO, "a/B.class", "a/c/D.class", "META-INF/MANIFEST.MF");
+
+    ClasspathIndex index = ClasspathIndex.open(file);
+    index.index(Collections.singletonList(jar));
+    assertThat(index.getScanCount()).isEqualTo(1);
+    assertThat(index.getJarEntries(jar)).containsExactly("a/B.class", "a/c/D.class");
+    assertThat(index.getScanCount()).isEqualTo(1);
+    index.save();
+
+    index = ClasspathIndex.open(file);
+    assertThat(index.getJarEntries(jar)).containsExactly("a/B.class", "a/c/D.class");
+    assertThat(index.getScanCount()).isEqualTo(0);
+
+    writeJar(jar, LONG_AGO + 1000, "a/B.class", "a/E.class");
+    index = ClasspathIndex.open(file);
+    assertThat(index.getJarEntries(jar)).containsExactly("a/B.class", "a/E.class");
+    assertThat(index.getScanCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void directoriesAreScannedAgainWhenTheirFilesChange() throws IOException {
+    File directory = Files.createTempDirectory("index").toFile();
+    File file = new File(directory, "index.bin");
+    File classes = new File(directory, "classes");
+    new File(classes, "sub").mkdirs();
+    new File(classes, "A.class").createNewFile();
+    new File(classes, "notes.txt").createNewFile();
+    classes.setLastModified(LONG_AGO);
+
+    ClasspathIndex index = ClasspathIndex.open(file);
+    assertThat(index.getDirectoryEntries(classes)).containsExactlyInAnyOrder("A.class", "sub/");
+    index.save();
+
+    index = ClasspathIndex.open(file);
+    assertThat(index.getDirectoryEntries(classes)).containsExactlyInAnyOrder("A.class", "sub/");
+    assertThat(index.getScanCount()).isEqualTo(0);
+
+    new File(classes, "B.class").createNewFile();
+    classes.setLastModified(LONG_AGO + 1000);
+    index = ClasspathIndex.open(file);
+    assertThat(index.getDirectoryEntries(classes))
+        .containsExactlyInAnyOrder("A.class", "B.class", "sub/");
+    assertThat(index.getScanCount()).isEqualTo(1);
+    assertThat(index.getDirectoryEntries(new File(directory, "missing"))).isNull();
+  }
+
+  @Test
+  public void recentEntriesAreNotStored() throws IOException {
+    File directory = Files.createTempDirectory("index").toFile();
+    File file = new File(directory, "index.bin");
+    File jar = new File(directory, "classes.jar");
+    writeJar(jar, System.currentTimeMillis(), "a/B.class");
+
+    ClasspathIndex index = ClasspathIndex.open(file);
+    index.getJarEntries(jar);
+    index.save();
+
+    index = ClasspathIndex.open(file);
+    assertThat(index.getJarEntries(jar)).containsExactly("a/B.class");
+    assertThat(index.getScanCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void packagesAreFoundWithTheStoredIndex() throws IOException {
+    File file = Files.createTempDirectory("index").resolve("index.bin").toFile();
+    String previous = System.setProperty(RuntimeBehavior.TESTNG_SCAN_INDEX, file.getPath());
+    try {
+      List<String> empty = Collections.emptyList();
+      String[] first = PackageUtils.findClassesInPackage("org.testng.internal.*", empty, empty);
+      String[] second = PackageUtils.findClassesInPackage("org.testng.internal.*", empty, empty);
+      assertThat(first).contains(ClasspathIndexTest.class.getName());
+      assertThat(Arrays.asList(second)).isEqualTo(Arrays.asList(first));
+    } finally {
+      if (previous == null) {
+        System.clearProperty(RuntimeBehavior.TESTNG_SCAN_INDEX);
+      } else {
+        System.setProperty(RuntimeBehavior.TESTNG_SCAN_INDEX, previous);
+      }
+    }
+  }
+
+  private static void writeJar(File jar, long lastModified, String... names) throws IOException {
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+      for (String name : names) {
+        out.putNextEntry(new JarEntry(name));
+        out.closeEntry();
+      }
+    }
+    jar.setLastModified(lastModified);
+  }
+}
@@ -5,11 +5,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.testng.Assert;
 import org.testng.IDynamicGraph;
 import org.testng.IDynamicGraph.Status;
 import org.testng.ITestNGMethod;
 import org.testng.TestNG;
+import org.testng.TestRunner;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.testng.collections.ListMultiMap;
 import org.testng.collections.Lists;
@@ -425,4 +428,84 @@ public class DynamicGraphTest extends SimpleBaseTest {
     assertThat(dg.getNodeCountWithStatus(Status.READY)).isEqualTo(0);
     assertThat(dg.getNodeCountWithStatus(Status.FINISHED)).isEqualTo(100);
   }
+
+  /**
+   * Scheduling a graph must not become quadratic in the number of nodes. This walks graphs of 100k
+   * nodes the way the graph executor does (run all the free nodes, then ask for the next ones), and
+   * checks that every node is handed out exactly once and that finishing the nodes never splices
+   * virtual edges in: the work stays proportional to the number of nodes and edges.
+   */
+  @Test(dataProvider = "largeGraphs")
+  public void testSchedulingScalesWithTheNumberOfNodes(int fanOut) {
+    int nodeCount = 100_000;
+    DynamicGraph<Integer> dg = new DynamicGraph<>();
+    for (int i = 0; i < nodeCount; i++) {
+      dg.addNode(i);
+      if (i >= fanOut) {
+        // Every node depends upon a node of the previous "layer".
+        dg.addEdge(TestRunner.PriorityWeight.dependsOnMethods.ordinal(), i, i - fanOut);
+      }
+    }
+    assertThat(edgeCount(dg)).isEqualTo(nodeCount - Math.min(fanOut, nodeCount));
+
+    int handedOut = 0;
+    int rounds = 0;
+    List<Integer> freeNodes = dg.getFreeNodes();
+    while (!freeNodes.isEmpty()) {
+      handedOut += freeNodes.size();
+      rounds++;
+      dg.setStatus(freeNodes, Status.RUNNING);
+      dg.setStatus(freeNodes, Status.FINISHED);
+      freeNodes = dg.getFreeNodes();
+    }
+
+    assertThat(handedOut).isEqualTo(nodeCount);
+    assertThat(rounds).isEqualTo((nodeCount + fanOut - 1) / fanOut);
+    assertThat(dg.getNodeCountWithStatus(Status.FINISHED)).isEqualTo(nodeCount);
+    assertThat(edgeCount(dg)).isZero();
+  }
+
+  @Test(description = "Finishing a node splices its edges in by weight")
+  public void testFinishingANodeSplicesItsEdgesByWeight() {
+    DynamicGraph<String> dg = new DynamicGraph<>();
+    int light = TestRunner.PriorityWeight.priority.ordinal();
+    int heavy = TestRunner.PriorityWeight.dependsOnMethods.ordinal();
+    int count = 100;
+    dg.addNode("hub");
+    for (int i = 0; i < count; i++) {
+      dg.addNode("light-in" + i);
+      dg.addNode("heavy-in" + i);
+      dg.addNode("light-out" + i);
+      dg.addNode("heavy-out" + i);
+      dg.addEdge(light, "light-in" + i, "hub");
+      dg.addEdge(heavy, "heavy-in" + i, "hub");
+      dg.addEdge(light, "hub", "light-out" + i);
+      dg.addEdge(heavy, "hub", "heavy-out" + i);
+    }
+
+    dg.setStatus("hub", Status.FINISHED);
+
+    // The light incoming edges go on to every outgoing edge, the heavy ones to the heavy ones only.
+    assertThat(edgeCount(dg)).isEqualTo(3 * count * count);
+    assertThat(dg.getEdges().get("light-in0")).containsEntry("light-out0", light);
+    assertThat(dg.getEdges().get("light-in0")).containsEntry("heavy-out0", heavy);
+    assertThat(dg.getEdges().get("heavy-in0")).containsOnlyKeys(heavyOuts(count));
+  }
+
+  private static String[] heavyOuts(int count) {
+    String[] result = new String[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = "heavy-out" + i;
+    }
+    return result;
+  }
+
+  private static int edgeCount(DynamicGraph<?> dg) {
+    return dg.getEdges().values().stream().mapToInt(Map::size).sum();
+  }
+
+  @DataProvider(name = "largeGraphs")
+  public Object[][] largeGraphs() {
+    return new Object[][] {{1}, {100}, {100_000}};
+  }
 }
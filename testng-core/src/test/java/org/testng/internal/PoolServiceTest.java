@@ -0,0 +1,70 @@
+package org.testng.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.testng.TestNGException;
+import org.testng.annotations.Test;
+
+public class PoolServiceTest {
+
+  @Test(description = "The results are in the order of the tasks, whatever order they complete in")
+  public void resultsAreInTheOrderOfTheTasks() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Callable<Integer>> tasks =
+        IntStream.range(0, 20)
+            .mapToObj(
+                i ->
+                    (Callable<Integer>)
+                        () -> {
+                          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                          TimeUnit.MILLISECONDS.sleep(i % 3 == 0 ? 10 : 1);
+                          running.decrementAndGet();
+                          return i;
+                        })
+            .collect(Collectors.toList());
+    PoolService<Integer> pool = new PoolService<>(3);
+    try {
+      List<Integer> results = pool.submitTasksAndWait(tasks.iterator(), 3);
+
+      assertThat(results).isEqualTo(IntStream.range(0, 20).boxed().collect(Collectors.toList()));
+      assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(description = "All the tasks run, and the failure of the first failed task is reported")
+  public void firstFailureIsReported() {
+    AtomicInteger ran = new AtomicInteger();
+    List<Callable<Integer>> tasks =
+        IntStream.range(0, 10)
+            .mapToObj(
+                i ->
+                    (Callable<Integer>)
+                        () -> {
+                          ran.incrementAndGet();
+                          if (i == 3 || i == 7) {
+                            throw new IllegalStateException("Task " + i);
+                          }
+                          return i;
+                        })
+            .collect(Collectors.toList());
+    PoolService<Integer> pool = new PoolService<>(2);
+    try {
+      assertThatThrownBy(() -> pool.submitTasksAndWait(tasks.iterator(), 2))
+          .isInstanceOf(TestNGException.class)
+          .hasMessageContaining("Task 3");
+      assertThat(ran.get()).isEqualTo(10);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package org.testng.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.testng.IResultMap;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.internal.paramhandler.FakeTestNGMethod;
+
+public class ResultMapTest {
+
+  @Test
+  public void resultsAreIndexedByMethod() {
+    ITestNGMethod a = newMethod();
+    ITestNGMethod b = newMethod();
+    ITestResult a1 = newResult(a);
+    ITestResult a2 = newResult(a);
+    ITestResult b1 = newResult(b);
+    IResultMap map = new ResultMap();
+    map.addResult(a1);
+    map.addResult(a2);
+    map.addResult(b1);
+
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.getResults(a)).containsExactlyInAnyOrder(a1, a2);
+    assertThat(map.getAllMethods()).containsExactlyInAnyOrder(a, b);
+
+    map.removeResult(b1);
+    assertThat(map.getResults(b)).isEmpty();
+    assertThat(map.getAllMethods()).containsExactly(a);
+
+    map.removeResult(a);
+    assertThat(map.getAllResults()).isEmpty();
+    assertThat(map.getAllMethods()).isEmpty();
+  }
+
+  @Test
+  public void resultsOfWrappedMethodsAreFoundUnderTheWrappedMethod() {
+    ITestNGMethod method = newMethod();
+    ITestResult result = newResult(new WrappedTestNGMethod(method));
+    IResultMap map = new ResultMap();
+    map.addResult(result);
+
+    assertThat(map.getResults(method)).containsExactly(result);
+    map.removeResult(method);
+    assertThat(map.size()).isEqualTo(0);
+  }
+
+  @Test(description = "The results removed through getAllResults() are removed from the index")
+  public void resultsCanBeRemovedThroughAllResults() {
+    ITestNGMethod a = newMethod();
+    ITestNGMethod b = newMethod();
+    ITestResult a1 = newResult(a);
+    ITestResult a2 = newResult(a);
+    ITestResult b1 = newResult(b);
+    IResultMap map = new ResultMap();
+    map.addResult(a1);
+    map.addResult(a2);
+    map.addResult(b1);
+
+    Iterator<ITestResult> iterator = map.getAllResults().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() == a1) {
+        iterator.remove();
+      }
+    }
+    assertThat(map.size()).isEqualTo(2);
+    assertThat(map.getResults(a)).containsExactly(a2);
+
+    assertThat(map.getAllResults().remove(b1)).isTrue();
+    assertThat(map.getAllResults().remove(b1)).isFalse();
+    assertThat(map.getResults(b)).isEmpty();
+    assertThat(map.getAllMethods()).containsExactly(a);
+
+    map.getAllResults().clear();
+    assertThat(map.size()).isEqualTo(0);
+    assertThat(map.getResults(a)).isEmpty();
+    assertThat(map.getAllMethods()).isEmpty();
+  }
+
+  @Test(description = "The index stays consistent with the results added concurrently")
+  public void indexIsConsistentWithTheResults() {
+    int methodCount = 1_000;
+    int resultsPerMethod = 10;
+    List<ITestNGMethod> methods = Lists.newArrayList(methodCount);
+    IntStream.range(0, methodCount).forEach(i -> methods.add(newMethod()));
+    IResultMap map = new ResultMap();
+    methods
+        .parallelStream()
+        .forEach(
+            method -> {
+              for (int i = 0; i < resultsPerMethod; i++) {
+                map.addResult(newResult(method));
+              }
+            });
+    assertThat(map.size()).isEqualTo(methodCount * resultsPerMethod);
+    assertThat(map.getAllMethods()).hasSize(methodCount);
+    for (ITestNGMethod method : methods) {
+      assertThat(map.getResults(method)).hasSize(resultsPerMethod);
+    }
+
+    methods.subList(0, methodCount / 2).forEach(map::removeResult);
+    ITestNGMethod last = methods.get(methodCount - 1);
+    map.getResults(last).forEach(map::removeResult);
+
+    assertThat(map.size()).isEqualTo((methodCount / 2 - 1) * resultsPerMethod);
+    assertThat(map.getAllMethods()).hasSize(methodCount / 2 - 1);
+    assertThat(map.getResults(methods.get(0))).isEmpty();
+    assertThat(map.getResults(last)).isEmpty();
+    assertThat(map.getResults(methods.get(methodCount / 2))).hasSize(resultsPerMethod);
+  }
+
+  private static ITestNGMethod newMethod() {
+    return new FakeTestNGMethod(ResultMapTest.class, "resultsAreIndexedByMethod");
+  }
+
+  /** A result that only knows its method. */
+  private static ITestResult newResult(ITestNGMethod method) {
+    return (ITestResult)
+        Proxy.newProxyInstance(
+            ResultMapTest.class.getClassLoader(),
+            new Class<?>[] {ITestResult.class},
+            (proxy, m, args) -> {
+              switch (m.getName()) {
+                case "getMethod":
+                  return method;
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return "Result of " + method;
+                default:
+                  throw new UnsupportedOperationException(m.getName());
+              }
+            });
+  }
+}
@@ -0,0 +1,39 @@
+package org.testng.internal.fork;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+import test.fork.ForkHangingSample;
+
+public class WorkerPoolTest extends SimpleBaseTest {
+
+  @Test(description = "A worker that sends nothing back before the time-out is stopped")
+  public void hungWorkersAreStopped() throws Exception {
+    XmlSuite suite = createXmlSuite("suite");
+    createXmlTest(suite, "test", ForkHangingSample.class);
+    String signature = ForkHangingSample.class.getName() + ".hangs()@0";
+    CompletableFuture<Throwable> failure = new CompletableFuture<>();
+    long start = System.currentTimeMillis();
+    try (WorkerPool pool = new WorkerPool(1, 2_000)) {
+      pool.submit(
+          new WorkUnit(suite.toXml(), Collections.singleton(signature)) {
+            @Override
+            void onResult(ForkedResult result) {}
+
+            @Override
+            void onFinish(Throwable t) {
+              failure.complete(t);
+            }
+          });
+      assertThat(failure.get(60, TimeUnit.SECONDS)).isInstanceOf(SocketTimeoutException.class);
+    }
+    // The worker was stopped rather than waited for.
+    assertThat(System.currentTimeMillis() - start).isLessThan(60_000L);
+  }
+}
@@ -0,0 +1,64 @@
+package org.testng.reporters.jq;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import test.SimpleBaseTest;
+import test.reports.StreamingXmlSample;
+
+public class ShardedReportTest extends SimpleBaseTest {
+
+  @Test(description = "The results are written to shards that index.html loads when shown")
+  public void resultsAreSharded() throws Exception {
+    File directory = run(true);
+
+    String index = read(new File(directory, "index.html"));
+    assertThat(index).contains(Shards.ATTRIBUTE + "=\"");
+    assertThat(index).doesNotContain("method-content").doesNotContain("stack-trace");
+    File[] shards = new File(directory, Shards.DIRECTORY).listFiles();
+    assertThat(shards).isNotEmpty();
+    StringBuilder all = new StringBuilder();
+    for (File shard : shards) {
+      String content = read(shard);
+      assertThat(content).startsWith("testngShard(\"").endsWith(");\n");
+      all.append(content);
+    }
+    assertThat(all.toString())
+        .contains("\"method\":\"withParameters\",\"parameters\":\"\\\"d\\\"\"")
+        .contains("\"description\":\"Fails\"")
+        .contains("]]> in the message");
+  }
+
+  @Test(description = "The results are all in index.html by default")
+  public void resultsAreNotShardedByDefault() throws Exception {
+    File directory = run(false);
+
+    String index = read(new File(directory, "index.html"));
+    assertThat(index).doesNotContain(Shards.ATTRIBUTE).contains("method-content");
+    assertThat(new File(directory, Shards.DIRECTORY)).doesNotExist();
+  }
+
+  @Test
+  public void jsonStrings() {
+    StringBuilder json = new StringBuilder();
+    Shards.appendString(json, "\"a\\b\"\n\t\u0001   é");
+    assertThat(json.toString()).isEqualTo("\"\\\"a\\\\b\\\"\\n\\t\\u0001 \\u2028 é\"");
+  }
+
+  private static File run(boolean sharded) {
+    File directory = createDirInTempDir(UUID.randomUUID().toString());
+    TestNG tng = create(directory.toPath(), StreamingXmlSample.class);
+    tng.addListener(sharded ? new Main(true) : new Main());
+    tng.run();
+    return directory;
+  }
+
+  private static String read(File file) throws Exception {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+}
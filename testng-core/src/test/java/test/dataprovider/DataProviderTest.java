@@ -14,6 +14,7 @@ import org.testng.TestNG;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.testng.internal.reflect.MethodMatcherException;
+import org.testng.xml.XmlSuite;
 import test.InvokedMethodNameListener;
 import test.SimpleBaseTest;
 import test.dataprovider.issue1691.DataProviderDefinitionAtClassLevelAndNoTestMethodUsage;
@@ -406,4 +407,25 @@ public class DataProviderTest extends SimpleBaseTest {
     assertThat(tla.getFailedTests()).size().isEqualTo(1);
     assertThat(tla.getSkippedTests()).size().isEqualTo(2);
   }
+
+  @Test
+  public void parallelDataProviderRowsAreStreamedToASuiteWidePool() {
+    StreamingParallelDataProviderSample.reset();
+    XmlSuite suite = createXmlSuite("suite");
+    suite.setParallel(XmlSuite.ParallelMode.METHODS);
+    suite.setThreadCount(2);
+    suite.setDataProviderThreadCount(3);
+    createXmlTest(suite, "test", StreamingParallelDataProviderSample.class);
+    TestListenerAdapter tla = new TestListenerAdapter();
+    TestNG tng = create(suite);
+    tng.addListener(tla);
+    tng.run();
+
+    assertThat(tla.getPassedTests()).hasSize(2 * StreamingParallelDataProviderSample.ROWS);
+    // Both methods share the same 3 threads
+    assertThat(StreamingParallelDataProviderSample.THREAD_NAMES).hasSize(3);
+    // Each method keeps at most 2 * 3 rows in flight
+    assertThat(StreamingParallelDataProviderSample.MAX_PENDING_ROWS.get())
+        .isLessThanOrEqualTo(2 * 2 * 3 + 2);
+  }
 }
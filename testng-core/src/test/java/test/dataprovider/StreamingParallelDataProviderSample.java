@@ -0,0 +1,55 @@
+package test.dataprovider;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class StreamingParallelDataProviderSample {
+
+  public static final int ROWS = 10_000;
+
+  public static final Set<String> THREAD_NAMES = ConcurrentHashMap.newKeySet();
+  public static final AtomicInteger MAX_PENDING_ROWS = new AtomicInteger();
+  private static final AtomicInteger pulled = new AtomicInteger();
+  private static final AtomicInteger invoked = new AtomicInteger();
+
+  public static void reset() {
+    THREAD_NAMES.clear();
+    MAX_PENDING_ROWS.set(0);
+    pulled.set(0);
+    invoked.set(0);
+  }
+
+  @DataProvider(parallel = true)
+  public Iterator<Object[]> rows() {
+    return new Iterator<Object[]>() {
+      private int row = 0;
+
+      @Override
+      public boolean hasNext() {
+        return row < ROWS;
+      }
+
+      @Override
+      public Object[] next() {
+        MAX_PENDING_ROWS.accumulateAndGet(pulled.incrementAndGet() - invoked.get(), Math::max);
+        return new Object[] {row++};
+      }
+    };
+  }
+
+  @Test(dataProvider = "rows")
+  public void first(int row) {
+    THREAD_NAMES.add(Thread.currentThread().getName());
+    invoked.incrementAndGet();
+  }
+
+  @Test(dataProvider = "rows")
+  public void second(int row) {
+    THREAD_NAMES.add(Thread.currentThread().getName());
+    invoked.incrementAndGet();
+  }
+}
@@ -0,0 +1,13 @@
+package test.discovery;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class DiscoveryBaseSample {
+
+  @BeforeClass
+  public void setUp() {}
+
+  @Test
+  public void inherited() {}
+}
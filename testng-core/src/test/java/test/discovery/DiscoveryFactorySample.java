@@ -0,0 +1,29 @@
+package test.discovery;
+
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+public class DiscoveryFactorySample {
+
+  @Factory
+  public Object[] create() {
+    return new Object[] {new Instance("x"), new Instance("y")};
+  }
+
+  public static class Instance {
+
+    private final String name;
+
+    public Instance(String name) {
+      this.name = name;
+    }
+
+    @Test
+    public void created() {}
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package test.discovery;
+
+import org.testng.annotations.Ignore;
+import org.testng.annotations.Test;
+
+public class DiscoverySample extends DiscoveryBaseSample {
+
+  @Test
+  public void first() {}
+
+  @Test(dependsOnMethods = "first")
+  public void second() {}
+
+  @Ignore
+  @Test
+  public void ignored() {}
+}
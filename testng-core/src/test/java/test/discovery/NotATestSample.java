@@ -0,0 +1,6 @@
+package test.discovery;
+
+public class NotATestSample {
+
+  public void notATest() {}
+}
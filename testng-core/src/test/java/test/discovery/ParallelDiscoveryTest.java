@@ -0,0 +1,129 @@
+package test.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.testng.IAnnotationTransformer;
+import org.testng.TestNG;
+import org.testng.annotations.ITestAnnotation;
+import org.testng.annotations.Test;
+import org.testng.collections.Sets;
+import org.testng.internal.ParallelDiscovery;
+import org.testng.internal.RuntimeBehavior;
+import test.InvokedMethodNameListener;
+import test.SimpleBaseTest;
+
+public class ParallelDiscoveryTest extends SimpleBaseTest {
+
+  private static final Class<?>[] CLASSES = {
+    DiscoverySample.class,
+    NotATestSample.class,
+    DiscoveryFactorySample.class,
+    DiscoveryBaseSample.class,
+    test.shard.ShardDependenciesSample.class
+  };
+
+  @Test
+  public void parallelDiscoveryFindsTheSameMethodsInTheSameOrder() {
+    List<String> sequential = invokedMethods(false);
+    List<String> parallel = invokedMethods(true);
+    assertThat(parallel).isEqualTo(sequential);
+    assertThat(parallel)
+        .contains("setUp", "inherited", "first", "second", "created")
+        .doesNotContain("ignored", "notATest");
+  }
+
+  @Test(description = "The classes are loaded with the context class loader of the caller")
+  public void discoveryUsesTheContextClassLoaderOfTheCaller() {
+    List<Integer> items = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+    Thread thread = Thread.currentThread();
+    ClassLoader previous = thread.getContextClassLoader();
+    ClassLoader loader = new URLClassLoader(new URL[0], previous);
+    Function<Integer, ClassLoader> contextClassLoader =
+        item -> Thread.currentThread().getContextClassLoader();
+    Map<Integer, ClassLoader> loaders;
+    thread.setContextClassLoader(loader);
+    try {
+      loaders = ParallelDiscovery.computeAll(items, contextClassLoader);
+    } finally {
+      thread.setContextClassLoader(previous);
+    }
+    assertThat(loaders).hasSize(items.size());
+    assertThat(Sets.newHashSet(loaders.values())).containsExactly(loader);
+
+    // The threads of the next discovery get the class loader of its caller.
+    loaders = ParallelDiscovery.computeAll(items, contextClassLoader);
+    assertThat(loaders.values()).doesNotContain(loader);
+  }
+
+  @Test(description = "The annotation transformers are invoked one at a time")
+  public void transformersAreNotInvokedConcurrently() {
+    CountingTransformer transformer = new CountingTransformer();
+    invokedMethods(true, transformer);
+    assertThat(transformer.m_invocations.get()).isGreaterThan(0);
+    assertThat(transformer.m_concurrent).isFalse();
+  }
+
+  private static List<String> invokedMethods(boolean parallelDiscovery) {
+    return invokedMethods(parallelDiscovery, null);
+  }
+
+  private static List<String> invokedMethods(
+      boolean parallelDiscovery, IAnnotationTransformer transformer) {
+    String previous =
+        System.setProperty(
+            RuntimeBehavior.TESTNG_PARALLEL_DISCOVERY, Boolean.toString(parallelDiscovery));
+    try {
+      TestNG tng = create(CLASSES);
+      InvokedMethodNameListener listener = new InvokedMethodNameListener();
+      tng.addListener(listener);
+      if (transformer != null) {
+        tng.addListener(transformer);
+      }
+      tng.run();
+      return listener.getInvokedMethodNames();
+    } finally {
+      if (previous == null) {
+        System.clearProperty(RuntimeBehavior.TESTNG_PARALLEL_DISCOVERY);
+      } else {
+        System.setProperty(RuntimeBehavior.TESTNG_PARALLEL_DISCOVERY, previous);
+      }
+    }
+  }
+
+  public static class CountingTransformer implements IAnnotationTransformer {
+
+    private final AtomicInteger m_running = new AtomicInteger();
+    private final AtomicInteger m_invocations = new AtomicInteger();
+    private volatile boolean m_concurrent;
+
+    @Override
+    public void transform(
+        ITestAnnotation annotation,
+        Class testClass,
+        Constructor testConstructor,
+        Method testMethod) {
+      if (m_running.incrementAndGet() > 1) {
+        m_concurrent = true;
+      }
+      m_invocations.incrementAndGet();
+      try {
+        // Leaves the other discovery threads the time to come in.
+        Thread.sleep(2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        m_running.decrementAndGet();
+      }
+    }
+  }
+}
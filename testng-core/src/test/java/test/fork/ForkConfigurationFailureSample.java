@@ -0,0 +1,15 @@
+package test.fork;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ForkConfigurationFailureSample {
+
+  @BeforeClass
+  public void setUp() {
+    throw new IllegalStateException("setUp failed");
+  }
+
+  @Test
+  public void f() {}
+}
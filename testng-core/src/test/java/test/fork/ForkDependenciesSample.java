@@ -0,0 +1,26 @@
+package test.fork;
+
+import org.testng.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ForkDependenciesSample {
+
+  @Test
+  public void c() {
+    Reporter.log(ForkSample.jvmName());
+  }
+
+  @Test(dependsOnMethods = "c")
+  public void d() {}
+
+  @DataProvider
+  public Object[][] getData() {
+    return new Object[][] {{1}, {2}};
+  }
+
+  @Test(dataProvider = "getData")
+  public void e(int value) {
+    Reporter.log(ForkSample.jvmName());
+  }
+}
@@ -0,0 +1,32 @@
+package test.fork;
+
+import org.testng.Reporter;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+public class ForkFactorySample {
+
+  private final String m_name;
+
+  public ForkFactorySample() {
+    this("default");
+  }
+
+  private ForkFactorySample(String name) {
+    m_name = name;
+  }
+
+  @Factory
+  public static Object[] create() {
+    return new Object[] {new ForkFactorySample("first"), new ForkFactorySample("second")};
+  }
+
+  public String getName() {
+    return m_name;
+  }
+
+  @Test
+  public void g() {
+    Reporter.log(m_name);
+  }
+}
@@ -0,0 +1,11 @@
+package test.fork;
+
+import org.testng.annotations.Test;
+
+public class ForkHangingSample {
+
+  @Test
+  public void hangs() throws InterruptedException {
+    Thread.sleep(120_000);
+  }
+}
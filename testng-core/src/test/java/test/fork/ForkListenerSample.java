@@ -0,0 +1,16 @@
+package test.fork;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+public class ForkListenerSample implements IInvokedMethodListener {
+
+  @Override
+  public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+    if (method.isTestMethod()) {
+      Reporter.log("listener:" + ForkSample.jvmName());
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package test.fork;
+
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestListener;
+
+/** A test listener that is also an invoked method listener, so it can't run in the workers. */
+public class ForkMixedListenerSample implements ITestListener, IInvokedMethodListener {}
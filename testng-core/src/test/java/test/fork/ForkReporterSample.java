@@ -0,0 +1,18 @@
+package test.fork;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+public class ForkReporterSample implements IReporter {
+
+  public static final AtomicInteger REPORTS = new AtomicInteger();
+
+  @Override
+  public void generateReport(
+      List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+    REPORTS.incrementAndGet();
+  }
+}
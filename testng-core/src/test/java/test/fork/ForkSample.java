@@ -0,0 +1,27 @@
+package test.fork;
+
+import java.lang.management.ManagementFactory;
+import org.testng.Assert;
+import org.testng.Reporter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ForkSample {
+
+  public static String jvmName() {
+    return ManagementFactory.getRuntimeMXBean().getName();
+  }
+
+  @BeforeClass
+  public void setUp() {}
+
+  @Test
+  public void a() {
+    Reporter.log(jvmName());
+  }
+
+  @Test
+  public void b() {
+    Assert.fail("boom");
+  }
+}
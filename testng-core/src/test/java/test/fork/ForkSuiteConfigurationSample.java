@@ -0,0 +1,20 @@
+package test.fork;
+
+import org.testng.Reporter;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+public class ForkSuiteConfigurationSample {
+
+  public static String beforeSuiteJvm;
+
+  @BeforeSuite
+  public void beforeSuite() {
+    beforeSuiteJvm = ForkSample.jvmName();
+  }
+
+  @Test
+  public void a() {
+    Reporter.log(ForkSample.jvmName());
+  }
+}
@@ -0,0 +1,175 @@
+package test.fork;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class ForkTest extends SimpleBaseTest {
+
+  @Test(description = "The results of the worker JVMs reach the listeners of the parent JVM")
+  public void resultsAreReportedInTheParent() {
+    TestNG tng =
+        create(
+            ForkSample.class, ForkDependenciesSample.class, ForkConfigurationFailureSample.class);
+    tng.setForkCount(2);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    assertThat(namesOf(listener.getPassedTests()))
+        .containsExactlyInAnyOrder("a", "c", "d", "e", "e");
+    assertThat(namesOf(listener.getFailedTests())).containsExactly("b");
+    assertThat(listener.getFailedTests().get(0).getThrowable()).hasMessage("boom");
+    assertThat(namesOf(listener.getSkippedTests())).containsExactly("f");
+    assertThat(namesOf(listener.getConfigurationFailures())).containsExactly("setUp");
+    assertThat(tng.getStatus()).isNotEqualTo(0);
+  }
+
+  @Test(description = "The tests and the configuration methods run in the worker JVMs")
+  public void methodsRunInTheWorkers() {
+    TestNG tng = create(ForkSample.class, ForkDependenciesSample.class);
+    tng.setForkCount(2);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    List<String> jvms = Lists.newArrayList();
+    for (ITestResult result : listener.getPassedTests()) {
+      jvms.addAll(Reporter.getOutput(result));
+    }
+    assertThat(jvms).hasSize(4).doesNotContain(ForkSample.jvmName());
+  }
+
+  @Test(description = "The suites with suite level configuration methods run in this JVM")
+  public void suiteConfigurationIsNotForked() {
+    ForkSuiteConfigurationSample.beforeSuiteJvm = null;
+    TestNG tng = create(ForkSample.class, ForkSuiteConfigurationSample.class);
+    tng.setForkCount(2);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    List<String> jvms = Lists.newArrayList();
+    for (ITestResult result : listener.getPassedTests()) {
+      jvms.addAll(Reporter.getOutput(result));
+    }
+    assertThat(jvms).containsOnly(ForkSample.jvmName());
+    assertThat(ForkSuiteConfigurationSample.beforeSuiteJvm).isEqualTo(ForkSample.jvmName());
+  }
+
+  @Test(
+      description =
+          "The test listeners of the suite are only invoked in this JVM, one result at a time")
+  public void testListenersOnlyRunInTheParent() throws IOException {
+    Path file = Files.createTempFile("fork", ".txt");
+    String property = "-D" + ForkTestListenerSample.FILE + "=" + file;
+    System.setProperty(ForkTestListenerSample.FILE, file.toString());
+    System.setProperty(RuntimeBehavior.TESTNG_FORK_JVM_ARGS, property);
+    ForkTestListenerSample.THREADS.clear();
+    try {
+      XmlSuite suite = createXmlSuite("suite");
+      createXmlTest(suite, "test", ForkSample.class, ForkDependenciesSample.class);
+      suite.addListener(ForkTestListenerSample.class.getName());
+      TestNG tng = create(suite);
+      tng.setForkCount(2);
+      tng.run();
+
+      assertThat(Files.readAllLines(file)).hasSize(4).containsOnly(ForkSample.jvmName());
+      assertThat(ForkTestListenerSample.THREADS).hasSize(1);
+    } finally {
+      System.clearProperty(ForkTestListenerSample.FILE);
+      System.clearProperty(RuntimeBehavior.TESTNG_FORK_JVM_ARGS);
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(description = "A listener the workers and this JVM would both invoke isn't forked")
+  public void mixedListenerIsNotForked() {
+    XmlSuite suite = createXmlSuite("suite");
+    createXmlTest(suite, "test", ForkSample.class);
+    suite.addListener(ForkMixedListenerSample.class.getName());
+    TestNG tng = create(suite);
+    tng.setForkCount(1);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    assertThat(Reporter.getOutput(listener.getPassedTests().get(0)))
+        .containsExactly(ForkSample.jvmName());
+  }
+
+  @Test(description = "The instances created by a factory get their own results")
+  public void factoryInstancesAreToldApart() {
+    TestNG tng = create(ForkFactorySample.class);
+    tng.setForkCount(1);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    List<String> names = Lists.newArrayList();
+    List<String> output = Lists.newArrayList();
+    for (ITestResult result : listener.getPassedTests()) {
+      names.add(((ForkFactorySample) result.getInstance()).getName());
+      output.addAll(Reporter.getOutput(result));
+    }
+    assertThat(names).containsExactlyInAnyOrder("first", "second");
+    assertThat(output).isEqualTo(names);
+  }
+
+  @Test(description = "The parameters that can be serialized keep their type")
+  public void parametersKeepTheirType() {
+    TestNG tng = create(ForkDependenciesSample.class);
+    tng.setForkCount(1);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    List<Object> parameters = Lists.newArrayList();
+    for (ITestResult result : listener.getPassedTests()) {
+      parameters.addAll(Arrays.asList(result.getParameters()));
+    }
+    assertThat(parameters).containsExactlyInAnyOrder(1, 2);
+  }
+
+  @Test(description = "The listeners of the suite run in the workers, its reporters in the parent")
+  public void suiteListenersRunInTheWorkers() {
+    ForkReporterSample.REPORTS.set(0);
+    XmlSuite suite = createXmlSuite("suite");
+    createXmlTest(suite, "test", ForkSample.class);
+    suite.addListener(ForkListenerSample.class.getName());
+    suite.addListener(ForkReporterSample.class.getName());
+    TestNG tng = create(suite);
+    tng.setForkCount(1);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    List<String> output = Reporter.getOutput(listener.getPassedTests().get(0));
+    assertThat(output).hasSize(2);
+    assertThat(output.get(0))
+        .startsWith("listener:")
+        .isNotEqualTo("listener:" + ForkSample.jvmName());
+    assertThat(ForkReporterSample.REPORTS.get()).isEqualTo(1);
+  }
+
+  private static List<String> namesOf(List<ITestResult> results) {
+    List<String> names = Lists.newArrayList();
+    for (ITestResult result : results) {
+      names.add(result.getMethod().getMethodName());
+    }
+    return names;
+  }
+}
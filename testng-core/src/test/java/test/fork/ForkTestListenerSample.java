@@ -0,0 +1,35 @@
+package test.fork;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+/** Writes the name of the JVM it sees each success in to the file named by {@link #FILE}. */
+public class ForkTestListenerSample implements ITestListener {
+
+  public static final String FILE = "test.fork.listener.file";
+  public static final Set<Thread> THREADS = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public void onTestSuccess(ITestResult result) {
+    THREADS.add(Thread.currentThread());
+    try {
+      Files.write(
+          Paths.get(System.getProperty(FILE)),
+          Collections.singletonList(ForkSample.jvmName()),
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package test.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.index.TestIndexProcessor;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.internal.TestIndex;
+import test.InvokedMethodNameListener;
+import test.SimpleBaseTest;
+
+public class TestIndexTest extends SimpleBaseTest {
+
+  private static final Map<String, String> SOURCES = Maps.newLinkedHashMap();
+  /** The classes that are run, an inner class with a factory constructor can't be. */
+  private static final String[] RUN = {
+    "IndexBase", "IndexSample", "IndexClassLevel", "IndexHelper"
+  };
+
+  static {
+    SOURCES.put(
+        "IndexBase",
+        "public abstract class IndexBase {\n"
+            + "  @BeforeClass public void setUp() {}\n"
+            + "  @Test(groups = \"base\") public void inherited() {}\n"
+            + "}\n");
+    SOURCES.put(
+        "IndexDefaults",
+        "public interface IndexDefaults {\n"
+            + "  @Test default void fromInterface() {}\n"
+            + "  void notImplemented();\n"
+            + "}\n");
+    SOURCES.put(
+        "IndexSample",
+        "public class IndexSample extends IndexBase implements IndexDefaults {\n"
+            + "  @DataProvider(name = \"data\")\n"
+            + "  public Object[][] data() { return new Object[][] {{1}, {2}}; }\n"
+            + "  @Test(groups = {\"fast\", \"a,b\"}, dataProvider = \"data\")\n"
+            + "  public void withData(int i) {}\n"
+            + "  @Test(dependsOnMethods = \"withData\") public void second() {}\n"
+            + "  @AfterMethod public void tearDown() {}\n"
+            + "  public void helper(java.util.List<String> list, int[] values) {}\n"
+            + "  public void notImplemented() {}\n"
+            + "}\n");
+    SOURCES.put(
+        "IndexClassLevel",
+        "@Test(groups = \"class\")\n"
+            + "public class IndexClassLevel { public void implicit() {} }\n");
+    SOURCES.put("IndexHelper", "public class IndexHelper { public void notATest() {} }\n");
+    SOURCES.put(
+        "IndexOuter",
+        "public class IndexOuter {\n"
+            + "  public class Inner { @Factory public Inner() {} }\n"
+            + "}\n");
+  }
+
+  @Test(description = "The index describes the annotations of the classes and their members")
+  public void indexDescribesTheClasses() throws Exception {
+    try (URLClassLoader loader = compile(SOURCES, true)) {
+      Class<?> sampleClass = loader.loadClass("idx.IndexSample");
+      assertThat(withIndex(false, () -> TestIndex.getEntry(sampleClass))).isNull();
+      TestIndex.Entry sample = withIndex(true, () -> TestIndex.getEntry(sampleClass));
+      assertThat(sample).isNotNull();
+      assertThat(sample.getStamp()).isNotEqualTo("-");
+      assertThat(sample.getMembers().keySet())
+          .containsExactlyInAnyOrder("data()", "withData(int)", "second()", "tearDown()");
+      assertThat(sample.getMember("withData(int)").getAnnotations()).containsExactly("Test");
+      assertThat(sample.getMember("data()").getAnnotations()).containsExactly("DataProvider");
+      assertThat(sample.getMember("tearDown()").getAnnotations()).containsExactly("AfterMethod");
+
+      withIndex(
+          true,
+          () -> {
+            TestIndex.Entry inner = TestIndex.getEntry(loader.loadClass("idx.IndexOuter$Inner"));
+            assertThat(inner.getMember("<init>(idx.IndexOuter)").getAnnotations())
+                .containsExactly("Factory");
+            TestIndex.Entry classLevel =
+                TestIndex.getEntry(loader.loadClass("idx.IndexClassLevel"));
+            assertThat(classLevel.getAnnotations()).containsExactly("Test");
+            assertThat(TestIndex.getEntry(loader.loadClass("idx.IndexHelper")).getMembers())
+                .isEmpty();
+
+            assertThat(TestIndex.hasAnnotations(sampleClass, TestIndex.TESTNG_ANNOTATIONS))
+                .isTrue();
+            assertThat(
+                    TestIndex.hasAnnotations(
+                        loader.loadClass("idx.IndexHelper"), TestIndex.TESTNG_ANNOTATIONS))
+                .isFalse();
+            return null;
+          });
+    }
+  }
+
+  @Test(description = "The classes found with the index run the same methods as without it")
+  public void indexFindsTheSameMethods() throws Exception {
+    List<String> withIndex;
+    List<String> withoutIndex;
+    try (URLClassLoader loader = compile(SOURCES, true)) {
+      withIndex = invokedMethods(loader, true);
+      withoutIndex = invokedMethods(loader, false);
+    }
+    assertThat(withIndex).isEqualTo(withoutIndex);
+    assertThat(withIndex)
+        .contains("setUp", "inherited", "fromInterface", "withData(1)", "second", "implicit")
+        .doesNotContain("helper", "notATest");
+  }
+
+  @Test(description = "A class that changed since it was indexed is inspected by reflection")
+  public void changedClassIsInspectedByReflection() throws Exception {
+    try (URLClassLoader indexed = compile(SOURCES, true)) {
+      Map<String, String> changed = new LinkedHashMap<>(SOURCES);
+      changed.put("IndexHelper", "public class IndexHelper { @Test public void notATest() {} }\n");
+      // Compiled again without the processor, over the classes and the index of the first run.
+      File directory = new File(indexed.getURLs()[0].toURI());
+      try (URLClassLoader loader = compile(changed, false, directory)) {
+        Class<?> helper = loader.loadClass("idx.IndexHelper");
+        Class<?> sample = loader.loadClass("idx.IndexSample");
+        assertThat(withIndex(true, () -> TestIndex.getEntry(helper))).isNull();
+        assertThat(withIndex(true, () -> TestIndex.getEntry(sample))).isNotNull();
+        assertThat(invokedMethods(loader, true)).contains("notATest");
+      }
+    }
+  }
+
+  private static List<String> invokedMethods(ClassLoader loader, boolean useIndex)
+      throws Exception {
+    List<Class<?>> classes = Lists.newArrayList();
+    for (String name : RUN) {
+      classes.add(loader.loadClass("idx." + name));
+    }
+    return withIndex(
+        useIndex,
+        () -> {
+          TestNG tng = create(classes.toArray(new Class<?>[0]));
+          InvokedMethodNameListener listener = new InvokedMethodNameListener();
+          tng.addListener(listener);
+          tng.run();
+          List<String> result = Lists.newArrayList(listener.getInvokedMethodNames());
+          Collections.sort(result);
+          return result;
+        });
+  }
+
+  private static <T> T withIndex(boolean useIndex, Callable<T> callable) throws Exception {
+    String previous =
+        System.setProperty(RuntimeBehavior.TESTNG_TEST_INDEX, Boolean.toString(useIndex));
+    try {
+      return callable.call();
+    } finally {
+      if (previous == null) {
+        System.clearProperty(RuntimeBehavior.TESTNG_TEST_INDEX);
+      } else {
+        System.setProperty(RuntimeBehavior.TESTNG_TEST_INDEX, previous);
+      }
+    }
+  }
+
+  private static URLClassLoader compile(Map<String, String> sources, boolean withProcessor)
+      throws IOException {
+    return compile(sources, withProcessor, Files.createTempDirectory("index").toFile());
+  }
+
+  /** @return a class loader for the compiled classes. */
+  private static URLClassLoader compile(
+      Map<String, String> sources, boolean withProcessor, File directory) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    Path sourceDirectory = Files.createTempDirectory("index-sources").resolve("idx");
+    Files.createDirectories(sourceDirectory);
+    List<File> files = Lists.newArrayList();
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      Path file = sourceDirectory.resolve(source.getKey() + ".java");
+      String content = "package idx;\nimport org.testng.annotations.*;\n" + source.getValue();
+      Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+      files.add(file.toFile());
+    }
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+      List<String> options =
+          Lists.newArrayList(
+              "-cp", System.getProperty("java.class.path"), "-d", directory.getAbsolutePath());
+      if (!withProcessor) {
+        options.add("-proc:none");
+      }
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(null, fileManager, null, options, null, units);
+      if (withProcessor) {
+        task.setProcessors(Collections.singletonList(new TestIndexProcessor()));
+      }
+      assertThat(task.call()).isTrue();
+    }
+    return new URLClassLoader(
+        new URL[] {directory.toURI().toURL()}, TestIndexTest.class.getClassLoader());
+  }
+}
@@ -0,0 +1,89 @@
+package test.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.testng.SkipException;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.internal.jfr.JfrEvents;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class JfrEventsTest extends SimpleBaseTest {
+
+  private static final String[] EVENTS = {
+    "org.testng.TestMethod",
+    "org.testng.ConfigurationMethod",
+    "org.testng.DataProvider",
+    "org.testng.QueueWait"
+  };
+
+  @Test(description = "No event is created while no recording is running")
+  public void noEventWithoutRecording() {
+    assertThat(JfrEvents.TEST_METHOD.isEnabled()).isFalse();
+    assertThat(JfrEvents.TEST_METHOD.begin()).isNull();
+  }
+
+  @Test(description = "The invocations of the methods are recorded while a recording is running")
+  public void eventsAreRecorded() throws Exception {
+    if (!JfrEvents.isSupported()) {
+      throw new SkipException("This JVM doesn't have the Java Flight Recorder");
+    }
+    // The JFR API is used reflectively, since the tests are compiled for Java 8 as well.
+    Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+    Object recording = recordingClass.getConstructor().newInstance();
+    for (String event : EVENTS) {
+      recordingClass.getMethod("enable", String.class).invoke(recording, event);
+    }
+    recordingClass.getMethod("start").invoke(recording);
+    try {
+      XmlSuite suite = createXmlSuite("Jfr", "Jfr", JfrSample.class);
+      suite.setParallel(XmlSuite.ParallelMode.METHODS);
+      suite.setThreadCount(2);
+      create(suite).run();
+    } finally {
+      recordingClass.getMethod("stop").invoke(recording);
+    }
+    Path file = Files.createTempFile("testng", ".jfr");
+    List<String> events = Lists.newArrayList();
+    try {
+      recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+      recordingClass.getMethod("close").invoke(recording);
+      List<?> recorded =
+          (List<?>)
+              Class.forName("jdk.jfr.consumer.RecordingFile")
+                  .getMethod("readAllEvents", Path.class)
+                  .invoke(null, file);
+      Method getString =
+          Class.forName("jdk.jfr.consumer.RecordedObject").getMethod("getString", String.class);
+      Class<?> recordedEvent = Class.forName("jdk.jfr.consumer.RecordedEvent");
+      for (Object event : recorded) {
+        Object type = recordedEvent.getMethod("getEventType").invoke(event);
+        String name = (String) type.getClass().getMethod("getName").invoke(type);
+        String description = name.substring(name.lastIndexOf('.') + 1);
+        if (!"QueueWait".equals(description)) {
+          description +=
+              " " + getString.invoke(event, "method") + " " + getString.invoke(event, "status");
+        }
+        events.add(description);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    String sample = JfrSample.class.getName();
+    assertThat(events)
+        .contains(
+            "TestMethod " + sample + ".withData SUCCESS",
+            "TestMethod " + sample + ".failing FAILURE",
+            "ConfigurationMethod " + sample + ".setUp SUCCESS",
+            "DataProvider " + sample + ".values SUCCESS",
+            "QueueWait");
+    assertThat(events.stream().filter(event -> event.contains(".withData")).count()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,24 @@
+package test.jfr;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class JfrSample {
+
+  @BeforeMethod
+  public void setUp() {}
+
+  @DataProvider(name = "values")
+  public Object[][] values() {
+    return new Object[][] {{1}, {2}};
+  }
+
+  @Test(dataProvider = "values")
+  public void withData(int value) {}
+
+  @Test
+  public void failing() {
+    throw new AssertionError("failing on purpose");
+  }
+}
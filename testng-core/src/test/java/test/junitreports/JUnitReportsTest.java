@@ -92,6 +92,28 @@ public class JUnitReportsTest extends SimpleBaseTest {
     }
   }
 
+  @Test(description = "The files of the classes are written on several threads")
+  public void testJUnitReportReporterWithSeveralThreads() throws IOException {
+    Path outputDir = TestHelper.createRandomDirectory();
+    Class<?>[] classes = new Class<?>[] {FirstTest.class, SecondTest.class, ThirdTest.class};
+    Map<Class<?>, Integer> tests = Maps.newHashMap();
+    tests.put(FirstTest.class, 2);
+    tests.put(SecondTest.class, 1);
+    tests.put(ThirdTest.class, 1);
+
+    TestNG tng = createTests(outputDir, "suite", classes);
+    LocalJUnitReportReporter reportReporter = new LocalJUnitReportReporter();
+    reportReporter.setThreadCount(3);
+    tng.addListener(reportReporter);
+    tng.run();
+    for (Class<?> clazz : classes) {
+      Testsuite suite = reportReporter.getTestsuite(clazz.getName());
+      assertEquals(suite.getName(), clazz.getName(), "Suite Name validation.");
+      assertEquals(suite.getTests(), tests.get(clazz).intValue(), "<test> count validation.");
+      assertEquals(suite.getTestcase().size(), suite.getTests(), "<testcase> count validation.");
+    }
+  }
+
   @Test
   public void testTestCaseOrderingInJUnitReportReporterWhenPrioritiesDefined() throws IOException {
     Path outputDir = TestHelper.createRandomDirectory();
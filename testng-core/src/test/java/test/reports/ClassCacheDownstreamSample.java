@@ -0,0 +1,9 @@
+package test.reports;
+
+import org.testng.annotations.Test;
+
+public class ClassCacheDownstreamSample {
+
+  @Test(dependsOnMethods = "test.reports.ClassCacheUpstreamSample.upstream")
+  public void downstream() {}
+}
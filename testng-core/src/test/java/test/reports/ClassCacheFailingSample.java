@@ -0,0 +1,15 @@
+package test.reports;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ClassCacheFailingSample {
+
+  @Test
+  public void passes() {}
+
+  @Test
+  public void fails() {
+    Assert.fail("always fails");
+  }
+}
@@ -0,0 +1,8 @@
+package test.reports;
+
+public class ClassCacheHelper {
+
+  public int help() {
+    return 42;
+  }
+}
@@ -0,0 +1,11 @@
+package test.reports;
+
+import org.testng.annotations.Test;
+
+public class ClassCachePassingSample {
+
+  @Test
+  public void passes() {
+    new ClassCacheHelper().help();
+  }
+}
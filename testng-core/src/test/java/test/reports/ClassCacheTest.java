@@ -0,0 +1,135 @@
+package test.reports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.reporters.ClassCache;
+import org.testng.reporters.ClassCacheListener;
+import org.testng.reporters.ClassCacheListener.Reason;
+import org.testng.reporters.ClassFingerprints;
+import test.InvokedMethodNameListener;
+import test.SimpleBaseTest;
+
+public class ClassCacheTest extends SimpleBaseTest {
+
+  private static final String PASSING = ClassCachePassingSample.class.getName();
+  private static final String FAILING = ClassCacheFailingSample.class.getName();
+  private static final String UPSTREAM = ClassCacheUpstreamSample.class.getName();
+  private static final String DOWNSTREAM = ClassCacheDownstreamSample.class.getName();
+
+  @Test
+  public void unchangedClassesThatPassedAreLeftOut() throws IOException {
+    File file = newCacheFile();
+    ClassCacheListener listener = new ClassCacheListener(file);
+    InvokedMethodNameListener invoked = runWithCache(listener);
+    assertThat(listener.getReasons()).containsEntry(PASSING, Reason.NEW);
+    assertThat(listener.getReasons()).containsEntry(FAILING, Reason.NEW);
+    assertThat(invoked.getInvokedMethodNames())
+        .containsExactlyInAnyOrder("fails", "passes", "passes");
+
+    ClassCache cache = ClassCache.open(file);
+    assertThat(cache.get(PASSING).hasPassed()).isTrue();
+    assertThat(cache.get(FAILING).hasPassed()).isFalse();
+
+    invoked = runWithCache(listener);
+    assertThat(listener.getReasons()).containsEntry(PASSING, Reason.UNCHANGED);
+    assertThat(listener.getReasons()).containsEntry(FAILING, Reason.FAILED);
+    assertThat(invoked.getInvokedMethodNames()).containsExactlyInAnyOrder("fails", "passes");
+  }
+
+  @Test
+  public void changedClassesRunAgain() throws IOException {
+    File file = newCacheFile();
+    ClassCacheListener listener = new ClassCacheListener(file);
+    runWithCache(listener);
+
+    ClassCache cache = ClassCache.open(file);
+    cache.put(PASSING, "0000", true);
+    cache.save();
+
+    InvokedMethodNameListener invoked = runWithCache(listener);
+    assertThat(listener.getReasons()).containsEntry(PASSING, Reason.CHANGED);
+    assertThat(invoked.getInvokedMethodNames())
+        .containsExactlyInAnyOrder("fails", "passes", "passes");
+    assertThat(ClassCache.open(file).get(PASSING).getFingerprint()).isNotEqualTo("0000");
+  }
+
+  @Test(description = "Classes whose methods depend on each other run together or not at all")
+  public void dependentClassesRunTogether() throws IOException {
+    File file = newCacheFile();
+    ClassCacheListener listener = new ClassCacheListener(file);
+    runWithCache(listener, ClassCacheUpstreamSample.class, ClassCacheDownstreamSample.class);
+
+    ClassCache cache = ClassCache.open(file);
+    cache.put(DOWNSTREAM, "0000", true);
+    cache.save();
+
+    InvokedMethodNameListener invoked =
+        runWithCache(listener, ClassCacheUpstreamSample.class, ClassCacheDownstreamSample.class);
+    assertThat(listener.getReasons()).containsEntry(UPSTREAM, Reason.DEPENDENCY);
+    assertThat(listener.getReasons()).containsEntry(DOWNSTREAM, Reason.CHANGED);
+    assertThat(invoked.getInvokedMethodNames()).containsExactly("upstream", "downstream");
+    assertThat(invoked.getSkippedMethodNames()).isEmpty();
+
+    invoked =
+        runWithCache(listener, ClassCacheUpstreamSample.class, ClassCacheDownstreamSample.class);
+    assertThat(listener.getReasons()).containsEntry(UPSTREAM, Reason.UNCHANGED);
+    assertThat(listener.getReasons()).containsEntry(DOWNSTREAM, Reason.UNCHANGED);
+    assertThat(invoked.getInvokedMethodNames()).isEmpty();
+  }
+
+  @Test
+  public void fingerprintsCoverTheClassesUsed() {
+    ClassFingerprints fingerprints = new ClassFingerprints();
+    String passing = fingerprints.fingerprintOf(ClassCachePassingSample.class);
+    assertThat(passing)
+        .isEqualTo(new ClassFingerprints().fingerprintOf(ClassCachePassingSample.class));
+    assertThat(passing).isNotEqualTo(fingerprints.fingerprintOf(ClassCacheFailingSample.class));
+    assertThat(fingerprints.fingerprintOf(String.class)).isNull();
+  }
+
+  @Test
+  public void reportListsWhyEveryClassRanOrNot() throws IOException {
+    File file = newCacheFile();
+    ClassCacheListener listener = new ClassCacheListener(file);
+    runWithCache(listener);
+    TestNG tng = create(ClassCachePassingSample.class, ClassCacheFailingSample.class);
+    File outputDirectory = file.getParentFile();
+    tng.setOutputDirectory(outputDirectory.getAbsolutePath());
+    tng.addListener(listener);
+    tng.run();
+
+    List<String> lines =
+        Files.readAllLines(
+            new File(outputDirectory, ClassCacheListener.REPORT_FILE_NAME).toPath(),
+            StandardCharsets.UTF_8);
+    assertThat(lines)
+        .containsExactlyInAnyOrder(
+            "SKIPPED\t" + PASSING + "\t" + Reason.UNCHANGED.getDescription(),
+            "RAN\t" + FAILING + "\t" + Reason.FAILED.getDescription());
+  }
+
+  private static InvokedMethodNameListener runWithCache(ClassCacheListener listener) {
+    return runWithCache(listener, ClassCachePassingSample.class, ClassCacheFailingSample.class);
+  }
+
+  private static InvokedMethodNameListener runWithCache(
+      ClassCacheListener listener, Class<?>... testClasses) {
+    TestNG tng = create(testClasses);
+    InvokedMethodNameListener invoked = new InvokedMethodNameListener();
+    tng.addListener(listener);
+    tng.addListener(invoked);
+    tng.run();
+    return invoked;
+  }
+
+  private static File newCacheFile() throws IOException {
+    return Files.createTempDirectory("cache").resolve("cache.txt").toFile();
+  }
+}
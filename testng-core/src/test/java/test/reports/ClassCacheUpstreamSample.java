@@ -0,0 +1,9 @@
+package test.reports;
+
+import org.testng.annotations.Test;
+
+public class ClassCacheUpstreamSample {
+
+  @Test
+  public void upstream() {}
+}
@@ -0,0 +1,214 @@
+package test.reports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.testng.IConcurrentReporter;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.util.Timeline;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class ConcurrentReportersTest extends SimpleBaseTest {
+
+  @Test(
+      description =
+          "The concurrent reporters generate their reports at the same time, before the other ones")
+  public void concurrentReportersRunTogether() {
+    CountDownLatch latch = new CountDownLatch(2);
+    // Two classes, since TestNG keeps a single reporter of each class.
+    LatchReporter first = new LatchReporter(latch);
+    LatchReporter second = new OtherLatchReporter(latch);
+    SequentialReporter sequential = new SequentialReporter(first, second);
+    TestNG tng = create(SampleA.class);
+    tng.addListener(first);
+    tng.addListener(second);
+    tng.addListener(sequential);
+    System.setProperty(RuntimeBehavior.TESTNG_REPORT_THREADS, "2");
+    try {
+      tng.run();
+    } finally {
+      System.clearProperty(RuntimeBehavior.TESTNG_REPORT_THREADS);
+    }
+
+    assertThat(first.m_metOther).isTrue();
+    assertThat(second.m_metOther).isTrue();
+    assertThat(first.m_thread).isNotEqualTo(second.m_thread);
+    assertThat(sequential.m_thread).isEqualTo(Thread.currentThread());
+    assertThat(sequential.m_afterConcurrentReporters).isTrue();
+    List<String> reports =
+        tng.getTimeline().getEvents().stream()
+            .filter(event -> event.getPhase() == Timeline.Phase.REPORT_GENERATION)
+            .map(Timeline.Event::getName)
+            .collect(Collectors.toList());
+    assertThat(reports)
+        .contains(
+            first.getClass().getName(),
+            second.getClass().getName(),
+            SequentialReporter.class.getName());
+  }
+
+  @Test(description = "The reports are generated one after the other with a single thread")
+  public void singleThread() {
+    System.setProperty(RuntimeBehavior.TESTNG_REPORT_THREADS, "1");
+    try {
+      LatchReporter first = new LatchReporter(new CountDownLatch(1));
+      LatchReporter second = new OtherLatchReporter(new CountDownLatch(1));
+      TestNG tng = create(SampleA.class);
+      tng.addListener(first);
+      tng.addListener(second);
+      tng.run();
+
+      assertThat(first.m_thread).isEqualTo(Thread.currentThread());
+      assertThat(second.m_thread).isEqualTo(Thread.currentThread());
+    } finally {
+      System.clearProperty(RuntimeBehavior.TESTNG_REPORT_THREADS);
+    }
+  }
+
+  @Test(description = "A reporter that fails doesn't prevent the others from generating theirs")
+  public void failingReporter() {
+    LatchReporter other = new LatchReporter(new CountDownLatch(0));
+    TestNG tng = create(SampleA.class);
+    tng.addListener(new FailingReporter());
+    tng.addListener(other);
+    tng.run();
+
+    assertThat(other.m_thread).isNotNull();
+  }
+
+  @Test(description = "The subclasses of a concurrent reporter don't inherit the concurrency")
+  public void subclassIsSequential() {
+    CountDownLatch latch = new CountDownLatch(2);
+    LatchReporter subclass = new SubclassReporter(new CountDownLatch(1));
+    LatchReporter first = new LatchReporter(latch);
+    LatchReporter second = new OtherLatchReporter(latch);
+    TestNG tng = create(SampleA.class);
+    tng.addListener(subclass);
+    tng.addListener(first);
+    tng.addListener(second);
+    System.setProperty(RuntimeBehavior.TESTNG_REPORT_THREADS, "2");
+    try {
+      tng.run();
+    } finally {
+      System.clearProperty(RuntimeBehavior.TESTNG_REPORT_THREADS);
+    }
+
+    assertThat(subclass.m_thread).isEqualTo(Thread.currentThread());
+    assertThat(first.m_metOther).isTrue();
+    assertThat(second.m_metOther).isTrue();
+  }
+
+  @Test(description = "An interrupt while the concurrent reporters run skips none of the others")
+  public void interruptedWhileWaiting() {
+    InterruptingReporter interrupting = new InterruptingReporter(Thread.currentThread());
+    LatchReporter other = new LatchReporter(new CountDownLatch(0));
+    SequentialReporter sequential = new SequentialReporter();
+    TestNG tng = create(SampleA.class);
+    tng.addListener(interrupting);
+    tng.addListener(other);
+    tng.addListener(sequential);
+    System.setProperty(RuntimeBehavior.TESTNG_REPORT_THREADS, "2");
+    try {
+      tng.run();
+    } finally {
+      System.clearProperty(RuntimeBehavior.TESTNG_REPORT_THREADS);
+    }
+
+    assertThat(Thread.interrupted()).isTrue();
+    assertThat(sequential.m_thread).isEqualTo(Thread.currentThread());
+    assertThat(sequential.m_interrupted).isFalse();
+  }
+
+  public static class LatchReporter implements IConcurrentReporter {
+
+    private final CountDownLatch m_latch;
+    private volatile Thread m_thread;
+    private volatile boolean m_metOther;
+    private volatile boolean m_done;
+
+    public LatchReporter(CountDownLatch latch) {
+      m_latch = latch;
+    }
+
+    @Override
+    public void generateReport(
+        List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+      m_thread = Thread.currentThread();
+      m_latch.countDown();
+      try {
+        m_metOther = m_latch.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      m_done = true;
+    }
+  }
+
+  public static class OtherLatchReporter extends LatchReporter implements IConcurrentReporter {
+
+    public OtherLatchReporter(CountDownLatch latch) {
+      super(latch);
+    }
+  }
+
+  public static class SubclassReporter extends LatchReporter {
+
+    public SubclassReporter(CountDownLatch latch) {
+      super(latch);
+    }
+  }
+
+  public static class SequentialReporter implements IReporter {
+
+    private final LatchReporter[] m_concurrentReporters;
+    private volatile Thread m_thread;
+    private volatile boolean m_afterConcurrentReporters;
+    private volatile boolean m_interrupted;
+
+    public SequentialReporter(LatchReporter... concurrentReporters) {
+      m_concurrentReporters = concurrentReporters;
+    }
+
+    @Override
+    public void generateReport(
+        List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+      m_thread = Thread.currentThread();
+      m_afterConcurrentReporters =
+          Arrays.stream(m_concurrentReporters).allMatch(reporter -> reporter.m_done);
+      m_interrupted = Thread.currentThread().isInterrupted();
+    }
+  }
+
+  public static class InterruptingReporter implements IConcurrentReporter {
+
+    private final Thread m_target;
+
+    public InterruptingReporter(Thread target) {
+      m_target = target;
+    }
+
+    @Override
+    public void generateReport(
+        List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+      m_target.interrupt();
+    }
+  }
+
+  public static class FailingReporter implements IConcurrentReporter {
+
+    @Override
+    public void generateReport(
+        List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+      throw new IllegalStateException("Failing on purpose");
+    }
+  }
+}
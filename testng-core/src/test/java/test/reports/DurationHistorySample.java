@@ -0,0 +1,22 @@
+package test.reports;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class DurationHistorySample {
+
+  @Test
+  public void slow() throws InterruptedException {
+    Thread.sleep(50);
+  }
+
+  @DataProvider
+  public Object[][] getDurations() {
+    return new Object[][] {{10}, {30}};
+  }
+
+  @Test(dataProvider = "getDurations")
+  public void parameterised(int millis) throws InterruptedException {
+    Thread.sleep(millis);
+  }
+}
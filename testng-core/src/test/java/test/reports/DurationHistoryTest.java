@@ -0,0 +1,151 @@
+package test.reports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.testng.IDurationProvider;
+import org.testng.ITestNGMethod;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.reporters.DurationHistory;
+import org.testng.reporters.DurationHistoryListener;
+import org.testng.reporters.DurationStatistics;
+import test.SimpleBaseTest;
+
+public class DurationHistoryTest extends SimpleBaseTest {
+
+  @Test
+  public void statisticsAreComputedOverTheLastDurations() throws IOException {
+    File file = newHistoryFile();
+    try (DurationHistory history = DurationHistory.open(file)) {
+      for (int i = 1; i <= 20; i++) {
+        history.record("test.Foo.bar()", 0, i * 10);
+      }
+    }
+    try (DurationHistory history = DurationHistory.open(file)) {
+      DurationStatistics statistics = history.get("test.Foo.bar()", 0);
+      assertThat(statistics.getCount()).isEqualTo(20);
+      // Only the last 16 durations (50 to 200) are kept.
+      assertThat(statistics.getLastDurations()).hasSize(DurationHistory.LAST_DURATIONS);
+      assertThat(statistics.getLastDurations()[0]).isEqualTo(200L);
+      assertThat(statistics.getLastDurations()[15]).isEqualTo(50L);
+      assertThat(statistics.getMean()).isEqualTo(125.0);
+      assertThat(statistics.getP95()).isEqualTo(200L);
+      assertThat(history.get("test.Foo.bar()", 1)).isNull();
+      assertThat(history.get("test.Foo.baz()", 0)).isNull();
+    }
+  }
+
+  @Test
+  public void historyGrowsBeyondItsInitialCapacity() throws IOException {
+    File file = newHistoryFile();
+    int count = 10_000;
+    try (DurationHistory history = DurationHistory.open(file)) {
+      for (int i = 0; i < count; i++) {
+        history.record("test.Foo.method" + i + "()", DurationHistory.ALL_INVOCATIONS, i);
+      }
+    }
+    try (DurationHistory history = DurationHistory.open(file)) {
+      assertThat(history.size()).isEqualTo(count);
+      for (int i = 0; i < count; i++) {
+        DurationStatistics statistics =
+            history.get("test.Foo.method" + i + "()", DurationHistory.ALL_INVOCATIONS);
+        assertThat(statistics.getLastDurations()[0]).isEqualTo((long) i);
+      }
+    }
+  }
+
+  @Test
+  public void fileIsReplacedWhenTheHistoryIsClosed() throws IOException {
+    File file = newHistoryFile();
+    try (DurationHistory history = DurationHistory.open(file)) {
+      history.record("test.Foo.bar()", 0, 10);
+    }
+    DurationHistory history = DurationHistory.open(file);
+    history.record("test.Foo.bar()", 0, 20);
+    history.record("test.Foo.baz()", 0, 30);
+    // Until then, the file still holds the previous history.
+    try (DurationHistory other = DurationHistory.open(file)) {
+      assertThat(other.get("test.Foo.bar()", 0).getCount()).isEqualTo(1);
+      assertThat(other.get("test.Foo.baz()", 0)).isNull();
+    }
+    history.close();
+
+    try (DurationHistory other = DurationHistory.open(file)) {
+      assertThat(other.get("test.Foo.bar()", 0).getCount()).isEqualTo(2);
+      assertThat(other.get("test.Foo.baz()", 0).getCount()).isEqualTo(1);
+    }
+    assertThat(file.getParentFile().list()).containsExactly(file.getName());
+  }
+
+  @Test
+  public void historyIsReadInPlace() throws IOException {
+    File file = newHistoryFile();
+    try (DurationHistory history = DurationHistory.open(file)) {
+      history.record("test.Foo.bar()", 0, 10);
+    }
+    try (DurationHistory history = DurationHistory.openForReading(file)) {
+      // Nothing is written next to the file.
+      assertThat(file.getParentFile().list()).containsExactly(file.getName());
+      assertThat(history.get("test.Foo.bar()", 0).getCount()).isEqualTo(1);
+      assertThatThrownBy(() -> history.record("test.Foo.bar()", 0, 20))
+          .isInstanceOf(IllegalStateException.class);
+    }
+
+    File missing = new File(file.getParentFile(), "missing/durations.bin");
+    try (DurationHistory history = DurationHistory.openForReading(missing)) {
+      assertThat(history.size()).isEqualTo(0);
+      assertThat(history.get("test.Foo.bar()", 0)).isNull();
+    }
+    assertThat(missing.getParentFile()).doesNotExist();
+  }
+
+  @Test
+  public void listenerRecordsEveryInvocationAndTheirTotal() throws IOException {
+    File file = newHistoryFile();
+    for (int run = 0; run < 2; run++) {
+      TestNG tng = create(DurationHistorySample.class);
+      tng.addListener(new DurationHistoryListener(file));
+      tng.run();
+      assertThat(tng.getStatus()).isEqualTo(0);
+    }
+
+    ITestNGMethod parameterised = null;
+    for (ITestNGMethod method : extractTestNGMethods(DurationHistorySample.class)) {
+      if (method.getMethodName().equals("parameterised")) {
+        parameterised = method;
+      }
+    }
+    String signature = DurationHistory.signatureOf(parameterised);
+    try (DurationHistory history = DurationHistory.open(file)) {
+      DurationStatistics first = history.get(signature, 0);
+      DurationStatistics second = history.get(signature, 1);
+      DurationStatistics all = history.get(signature, DurationHistory.ALL_INVOCATIONS);
+      assertThat(first.getCount()).isEqualTo(2);
+      assertThat(second.getCount()).isEqualTo(2);
+      assertThat(all.getCount()).isEqualTo(2);
+      assertThat(second.getMean()).isGreaterThanOrEqualTo(30.0);
+      assertThat(all.getMean()).isGreaterThanOrEqualTo(first.getMean() + second.getMean() - 1);
+    }
+
+    DurationHistoryListener listener = new DurationHistoryListener(file);
+    assertThat(listener.getExpectedDuration(parameterised)).isGreaterThanOrEqualTo(40L);
+    listener.onExecutionFinish();
+  }
+
+  @Test
+  public void unknownMethodsHaveNoExpectedDuration() throws IOException {
+    File file = newHistoryFile();
+    DurationHistoryListener listener = new DurationHistoryListener(file);
+    ITestNGMethod method = extractTestNGMethods(DurationHistorySample.class).get(0);
+    assertThat(listener.getExpectedDuration(method)).isEqualTo(IDurationProvider.UNKNOWN);
+    listener.onExecutionFinish();
+  }
+
+  private static File newHistoryFile() throws IOException {
+    return Files.createTempDirectory("history").resolve("durations.bin").toFile();
+  }
+}
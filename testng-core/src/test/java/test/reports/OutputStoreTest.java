@@ -0,0 +1,166 @@
+package test.reports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.internal.OutputStore;
+import org.testng.internal.TestResult;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class OutputStoreTest extends SimpleBaseTest {
+
+  @Test(description = "The lines logged by several threads are read back in their order")
+  public void linesAreOrdered() throws Exception {
+    OutputStore store = new OutputStore(-1);
+    run(store, 8, 1000);
+
+    List<String> all = store.getOutput();
+    assertThat(all).hasSize(8 * 1000);
+    for (int thread = 0; thread < 8; thread++) {
+      List<String> own = store.getOutput("result-" + thread);
+      List<String> shared = Lists.newArrayList();
+      for (String line : store.getOutput("shared")) {
+        if (line.startsWith(thread + ":")) {
+          shared.add(line);
+        }
+      }
+      assertThat(own).hasSize(500);
+      assertThat(shared).hasSize(500);
+      for (int i = 0; i < 500; i++) {
+        assertThat(own.get(i)).isEqualTo(thread + ":" + (2 * i));
+        assertThat(shared.get(i)).isEqualTo(thread + ":" + (2 * i + 1));
+      }
+      assertThat(all.indexOf(thread + ":0")).isLessThan(all.indexOf(thread + ":1"));
+    }
+    store.close();
+  }
+
+  @Test(description = "The lines past the threshold are written to disk and read back from there")
+  public void linesAreSpilled() throws Exception {
+    OutputStore store = new OutputStore(100);
+    run(store, 4, 200);
+    store.newWriter("unicode").append("été ☃");
+
+    assertThat(store.getOutput()).hasSize(4 * 200 + 1);
+    assertThat(store.getOutput("unicode")).containsExactly("été ☃");
+    List<String> own = store.getOutput("result-3");
+    assertThat(own).hasSize(100);
+    for (int i = 0; i < own.size(); i++) {
+      assertThat(own.get(i)).isEqualTo("3:" + (2 * i));
+    }
+    store.close();
+    assertThat(store.getOutput()).isEmpty();
+  }
+
+  @Test(description = "Reporter.getOutput(ITestResult) gives the lines of each invocation")
+  public void reporterOutputOfParallelInvocations() {
+    TestNG tng = create(ParallelReporterLogSample.class);
+    tng.setDataProviderThreadCount(8);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    TestListenerAdapter listener = new TestListenerAdapter();
+    tng.addListener(listener);
+    tng.run();
+
+    assertThat(listener.getPassedTests()).hasSize(16);
+    for (ITestResult result : listener.getPassedTests()) {
+      int invocation = (Integer) result.getParameters()[0];
+      List<String> output = Reporter.getOutput(result);
+      assertThat(output).hasSize(ParallelReporterLogSample.LINES);
+      for (int i = 0; i < output.size(); i++) {
+        assertThat(output.get(i)).isEqualTo(invocation + ":" + i);
+      }
+    }
+  }
+
+  @Test(description = "The lines logged without a current result don't belong to the next one")
+  public void orphanedLinesAreOnlyPartOfTheWholeOutput() throws Exception {
+    ITestResult result = TestResult.newEmptyTestResult();
+    String orphaned = "orphaned:" + result.id();
+    String attributed = "attributed:" + result.id();
+    Thread thread =
+        new Thread(
+            () -> {
+              // Not the result of this test, inherited from its thread.
+              Reporter.setCurrentTestResult(null);
+              Reporter.log(orphaned);
+              Reporter.setCurrentTestResult(result);
+              Reporter.log(attributed);
+            });
+    thread.start();
+    thread.join();
+
+    assertThat(Reporter.getOutput(result)).containsExactly(attributed);
+    assertThat(Reporter.getOutput()).containsSubsequence(orphaned, attributed);
+  }
+
+  @Test(description = "Reporter.getOutput() is a copy, which the lines logged later don't change")
+  public void reporterOutputIsACopy() throws Exception {
+    ITestResult result = TestResult.newEmptyTestResult();
+    String line = "later:" + result.id();
+    List<String> before = Reporter.getOutput();
+    Thread thread =
+        new Thread(
+            () -> {
+              Reporter.setCurrentTestResult(result);
+              Reporter.log(line);
+            });
+    thread.start();
+    thread.join();
+
+    assertThat(before).doesNotContain(line);
+    assertThat(Reporter.getOutput()).contains(line);
+  }
+
+  @Test(description = "The lines of no result are only part of the whole output")
+  public void unattributedLines() {
+    OutputStore store = new OutputStore(-1);
+    store.newWriter("result").append("first");
+    store.newUnattributedWriter().append("second");
+    store.newWriter("result").append("third");
+
+    assertThat(store.getOutput()).containsExactly("first", "second", "third");
+    assertThat(store.getOutput("result")).containsExactly("first", "third");
+    store.close();
+    assertThat(store.getOutput()).isEmpty();
+  }
+
+  /**
+   * Each thread alternates between a result of its own and a result shared by all of them, and logs
+   * <code>thread:index</code>.
+   */
+  private static void run(OutputStore store, int threads, int lines) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = Lists.newArrayList();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      futures.add(
+          executor.submit(
+              () -> {
+                OutputStore.Writer own = store.newWriter("result-" + thread);
+                OutputStore.Writer shared = store.newWriter("shared");
+                start.await();
+                for (int i = 0; i < lines; i++) {
+                  (i % 2 == 0 ? own : shared).append(thread + ":" + i);
+                }
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,26 @@
+package test.reports;
+
+import org.testng.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ParallelReporterLogSample {
+
+  public static final int LINES = 1000;
+
+  @DataProvider(parallel = true)
+  public static Object[][] dp() {
+    Object[][] result = new Object[16][];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = new Object[] {i};
+    }
+    return result;
+  }
+
+  @Test(dataProvider = "dp")
+  public void log(int invocation) {
+    for (int i = 0; i < LINES; i++) {
+      Reporter.log(invocation + ":" + i);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package test.reports;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StreamingXmlFailingSample {
+
+  @Test
+  public void passing() {}
+
+  @Test
+  public void failing() {
+    Assert.fail("fails");
+  }
+}
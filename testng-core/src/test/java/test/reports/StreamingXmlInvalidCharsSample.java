@@ -0,0 +1,15 @@
+package test.reports;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class StreamingXmlInvalidCharsSample {
+
+  @DataProvider
+  public Object[][] dp() {
+    return new Object[][] {{"Passed \uFFFF and \uFFFE"}};
+  }
+
+  @Test(dataProvider = "dp")
+  public void passes(String value) {}
+}
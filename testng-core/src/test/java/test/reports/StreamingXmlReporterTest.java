@@ -0,0 +1,136 @@
+package test.reports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.UUID;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.testng.IReporter;
+import org.testng.ITestContext;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ISuiteResult;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.reporters.StreamingXMLReporter;
+import org.testng.reporters.XMLReporter;
+import org.testng.reporters.XMLReporterConfig;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class StreamingXmlReporterTest extends SimpleBaseTest {
+
+  @Test(description = "The streamed report is the same as the report written at once")
+  public void reportIsTheSame() throws Exception {
+    XmlSuite suite = createXmlSuite("Streaming");
+    createXmlTest(suite, "First", StreamingXmlSample.class);
+    createXmlTest(suite, "Second", StreamingXmlSample.class);
+    createXmlTest(suite, "Third", StreamingXmlSample.class);
+    suite.setParallel(XmlSuite.ParallelMode.TESTS);
+    suite.setThreadCount(3);
+    File root = createDirInTempDir(UUID.randomUUID().toString());
+    File expected = new File(root, "xml");
+    File actual = new File(root, "streaming");
+    XMLReporter xmlReporter = new XMLReporter();
+    xmlReporter.getConfig().setOutputDirectory(expected.getAbsolutePath());
+    StreamingXMLReporter streamingReporter = new StreamingXMLReporter();
+    streamingReporter.getConfig().setOutputDirectory(actual.getAbsolutePath());
+
+    TestNG tng = create(root.toPath(), suite);
+    tng.addListener(xmlReporter);
+    tng.addListener(streamingReporter);
+    tng.run();
+
+    byte[] report = Files.readAllBytes(new File(actual, xmlReporter.fileName()).toPath());
+    assertThat(new String(report, "UTF-8")).contains("name=\"Third\"");
+    assertThat(report)
+        .isEqualTo(Files.readAllBytes(new File(expected, xmlReporter.fileName()).toPath()));
+  }
+
+  @Test(description = "A test is written again when the status of one of its results changed")
+  public void statusChangeIsNoticed() throws Exception {
+    File root = createDirInTempDir(UUID.randomUUID().toString());
+    File expected = new File(root, "xml");
+    File actual = new File(root, "streaming");
+    XMLReporter xmlReporter = new XMLReporter();
+    xmlReporter.getConfig().setOutputDirectory(expected.getAbsolutePath());
+    StreamingXMLReporter streamingReporter = new StreamingXMLReporter();
+    streamingReporter.getConfig().setOutputDirectory(actual.getAbsolutePath());
+
+    TestNG tng = create(root.toPath(), StreamingXmlFailingSample.class);
+    tng.addListener(xmlReporter);
+    tng.addListener(streamingReporter);
+    tng.addListener(
+        new ISuiteListener() {
+          @Override
+          public void onFinish(ISuite suite) {
+            // Like a retried result, it changes its status without changing the result count
+            for (ISuiteResult suiteResult : suite.getResults().values()) {
+              ITestContext context = suiteResult.getTestContext();
+              for (ITestResult result : context.getFailedTests().getAllResults()) {
+                result.setStatus(ITestResult.SKIP);
+              }
+            }
+          }
+        });
+    tng.run();
+
+    byte[] report = Files.readAllBytes(new File(actual, xmlReporter.fileName()).toPath());
+    assertThat(new String(report, "UTF-8")).doesNotContain("status=\"FAIL\"");
+    assertThat(report)
+        .isEqualTo(Files.readAllBytes(new File(expected, xmlReporter.fileName()).toPath()));
+  }
+
+  @Test(description = "The characters XML doesn't allow are left out of the streamed report")
+  public void invalidCharactersAreRemoved() throws Exception {
+    File directory = createDirInTempDir(UUID.randomUUID().toString());
+    StreamingXMLReporter reporter = new StreamingXMLReporter();
+    reporter.getConfig().setOutputDirectory(directory.getAbsolutePath());
+    TestNG tng = create(directory.toPath(), StreamingXmlInvalidCharsSample.class);
+    tng.addListener(reporter);
+    tng.run();
+
+    File report = new File(directory, reporter.fileName());
+    String content = new String(Files.readAllBytes(report.toPath()), "UTF-8");
+    assertThat(content).contains("Passed  and ").doesNotContain("\uFFFF").doesNotContain("\uFFFE");
+    DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report);
+  }
+
+  @Test(description = "The fragmented reports are written by the XMLReporter")
+  public void fragmentedReportIsNotStreamed() {
+    File directory = createDirInTempDir(UUID.randomUUID().toString());
+    StreamingXMLReporter reporter = new StreamingXMLReporter();
+    reporter.getConfig().setFileFragmentationLevel(XMLReporterConfig.FF_LEVEL_SUITE_RESULT);
+    TestNG tng = create(directory.toPath(), StreamingXmlSample.class);
+    tng.addListener(reporter);
+    tng.run();
+
+    File suite = new File(directory, "Command line suite");
+    assertThat(new File(directory, reporter.fileName())).exists();
+    assertThat(new File(suite, "Command line test.xml")).exists();
+  }
+
+  @Test(description = "The streaming reporter replaces the XMLReporter when the property is set")
+  public void defaultReporter() {
+    System.setProperty(RuntimeBehavior.TESTNG_STREAMING_XML_REPORTER, "true");
+    try {
+      File directory = createDirInTempDir(UUID.randomUUID().toString());
+      TestNG tng = create(directory.toPath(), StreamingXmlSample.class);
+      tng.setUseDefaultListeners(true);
+      tng.run();
+
+      assertThat(new File(directory, "testng-results.xml")).exists();
+      boolean streaming = false;
+      for (IReporter reporter : tng.getReporters()) {
+        assertThat(reporter.getClass()).isNotEqualTo(XMLReporter.class);
+        streaming |= reporter instanceof StreamingXMLReporter;
+      }
+      assertThat(streaming).isTrue();
+    } finally {
+      System.clearProperty(RuntimeBehavior.TESTNG_STREAMING_XML_REPORTER);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package test.reports;
+
+import org.testng.Assert;
+import org.testng.Reporter;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class StreamingXmlSample {
+
+  @DataProvider
+  public static Object[][] dp() {
+    return new Object[][] {{"a & b"}, {"<c>"}, {"\"d\""}};
+  }
+
+  @Test(groups = "fast", dataProvider = "dp")
+  public void withParameters(String value) {
+    Reporter.log("Logged " + value);
+  }
+
+  @Test(groups = "slow", description = "Fails")
+  public void failing() {
+    Assert.fail("]]> in the message");
+  }
+
+  @Test(dependsOnMethods = "failing")
+  public void skipped() {}
+
+  @AfterSuite
+  public void tearDown() {
+    Reporter.log("After the suite");
+  }
+}
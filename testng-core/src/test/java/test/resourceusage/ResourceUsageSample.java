@@ -0,0 +1,31 @@
+package test.resourceusage;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResourceUsageSample {
+
+  public static final int ALLOCATED = 4 * 1024 * 1024;
+
+  public static volatile Object sink;
+
+  @BeforeMethod
+  public void setUp() {
+    sink = new byte[ALLOCATED];
+  }
+
+  @Test
+  public void compute() {
+    long end = System.nanoTime() + 50_000_000L;
+    long sum = 0;
+    while (System.nanoTime() < end) {
+      sum += System.identityHashCode(new Object());
+    }
+    sink = sum;
+  }
+
+  @Test(timeOut = 10_000)
+  public void allocate() {
+    sink = new byte[ALLOCATED];
+  }
+}
@@ -0,0 +1,105 @@
+package test.resourceusage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.collections.Maps;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.reporters.JUnitReportReporter;
+import org.testng.reporters.XMLReporter;
+import org.testng.util.ResourceUsage;
+import test.SimpleBaseTest;
+
+public class ResourceUsageTest extends SimpleBaseTest {
+
+  @BeforeMethod
+  public void enable() {
+    System.setProperty(RuntimeBehavior.TESTNG_MEASURE_RESOURCES, "true");
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void disable() {
+    System.clearProperty(RuntimeBehavior.TESTNG_MEASURE_RESOURCES);
+  }
+
+  @Test(
+      description = "The CPU time and the allocations of each invocation are stored in its result")
+  public void usageIsMeasured() {
+    Map<String, ResourceUsage> usages = run(create(ResourceUsageSample.class));
+
+    assertThat(usages.keySet()).containsExactlyInAnyOrder("setUp", "compute", "allocate");
+    for (ResourceUsage usage : usages.values()) {
+      assertThat(usage).isNotNull();
+    }
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled()) {
+      assertThat(usages.get("compute").getCpuTimeMillis()).isGreaterThanOrEqualTo(10L);
+    }
+    if (usages.get("allocate").getAllocatedBytes() >= 0) {
+      assertThat(usages.get("allocate").getAllocatedBytes())
+          .isGreaterThanOrEqualTo((long) ResourceUsageSample.ALLOCATED);
+      assertThat(usages.get("setUp").getAllocatedBytes())
+          .isGreaterThanOrEqualTo((long) ResourceUsageSample.ALLOCATED);
+    }
+  }
+
+  @Test(description = "Nothing is measured unless the measure is enabled")
+  public void usageIsOptIn() {
+    disable();
+    Map<String, ResourceUsage> usages = run(create(ResourceUsageSample.class));
+
+    assertThat(usages).hasSize(3);
+    for (ResourceUsage usage : usages.values()) {
+      assertThat(usage).isNull();
+    }
+  }
+
+  @Test(description = "The usage is written to the XML and JUnit reports")
+  public void usageIsReported() throws Exception {
+    File directory = createDirInTempDir(UUID.randomUUID().toString());
+    TestNG tng = create(directory.toPath(), ResourceUsageSample.class);
+    tng.addListener(new XMLReporter());
+    tng.addListener(new JUnitReportReporter());
+    tng.run();
+
+    String xml = read(new File(directory, "testng-results.xml"));
+    assertThat(xml).contains("cpu-time-ms=\"").doesNotContain(ResourceUsage.ATTRIBUTE);
+    String junit =
+        read(
+            new File(
+                directory,
+                "junitreports/TEST-" + ResourceUsageSample.class.getName() + ".xml"));
+    assertThat(junit).contains("<property name=\"cpu-time\"");
+  }
+
+  private static String read(File file) throws Exception {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private static Map<String, ResourceUsage> run(TestNG tng) {
+    Map<String, ResourceUsage> usages = Collections.synchronizedMap(Maps.newHashMap());
+    tng.addListener(
+        new IInvokedMethodListener() {
+          @Override
+          public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+            usages.put(testResult.getMethod().getMethodName(), ResourceUsage.of(testResult));
+          }
+        });
+    tng.run();
+    return usages;
+  }
+}
@@ -0,0 +1,19 @@
+package test.shard;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ShardClassSample {
+
+  @BeforeClass
+  public void setUp() {}
+
+  @Test
+  public void a1() {}
+
+  @Test
+  public void a2() {}
+
+  @Test
+  public void a3() {}
+}
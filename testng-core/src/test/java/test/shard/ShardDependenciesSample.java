@@ -0,0 +1,30 @@
+package test.shard;
+
+import org.testng.annotations.Test;
+
+public class ShardDependenciesSample {
+
+  @Test
+  public void b1() {}
+
+  @Test(dependsOnMethods = "b1")
+  public void b2() {}
+
+  @Test(groups = "g")
+  public void c1() {}
+
+  @Test(dependsOnGroups = "g")
+  public void c2() {}
+
+  @Test
+  public void d1() {}
+
+  @Test
+  public void d2() {}
+
+  @Test
+  public void d3() {}
+
+  @Test
+  public void slow() {}
+}
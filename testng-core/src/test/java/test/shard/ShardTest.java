@@ -0,0 +1,153 @@
+package test.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.testng.IDurationProvider;
+import org.testng.ITestNGMethod;
+import org.testng.TestNG;
+import org.testng.TestNGException;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.collections.Maps;
+import org.testng.internal.Shard;
+import org.testng.reporters.DurationHistory;
+import test.InvokedMethodNameListener;
+import test.SimpleBaseTest;
+
+public class ShardTest extends SimpleBaseTest {
+
+  @Test(description = "Running every shard runs every method exactly once")
+  public void shardsCoverAllTheMethods() {
+    List<String> all = runShard(null);
+    List<String> sharded = Lists.newArrayList();
+    for (int i = 1; i <= 3; i++) {
+      List<String> shard = runShard(i + "/3");
+      assertThat(shard).isNotEmpty();
+      sharded.addAll(shard);
+    }
+    assertThat(sharded).containsExactlyInAnyOrderElementsOf(all);
+  }
+
+  @Test(description = "Dependencies and classes with @BeforeClass methods stay in one shard")
+  public void dependenciesAndClassesAreNotSplit() {
+    for (int i = 1; i <= 4; i++) {
+      List<String> shard = runShard(i + "/4");
+      assertTogether(shard, "a1", "a2", "a3");
+      assertTogether(shard, "b1", "b2");
+      assertTogether(shard, "c1", "c2");
+    }
+  }
+
+  @Test
+  public void shardsAreDeterministic() {
+    for (int i = 1; i <= 3; i++) {
+      assertThat(runShard(i + "/3")).containsExactlyElementsOf(runShard(i + "/3"));
+    }
+  }
+
+  @Test(description = "The shards are balanced by the expected durations when they are known")
+  public void shardsAreBalancedByDuration() {
+    List<ITestNGMethod> methods =
+        extractTestNGMethods(ShardClassSample.class, ShardDependenciesSample.class);
+    Map<String, Long> durations = Maps.newHashMap();
+    durations.put("slow", 1000L);
+    IDurationProvider provider = method -> durations.getOrDefault(method.getMethodName(), 1L);
+
+    List<List<ITestNGMethod>> byCount = Shard.partition(methods, 2, null);
+    assertThat(byCount.get(0).size() - byCount.get(1).size()).isBetween(-3, 3);
+
+    List<List<ITestNGMethod>> byDuration = Shard.partition(methods, 2, provider);
+    List<ITestNGMethod> slowShard =
+        namesOf(byDuration.get(0)).contains("slow") ? byDuration.get(0) : byDuration.get(1);
+    assertThat(namesOf(slowShard)).containsExactly("slow");
+  }
+
+  @Test(description = "The partition doesn't depend on the order the methods were found in")
+  public void shardsDontDependOnTheOrderOfTheMethods() {
+    List<ITestNGMethod> methods =
+        extractTestNGMethods(ShardClassSample.class, ShardDependenciesSample.class);
+    List<ITestNGMethod> reversed = Lists.newArrayList(methods);
+    Collections.reverse(reversed);
+
+    List<List<ITestNGMethod>> shards = Shard.partition(methods, 3, null);
+    List<List<ITestNGMethod>> reversedShards = Shard.partition(reversed, 3, null);
+    for (int i = 0; i < 3; i++) {
+      assertThat(reversedShards.get(i)).containsExactlyInAnyOrderElementsOf(shards.get(i));
+    }
+  }
+
+  @Test(description = "The durations known to this machine only don't change the shards")
+  public void localDurationsAreIgnored() {
+    IDurationProvider provider = method -> "slow".equals(method.getMethodName()) ? 1000L : 1L;
+    for (int i = 1; i <= 2; i++) {
+      assertThat(runShard(i + "/2", null, provider)).containsExactlyElementsOf(runShard(i + "/2"));
+    }
+  }
+
+  @Test(description = "The shards are balanced by the durations of the history they are given")
+  public void sharedHistoryBalancesTheShards() throws IOException {
+    File file = Files.createTempDirectory("shard").resolve("durations.bin").toFile();
+    ITestNGMethod slow =
+        extractTestNGMethods(ShardDependenciesSample.class).stream()
+            .filter(method -> "slow".equals(method.getMethodName()))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+    try (DurationHistory history = DurationHistory.open(file)) {
+      history.record(DurationHistory.signatureOf(slow), DurationHistory.ALL_INVOCATIONS, 1000);
+    }
+
+    List<String> first = runShard("1/2", file.getAbsolutePath(), null);
+    List<String> second = runShard("2/2", file.getAbsolutePath(), null);
+    assertThat(first.contains("slow") ? first : second).containsExactly("slow");
+  }
+
+  @Test(
+      expectedExceptions = TestNGException.class,
+      expectedExceptionsMessageRegExp = "\\nInvalid shard 4/3.*")
+  public void invalidShardIsRejected() {
+    new TestNG().setShard("4/3");
+  }
+
+  private static List<String> runShard(String shard) {
+    return runShard(shard, null, null);
+  }
+
+  private static List<String> runShard(
+      String shard, String history, IDurationProvider durationProvider) {
+    TestNG tng = create(ShardClassSample.class, ShardDependenciesSample.class);
+    tng.setShard(shard);
+    tng.setShardHistory(history);
+    if (durationProvider != null) {
+      tng.addListener(durationProvider);
+    }
+    InvokedMethodNameListener listener = new InvokedMethodNameListener();
+    tng.addListener(listener);
+    tng.run();
+    assertThat(tng.getStatus()).isEqualTo(0);
+    return listener.getSucceedMethodNames();
+  }
+
+  private static void assertTogether(List<String> shard, String... methods) {
+    int found = 0;
+    for (String method : methods) {
+      if (shard.contains(method)) {
+        found++;
+      }
+    }
+    assertThat(found).isIn(0, methods.length);
+  }
+
+  private static List<String> namesOf(List<ITestNGMethod> methods) {
+    List<String> result = Lists.newArrayList();
+    for (ITestNGMethod method : methods) {
+      result.add(method.getMethodName());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,31 @@
+package test.thread;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class InvocationBatchSample {
+
+  public static final int INVOCATION_COUNT = 1_000;
+  public static final int THREAD_POOL_SIZE = 4;
+
+  public static final AtomicInteger BEFORE_METHOD_COUNT = new AtomicInteger();
+  public static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+  public static void reset() {
+    BEFORE_METHOD_COUNT.set(0);
+    INVOCATIONS.set(0);
+  }
+
+  @BeforeMethod
+  public void beforeMethod() {
+    BEFORE_METHOD_COUNT.incrementAndGet();
+  }
+
+  @Test(invocationCount = INVOCATION_COUNT, threadPoolSize = THREAD_POOL_SIZE)
+  public void pooled() {
+    if (INVOCATIONS.incrementAndGet() % 10 == 0) {
+      throw new IllegalStateException("Every tenth invocation fails");
+    }
+  }
+}
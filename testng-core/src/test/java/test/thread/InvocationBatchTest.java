@@ -0,0 +1,136 @@
+package test.thread;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import test.SimpleBaseTest;
+
+public class InvocationBatchTest extends SimpleBaseTest {
+
+  @Test
+  public void testPooledInvocationsAreAllReported() {
+    InvocationBatchSample.reset();
+    TestNG tng = create(InvocationBatchSample.class);
+    TestListenerAdapter tla = new TestListenerAdapter();
+    tng.addListener(tla);
+    tng.run();
+
+    int failures = InvocationBatchSample.INVOCATION_COUNT / 10;
+    assertThat(tla.getPassedTests()).hasSize(InvocationBatchSample.INVOCATION_COUNT - failures);
+    assertThat(tla.getFailedTests()).hasSize(failures);
+    assertThat(InvocationBatchSample.BEFORE_METHOD_COUNT.get())
+        .isEqualTo(InvocationBatchSample.INVOCATION_COUNT);
+  }
+
+  @Test
+  public void testPooledInvocationsShareOneMethodPerThread() {
+    InvocationBatchSample.reset();
+    TestNG tng = create(InvocationBatchSample.class);
+    TestListenerAdapter tla = new TestListenerAdapter();
+    tng.addListener(tla);
+    tng.run();
+
+    List<ITestResult> results = Lists.newArrayList(tla.getPassedTests());
+    results.addAll(tla.getFailedTests());
+    Set<ITestNGMethod> methods = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (ITestResult result : results) {
+      methods.add(result.getMethod());
+    }
+    assertThat(methods.size()).isLessThanOrEqualTo(InvocationBatchSample.THREAD_POOL_SIZE);
+  }
+
+  @Test(description = "Every pool thread runs invocations, however quick they are")
+  public void testPooledInvocationsUseEveryThread() {
+    InvocationBatchSample.reset();
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    TestNG tng = create(InvocationBatchSample.class);
+    tng.addListener(
+        new ITestListener() {
+          @Override
+          public void onTestStart(ITestResult result) {
+            threads.add(Thread.currentThread());
+          }
+        });
+    tng.run();
+
+    assertThat(threads).hasSize(InvocationBatchSample.THREAD_POOL_SIZE);
+  }
+
+  @Test(description = "Batched invocations run and report exactly like one worker per invocation")
+  public void testBatchedInvocationsAreReportedLikeSingleOnes() {
+    InvocationBatchSample.reset();
+    CallbackCounter batched = new CallbackCounter();
+    TestNG tng = create(InvocationBatchSample.class);
+    tng.addListener(batched);
+    tng.run();
+
+    PerInvocationSample.reset();
+    CallbackCounter single = new CallbackCounter();
+    tng = create(PerInvocationSample.class);
+    tng.addListener(single);
+    tng.run();
+
+    assertThat(InvocationBatchSample.INVOCATIONS.get())
+        .isEqualTo(InvocationBatchSample.INVOCATION_COUNT);
+    assertThat(PerInvocationSample.INVOCATIONS.get())
+        .isEqualTo(InvocationBatchSample.INVOCATION_COUNT);
+    assertThat(InvocationBatchSample.BEFORE_METHOD_COUNT.get())
+        .isEqualTo(PerInvocationSample.BEFORE_METHOD_COUNT.get());
+    assertThat(batched.m_counts).isEqualTo(single.m_counts);
+    assertThat(batched.m_counts.get("onTestStart"))
+        .isEqualTo(InvocationBatchSample.INVOCATION_COUNT);
+  }
+
+  public static class CallbackCounter implements ITestListener, IInvokedMethodListener {
+
+    private final Map<String, Integer> m_counts = new ConcurrentHashMap<>();
+
+    private void count(String callback) {
+      m_counts.merge(callback, 1, Integer::sum);
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+      count("onTestStart");
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+      count("onTestSuccess");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+      count("onTestFailure");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+      count("onTestSkipped");
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+      count("beforeInvocation " + method.isTestMethod());
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+      count("afterInvocation " + method.isTestMethod());
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package test.thread;
+
+import java.util.List;
+import org.testng.Assert;
+import org.testng.TestNG;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.internal.thread.DefaultThreadPoolExecutorFactory;
+import org.testng.internal.thread.LockFreeThreadPoolExecutorFactory;
+import org.testng.thread.IExecutorFactory;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+import test.graph.LocalVisualiser;
+import test.graph.TestSampleWithListener;
+
+public class LockFreeThreadPoolExecutorTest extends SimpleBaseTest {
+
+  @Test(dataProvider = "threadCounts")
+  public void testDependenciesAreHonoured(int threadCount) {
+    MultiThreadedDependentSampleTest.m_methods = Lists.newArrayList();
+    TestNG tng = create(MultiThreadedDependentSampleTest.class);
+    tng.setThreadCount(threadCount);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    tng.setExecutorFactory(new LockFreeThreadPoolExecutorFactory());
+    tng.run();
+
+    List<String> methods = MultiThreadedDependentSampleTest.m_methods;
+    Assert.assertEquals(methods.size(), 14);
+    for (String b : new String[] {"b1", "b2", "b3", "b4", "b5", "d"}) {
+      assertRunsAfter(methods, b, "a1", "a2");
+    }
+    assertRunsAfter(methods, "c1", "b1", "b2");
+  }
+
+  @DataProvider(name = "threadCounts")
+  public Object[][] threadCounts() {
+    return new Object[][] {{1}, {2}, {5}};
+  }
+
+  @Test
+  public void testVisualisersAreNotified() {
+    int expected = runWithVisualiser(new DefaultThreadPoolExecutorFactory());
+    int actual = runWithVisualiser(new LockFreeThreadPoolExecutorFactory());
+    Assert.assertEquals(actual, expected);
+  }
+
+  private static int runWithVisualiser(IExecutorFactory factory) {
+    TestNG tng = create(TestSampleWithListener.class);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    tng.setThreadCount(2);
+    tng.setExecutorFactory(factory);
+    tng.run();
+    return LocalVisualiser.getInstance().getDefinitions().size();
+  }
+
+  private static void assertRunsAfter(List<String> methods, String method, String... upstream) {
+    int index = methods.indexOf(method);
+    for (String each : upstream) {
+      Assert.assertTrue(
+          methods.indexOf(each) < index, each + " should have run before " + method + methods);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package test.thread;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The same method as {@link InvocationBatchSample}, whose retry analyzer makes TestNG give each
+ * invocation its own worker.
+ */
+public class PerInvocationSample {
+
+  public static final AtomicInteger BEFORE_METHOD_COUNT = new AtomicInteger();
+  public static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+  public static void reset() {
+    BEFORE_METHOD_COUNT.set(0);
+    INVOCATIONS.set(0);
+  }
+
+  @BeforeMethod
+  public void beforeMethod() {
+    BEFORE_METHOD_COUNT.incrementAndGet();
+  }
+
+  @Test(
+      invocationCount = InvocationBatchSample.INVOCATION_COUNT,
+      threadPoolSize = InvocationBatchSample.THREAD_POOL_SIZE,
+      retryAnalyzer = NeverRetry.class)
+  public void pooled() {
+    if (INVOCATIONS.incrementAndGet() % 10 == 0) {
+      throw new IllegalStateException("Every tenth invocation fails");
+    }
+  }
+
+  public static class NeverRetry implements IRetryAnalyzer {
+
+    @Override
+    public boolean retry(ITestResult result) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package test.thread.criticalpath;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+public class CriticalPathPrioritySample {
+
+  static final List<String> STARTED = new CopyOnWriteArrayList<>();
+
+  @Test(priority = -1)
+  public void x() {
+    started();
+  }
+
+  @Test
+  public void a() {
+    started();
+  }
+
+  @Test
+  public void b() {
+    started();
+  }
+
+  @Test
+  public void c() {
+    started();
+  }
+
+  @Test
+  public void z1() {
+    started();
+  }
+
+  @Test(dependsOnMethods = "z1")
+  public void z2() {
+    started();
+  }
+
+  @Test(dependsOnMethods = "z2")
+  public void z3() {
+    started();
+  }
+
+  private static void started() {
+    ITestResult result = Reporter.getCurrentTestResult();
+    STARTED.add(result.getMethod().getMethodName());
+  }
+}
@@ -0,0 +1,53 @@
+package test.thread.criticalpath;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.TestNG;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class CriticalPathTest extends SimpleBaseTest {
+
+  @DataProvider
+  public Object[][] getDurations() {
+    return new Object[][] {
+      // z1 -> z2 -> z3 takes 10 + 10 + 15 (the average duration) ms, more than a, b or c.
+      {15L, 10L, "z1"},
+      // z1 -> z2 -> z3 takes 10 + 10 + 64 (the average duration) ms, less than a, b or c.
+      {100L, 10L, "a"}
+    };
+  }
+
+  @Test(dataProvider = "getDurations")
+  public void longestChainIsDispatchedFirst(
+      long independentDuration, long chainDuration, String expectedFirst) {
+    CriticalPathSample.STARTED.clear();
+    TestNG tng = create(CriticalPathSample.class);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    tng.setThreadCount(1);
+    tng.addListener(new SampleDurationProvider(independentDuration, chainDuration));
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(CriticalPathSample.STARTED).hasSize(6);
+    assertThat(CriticalPathSample.STARTED.get(0)).isEqualTo(expectedFirst);
+  }
+
+  @Test(description = "With priorities, the workers waiting for a thread follow the critical path")
+  public void waitingWorkersFollowTheCriticalPathAfterThePriorities() {
+    CriticalPathPrioritySample.STARTED.clear();
+    TestNG tng = create(CriticalPathPrioritySample.class);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    tng.setThreadCount(1);
+    tng.addListener(new SampleDurationProvider(10L, 50L));
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    // x goes first because of its priority, then z1 -> z2 -> z3 takes 50 + 50 + 34 (the average
+    // duration) ms, more than a, b or c, and the chain only ends with z3, that still takes longer.
+    assertThat(CriticalPathPrioritySample.STARTED)
+        .containsExactly("x", "z1", "z2", "z3", "a", "b", "c");
+  }
+}
@@ -0,0 +1,24 @@
+package test.thread.criticalpath;
+
+import java.util.Map;
+import org.testng.IDurationProvider;
+import org.testng.ITestNGMethod;
+import org.testng.collections.Maps;
+
+public class SampleDurationProvider implements IDurationProvider {
+
+  private final Map<String, Long> durations = Maps.newHashMap();
+
+  public SampleDurationProvider(long independentDuration, long chainDuration) {
+    durations.put("a", independentDuration);
+    durations.put("b", independentDuration);
+    durations.put("c", independentDuration);
+    durations.put("z1", chainDuration);
+    durations.put("z2", chainDuration);
+  }
+
+  @Override
+  public long getExpectedDuration(ITestNGMethod method) {
+    return durations.getOrDefault(method.getMethodName(), UNKNOWN);
+  }
+}
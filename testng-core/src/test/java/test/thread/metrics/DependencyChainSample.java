@@ -0,0 +1,21 @@
+package test.thread.metrics;
+
+import org.testng.annotations.Test;
+
+public class DependencyChainSample {
+
+  @Test
+  public void a() throws InterruptedException {
+    Thread.sleep(100);
+  }
+
+  @Test(dependsOnMethods = "a")
+  public void b() throws InterruptedException {
+    Thread.sleep(100);
+  }
+
+  @Test(dependsOnMethods = "b")
+  public void c() throws InterruptedException {
+    Thread.sleep(100);
+  }
+}
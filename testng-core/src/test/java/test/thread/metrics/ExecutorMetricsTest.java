@@ -0,0 +1,141 @@
+package test.thread.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.ISuiteResult;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Lists;
+import org.testng.reporters.RuntimeBehavior;
+import org.testng.reporters.XMLReporter;
+import org.testng.thread.ExecutorMetrics;
+import org.testng.thread.IExecutorMetricsListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlSuite.ParallelMode;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import test.SimpleBaseTest;
+
+public class ExecutorMetricsTest extends SimpleBaseTest {
+
+  @Test(description = "The threads idle while a chain of dependencies runs are a dependency stall")
+  public void dependencyStallIsMeasured() {
+    ExecutorMetrics metrics = run(create(suiteOf(DependencyChainSample.class, 4)));
+
+    assertThat(metrics.getThreadCount()).isEqualTo(4);
+    assertThat(metrics.getNodeCount()).isEqualTo(3);
+    assertThat(metrics.getPeakActiveThreads()).isEqualTo(1);
+    assertThat(metrics.getAchievedParallelism()).isLessThan(1.5d);
+    assertThat(metrics.getLongestDependencyStallMillis()).isGreaterThanOrEqualTo(90d);
+    assertThat(metrics.getIdleThreadMillis()).isGreaterThanOrEqualTo(600L);
+  }
+
+  @Test(
+      description = "The methods waiting for one of too few threads have a ready to start latency")
+  public void readyToStartLatencyIsMeasured() {
+    ExecutorMetrics metrics = run(create(suiteOf(IndependentSample.class, 2)));
+
+    assertThat(metrics.getNodeCount()).isEqualTo(4);
+    assertThat(metrics.getPeakActiveThreads()).isEqualTo(2);
+    assertThat(metrics.getAchievedParallelism()).isGreaterThan(1d);
+    assertThat(metrics.getMaxReadyToStartMillis()).isGreaterThanOrEqualTo(90d);
+    assertThat(metrics.getSlowestToStart()).isNotNull();
+    assertThat(metrics.getLongestDependencyStallMillis()).isLessThan(90d);
+  }
+
+  @Test(description = "The executor metrics listeners are notified of what the executor does")
+  public void listenersAreNotified() {
+    List<String> executors = Lists.newArrayList();
+    AtomicInteger started = new AtomicInteger();
+    AtomicInteger finished = new AtomicInteger();
+    TestNG tng = create(suiteOf(IndependentSample.class, 2));
+    tng.addListener(
+        new IExecutorMetricsListener() {
+          @Override
+          public void onExecutorStart(String name, int threadCount, int nodeCount) {
+            executors.add(name);
+          }
+
+          @Override
+          public void onWorkerStart(List<?> nodes) {
+            started.addAndGet(nodes.size());
+          }
+
+          @Override
+          public void onWorkerFinish(List<?> nodes) {
+            finished.addAndGet(nodes.size());
+          }
+        });
+    tng.run();
+
+    assertThat(executors).containsExactly("test=Metrics");
+    assertThat(started.get()).isEqualTo(4);
+    assertThat(finished.get()).isEqualTo(4);
+  }
+
+  @Test(description = "The executor metrics of a test are written to the XML report")
+  public void metricsAreReported() throws Exception {
+    File directory = createDirInTempDir(UUID.randomUUID().toString());
+    TestNG tng = create(directory.toPath(), suiteOf(DependencyChainSample.class, 4));
+    tng.addListener(new XMLReporter());
+    tng.run();
+
+    Document document =
+        DocumentBuilderFactory.newInstance()
+            .newDocumentBuilder()
+            .parse(new File(directory, RuntimeBehavior.FILE_NAME));
+    Element element =
+        (Element)
+            XPathFactory.newInstance()
+                .newXPath()
+                .compile("/testng-results/suite/test/executor-metrics")
+                .evaluate(document, XPathConstants.NODE);
+    assertThat(element).isNotNull();
+    assertThat(element.getAttribute("thread-count")).isEqualTo("4");
+    assertThat(element.getAttribute("node-count")).isEqualTo("3");
+    assertThat(element.getAttribute("peak-active-threads")).isEqualTo("1");
+    assertThat(element.getAttribute("longest-dependency-stall-ms")).isNotEmpty();
+  }
+
+  @Test(description = "No executor metrics are collected for the tests that don't run in parallel")
+  public void sequentialTestsHaveNoMetrics() {
+    XmlSuite suite = suiteOf(IndependentSample.class, 2);
+    suite.setParallel(ParallelMode.NONE);
+    assertThat(run(create(suite))).isNull();
+  }
+
+  private static XmlSuite suiteOf(Class<?> cls, int threadCount) {
+    XmlSuite suite = createXmlSuite("Metrics", "Metrics", cls);
+    suite.setParallel(ParallelMode.METHODS);
+    suite.setThreadCount(threadCount);
+    return suite;
+  }
+
+  private static ExecutorMetrics run(TestNG tng) {
+    List<Object> metrics = Lists.newArrayList();
+    tng.addListener(
+        new IReporter() {
+          @Override
+          public void generateReport(
+              List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+            for (ISuite suite : suites) {
+              for (ISuiteResult result : suite.getResults().values()) {
+                metrics.add(result.getTestContext().getAttribute(ExecutorMetrics.ATTRIBUTE));
+              }
+            }
+          }
+        });
+    tng.run();
+    assertThat(metrics).hasSize(1);
+    return (ExecutorMetrics) metrics.get(0);
+  }
+}
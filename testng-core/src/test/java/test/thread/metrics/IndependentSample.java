@@ -0,0 +1,26 @@
+package test.thread.metrics;
+
+import org.testng.annotations.Test;
+
+public class IndependentSample {
+
+  @Test
+  public void a() throws InterruptedException {
+    Thread.sleep(100);
+  }
+
+  @Test
+  public void b() throws InterruptedException {
+    Thread.sleep(100);
+  }
+
+  @Test
+  public void c() throws InterruptedException {
+    Thread.sleep(100);
+  }
+
+  @Test
+  public void d() throws InterruptedException {
+    Thread.sleep(100);
+  }
+}
@@ -0,0 +1,25 @@
+package test.thread.sharedpool;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.annotations.Test;
+
+public class SharedPoolPrioritySample {
+
+  static final List<String> STARTED = new CopyOnWriteArrayList<>();
+
+  @Test(priority = 2)
+  public void a() {
+    STARTED.add("a");
+  }
+
+  @Test(priority = 1)
+  public void b() {
+    STARTED.add("b");
+  }
+
+  @Test
+  public void c() {
+    STARTED.add("c");
+  }
+}
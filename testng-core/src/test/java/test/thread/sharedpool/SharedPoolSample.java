@@ -0,0 +1,72 @@
+package test.thread.sharedpool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.ITestContext;
+import org.testng.annotations.Test;
+
+public class SharedPoolSample {
+
+  static final Map<String, AtomicInteger> RUNNING = new ConcurrentHashMap<>();
+  static final Map<String, AtomicInteger> MAX_CONCURRENCY = new ConcurrentHashMap<>();
+  static final AtomicInteger GLOBAL_RUNNING = new AtomicInteger();
+  static final AtomicInteger GLOBAL_MAX_CONCURRENCY = new AtomicInteger();
+  static final Set<String> THREAD_NAMES = ConcurrentHashMap.newKeySet();
+  static final List<String> COMPLETED = new CopyOnWriteArrayList<>();
+
+  static void reset() {
+    RUNNING.clear();
+    MAX_CONCURRENCY.clear();
+    GLOBAL_RUNNING.set(0);
+    GLOBAL_MAX_CONCURRENCY.set(0);
+    THREAD_NAMES.clear();
+    COMPLETED.clear();
+  }
+
+  @Test
+  public void a(ITestContext context) throws InterruptedException {
+    work(context, "a");
+  }
+
+  @Test
+  public void b(ITestContext context) throws InterruptedException {
+    work(context, "b");
+  }
+
+  @Test
+  public void c(ITestContext context) throws InterruptedException {
+    work(context, "c");
+  }
+
+  @Test
+  public void d(ITestContext context) throws InterruptedException {
+    work(context, "d");
+  }
+
+  @Test(dependsOnMethods = {"a", "b", "c", "d"})
+  public void last(ITestContext context) throws InterruptedException {
+    work(context, "last");
+  }
+
+  private static void work(ITestContext context, String method) throws InterruptedException {
+    String test = context.getName();
+    THREAD_NAMES.add(Thread.currentThread().getName());
+    int running = RUNNING.computeIfAbsent(test, k -> new AtomicInteger()).incrementAndGet();
+    MAX_CONCURRENCY
+        .computeIfAbsent(test, k -> new AtomicInteger())
+        .accumulateAndGet(running, Math::max);
+    GLOBAL_MAX_CONCURRENCY.accumulateAndGet(GLOBAL_RUNNING.incrementAndGet(), Math::max);
+    try {
+      TimeUnit.MILLISECONDS.sleep(50);
+    } finally {
+      GLOBAL_RUNNING.decrementAndGet();
+      RUNNING.get(test).decrementAndGet();
+      COMPLETED.add(test + "." + method);
+    }
+  }
+}
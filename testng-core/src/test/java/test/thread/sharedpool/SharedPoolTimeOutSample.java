@@ -0,0 +1,29 @@
+package test.thread.sharedpool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class SharedPoolTimeOutSample {
+
+  static final AtomicInteger STARTED = new AtomicInteger();
+  static final AtomicInteger INTERRUPTED = new AtomicInteger();
+
+  @Test
+  public void a() {
+    sleep();
+  }
+
+  @Test
+  public void b() {
+    sleep();
+  }
+
+  private static void sleep() {
+    STARTED.incrementAndGet();
+    try {
+      Thread.sleep(10_000);
+    } catch (InterruptedException e) {
+      INTERRUPTED.incrementAndGet();
+    }
+  }
+}
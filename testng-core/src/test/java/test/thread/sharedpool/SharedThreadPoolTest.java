@@ -0,0 +1,156 @@
+package test.thread.sharedpool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.collections.Maps;
+import org.testng.internal.thread.SharedThreadPoolExecutorFactory;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import test.SimpleBaseTest;
+
+public class SharedThreadPoolTest extends SimpleBaseTest {
+
+  @Test
+  public void testsAndMethodsShareOnePool() {
+    SharedPoolSample.reset();
+    XmlSuite suite = createXmlSuite("suite");
+    suite.setParallel(XmlSuite.ParallelMode.TESTS);
+    suite.setThreadCount(2);
+    for (String name : Arrays.asList("test1", "test2")) {
+      XmlTest test = createXmlTest(suite, name, SharedPoolSample.class);
+      test.setParallel(XmlSuite.ParallelMode.METHODS);
+      test.setThreadCount(2);
+    }
+    TestNG tng = create(suite);
+    tng.setExecutorFactory(new SharedThreadPoolExecutorFactory(3));
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(SharedPoolSample.COMPLETED).hasSize(10);
+    assertThat(SharedPoolSample.GLOBAL_MAX_CONCURRENCY.get()).isLessThanOrEqualTo(3);
+    for (String test : Arrays.asList("test1", "test2")) {
+      assertThat(SharedPoolSample.MAX_CONCURRENCY.get(test).get()).isLessThanOrEqualTo(2);
+      assertLastRanAfterItsDependencies(test);
+    }
+    assertRanInTheSharedPool();
+  }
+
+  @Test
+  public void suitesShareOnePool() {
+    SharedPoolSample.reset();
+    XmlSuite suite1 = createXmlSuite("suite1");
+    suite1.setParallel(XmlSuite.ParallelMode.METHODS);
+    suite1.setThreadCount(2);
+    createXmlTest(suite1, "test1", SharedPoolSample.class);
+    XmlSuite suite2 = createXmlSuite("suite2");
+    suite2.setParallel(XmlSuite.ParallelMode.METHODS);
+    suite2.setThreadCount(2);
+    createXmlTest(suite2, "test2", SharedPoolSample.class);
+    TestNG tng = create(suite1, suite2);
+    tng.setSuiteThreadPoolSize(2);
+    tng.setSharedThreadPoolSize(2);
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(SharedPoolSample.COMPLETED).hasSize(10);
+    assertThat(SharedPoolSample.GLOBAL_MAX_CONCURRENCY.get()).isLessThanOrEqualTo(2);
+    assertLastRanAfterItsDependencies("test1");
+    assertLastRanAfterItsDependencies("test2");
+    assertRanInTheSharedPool();
+  }
+
+  @Test
+  public void sharedThreadPoolSizeCanBeSetFromTheCommandLine() {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("-sharedthreadpoolsize", "5");
+    TestNG tng = create();
+    tng.configure(params);
+    assertThat(tng.getExecutorFactory()).isInstanceOf(SharedThreadPoolExecutorFactory.class);
+    assertThat(((SharedThreadPoolExecutorFactory) tng.getExecutorFactory()).getParallelism())
+        .isEqualTo(5);
+  }
+
+  @Test(description = "The workers waiting for a thread of the shared pool are ordered by priority")
+  public void prioritiesAreHonoured() {
+    SharedPoolPrioritySample.STARTED.clear();
+    TestNG tng = create(SharedPoolPrioritySample.class);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    tng.setThreadCount(1);
+    tng.setSharedThreadPoolSize(2);
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(SharedPoolPrioritySample.STARTED).containsExactly("c", "b", "a");
+  }
+
+  @Test(description = "The time-out of a <test> interrupts its methods running in the shared pool")
+  public void testTimeOutInterruptsTheRunningMethods() throws InterruptedException {
+    SharedPoolTimeOutSample.STARTED.set(0);
+    SharedPoolTimeOutSample.INTERRUPTED.set(0);
+    XmlSuite suite = createXmlSuite("suite");
+    XmlTest test = createXmlTest(suite, "test", SharedPoolTimeOutSample.class);
+    test.setParallel(XmlSuite.ParallelMode.METHODS);
+    test.setThreadCount(1);
+    test.setTimeOut(500);
+    TestNG tng = create(suite);
+    tng.setSharedThreadPoolSize(2);
+    long start = System.currentTimeMillis();
+    tng.run();
+
+    assertThat(System.currentTimeMillis() - start).isLessThan(10_000L);
+    assertThat(SharedPoolTimeOutSample.INTERRUPTED.get()).isEqualTo(1);
+    // The method waiting for a thread when the time-out expired never starts
+    assertThat(SharedPoolTimeOutSample.STARTED.get()).isEqualTo(1);
+    assertThat(waitForSharedThreadsToStop()).isTrue();
+  }
+
+  @Test(description = "The pool is stopped when the run ends, a new one serving the next run")
+  public void poolIsShutDownWhenTheRunEnds() throws InterruptedException {
+    SharedPoolSample.reset();
+    XmlSuite suite = createXmlSuite("suite");
+    XmlTest test = createXmlTest(suite, "test", SharedPoolSample.class);
+    test.setParallel(XmlSuite.ParallelMode.METHODS);
+    test.setThreadCount(2);
+    TestNG tng = create(suite);
+    tng.setSharedThreadPoolSize(2);
+    tng.run();
+    assertThat(waitForSharedThreadsToStop()).isTrue();
+
+    tng.run();
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(SharedPoolSample.COMPLETED).hasSize(10);
+    assertThat(waitForSharedThreadsToStop()).isTrue();
+  }
+
+  private static boolean waitForSharedThreadsToStop() throws InterruptedException {
+    for (int i = 0; i < 50; i++) {
+      boolean alive =
+          Thread.getAllStackTraces().keySet().stream()
+              .anyMatch(t -> t.getName().startsWith("TestNG-shared-"));
+      if (!alive) {
+        return true;
+      }
+      Thread.sleep(100);
+    }
+    return false;
+  }
+
+  private static void assertRanInTheSharedPool() {
+    assertThat(SharedPoolSample.THREAD_NAMES).isNotEmpty();
+    for (String name : SharedPoolSample.THREAD_NAMES) {
+      assertThat(name).startsWith("TestNG-shared-");
+    }
+  }
+
+  private static void assertLastRanAfterItsDependencies(String test) {
+    int last = SharedPoolSample.COMPLETED.indexOf(test + ".last");
+    assertThat(last).isGreaterThanOrEqualTo(0);
+    for (String method : Arrays.asList("a", "b", "c", "d")) {
+      assertThat(SharedPoolSample.COMPLETED.indexOf(test + "." + method)).isLessThan(last);
+    }
+  }
+}
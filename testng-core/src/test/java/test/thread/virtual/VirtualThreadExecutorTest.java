@@ -0,0 +1,107 @@
+package test.thread.virtual;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.testng.TestNG;
+import org.testng.TestNGException;
+import org.testng.annotations.Test;
+import org.testng.internal.thread.DefaultThreadPoolExecutorFactory;
+import org.testng.internal.thread.ThreadUtil;
+import org.testng.internal.thread.VirtualThreadPoolExecutorFactory;
+import org.testng.internal.thread.VirtualThreads;
+import org.testng.thread.IExecutorFactory;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlSuite.ParallelExecutor;
+import org.testng.xml.internal.Parser;
+import test.SimpleBaseTest;
+
+public class VirtualThreadExecutorTest extends SimpleBaseTest {
+
+  @Test
+  public void testParallelMethodsRunOnVirtualThreads() {
+    VirtualThreadSample.reset();
+    TestNG tng = create(VirtualThreadSample.class);
+    tng.setParallel(XmlSuite.ParallelMode.METHODS);
+    tng.setThreadCount(2);
+    tng.setDataProviderThreadCount(3);
+    tng.setParallelExecutor(ParallelExecutor.VIRTUAL);
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(VirtualThreadSample.THREADS).isNotEmpty();
+    for (Thread thread : VirtualThreadSample.THREADS) {
+      assertThat(thread.getName()).startsWith(ThreadUtil.THREAD_NAME);
+      assertThat(VirtualThreads.isVirtual(thread)).isEqualTo(VirtualThreads.isSupported());
+    }
+  }
+
+  @Test
+  public void testThreadCountLimitsConcurrency() {
+    VirtualThreadSample.reset();
+    XmlSuite suite = createXmlSuite("suite");
+    suite.setParallel(XmlSuite.ParallelMode.METHODS);
+    suite.setThreadCount(2);
+    suite.setDataProviderThreadCount(1);
+    suite.setParallelExecutor(ParallelExecutor.VIRTUAL);
+    createXmlTest(suite, "test", VirtualThreadSample.class);
+    TestNG tng = create(suite);
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(VirtualThreadSample.MAX_CONCURRENCY.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void testParallelExecutorIsReadFromXml() throws IOException {
+    XmlSuite suite = createXmlSuite("suite");
+    suite.setParallelExecutor(ParallelExecutor.VIRTUAL);
+    String xml = suite.toXml();
+    assertThat(xml).contains("parallel-executor=\"virtual\"");
+
+    Parser parser = new Parser(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    XmlSuite parsed = parser.parseToList().get(0);
+    assertThat(parsed.getParallelExecutor()).isEqualTo(ParallelExecutor.VIRTUAL);
+    assertThat(parsed.shallowCopy().getParallelExecutor()).isEqualTo(ParallelExecutor.VIRTUAL);
+  }
+
+  @Test
+  public void testPlatformIsTheDefault() {
+    XmlSuite suite = createXmlSuite("suite");
+    assertThat(suite.getParallelExecutor()).isEqualTo(ParallelExecutor.PLATFORM);
+    assertThat(suite.toXml()).doesNotContain("parallel-executor");
+  }
+
+  @Test
+  public void testUnsetExecutorIsNotWritten() {
+    XmlSuite suite = createXmlSuite("suite");
+    suite.setParallelExecutor(null);
+    assertThat(suite.toXml()).doesNotContain("parallel-executor");
+  }
+
+  @Test
+  public void testConfiguredExecutorFactoryWins() {
+    XmlSuite suite = createXmlSuite("suite");
+    suite.setParallelExecutor(ParallelExecutor.VIRTUAL);
+    IExecutorFactory configured = new DefaultThreadPoolExecutorFactory() {};
+
+    assertThat(VirtualThreadPoolExecutorFactory.select(suite, configured)).isSameAs(configured);
+    IExecutorFactory selected =
+        VirtualThreadPoolExecutorFactory.select(suite, new DefaultThreadPoolExecutorFactory());
+    assertThat(selected).isInstanceOf(VirtualThreadPoolExecutorFactory.class);
+    suite.setParallelExecutor(ParallelExecutor.PLATFORM);
+    assertThat(VirtualThreadPoolExecutorFactory.select(suite, configured)).isSameAs(configured);
+  }
+
+  @Test
+  public void testInvalidParallelExecutorIsRejected() {
+    assertThatThrownBy(() -> ParallelExecutor.getValidExecutor("green"))
+        .isInstanceOf(TestNGException.class)
+        .hasMessageContaining("green")
+        .hasMessageContaining("[platform, virtual]");
+    assertThat(ParallelExecutor.getValidExecutor("Virtual")).isEqualTo(ParallelExecutor.VIRTUAL);
+  }
+}
@@ -0,0 +1,63 @@
+package test.thread.virtual;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class VirtualThreadSample {
+
+  public static final Set<Thread> THREADS = ConcurrentHashMap.newKeySet();
+  public static final AtomicInteger MAX_CONCURRENCY = new AtomicInteger();
+  private static final AtomicInteger running = new AtomicInteger();
+
+  public static void reset() {
+    THREADS.clear();
+    MAX_CONCURRENCY.set(0);
+    running.set(0);
+  }
+
+  @Test
+  public void a() throws InterruptedException {
+    work();
+  }
+
+  @Test
+  public void b() throws InterruptedException {
+    work();
+  }
+
+  @Test
+  public void c() throws InterruptedException {
+    work();
+  }
+
+  @Test
+  public void d() throws InterruptedException {
+    work();
+  }
+
+  @Test(timeOut = 10_000)
+  public void withTimeOut() throws InterruptedException {
+    work();
+  }
+
+  @Test(dataProvider = "dp")
+  public void withDataProvider(int i) throws InterruptedException {
+    work();
+  }
+
+  @DataProvider(parallel = true)
+  public Object[][] dp() {
+    return new Object[][] {{1}, {2}, {3}, {4}, {5}, {6}};
+  }
+
+  private static void work() throws InterruptedException {
+    THREADS.add(Thread.currentThread());
+    MAX_CONCURRENCY.accumulateAndGet(running.incrementAndGet(), Math::max);
+    TimeUnit.MILLISECONDS.sleep(50);
+    running.decrementAndGet();
+  }
+}
@@ -0,0 +1,147 @@
+package test.timeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.testng.IReporter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.internal.RuntimeBehavior;
+import org.testng.util.Timeline;
+import org.testng.util.Timeline.Phase;
+import org.testng.xml.XmlPackage;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import test.SimpleBaseTest;
+import test.timeline.samples.TimelineSample;
+
+public class TimelineTest extends SimpleBaseTest {
+
+  @Test(description = "The startup and the teardown phases of a run are recorded in its timeline")
+  public void phasesAreRecorded() {
+    TestNG tng = create(TimelineSample.class);
+    tng.addListener(new IReporter() {});
+    tng.run();
+
+    List<Timeline.Event> events = tng.getTimeline().getEvents();
+    assertThat(phasesOf(events))
+        .contains(
+            Phase.SUITE_PARSING,
+            Phase.LISTENER_INITIALIZATION,
+            Phase.EXECUTION_LISTENERS,
+            Phase.CLASS_FINDING,
+            Phase.INSTANCE_CREATION,
+            Phase.GRAPH_BUILDING,
+            Phase.EXECUTION,
+            Phase.REPORT_GENERATION)
+        .doesNotContain(Phase.CLASSPATH_SCANNING);
+    assertThat(namesOf(events, Phase.INSTANCE_CREATION))
+        .contains(TimelineSample.class.getName() + ".<init>");
+    for (int i = 1; i < events.size(); i++) {
+      assertThat(events.get(i).getStartNanos())
+          .isGreaterThanOrEqualTo(events.get(i - 1).getStartNanos());
+    }
+    Timeline.Event execution = eventOf(events, Phase.EXECUTION);
+    Timeline.Event graph = eventOf(events, Phase.GRAPH_BUILDING);
+    assertThat(graph.getStartNanos()).isGreaterThanOrEqualTo(execution.getStartNanos());
+    assertThat(eventOf(events, Phase.REPORT_GENERATION).getStartNanos())
+        .isGreaterThanOrEqualTo(execution.getStartNanos() + execution.getDurationNanos());
+  }
+
+  @Test(description = "A phase started within another one suspends it")
+  public void nestedPhasesSuspendTheOuterOne() {
+    Timeline timeline = new Timeline();
+    try (Timeline.Span outer = timeline.start(Phase.CLASS_FINDING, "outer")) {
+      try (Timeline.Span inner = timeline.start(Phase.INSTANCE_CREATION, "inner")) {
+        // Nothing to do
+      }
+    }
+    List<Timeline.Event> events = timeline.getEvents();
+    assertThat(phasesOf(events))
+        .containsExactly(Phase.CLASS_FINDING, Phase.INSTANCE_CREATION, Phase.CLASS_FINDING);
+    assertThat(namesOf(events, Phase.CLASS_FINDING)).containsExactly("outer", "outer");
+    assertNoOverlap(events);
+  }
+
+  @Test(description = "The phases of a thread never overlap, so that no time is counted twice")
+  public void phasesOfAThreadDontOverlap() {
+    TestNG tng = create(TimelineSample.class);
+    tng.run();
+
+    List<Timeline.Event> events = tng.getTimeline().getEvents();
+    events.stream()
+        .collect(Collectors.groupingBy(Timeline.Event::getThreadName))
+        .values()
+        .forEach(TimelineTest::assertNoOverlap);
+    // The class finding was suspended while the factory ran.
+    assertThat(namesOf(events, Phase.CLASS_FINDING)).hasSizeGreaterThan(1);
+  }
+
+  @Test(description = "The scanning of the classpath for the packages is recorded")
+  public void classpathScanningIsRecorded() {
+    XmlSuite suite = createXmlSuite("Timeline");
+    XmlTest test = createXmlTest(suite, "Packages");
+    test.setPackages(
+        Collections.singletonList(new XmlPackage(TimelineSample.class.getPackage().getName())));
+    TestNG tng = create(suite);
+    tng.run();
+
+    assertThat(namesOf(tng.getTimeline().getEvents(), Phase.CLASSPATH_SCANNING))
+        .containsExactly("Packages");
+  }
+
+  @Test(description = "The timeline is written to the file named by a system property")
+  public void timelineIsWrittenToFile() throws Exception {
+    File file = File.createTempFile("timeline", ".tsv");
+    file.deleteOnExit();
+    System.setProperty(RuntimeBehavior.TESTNG_TIMELINE_FILE, file.getAbsolutePath());
+    TestNG tng;
+    try {
+      tng = create(TimelineSample.class);
+      tng.run();
+    } finally {
+      System.clearProperty(RuntimeBehavior.TESTNG_TIMELINE_FILE);
+    }
+
+    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    assertThat(lines.get(0)).isEqualTo("# TestNG timeline 1");
+    List<String> events =
+        lines.stream().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+    assertThat(events).hasSize(tng.getTimeline().getEvents().size());
+    for (String event : events) {
+      String[] columns = event.split("\t");
+      assertThat(columns).hasSize(5);
+      assertThat(Phase.valueOf(columns[0])).isNotNull();
+      assertThat(Double.parseDouble(columns[3])).isGreaterThanOrEqualTo(0d);
+      assertThat(Double.parseDouble(columns[4])).isGreaterThanOrEqualTo(0d);
+    }
+  }
+
+  private static void assertNoOverlap(List<Timeline.Event> events) {
+    for (int i = 1; i < events.size(); i++) {
+      Timeline.Event previous = events.get(i - 1);
+      assertThat(events.get(i).getStartNanos())
+          .isGreaterThanOrEqualTo(previous.getStartNanos() + previous.getDurationNanos());
+    }
+  }
+
+  private static List<Phase> phasesOf(List<Timeline.Event> events) {
+    return events.stream().map(Timeline.Event::getPhase).collect(Collectors.toList());
+  }
+
+  private static List<String> namesOf(List<Timeline.Event> events, Phase phase) {
+    return events.stream()
+        .filter(event -> event.getPhase() == phase)
+        .map(Timeline.Event::getName)
+        .collect(Collectors.toList());
+  }
+
+  private static Timeline.Event eventOf(List<Timeline.Event> events, Phase phase) {
+    return events.stream().filter(event -> event.getPhase() == phase).findFirst().get();
+  }
+}
@@ -0,0 +1,11 @@
+package test.timeline.samples;
+
+import org.testng.annotations.DataProvider;
+
+public class IndexProvider {
+
+  @DataProvider(name = "indexes")
+  public static Object[][] indexes() {
+    return new Object[][] {{1}, {2}};
+  }
+}
@@ -0,0 +1,22 @@
+package test.timeline.samples;
+
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+public class TimelineSample {
+
+  private final int m_index;
+
+  @Factory(dataProvider = "indexes", dataProviderClass = IndexProvider.class)
+  public TimelineSample(int index) {
+    m_index = index;
+  }
+
+  @Test
+  public void test() {}
+
+  @Override
+  public String toString() {
+    return "TimelineSample" + m_index;
+  }
+}
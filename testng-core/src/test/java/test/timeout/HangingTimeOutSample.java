@@ -0,0 +1,20 @@
+package test.timeout;
+
+import org.testng.annotations.Test;
+
+public class HangingTimeOutSample {
+
+  @Test(timeOut = 10_000)
+  public void before() {}
+
+  @Test(timeOut = 100, dependsOnMethods = "before")
+  public void hang() {
+    long until = System.currentTimeMillis() + 1_000;
+    while (System.currentTimeMillis() < until) {
+      // Ignores the interrupt of the time-out.
+    }
+  }
+
+  @Test(timeOut = 10_000, dependsOnMethods = "hang", alwaysRun = true)
+  public void after() {}
+}
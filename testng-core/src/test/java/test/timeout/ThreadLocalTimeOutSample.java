@@ -0,0 +1,26 @@
+package test.timeout;
+
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+public class ThreadLocalTimeOutSample {
+
+  public static final ThreadLocal<String> LOCAL = new ThreadLocal<>();
+  public static final InheritableThreadLocal<String> INHERITED = new InheritableThreadLocal<>();
+
+  public static volatile String local;
+  public static volatile String inherited;
+  public static volatile String currentMethod;
+
+  @Test(timeOut = 10_000)
+  public void first() {
+    LOCAL.set("first");
+  }
+
+  @Test(timeOut = 10_000, dependsOnMethods = "first")
+  public void second() {
+    local = LOCAL.get();
+    inherited = INHERITED.get();
+    currentMethod = Reporter.getCurrentTestResult().getMethod().getMethodName();
+  }
+}
@@ -0,0 +1,19 @@
+package test.timeout;
+
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TimedDataProviderSample {
+
+  public static final int ROWS = 2_000;
+
+  @DataProvider
+  public Iterator<Object[]> rows() {
+    return IntStream.range(0, ROWS).mapToObj(i -> new Object[] {i}).iterator();
+  }
+
+  @Test(dataProvider = "rows", timeOut = 10_000)
+  public void timedMethod(int row) {}
+}
@@ -0,0 +1,98 @@
+package test.timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.testng.TestNG;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.testng.internal.thread.TimeoutService;
+import org.testng.xml.XmlSuite;
+import test.SimpleBaseTest;
+
+public class TimeoutServiceTest extends SimpleBaseTest {
+
+  @Test
+  public void testExpiredDeadlineInterruptsItsThread() {
+    TimeoutService.Deadline deadline =
+        TimeoutService.getInstance().watch(Thread.currentThread(), 50);
+    boolean interrupted = false;
+    try {
+      TimeUnit.SECONDS.sleep(10);
+    } catch (InterruptedException e) {
+      interrupted = true;
+    }
+    assertThat(interrupted).isTrue();
+    assertThat(deadline.hasExpired()).isTrue();
+    assertThat(deadline.cancel()).isFalse();
+  }
+
+  @Test
+  public void testCancelledDeadlineDoesNotInterruptItsThread() throws InterruptedException {
+    TimeoutService.Deadline deadline =
+        TimeoutService.getInstance().watch(Thread.currentThread(), 50);
+    assertThat(deadline.cancel()).isTrue();
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    assertThat(deadline.hasExpired()).isFalse();
+  }
+
+  @Test(
+      dataProvider = "parallelModes",
+      description =
+          "The timed invocations on the TestNG threads don't start any thread, the other ones"
+              + " share one runner thread and no monitor thread")
+  public void testTimedInvocationsOnlyStartOneRunnerThread(
+      XmlSuite.ParallelMode parallel, int startedThreads) {
+    TimeoutService service = TimeoutService.getInstance();
+    service.release();
+    TestNG tng = create(TimedDataProviderSample.class);
+    tng.setParallel(parallel);
+    tng.setThreadCount(4);
+
+    long startedBefore = service.getStartedThreadCount();
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(0);
+    assertThat(service.getStartedThreadCount() - startedBefore).isEqualTo(startedThreads);
+  }
+
+  @Test(
+      description =
+          "The timed invocations see the thread locals the way they would on the calling thread")
+  public void testThreadLocalsAreSharedLikeOnTheCallingThread() {
+    TimeoutService.getInstance().release();
+    ThreadLocalTimeOutSample.INHERITED.set("invoker");
+    try {
+      TestNG tng = create(ThreadLocalTimeOutSample.class);
+      tng.run();
+
+      assertThat(tng.getStatus()).isEqualTo(0);
+      assertThat(ThreadLocalTimeOutSample.local).isEqualTo("first");
+      assertThat(ThreadLocalTimeOutSample.inherited).isEqualTo("invoker");
+      assertThat(ThreadLocalTimeOutSample.currentMethod).isEqualTo("second");
+    } finally {
+      ThreadLocalTimeOutSample.INHERITED.remove();
+    }
+  }
+
+  @Test(
+      description = "The runner of a method that ignores the interrupt of its time-out is replaced")
+  public void testHangingInvocationIsLeftToItsRunner() {
+    TimeoutService service = TimeoutService.getInstance();
+    service.release();
+    TestNG tng = create(HangingTimeOutSample.class);
+
+    long startedBefore = service.getStartedThreadCount();
+    tng.run();
+
+    assertThat(tng.getStatus()).isEqualTo(1);
+    // One runner until the hang, another one for the methods that follow.
+    assertThat(service.getStartedThreadCount() - startedBefore).isEqualTo(2);
+  }
+
+  @DataProvider(name = "parallelModes")
+  public Object[][] parallelModes() {
+    return new Object[][] {{XmlSuite.ParallelMode.NONE, 1}, {XmlSuite.ParallelMode.METHODS, 0}};
+  }
+}
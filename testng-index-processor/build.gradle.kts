@@ -0,0 +1,6 @@
+plugins {
+    // Not published until the index is shown to speed up the discovery.
+    id("testng.java-library")
+}
+
+description = "Annotation processor writing an index of the TestNG test classes at compile time"
@@ -0,0 +1,312 @@
+package org.testng.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes <code>META-INF/testng/index</code>, which describes the classes and the interfaces being
+ * compiled as far as TestNG is concerned: the TestNG annotations of each class and of its methods
+ * and public constructors. With <code>-Dtestng.test.index=true</code>, TestNG reads it instead of
+ * looking the annotations up by reflection, for the classes whose class file is still the one that
+ * was compiled along with the index.
+ *
+ * <p>The processor has to be on the annotation processor path of the compilation of the tests. It
+ * isn't published yet, until the index is shown to make the discovery faster. The class files are
+ * stamped once javac has written them, so the index is only of use to the classes compiled by javac
+ * 9 or later.
+ *
+ * <p>The file is made of tab separated lines. A <code>class</code> line gives the name of a class,
+ * the CRC-32 of its class file (or <code>-</code> if it isn't known) and its annotations, and is
+ * followed by a <code>method</code> or a <code>constructor</code> line for each of its annotated
+ * members, which give their signature and their annotations.
+ */
+public class TestIndexProcessor extends AbstractProcessor {
+
+  public static final String RESOURCE = "META-INF/testng/index";
+  public static final String HEADER = "# TestNG test index 2";
+  /** The stamp of the classes whose class file couldn't be read. */
+  public static final String NO_STAMP = "-";
+
+  private static final String ANNOTATIONS_PACKAGE = "org.testng.annotations.";
+
+  /** The classes, by class name, accumulated over the rounds. */
+  private final Map<String, IndexedType> m_classes = new TreeMap<>();
+
+  /** The index, once it's written to the file system. */
+  private Path m_index;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    try {
+      CompilationListener.install(processingEnv, this::stamp);
+    } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+      // Not javac: the classes aren't stamped, and TestNG inspects them by reflection.
+    }
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    // The classes without annotations are indexed too, as superclasses they have to be known.
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getRootElements()) {
+      index(element);
+    }
+    if (roundEnv.processingOver()) {
+      write();
+    }
+    return false;
+  }
+
+  private void index(Element element) {
+    if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.INTERFACE) {
+      return;
+    }
+    TypeElement type = (TypeElement) element;
+    String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+    IndexedType indexed = new IndexedType(annotationsOf(type));
+    for (Element member : type.getEnclosedElements()) {
+      if (member.getKind() == ElementKind.METHOD) {
+        ExecutableElement method = (ExecutableElement) member;
+        String methodAnnotations = annotationsOf(method);
+        if (!methodAnnotations.isEmpty()) {
+          String methodSignature = method.getSimpleName() + parametersOf(method, null);
+          indexed.m_members.add(line("method", methodSignature, methodAnnotations));
+        }
+      } else if (member.getKind() == ElementKind.CONSTRUCTOR
+          && member.getModifiers().contains(Modifier.PUBLIC)) {
+        ExecutableElement constructor = (ExecutableElement) member;
+        String constructorAnnotations = annotationsOf(constructor);
+        if (!constructorAnnotations.isEmpty()) {
+          String constructorSignature = "<init>" + parametersOf(constructor, type);
+          indexed.m_members.add(line("constructor", constructorSignature, constructorAnnotations));
+        }
+      } else {
+        index(member);
+      }
+    }
+    m_classes.put(name, indexed);
+  }
+
+  /**
+   * @return the erased parameter types of a method or a constructor, e.g. <code>
+   *     (int,java.lang.String[])</code>, with the enclosing instance of an inner class first
+   */
+  private String parametersOf(ExecutableElement executable, TypeElement innerClass) {
+    List<String> types = new ArrayList<>();
+    if (innerClass != null
+        && innerClass.getNestingKind() == NestingKind.MEMBER
+        && !innerClass.getModifiers().contains(Modifier.STATIC)
+        && innerClass.getKind() == ElementKind.CLASS) {
+      types.add(typeName(innerClass.getEnclosingElement().asType()));
+    }
+    for (VariableElement parameter : executable.getParameters()) {
+      types.add(typeName(parameter.asType()));
+    }
+    return "(" + String.join(",", types) + ")";
+  }
+
+  /** @return the name of a type as given by <code>Class.getName()</code>, arrays aside. */
+  private String typeName(TypeMirror type) {
+    TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+    switch (erasure.getKind()) {
+      case ARRAY:
+        return typeName(((ArrayType) erasure).getComponentType()) + "[]";
+      case DECLARED:
+        TypeElement element = (TypeElement) ((DeclaredType) erasure).asElement();
+        return processingEnv.getElementUtils().getBinaryName(element).toString();
+      default:
+        return erasure.toString();
+    }
+  }
+
+  /** @return the sorted simple names of the TestNG annotations of an element, comma separated. */
+  private static String annotationsOf(Element element) {
+    Set<String> result = new TreeSet<>();
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      String name = annotationName(annotation);
+      if (name != null) {
+        result.add(name);
+      }
+    }
+    return String.join(",", result);
+  }
+
+  /** @return the simple name of a TestNG annotation, or null if it isn't one. */
+  private static String annotationName(AnnotationMirror annotation) {
+    TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+    String name = type.getQualifiedName().toString();
+    if (!name.startsWith(ANNOTATIONS_PACKAGE)) {
+      return null;
+    }
+    return name.substring(ANNOTATIONS_PACKAGE.length());
+  }
+
+  private static String line(String kind, String name, String annotations) {
+    return kind + '\t' + name + '\t' + annotations;
+  }
+
+  /** Writes the index without the stamps, which are only known once the classes are written. */
+  private void write() {
+    if (m_classes.isEmpty()) {
+      return;
+    }
+    try {
+      FileObject file =
+          processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE);
+      try (Writer writer = file.openWriter()) {
+        write(writer, name -> NO_STAMP);
+      }
+      if ("file".equals(file.toUri().getScheme())) {
+        m_index = Paths.get(file.toUri());
+      }
+    } catch (IOException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.WARNING, "Couldn't write " + RESOURCE + ": " + e);
+    }
+  }
+
+  /** Writes the index again, with the CRC-32 of the class files that javac wrote. */
+  private void stamp() {
+    if (m_index == null) {
+      return;
+    }
+    Path root = m_index.getParent().getParent().getParent();
+    try (Writer writer = Files.newBufferedWriter(m_index, StandardCharsets.UTF_8)) {
+      write(writer, name -> crcOf(root.resolve(name.replace('.', '/') + ".class")));
+    } catch (IOException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.WARNING, "Couldn't stamp " + RESOURCE + ": " + e);
+    }
+  }
+
+  private void write(Writer writer, Function<String, String> stamps) throws IOException {
+    writer.write(HEADER);
+    writer.write('\n');
+    for (Map.Entry<String, IndexedType> entry : m_classes.entrySet()) {
+      String name = entry.getKey();
+      IndexedType indexed = entry.getValue();
+      writer.write(line("class", name + '\t' + stamps.apply(name), indexed.m_annotations));
+      writer.write('\n');
+      for (String member : indexed.m_members) {
+        writer.write(member);
+        writer.write('\n');
+      }
+    }
+  }
+
+  /** @return the CRC-32 of a class file, as an hexadecimal string. */
+  static String crcOf(Path classFile) {
+    try {
+      CRC32 crc = new CRC32();
+      crc.update(Files.readAllBytes(classFile));
+      return Long.toHexString(crc.getValue());
+    } catch (IOException e) {
+      return NO_STAMP;
+    }
+  }
+
+  /** The TestNG annotations of a class and the lines of its annotated members. */
+  private static final class IndexedType {
+
+    private final String m_annotations;
+    private final List<String> m_members = new ArrayList<>();
+
+    IndexedType(String annotations) {
+      m_annotations = annotations;
+    }
+  }
+
+  /**
+   * Stamps the index once javac is done writing the class files. The task API of javac is looked
+   * up reflectively, since it's in the <code>tools.jar</code> of Java 8 rather than in the JDK.
+   */
+  private static final class CompilationListener implements InvocationHandler {
+
+    private final Runnable m_onCompiled;
+
+    private CompilationListener(Runnable onCompiled) {
+      m_onCompiled = onCompiled;
+    }
+
+    static void install(ProcessingEnvironment processingEnv, Runnable onCompiled)
+        throws ReflectiveOperationException {
+      ClassLoader loader = processingEnv.getClass().getClassLoader();
+      Class<?> javacTask = Class.forName("com.sun.source.util.JavacTask", false, loader);
+      Class<?> taskListener = Class.forName("com.sun.source.util.TaskListener", false, loader);
+      Object task =
+          javacTask.getMethod("instance", ProcessingEnvironment.class).invoke(null, processingEnv);
+      Object listener =
+          Proxy.newProxyInstance(
+              loader, new Class<?>[] {taskListener}, new CompilationListener(onCompiled));
+      javacTask.getMethod("addTaskListener", taskListener).invoke(task, listener);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "finished":
+          // TaskEvent.Kind.COMPILATION only exists since Java 9.
+          Object kind = args[0].getClass().getMethod("getKind").invoke(args[0]);
+          if ("COMPILATION".equals(((Enum<?>) kind).name())) {
+            m_onCompiled.run();
+          }
+          return null;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return CompilationListener.class.getName();
+        default:
+          // started(TaskEvent)
+          return null;
+      }
+    }
+  }
+}